@@ -0,0 +1,157 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.benchmark;
+
+import java.net.URI;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.onap.cps.event.model.Content;
+import org.onap.cps.event.model.CpsDataUpdatedEvent;
+import org.onap.cps.event.model.Data;
+import org.onap.cps.temporal.domain.NetworkData;
+import org.onap.cps.temporal.domain.Operation;
+
+/**
+ * Fixtures of RAN network data, shaped like the O-RAN network model of a near-RT RIC with its DU cells.
+ * Payloads are built deterministically, their size growing with the number of cells.
+ */
+public final class RanPayloadFixtures {
+
+    public static final String DATASPACE_NAME = "NFP-Operational";
+    public static final String SCHEMA_SET_NAME = "ran-network-schema-set";
+    public static final OffsetDateTime OBSERVED_TIMESTAMP =
+        OffsetDateTime.of(2021, 7, 22, 1, 0, 0, 0, ZoneOffset.UTC);
+
+    private static final DateTimeFormatter EVENT_TIMESTAMP_FORMATTER =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+    private static final int CELLS_PER_DU = 16;
+
+    private RanPayloadFixtures() {
+    }
+
+    /**
+     * Build a valid data updated event for the specified anchor.
+     *
+     * @param anchorName the anchor name
+     * @param cellCount  the number of cells in the event data
+     * @return the event
+     */
+    public static CpsDataUpdatedEvent buildEvent(final String anchorName, final int cellCount) {
+        final var data = new Data();
+        data.withAdditionalProperty("ran-network", buildRanNetwork(cellCount));
+        final var content = new Content()
+            .withObservedTimestamp(EVENT_TIMESTAMP_FORMATTER.format(OBSERVED_TIMESTAMP))
+            .withDataspaceName(DATASPACE_NAME)
+            .withSchemaSetName(SCHEMA_SET_NAME)
+            .withAnchorName(anchorName)
+            .withOperation(Content.Operation.UPDATE)
+            .withData(data);
+        return new CpsDataUpdatedEvent()
+            .withSchema(URI.create("urn:cps:org.onap.cps:data-updated-event-schema:v1"))
+            .withId("77b8f114-4562-4069-8234-6d059ff742ac")
+            .withType("org.onap.cps.data-updated-event")
+            .withSource(URI.create("urn:cps:org.onap.cps"))
+            .withContent(content);
+    }
+
+    /**
+     * Build network data of the specified anchors, observed one second apart from the most recent one.
+     *
+     * @param anchorCount the number of anchors
+     * @param payload     the payload of all the network data
+     * @return the network data
+     */
+    public static List<NetworkData> buildNetworkDataList(final int anchorCount, final String payload) {
+        final List<NetworkData> networkDataList = new ArrayList<>(anchorCount);
+        for (int anchorIndex = 0; anchorIndex < anchorCount; anchorIndex++) {
+            networkDataList.add(NetworkData.builder()
+                .observedTimestamp(OBSERVED_TIMESTAMP.minusSeconds(anchorIndex))
+                .dataspace(DATASPACE_NAME)
+                .schemaSet(SCHEMA_SET_NAME)
+                .anchor(getAnchorName(anchorIndex))
+                .operation(Operation.UPDATE)
+                .payload(payload)
+                .createdTimestamp(OBSERVED_TIMESTAMP.plusSeconds(1))
+                .build());
+        }
+        return networkDataList;
+    }
+
+    public static String getAnchorName(final int anchorIndex) {
+        return String.format("ran-anchor-%05d", anchorIndex);
+    }
+
+    private static Map<String, Object> buildRanNetwork(final int cellCount) {
+        final List<Object> duFunctions = new ArrayList<>();
+        for (int duIndex = 0; duIndex * CELLS_PER_DU < cellCount; duIndex++) {
+            final List<Object> cells = new ArrayList<>();
+            for (int cellIndex = duIndex * CELLS_PER_DU;
+                 cellIndex < Math.min(cellCount, (duIndex + 1) * CELLS_PER_DU); cellIndex++) {
+                cells.add(buildCell(cellIndex));
+            }
+            final Map<String, Object> duFunction = new LinkedHashMap<>();
+            duFunction.put("gNBDUId", duIndex);
+            duFunction.put("gNBId", 1000 + duIndex);
+            duFunction.put("gNBIdLength", 32);
+            duFunction.put("NRCellDU", cells);
+            duFunctions.add(duFunction);
+        }
+        final Map<String, Object> nearRtRic = new LinkedHashMap<>();
+        nearRtRic.put("idNearRTRIC", 22);
+        nearRtRic.put("GNBDUFunction", duFunctions);
+        return Map.of("NearRTRIC", List.of(nearRtRic));
+    }
+
+    private static Map<String, Object> buildCell(final int cellIndex) {
+        final Map<String, Object> plmnInfo = new LinkedHashMap<>();
+        plmnInfo.put("mcc", "310");
+        plmnInfo.put("mnc", "410");
+        plmnInfo.put("sd", "111111");
+        plmnInfo.put("sst", 1);
+        final Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("cellLocalId", cellIndex);
+        attributes.put("administrativeState", "UNLOCKED");
+        attributes.put("operationalState", "ENABLED");
+        attributes.put("cellState", cellIndex % 7 == 0 ? "IDLE" : "ACTIVE");
+        attributes.put("nRPCI", cellIndex % 1008);
+        attributes.put("nRTAC", 5000 + cellIndex / 64);
+        attributes.put("arfcnDL", 629000 + cellIndex % 32);
+        attributes.put("arfcnUL", 629000 + cellIndex % 32);
+        attributes.put("bSChannelBwDL", 100);
+        attributes.put("bSChannelBwUL", 100);
+        attributes.put("ssbFrequency", 630048);
+        attributes.put("ssbPeriodicity", 20);
+        attributes.put("ssbSubCarrierSpacing", 30);
+        attributes.put("ssbOffset", 0);
+        attributes.put("ssbDuration", 1);
+        attributes.put("pLMNInfoList", List.of(plmnInfo));
+        final Map<String, Object> cell = new LinkedHashMap<>();
+        cell.put("idNRCellDU", String.format("Cell-%05d", cellIndex));
+        cell.put("attributes", attributes);
+        return cell;
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka;
+
+import java.util.concurrent.TimeUnit;
+import org.mapstruct.factory.Mappers;
+import org.onap.cps.event.model.CpsDataUpdatedEvent;
+import org.onap.cps.temporal.benchmark.RanPayloadFixtures;
+import org.onap.cps.temporal.controller.event.model.CpsDataUpdatedEventMapper;
+import org.onap.cps.temporal.domain.NetworkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the processing of each data updated event received: envelop validation and mapping to network data,
+ * including the serialization of the event data to the payload.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataUpdatedEventBenchmark {
+
+    @Param({"16", "256", "2048"})
+    private int cellCount;
+
+    private final CpsDataUpdatedEventMapper cpsDataUpdatedEventMapper =
+        Mappers.getMapper(CpsDataUpdatedEventMapper.class);
+
+    private CpsDataUpdatedEvent cpsDataUpdatedEvent;
+
+    @Setup
+    public void setUp() {
+        cpsDataUpdatedEvent = RanPayloadFixtures.buildEvent(RanPayloadFixtures.getAnchorName(0), cellCount);
+    }
+
+    @Benchmark
+    public CpsDataUpdatedEvent validateEventEnvelop() {
+        DataUpdatedEventEnvelopValidator.validateEventEnvelop(cpsDataUpdatedEvent);
+        return cpsDataUpdatedEvent;
+    }
+
+    @Benchmark
+    public NetworkData eventToEntity() {
+        return cpsDataUpdatedEventMapper.eventToEntity(cpsDataUpdatedEvent);
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.TimeUnit;
+import org.mapstruct.factory.Mappers;
+import org.onap.cps.temporal.benchmark.RanPayloadFixtures;
+import org.onap.cps.temporal.controller.rest.QueryController.QueryResponseFactory;
+import org.onap.cps.temporal.controller.rest.model.AnchorDetailsMapper;
+import org.onap.cps.temporal.controller.rest.model.AnchorHistory;
+import org.onap.cps.temporal.controller.rest.model.ChangeCountMapper;
+import org.onap.cps.temporal.controller.rest.model.ContinuationTokenMapper;
+import org.onap.cps.temporal.controller.rest.model.SortMapper;
+import org.onap.cps.temporal.domain.NetworkData;
+import org.onap.cps.temporal.domain.SearchCriteria;
+import org.onap.cps.temporal.domain.SearchCursor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Benchmark of the response created for each history query: records mapping, continuation token and links to the
+ * previous and next records. Links are built within a request, as done when serving queries.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class QueryResponseFactoryBenchmark {
+
+    @Param({"10", "1000"})
+    private int pageSize;
+
+    private final QueryResponseFactory queryResponseFactory = new QueryResponseFactory(new SortMapper(),
+        Mappers.getMapper(AnchorDetailsMapper.class), new ContinuationTokenMapper(),
+        Mappers.getMapper(ChangeCountMapper.class), "/cps-temporal/api");
+
+    private SearchCriteria pageSearchCriteria;
+    private SearchCriteria cursorSearchCriteria;
+    private Slice<NetworkData> searchResult;
+
+    /**
+     * Set up a middle page of search result, with the payload of a DU.
+     *
+     * @throws JsonProcessingException if the payload can not be serialized
+     */
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        final var cpsDataUpdatedEvent = RanPayloadFixtures.buildEvent(RanPayloadFixtures.getAnchorName(0), 16);
+        final var payload = new ObjectMapper().writeValueAsString(cpsDataUpdatedEvent.getContent().getData());
+        pageSearchCriteria = newSearchCriteriaBuilder().pagination(1, pageSize).build();
+        cursorSearchCriteria = newSearchCriteriaBuilder().pagination(0, pageSize)
+            .cursor(new SearchCursor(RanPayloadFixtures.OBSERVED_TIMESTAMP, RanPayloadFixtures.getAnchorName(0)))
+            .build();
+        searchResult = new SliceImpl<>(RanPayloadFixtures.buildNetworkDataList(pageSize, payload),
+            PageRequest.of(1, pageSize), true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public AnchorHistory createPageResponse() {
+        return queryResponseFactory.createAnchorsDataByFilterResponse(pageSearchCriteria, searchResult);
+    }
+
+    @Benchmark
+    public AnchorHistory createCursorResponse() {
+        return queryResponseFactory.createAnchorsDataByFilterResponse(cursorSearchCriteria, searchResult);
+    }
+
+    private static SearchCriteria.Builder newSearchCriteriaBuilder() {
+        return new SearchCriteria.Builder()
+            .dataspaceName(RanPayloadFixtures.DATASPACE_NAME)
+            .schemaSetName(RanPayloadFixtures.SCHEMA_SET_NAME)
+            .observedAfter(RanPayloadFixtures.OBSERVED_TIMESTAMP.minusDays(1));
+    }
+
+}
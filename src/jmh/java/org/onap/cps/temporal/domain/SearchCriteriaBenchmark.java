@@ -0,0 +1,67 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.domain;
+
+import java.util.concurrent.TimeUnit;
+import org.onap.cps.temporal.benchmark.RanPayloadFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the search criteria built for each query request, with and without payload filter to be validated.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchCriteriaBenchmark {
+
+    private static final String SIMPLE_PAYLOAD_FILTER = "{\"ran-network\":{\"NearRTRIC\":[{\"GNBDUFunction\":"
+        + "[{\"NRCellDU\":[{\"attributes\":{\"cellState\":\"IDLE\",\"administrativeState\":\"UNLOCKED\"}}]}]}]}}";
+
+    @Benchmark
+    public SearchCriteria buildWithoutPayloadFilter() {
+        return newSearchCriteriaBuilder().build();
+    }
+
+    @Benchmark
+    public SearchCriteria buildWithPayloadFilter() {
+        return newSearchCriteriaBuilder().simplePayloadFilter(SIMPLE_PAYLOAD_FILTER).build();
+    }
+
+    private static SearchCriteria.Builder newSearchCriteriaBuilder() {
+        return new SearchCriteria.Builder()
+            .dataspaceName(RanPayloadFixtures.DATASPACE_NAME)
+            .schemaSetName(RanPayloadFixtures.SCHEMA_SET_NAME)
+            .observedAfter(RanPayloadFixtures.OBSERVED_TIMESTAMP.minusDays(1))
+            .pagination(0, 1000);
+    }
+
+}
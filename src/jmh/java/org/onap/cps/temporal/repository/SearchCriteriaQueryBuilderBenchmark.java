@@ -0,0 +1,89 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository;
+
+import java.util.concurrent.TimeUnit;
+import org.onap.cps.temporal.benchmark.RanPayloadFixtures;
+import org.onap.cps.temporal.domain.SearchCriteria;
+import org.onap.cps.temporal.domain.SearchCursor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the native query built for each search, for a page number and for a continuation token search.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchCriteriaQueryBuilderBenchmark {
+
+    private SearchCriteria pageSearchCriteria;
+    private SearchCriteria cursorSearchCriteria;
+
+    /**
+     * Set up search criteria with all the conditions.
+     */
+    @Setup
+    public void setUp() {
+        pageSearchCriteria = newSearchCriteriaBuilder().pagination(3, 1000).build();
+        cursorSearchCriteria = newSearchCriteriaBuilder().pagination(0, 1000)
+            .cursor(new SearchCursor(RanPayloadFixtures.OBSERVED_TIMESTAMP, RanPayloadFixtures.getAnchorName(1)))
+            .build();
+    }
+
+    @Benchmark
+    public String buildPageQuery() {
+        return buildQuery(pageSearchCriteria);
+    }
+
+    @Benchmark
+    public String buildCursorQuery() {
+        return buildQuery(cursorSearchCriteria);
+    }
+
+    private static String buildQuery(final SearchCriteria searchCriteria) {
+        final var searchCriteriaQueryBuilder = new SearchCriteriaQueryBuilder(searchCriteria,
+            NetworkDataBatchRepositoryImpl.PAYLOAD_MODE_FULL);
+        searchCriteriaQueryBuilder.buildQuery();
+        return searchCriteriaQueryBuilder.getDataNativeQuery();
+    }
+
+    private static SearchCriteria.Builder newSearchCriteriaBuilder() {
+        return new SearchCriteria.Builder()
+            .dataspaceName(RanPayloadFixtures.DATASPACE_NAME)
+            .schemaSetName(RanPayloadFixtures.SCHEMA_SET_NAME)
+            .observedAfter(RanPayloadFixtures.OBSERVED_TIMESTAMP.minusDays(1))
+            .observedBefore(RanPayloadFixtures.OBSERVED_TIMESTAMP)
+            .simplePayloadFilter("{\"ran-network\":{\"NearRTRIC\":[{\"idNearRTRIC\":22}]}}");
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.onap.cps.event.model.CpsDataUpdatedEvent;
+import org.onap.cps.temporal.controller.event.listener.exception.InvalidEventEnvelopException;
+import org.onap.cps.temporal.controller.event.listener.kafka.IngestMetrics.Outcome;
+import org.onap.cps.temporal.controller.event.listener.kafka.IngestMetrics.Stage;
+import org.onap.cps.temporal.controller.event.model.CpsDataUpdatedEventMapper;
+import org.onap.cps.temporal.domain.NetworkData;
+import org.onap.cps.temporal.domain.NetworkDataInsertResult;
+import org.onap.cps.temporal.service.NetworkDataService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Batch listener for data updated events.
+ * All valid events received from a single poll are persisted together in one transaction. Offsets of the poll
+ * are committed by the container once this listener returns, i.e. only when the whole batch is durable.
+ */
+@Component
+@ConditionalOnProperty(name = "app.listener.data-updated.mode", havingValue = "batch")
+@Slf4j
+public class DataUpdatedEventBatchListener {
+
+    private final NetworkDataService networkDataService;
+    private final CpsDataUpdatedEventMapper cpsDataUpdatedEventMapper;
+    private final IngestMetrics ingestMetrics;
+
+    /**
+     * Constructor.
+     */
+    DataUpdatedEventBatchListener(
+            final NetworkDataService networkDataService, final CpsDataUpdatedEventMapper cpsDataUpdatedEventMapper,
+            final IngestMetrics ingestMetrics) {
+        this.networkDataService = networkDataService;
+        this.cpsDataUpdatedEventMapper = cpsDataUpdatedEventMapper;
+        this.ingestMetrics = ingestMetrics;
+    }
+
+    /**
+     * Consume the specified batch of events.
+     * Invalid events are logged and skipped so that they do not prevent the rest of the batch from being persisted.
+     *
+     * @param consumerRecords the records received from a single poll
+     */
+    @KafkaListener(topics = "${app.listener.data-updated.topic}", batch = "true",
+            properties = {
+                "max.poll.records=${app.listener.data-updated.batch.max-size}",
+                "fetch.max.wait.ms=${app.listener.data-updated.batch.max-wait-ms}",
+                "fetch.min.bytes=${app.listener.data-updated.batch.min-bytes}"
+            })
+    public void consume(final List<ConsumerRecord<String, CpsDataUpdatedEvent>> consumerRecords) {
+
+        log.debug("Receiving batch of {} events ...", consumerRecords.size());
+
+        final List<NetworkData> networkDataList = new ArrayList<>(consumerRecords.size());
+        for (final ConsumerRecord<String, CpsDataUpdatedEvent> consumerRecord : consumerRecords) {
+            final var networkData = toNetworkData(consumerRecord);
+            if (networkData != null) {
+                networkDataList.add(networkData);
+            }
+        }
+
+        if (networkDataList.isEmpty()) {
+            return;
+        }
+        log.debug("Persisting batch of {} network data ...", networkDataList.size());
+        final NetworkDataInsertResult insertResult;
+        try {
+            insertResult = ingestMetrics.record(Stage.PERSISTENCE,
+                () -> this.networkDataService.addNetworkDataList(networkDataList));
+        } catch (final RuntimeException runtimeException) {
+            ingestMetrics.count(Outcome.FAILURE, networkDataList.size());
+            throw runtimeException;
+        }
+        log.debug("Persisted {} network data, {} already existing, {} unchanged and {} late were skipped",
+                insertResult.getInsertedCount(), insertResult.getDuplicateCount(), insertResult.getUnchangedCount(),
+                insertResult.getLateCount());
+        ingestMetrics.countAdded(networkDataList.size(), insertResult);
+    }
+
+    private NetworkData toNetworkData(final ConsumerRecord<String, CpsDataUpdatedEvent> consumerRecord) {
+        final var cpsDataUpdatedEvent = consumerRecord.value();
+        if (cpsDataUpdatedEvent == null) {
+            log.error("Failed to process record {} at partition {} and offset {}. Event could not be deserialized.",
+                    consumerRecord.key(), consumerRecord.partition(), consumerRecord.offset());
+            ingestMetrics.count(Outcome.DESERIALIZATION_FAILURE);
+            return null;
+        }
+        try {
+            ingestMetrics.record(Stage.VALIDATION,
+                () -> DataUpdatedEventEnvelopValidator.validateEventEnvelop(cpsDataUpdatedEvent));
+        } catch (final InvalidEventEnvelopException invalidEventEnvelopException) {
+            log.error("Failed to process record at partition {} and offset {}. Error cause is {}.",
+                    consumerRecord.partition(), consumerRecord.offset(), invalidEventEnvelopException.getMessage());
+            ingestMetrics.count(Outcome.INVALID_ENVELOP);
+            return null;
+        }
+        return ingestMetrics.record(Stage.MAPPING,
+            () -> this.cpsDataUpdatedEventMapper.eventToEntity(cpsDataUpdatedEvent));
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bulk load configuration of data updated events, loaded at startup before events are consumed.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.listener.data-updated.bulk-load")
+@Getter
+@Setter
+public class DataUpdatedEventBulkLoadProperties {
+
+    enum Source {
+        KAFKA, FILE
+    }
+
+    /**
+     * Load events in bulk at startup, before consuming events as configured by the listener mode.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Source of the events: the data updated topic or NDJSON files.
+     */
+    private Source source = Source.KAFKA;
+
+    /**
+     * Time from which events are loaded from the topic, taking precedence over the start offset.
+     */
+    private OffsetDateTime startTimestamp;
+
+    /**
+     * Offset from which events are loaded on each partition of the topic. Events are loaded from the committed
+     * offsets of the consumer group if neither start timestamp nor start offset is set.
+     */
+    private Long startOffset;
+
+    /**
+     * NDJSON files from which events are loaded, one event per line.
+     */
+    private List<String> files = new ArrayList<>();
+
+    /**
+     * Number of events copied to the database in one transaction.
+     */
+    private int chunkSize = 50_000;
+
+    /**
+     * Drop the payload index during the load and rebuild it once all events are loaded.
+     */
+    private boolean deferPayloadIndex = false;
+
+}
@@ -0,0 +1,333 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.onap.cps.event.model.CpsDataUpdatedEvent;
+import org.onap.cps.temporal.controller.event.listener.exception.EventListenerException;
+import org.onap.cps.temporal.controller.event.listener.exception.InvalidEventEnvelopException;
+import org.onap.cps.temporal.controller.event.listener.kafka.DataUpdatedEventBulkLoadProperties.Source;
+import org.onap.cps.temporal.controller.event.listener.kafka.IngestMetrics.Outcome;
+import org.onap.cps.temporal.controller.event.listener.kafka.IngestMetrics.Stage;
+import org.onap.cps.temporal.controller.event.model.CpsDataUpdatedEventMapper;
+import org.onap.cps.temporal.domain.NetworkData;
+import org.onap.cps.temporal.service.NetworkDataService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bulk loader of data updated events, for backfill and replay.
+ * Events are read from the data updated topic, up to its end offsets at startup, or from NDJSON files, and copied to
+ * the database by chunks. The loader is started before the listener containers and completes before them, so that
+ * events are then consumed as configured by the listener mode. When loading from the topic, the offsets of the
+ * consumer group are committed after each chunk: the listener resumes after the last event loaded and a restarted
+ * load does not load the committed chunks again.
+ */
+@Component
+@ConditionalOnProperty(name = "app.listener.data-updated.bulk-load.enabled", havingValue = "true")
+@Slf4j
+public class DataUpdatedEventBulkLoader implements SmartLifecycle {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+    private static final String CLIENT_ID_SUFFIX = "-bulk-load";
+    private static final String PAYLOAD_MODE_FULL = "full";
+
+    private final NetworkDataService networkDataService;
+    private final CpsDataUpdatedEventMapper cpsDataUpdatedEventMapper;
+    private final IngestMetrics ingestMetrics;
+    private final ConsumerFactory<String, CpsDataUpdatedEvent> consumerFactory;
+    private final ObjectMapper objectMapper;
+    private final DataUpdatedEventBulkLoadProperties bulkLoadProperties;
+    private final String topic;
+
+    private volatile boolean running;
+    private long eventCount;
+    private long storedCount;
+
+    /**
+     * Constructor.
+     *
+     * @throws IllegalStateException if payloads are not stored full, as they are always copied full
+     */
+    DataUpdatedEventBulkLoader(
+            final NetworkDataService networkDataService, final CpsDataUpdatedEventMapper cpsDataUpdatedEventMapper,
+            final IngestMetrics ingestMetrics, final ConsumerFactory<String, CpsDataUpdatedEvent> consumerFactory,
+            final ObjectMapper objectMapper, final DataUpdatedEventBulkLoadProperties bulkLoadProperties,
+            final @Value("${app.listener.data-updated.topic}") String topic,
+            final @Value("${app.storage.payload.mode}") String payloadMode) {
+        if (!PAYLOAD_MODE_FULL.equals(payloadMode)) {
+            throw new IllegalStateException("Bulk load is only supported with the '" + PAYLOAD_MODE_FULL
+                + "' payload storage mode, but it is '" + payloadMode + "'");
+        }
+        this.networkDataService = networkDataService;
+        this.cpsDataUpdatedEventMapper = cpsDataUpdatedEventMapper;
+        this.ingestMetrics = ingestMetrics;
+        this.consumerFactory = consumerFactory;
+        this.objectMapper = objectMapper;
+        this.bulkLoadProperties = bulkLoadProperties;
+        this.topic = topic;
+    }
+
+    /**
+     * Load all the events, blocking the startup until they are loaded.
+     *
+     * @throws EventListenerException if a file can not be read
+     */
+    @Override
+    public void start() {
+        log.info("Bulk loading data updated events from {} ...", bulkLoadProperties.getSource());
+        final long startTime = System.nanoTime();
+        if (bulkLoadProperties.isDeferPayloadIndex()) {
+            networkDataService.suspendPayloadIndex();
+        }
+        try {
+            if (bulkLoadProperties.getSource() == Source.FILE) {
+                loadFromFiles();
+            } else {
+                loadFromTopic();
+            }
+        } finally {
+            if (bulkLoadProperties.isDeferPayloadIndex()) {
+                networkDataService.rebuildPayloadIndex();
+            }
+            // Latency of bulk copies is not representative of the one of the listener
+            ingestMetrics.resetPersistenceLatency();
+        }
+        log.info("Bulk load completed in {} s: {} events read, {} network data stored", TimeUnit.NANOSECONDS
+            .toSeconds(System.nanoTime() - startTime), eventCount, storedCount);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /*
+    Loaded before listener containers consume events.
+     */
+    @Override
+    public int getPhase() {
+        return AbstractMessageListenerContainer.DEFAULT_PHASE - 1;
+    }
+
+    private void loadFromTopic() {
+        final var consumerProperties = new Properties();
+        consumerProperties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        consumerProperties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG,
+            String.valueOf(bulkLoadProperties.getChunkSize()));
+        try (var consumer = consumerFactory.createConsumer(null, null, CLIENT_ID_SUFFIX, consumerProperties)) {
+            final List<TopicPartition> partitions = consumer.partitionsFor(topic).stream()
+                .map(partitionInfo -> new TopicPartition(topic, partitionInfo.partition()))
+                .collect(Collectors.toList());
+            consumer.assign(partitions);
+            final Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+            seekToStart(consumer, partitions, endOffsets);
+
+            final Set<TopicPartition> remainingPartitions = new HashSet<>(partitions);
+            final List<CpsDataUpdatedEvent> chunk = new ArrayList<>(bulkLoadProperties.getChunkSize());
+            final Map<TopicPartition, OffsetAndMetadata> chunkOffsets = new HashMap<>();
+            while (removeCompletedPartitions(consumer, remainingPartitions, endOffsets)) {
+                for (final ConsumerRecord<String, CpsDataUpdatedEvent> consumerRecord : consumer.poll(POLL_TIMEOUT)) {
+                    final var partition = new TopicPartition(consumerRecord.topic(), consumerRecord.partition());
+                    // Events produced since startup are left to the listener
+                    if (consumerRecord.offset() < endOffsets.get(partition)) {
+                        addToChunk(consumerRecord, chunk);
+                        chunkOffsets.put(partition, new OffsetAndMetadata(consumerRecord.offset() + 1));
+                    }
+                }
+                if (chunk.size() >= bulkLoadProperties.getChunkSize()) {
+                    loadChunk(chunk, consumer, chunkOffsets);
+                }
+            }
+            loadChunk(chunk, consumer, chunkOffsets);
+        }
+    }
+
+    private void seekToStart(final Consumer<?, ?> consumer, final List<TopicPartition> partitions,
+                             final Map<TopicPartition, Long> endOffsets) {
+        if (bulkLoadProperties.getStartTimestamp() != null) {
+            final long startTimestamp = bulkLoadProperties.getStartTimestamp().toInstant().toEpochMilli();
+            consumer.offsetsForTimes(partitions.stream()
+                    .collect(Collectors.toMap(partition -> partition, partition -> startTimestamp)))
+                .forEach((partition, offsetAndTimestamp) -> consumer.seek(partition,
+                    offsetAndTimestamp == null ? endOffsets.get(partition) : offsetAndTimestamp.offset()));
+        } else if (bulkLoadProperties.getStartOffset() != null) {
+            partitions.forEach(partition -> consumer.seek(partition, bulkLoadProperties.getStartOffset()));
+        } else {
+            final Map<TopicPartition, OffsetAndMetadata> committedOffsets =
+                consumer.committed(new HashSet<>(partitions));
+            for (final TopicPartition partition : partitions) {
+                final var committedOffset = committedOffsets.get(partition);
+                if (committedOffset == null) {
+                    consumer.seekToBeginning(List.of(partition));
+                } else {
+                    consumer.seek(partition, committedOffset.offset());
+                }
+            }
+        }
+    }
+
+    /*
+    Partitions read up to their end offsets are paused, so that they are not fetched anymore.
+     */
+    private static boolean removeCompletedPartitions(final Consumer<?, ?> consumer,
+                                                     final Set<TopicPartition> remainingPartitions,
+                                                     final Map<TopicPartition, Long> endOffsets) {
+        final List<TopicPartition> completedPartitions = remainingPartitions.stream()
+            .filter(partition -> consumer.position(partition) >= endOffsets.get(partition))
+            .collect(Collectors.toList());
+        if (!completedPartitions.isEmpty()) {
+            consumer.pause(completedPartitions);
+            remainingPartitions.removeAll(completedPartitions);
+        }
+        return !remainingPartitions.isEmpty();
+    }
+
+    private void addToChunk(final ConsumerRecord<String, CpsDataUpdatedEvent> consumerRecord,
+                            final List<CpsDataUpdatedEvent> chunk) {
+        eventCount++;
+        if (consumerRecord.value() == null) {
+            log.error("Failed to load record {} at partition {} and offset {}. Event could not be deserialized.",
+                consumerRecord.key(), consumerRecord.partition(), consumerRecord.offset());
+            ingestMetrics.count(Outcome.DESERIALIZATION_FAILURE);
+            return;
+        }
+        chunk.add(consumerRecord.value());
+    }
+
+    private void loadChunk(final List<CpsDataUpdatedEvent> chunk, final Consumer<?, ?> consumer,
+                           final Map<TopicPartition, OffsetAndMetadata> chunkOffsets) {
+        loadChunk(chunk);
+        if (!chunkOffsets.isEmpty()) {
+            consumer.commitSync(chunkOffsets);
+            chunkOffsets.clear();
+        }
+    }
+
+    private void loadFromFiles() {
+        final List<CpsDataUpdatedEvent> chunk = new ArrayList<>(bulkLoadProperties.getChunkSize());
+        for (final String file : bulkLoadProperties.getFiles()) {
+            log.info("Bulk loading data updated events from file {} ...", file);
+            try (var reader = Files.newBufferedReader(Path.of(file))) {
+                long lineNumber = 0;
+                for (var line = reader.readLine(); line != null; line = reader.readLine()) {
+                    lineNumber++;
+                    if (!line.isBlank()) {
+                        addToChunk(file, lineNumber, line, chunk);
+                    }
+                    if (chunk.size() >= bulkLoadProperties.getChunkSize()) {
+                        loadChunk(chunk);
+                    }
+                }
+            } catch (final IOException ioException) {
+                throw new EventListenerException("Failed to read data updated events from file " + file, ioException);
+            }
+        }
+        loadChunk(chunk);
+    }
+
+    private void addToChunk(final String file, final long lineNumber, final String line,
+                            final List<CpsDataUpdatedEvent> chunk) {
+        eventCount++;
+        try {
+            chunk.add(objectMapper.readValue(line, CpsDataUpdatedEvent.class));
+        } catch (final JsonProcessingException jsonProcessingException) {
+            log.error("Failed to load line {} of file {}. Event could not be deserialized. Error cause is {}.",
+                lineNumber, file, jsonProcessingException.getOriginalMessage());
+            ingestMetrics.count(Outcome.DESERIALIZATION_FAILURE);
+        }
+    }
+
+    /*
+    Network data are copied in bulk, counted as persisted once stored. Event age is not recorded, loaded events being
+    older than the ones consumed by the listener.
+     */
+    private void loadChunk(final List<CpsDataUpdatedEvent> chunk) {
+        final List<NetworkData> networkDataList = new ArrayList<>(chunk.size());
+        for (final CpsDataUpdatedEvent cpsDataUpdatedEvent : chunk) {
+            final var networkData = toNetworkData(cpsDataUpdatedEvent);
+            if (networkData != null) {
+                networkDataList.add(networkData);
+            }
+        }
+        chunk.clear();
+        if (networkDataList.isEmpty()) {
+            return;
+        }
+        final int storedChunkCount;
+        try {
+            storedChunkCount = ingestMetrics.record(Stage.PERSISTENCE,
+                () -> networkDataService.addNetworkDataInBulk(networkDataList));
+        } catch (final RuntimeException runtimeException) {
+            ingestMetrics.count(Outcome.FAILURE, networkDataList.size());
+            throw runtimeException;
+        }
+        ingestMetrics.count(Outcome.PERSISTED, storedChunkCount);
+        storedCount += storedChunkCount;
+        log.info("Bulk loaded {} network data, {} already existing or invalid were skipped. {} events read so far",
+            storedChunkCount, networkDataList.size() - storedChunkCount, eventCount);
+    }
+
+    private NetworkData toNetworkData(final CpsDataUpdatedEvent cpsDataUpdatedEvent) {
+        try {
+            ingestMetrics.record(Stage.VALIDATION,
+                () -> DataUpdatedEventEnvelopValidator.validateEventEnvelop(cpsDataUpdatedEvent));
+        } catch (final InvalidEventEnvelopException invalidEventEnvelopException) {
+            log.error("Failed to load event {}. Error cause is {}.",
+                cpsDataUpdatedEvent.getId(), invalidEventEnvelopException.getMessage());
+            ingestMetrics.count(Outcome.INVALID_ENVELOP);
+            return null;
+        }
+        return ingestMetrics.record(Stage.MAPPING,
+            () -> cpsDataUpdatedEventMapper.eventToEntity(cpsDataUpdatedEvent));
+    }
+
+}
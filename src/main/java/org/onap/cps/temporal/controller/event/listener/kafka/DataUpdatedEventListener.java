@@ -20,55 +20,44 @@
 
 package org.onap.cps.temporal.controller.event.listener.kafka;
 
-import static org.onap.cps.temporal.controller.event.listener.exception.InvalidEventEnvelopException.InvalidField.ErrorType.MISSING;
-import static org.onap.cps.temporal.controller.event.listener.exception.InvalidEventEnvelopException.InvalidField.ErrorType.UNEXPECTED;
-
-import java.net.URI;
-import java.net.URISyntaxException;
 import lombok.extern.slf4j.Slf4j;
 import org.onap.cps.event.model.CpsDataUpdatedEvent;
-import org.onap.cps.temporal.controller.event.listener.exception.EventListenerException;
 import org.onap.cps.temporal.controller.event.listener.exception.InvalidEventEnvelopException;
+import org.onap.cps.temporal.controller.event.listener.kafka.IngestMetrics.Outcome;
+import org.onap.cps.temporal.controller.event.listener.kafka.IngestMetrics.Stage;
 import org.onap.cps.temporal.controller.event.model.CpsDataUpdatedEventMapper;
+import org.onap.cps.temporal.service.DuplicateNetworkDataException;
 import org.onap.cps.temporal.service.NetworkDataService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StringUtils;
 
 /**
  * Listener for data updated events.
  */
 @Component
+@ConditionalOnProperty(name = "app.listener.data-updated.mode", havingValue = "record", matchIfMissing = true)
 @Slf4j
 public class DataUpdatedEventListener {
 
-    private static final String EVENT_SCHEMA_URN_PREFIX = "urn:cps:org.onap.cps:data-updated-event-schema:v";
-    private static final URI EVENT_SOURCE;
-
-    static {
-        try {
-            EVENT_SOURCE = new URI("urn:cps:org.onap.cps");
-        } catch (final URISyntaxException e) {
-            throw new EventListenerException("Invalid URI for event source.", e);
-        }
-    }
-
-    private static final String EVENT_TYPE = "org.onap.cps.data-updated-event";
-
     private final NetworkDataService networkDataService;
     private final CpsDataUpdatedEventMapper cpsDataUpdatedEventMapper;
+    private final IngestMetrics ingestMetrics;
 
     /**
      * Constructor.
      */
-    public DataUpdatedEventListener(
-            final NetworkDataService networkDataService, final CpsDataUpdatedEventMapper cpsDataUpdatedEventMapper) {
+    DataUpdatedEventListener(
+            final NetworkDataService networkDataService, final CpsDataUpdatedEventMapper cpsDataUpdatedEventMapper,
+            final IngestMetrics ingestMetrics) {
         this.networkDataService = networkDataService;
         this.cpsDataUpdatedEventMapper = cpsDataUpdatedEventMapper;
+        this.ingestMetrics = ingestMetrics;
     }
 
     /**
-     * Consume the specified event.
+     * Consume the specified event. Events already persisted are counted as duplicates and skipped, as they are
+     * received again after a rebalance or a restart.
      *
      * @param cpsDataUpdatedEvent the data updated event to be consumed and persisted.
      */
@@ -77,56 +66,32 @@ public class DataUpdatedEventListener {
 
         log.debug("Receiving {} ...", cpsDataUpdatedEvent);
 
-        // Validate event envelop
-        validateEventEnvelop(cpsDataUpdatedEvent);
-
-        // Map event to entity
-        final var networkData = this.cpsDataUpdatedEventMapper.eventToEntity(cpsDataUpdatedEvent);
-        log.debug("Persisting {} ...", networkData);
-
-        // Persist entity
-        final var persistedNetworkData = this.networkDataService.addNetworkData(networkData);
-        log.debug("Persisted {}", persistedNetworkData);
-
-    }
-
-    private void validateEventEnvelop(final CpsDataUpdatedEvent cpsDataUpdatedEvent) {
-
-        final var invalidEventEnvelopException =
-                new InvalidEventEnvelopException("Validation failure", cpsDataUpdatedEvent);
-
-        // Validate schema
-        if (cpsDataUpdatedEvent.getSchema() == null
-                || !cpsDataUpdatedEvent.getSchema().toString().startsWith(EVENT_SCHEMA_URN_PREFIX)) {
-            invalidEventEnvelopException.addInvalidField(
-                    new InvalidEventEnvelopException.InvalidField(
-                            UNEXPECTED, "schema",
-                            cpsDataUpdatedEvent.getSchema() != null ? cpsDataUpdatedEvent.getSchema().toString() : null,
-                            EVENT_SCHEMA_URN_PREFIX + "99"));
-        }
-        // Validate id
-        if (!StringUtils.hasText(cpsDataUpdatedEvent.getId())) {
-            invalidEventEnvelopException.addInvalidField(
-                    new InvalidEventEnvelopException.InvalidField(
-                            MISSING, "id", null, null));
-        }
-        // Validate source
-        if (!EVENT_SOURCE.equals(cpsDataUpdatedEvent.getSource())) {
-            invalidEventEnvelopException.addInvalidField(
-                    new InvalidEventEnvelopException.InvalidField(
-                            UNEXPECTED, "source",
-                            cpsDataUpdatedEvent.getSource() != null
-                                    ? cpsDataUpdatedEvent.getSource().toString() : null, EVENT_SOURCE.toString()));
-        }
-        // Validate type
-        if (!EVENT_TYPE.equals(cpsDataUpdatedEvent.getType())) {
-            invalidEventEnvelopException.addInvalidField(
-                    new InvalidEventEnvelopException.InvalidField(
-                            UNEXPECTED, "type", cpsDataUpdatedEvent.getType(), EVENT_TYPE));
+        try {
+            // Validate event envelop
+            ingestMetrics.record(Stage.VALIDATION,
+                () -> DataUpdatedEventEnvelopValidator.validateEventEnvelop(cpsDataUpdatedEvent));
+        } catch (final InvalidEventEnvelopException invalidEventEnvelopException) {
+            ingestMetrics.count(Outcome.INVALID_ENVELOP);
+            throw invalidEventEnvelopException;
         }
 
-        if (invalidEventEnvelopException.hasInvalidFields()) {
-            throw invalidEventEnvelopException;
+        try {
+            // Map event to entity
+            final var networkData = ingestMetrics.record(Stage.MAPPING,
+                () -> this.cpsDataUpdatedEventMapper.eventToEntity(cpsDataUpdatedEvent));
+            log.debug("Persisting {} ...", networkData);
+
+            // Persist entity
+            final var persistedNetworkData = ingestMetrics.record(Stage.PERSISTENCE,
+                () -> this.networkDataService.addNetworkData(networkData));
+            log.debug("Persisted {}", persistedNetworkData);
+            ingestMetrics.countAdded(networkData, persistedNetworkData);
+        } catch (final DuplicateNetworkDataException duplicateNetworkDataException) {
+            log.debug("Skipping event already persisted. {}", duplicateNetworkDataException.getMessage());
+            ingestMetrics.count(Outcome.DUPLICATE);
+        } catch (final RuntimeException runtimeException) {
+            ingestMetrics.countFailedToAdd(runtimeException);
+            throw runtimeException;
         }
 
     }
@@ -26,13 +26,28 @@ import org.springframework.stereotype.Component;
 
 /**
  * Class responsible to handle errors for data updated event listener.
+ * When retries are enabled, the exception is thrown back to the container for the event to be forwarded to a retry
+ * topic or to the dead letter topic.
  */
 @Component
 @Slf4j
 class DataUpdatedEventListenerErrorHandler implements KafkaListenerErrorHandler {
 
+    private final boolean retryEnabled;
+
+    DataUpdatedEventListenerErrorHandler(final DataUpdatedEventRetryProperties retryProperties) {
+        this.retryEnabled = retryProperties.isEnabled();
+    }
+
     @Override
     public Object handleError(final Message<?> message, final ListenerExecutionFailedException exception) {
+        if (retryEnabled) {
+            log.warn(
+                    "Failed to process message {}, it is retried or sent to the dead letter topic. Error cause is {}.",
+                    message,
+                    exception.getCause() != null ? exception.getCause().toString() : null);
+            throw exception;
+        }
         log.error(
                 "Failed to process message {}. Error cause is {}.",
                 message,
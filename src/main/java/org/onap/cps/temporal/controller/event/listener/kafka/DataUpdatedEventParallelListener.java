@@ -0,0 +1,186 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka;
+
+import java.time.Duration;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.onap.cps.event.model.CpsDataUpdatedEvent;
+import org.onap.cps.temporal.controller.event.listener.exception.InvalidEventEnvelopException;
+import org.onap.cps.temporal.controller.event.listener.kafka.IngestMetrics.Outcome;
+import org.onap.cps.temporal.controller.event.listener.kafka.IngestMetrics.Stage;
+import org.onap.cps.temporal.controller.event.listener.kafka.ListenerContainerPauses.Reason;
+import org.onap.cps.temporal.controller.event.model.CpsDataUpdatedEventMapper;
+import org.onap.cps.temporal.domain.NetworkData;
+import org.onap.cps.temporal.service.DuplicateNetworkDataException;
+import org.onap.cps.temporal.service.NetworkDataService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Parallel listener for data updated events.
+ * Events are persisted by a pool of workers, events of the same anchor always being persisted by the same worker in
+ * the order they are received. Each record is acknowledged once persisted, and the container only commits the
+ * offset of a partition up to its lowest record not acknowledged yet. Events failing on a transient error are
+ * persisted again by their worker up to the maximum number of attempts, then sent to the dead letter topic, other
+ * failed events are logged and skipped. The container is paused while the queue of a worker is full, its consumer
+ * keeping polling without receiving records.
+ */
+@Component
+@ConditionalOnProperty(name = "app.listener.data-updated.mode", havingValue = "parallel")
+@Slf4j
+public class DataUpdatedEventParallelListener {
+
+    static final String LISTENER_ID = "dataUpdatedEventParallelListener";
+
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final NetworkDataService networkDataService;
+    private final CpsDataUpdatedEventMapper cpsDataUpdatedEventMapper;
+    private final KeyedWorkerPool keyedWorkerPool;
+    private final TransientFailureRetry transientFailureRetry;
+    private final DeadLetterPublisher deadLetterPublisher;
+    private final ListenerContainerPauses listenerContainerPauses;
+    private final IngestMetrics ingestMetrics;
+
+    /**
+     * Constructor.
+     */
+    DataUpdatedEventParallelListener(
+            final NetworkDataService networkDataService, final CpsDataUpdatedEventMapper cpsDataUpdatedEventMapper,
+            final IngestMetrics ingestMetrics, final DataUpdatedEventRetryProperties retryProperties,
+            final DeadLetterPublisher deadLetterPublisher, final ListenerContainerPauses listenerContainerPauses,
+            final @Value("${app.listener.data-updated.parallel.workers}") int workerCount,
+            final @Value("${app.listener.data-updated.parallel.queue-capacity}") int queueCapacity) {
+        this.networkDataService = networkDataService;
+        this.cpsDataUpdatedEventMapper = cpsDataUpdatedEventMapper;
+        this.ingestMetrics = ingestMetrics;
+        this.keyedWorkerPool = new KeyedWorkerPool("data-updated-worker-", workerCount, queueCapacity);
+        this.transientFailureRetry = new TransientFailureRetry(retryProperties, ingestMetrics);
+        this.deadLetterPublisher = deadLetterPublisher;
+        this.listenerContainerPauses = listenerContainerPauses;
+    }
+
+    /**
+     * Consume the specified record, handing it over to the worker of its anchor.
+     * Pauses the container once the queue of this worker is full, the records of the current poll being still
+     * handed over meanwhile.
+     *
+     * @param consumerRecord the record holding the data updated event
+     * @param acknowledgment the acknowledgment of the record
+     */
+    @KafkaListener(id = LISTENER_ID, idIsGroup = false, topics = "${app.listener.data-updated.topic}",
+            containerFactory = ManualAckListenerConfig.CONTAINER_FACTORY)
+    public void consume(final ConsumerRecord<String, CpsDataUpdatedEvent> consumerRecord,
+                        final Acknowledgment acknowledgment) {
+        final var cpsDataUpdatedEvent = consumerRecord.value();
+        if (cpsDataUpdatedEvent == null) {
+            log.error("Failed to process record {} at partition {} and offset {}. Event could not be deserialized.",
+                    consumerRecord.key(), consumerRecord.partition(), consumerRecord.offset());
+            ingestMetrics.count(Outcome.DESERIALIZATION_FAILURE);
+            acknowledgment.acknowledge();
+            return;
+        }
+        try {
+            ingestMetrics.record(Stage.VALIDATION,
+                () -> DataUpdatedEventEnvelopValidator.validateEventEnvelop(cpsDataUpdatedEvent));
+        } catch (final InvalidEventEnvelopException invalidEventEnvelopException) {
+            log.error("Failed to process record at partition {} and offset {}. Error cause is {}.",
+                    consumerRecord.partition(), consumerRecord.offset(), invalidEventEnvelopException.getMessage());
+            ingestMetrics.count(Outcome.INVALID_ENVELOP);
+            acknowledgment.acknowledge();
+            return;
+        }
+        final var networkData = ingestMetrics.record(Stage.MAPPING,
+            () -> cpsDataUpdatedEventMapper.eventToEntity(cpsDataUpdatedEvent));
+        keyedWorkerPool.execute(networkData.getDataspace() + '/' + networkData.getAnchor(), () -> {
+            persist(consumerRecord, networkData, acknowledgment);
+            resumeIfNotSaturated();
+        });
+        pauseIfSaturated();
+    }
+
+    /*
+    Saturation is checked again once paused, as workers may have caught up meanwhile without resuming the container.
+    Otherwise, the worker of the full queue resumes it once caught up.
+     */
+    private void pauseIfSaturated() {
+        if (keyedWorkerPool.isSaturated()) {
+            listenerContainerPauses.pause(LISTENER_ID, Reason.LISTENER_SATURATED);
+            resumeIfNotSaturated();
+        }
+    }
+
+    private void resumeIfNotSaturated() {
+        if (!keyedWorkerPool.isSaturated()) {
+            listenerContainerPauses.resume(LISTENER_ID, Reason.LISTENER_SATURATED);
+        }
+    }
+
+    /*
+    The record is acknowledged once persisted or found already persisted, once failed on the event itself, or once
+    sent to the dead letter topic after the last attempt. It is not acknowledged when the worker is interrupted while
+    waiting to persist it again, so that it is received again after a restart.
+     */
+    private void persist(final ConsumerRecord<String, CpsDataUpdatedEvent> consumerRecord,
+                         final NetworkData networkData, final Acknowledgment acknowledgment) {
+        try {
+            log.debug("Persisting {} ...", networkData);
+            final var persistedNetworkData = transientFailureRetry.execute(
+                "record at partition " + consumerRecord.partition() + " and offset " + consumerRecord.offset(),
+                () -> ingestMetrics.record(Stage.PERSISTENCE, () -> networkDataService.addNetworkData(networkData)));
+            ingestMetrics.countAdded(networkData, persistedNetworkData);
+        } catch (final DuplicateNetworkDataException duplicateNetworkDataException) {
+            log.debug("Skipping record at partition {} and offset {} already persisted.", consumerRecord.partition(),
+                    consumerRecord.offset());
+            ingestMetrics.count(Outcome.DUPLICATE);
+        } catch (final InterruptedException interruptedException) {
+            log.warn("Interrupted before persisting record at partition {} and offset {}, it is not acknowledged.",
+                    consumerRecord.partition(), consumerRecord.offset());
+            Thread.currentThread().interrupt();
+            return;
+        } catch (final RuntimeException runtimeException) {
+            if (TransientFailureRetry.isTransient(runtimeException)) {
+                deadLetterPublisher.publish(consumerRecord, runtimeException);
+            } else {
+                log.error("Failed to persist record at partition {} and offset {}. Error cause is {}.",
+                        consumerRecord.partition(), consumerRecord.offset(), runtimeException.toString(),
+                        runtimeException);
+                ingestMetrics.countFailedToAdd(runtimeException);
+            }
+        }
+        acknowledgment.acknowledge();
+    }
+
+    /**
+     * Let workers persist the events already received before the application stops. Offsets of the ones not
+     * persisted in time are not committed, so that they are received again.
+     */
+    @PreDestroy
+    public void shutdown() {
+        keyedWorkerPool.shutdown(SHUTDOWN_TIMEOUT);
+    }
+
+}
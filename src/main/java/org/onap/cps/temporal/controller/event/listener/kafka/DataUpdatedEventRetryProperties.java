@@ -0,0 +1,69 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Retry configuration of the data updated events failing to be persisted in record listener mode. The backoff
+ * also applies to the events persisted again after a transient error in parallel and write-behind listener modes.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.listener.data-updated.retry")
+@Getter
+@Setter
+public class DataUpdatedEventRetryProperties {
+
+    /**
+     * Retry failed events through retry topics and park them in the dead letter topic. Failed events are only logged
+     * if disabled.
+     */
+    private boolean enabled;
+
+    /**
+     * Maximum number of attempts to persist an event, including the first one.
+     */
+    private int attempts = 4;
+
+    /**
+     * Backoff before the first retry, multiplied by the multiplier for each next retry up to the max interval.
+     */
+    private Duration initialInterval = Duration.ofSeconds(1);
+
+    private double multiplier = 2;
+
+    private Duration maxInterval = Duration.ofMinutes(1);
+
+    /**
+     * Number of partitions of the retry and dead letter topics, when created by the application.
+     */
+    private int topicPartitions = 1;
+
+    /**
+     * Replication factor of the retry and dead letter topics, when created by the application.
+     */
+    private short topicReplicationFactor = 1;
+
+}
@@ -0,0 +1,230 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.onap.cps.event.model.CpsDataUpdatedEvent;
+import org.onap.cps.temporal.controller.event.listener.exception.InvalidEventEnvelopException;
+import org.onap.cps.temporal.controller.event.listener.kafka.IngestMetrics.Outcome;
+import org.onap.cps.temporal.controller.event.listener.kafka.IngestMetrics.Stage;
+import org.onap.cps.temporal.controller.event.listener.kafka.ListenerContainerPauses.Reason;
+import org.onap.cps.temporal.controller.event.model.CpsDataUpdatedEventMapper;
+import org.onap.cps.temporal.domain.NetworkData;
+import org.onap.cps.temporal.service.DuplicateNetworkDataException;
+import org.onap.cps.temporal.service.NetworkDataService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Write-behind listener for data updated events.
+ * Events are added to a buffer, drained by a dedicated writer persisting them by groups in one transaction,
+ * so that a group of events pays a single commit. Each record is acknowledged only once the transaction of its group
+ * is committed, and the container only commits the offset of a partition up to its lowest record not acknowledged
+ * yet: events received but not persisted yet are received again after a crash. Events failing on a transient error
+ * are persisted again by the writer up to the maximum number of attempts, then sent to the dead letter topic, other
+ * failed events are logged and skipped. The container is paused while the buffer is full, its consumer keeping
+ * polling without receiving records.
+ */
+@Component
+@ConditionalOnProperty(name = "app.listener.data-updated.mode", havingValue = "write-behind")
+@Slf4j
+public class DataUpdatedEventWriteBehindListener {
+
+    static final String LISTENER_ID = "dataUpdatedEventWriteBehindListener";
+
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final NetworkDataService networkDataService;
+    private final CpsDataUpdatedEventMapper cpsDataUpdatedEventMapper;
+    private final IngestMetrics ingestMetrics;
+    private final TransientFailureRetry transientFailureRetry;
+    private final DeadLetterPublisher deadLetterPublisher;
+    private final ListenerContainerPauses listenerContainerPauses;
+    private final WriteBehindBuffer<PendingNetworkData> writeBehindBuffer;
+
+    /**
+     * Constructor.
+     */
+    DataUpdatedEventWriteBehindListener(
+            final NetworkDataService networkDataService, final CpsDataUpdatedEventMapper cpsDataUpdatedEventMapper,
+            final IngestMetrics ingestMetrics, final DataUpdatedEventRetryProperties retryProperties,
+            final DeadLetterPublisher deadLetterPublisher, final ListenerContainerPauses listenerContainerPauses,
+            final @Value("${app.listener.data-updated.write-behind.buffer-capacity}") int bufferCapacity,
+            final @Value("${app.listener.data-updated.write-behind.max-group-size}") int maxGroupSize,
+            final @Value("${app.listener.data-updated.write-behind.max-group-delay}") Duration maxGroupDelay) {
+        this.networkDataService = networkDataService;
+        this.cpsDataUpdatedEventMapper = cpsDataUpdatedEventMapper;
+        this.ingestMetrics = ingestMetrics;
+        this.transientFailureRetry = new TransientFailureRetry(retryProperties, ingestMetrics);
+        this.deadLetterPublisher = deadLetterPublisher;
+        this.listenerContainerPauses = listenerContainerPauses;
+        this.writeBehindBuffer = new WriteBehindBuffer<>("data-updated-writer", bufferCapacity, maxGroupSize,
+            maxGroupDelay, this::persist);
+    }
+
+    /**
+     * Consume the specified record, adding it to the write-behind buffer.
+     * Pauses the container once the buffer is full, the records of the current poll being still added meanwhile.
+     *
+     * @param consumerRecord the record holding the data updated event
+     * @param acknowledgment the acknowledgment of the record
+     */
+    @KafkaListener(id = LISTENER_ID, idIsGroup = false, topics = "${app.listener.data-updated.topic}",
+            containerFactory = ManualAckListenerConfig.CONTAINER_FACTORY)
+    public void consume(final ConsumerRecord<String, CpsDataUpdatedEvent> consumerRecord,
+                        final Acknowledgment acknowledgment) {
+        final var cpsDataUpdatedEvent = consumerRecord.value();
+        if (cpsDataUpdatedEvent == null) {
+            log.error("Failed to process record {} at partition {} and offset {}. Event could not be deserialized.",
+                    consumerRecord.key(), consumerRecord.partition(), consumerRecord.offset());
+            ingestMetrics.count(Outcome.DESERIALIZATION_FAILURE);
+            acknowledgment.acknowledge();
+            return;
+        }
+        try {
+            ingestMetrics.record(Stage.VALIDATION,
+                () -> DataUpdatedEventEnvelopValidator.validateEventEnvelop(cpsDataUpdatedEvent));
+        } catch (final InvalidEventEnvelopException invalidEventEnvelopException) {
+            log.error("Failed to process record at partition {} and offset {}. Error cause is {}.",
+                    consumerRecord.partition(), consumerRecord.offset(), invalidEventEnvelopException.getMessage());
+            ingestMetrics.count(Outcome.INVALID_ENVELOP);
+            acknowledgment.acknowledge();
+            return;
+        }
+        final var networkData = ingestMetrics.record(Stage.MAPPING,
+            () -> cpsDataUpdatedEventMapper.eventToEntity(cpsDataUpdatedEvent));
+        writeBehindBuffer.add(new PendingNetworkData(consumerRecord, networkData, acknowledgment));
+        pauseIfSaturated();
+    }
+
+    /*
+    Saturation is checked again once paused, as the writer may have caught up meanwhile without resuming the
+    container. Otherwise, the writer resumes it once caught up.
+     */
+    private void pauseIfSaturated() {
+        if (writeBehindBuffer.isSaturated()) {
+            listenerContainerPauses.pause(LISTENER_ID, Reason.LISTENER_SATURATED);
+            resumeIfNotSaturated();
+        }
+    }
+
+    private void resumeIfNotSaturated() {
+        if (!writeBehindBuffer.isSaturated()) {
+            listenerContainerPauses.resume(LISTENER_ID, Reason.LISTENER_SATURATED);
+        }
+    }
+
+    /*
+    When the group can not be persisted in one transaction, its network data are persisted one by one so that a
+    single failing network data does not fail the whole group. Network data failing on their own because of the event
+    are logged and skipped, as in the other listener modes, while the ones failing on a transient error are persisted
+    again up to the maximum number of attempts, blocking the writer meanwhile.
+     */
+    private void persist(final List<PendingNetworkData> group) {
+        try {
+            persistGroup(group);
+        } finally {
+            resumeIfNotSaturated();
+        }
+    }
+
+    private void persistGroup(final List<PendingNetworkData> group) {
+        final List<NetworkData> networkDataList =
+            group.stream().map(PendingNetworkData::getNetworkData).collect(Collectors.toList());
+        try {
+            log.debug("Persisting group of {} network data ...", networkDataList.size());
+            final var insertResult = ingestMetrics.record(Stage.PERSISTENCE,
+                () -> networkDataService.addNetworkDataList(networkDataList));
+            ingestMetrics.countAdded(networkDataList.size(), insertResult);
+        } catch (final RuntimeException runtimeException) {
+            log.warn("Failed to persist group of {} network data, persisting them one by one. Error cause is {}.",
+                    networkDataList.size(), runtimeException.toString());
+            for (final PendingNetworkData pendingNetworkData : group) {
+                if (!persistAlone(pendingNetworkData)) {
+                    return;
+                }
+            }
+            return;
+        }
+        group.forEach(pendingNetworkData -> pendingNetworkData.getAcknowledgment().acknowledge());
+    }
+
+    /*
+    The record is acknowledged once persisted or found already persisted, once failed on the event itself, or once
+    sent to the dead letter topic after the last attempt. It is not acknowledged when the writer is interrupted while
+    waiting to persist it again, so that it is received again after a restart.
+     */
+    private boolean persistAlone(final PendingNetworkData pendingNetworkData) {
+        final var networkData = pendingNetworkData.getNetworkData();
+        try {
+            final var persistedNetworkData = transientFailureRetry.execute(networkData.toString(),
+                () -> ingestMetrics.record(Stage.PERSISTENCE, () -> networkDataService.addNetworkData(networkData)));
+            ingestMetrics.countAdded(networkData, persistedNetworkData);
+        } catch (final DuplicateNetworkDataException duplicateNetworkDataException) {
+            log.debug("Skipping {} already persisted.", networkData);
+            ingestMetrics.count(Outcome.DUPLICATE);
+        } catch (final InterruptedException interruptedException) {
+            log.warn("Interrupted before persisting {}, it is not acknowledged.", networkData);
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (final RuntimeException runtimeException) {
+            if (TransientFailureRetry.isTransient(runtimeException)) {
+                deadLetterPublisher.publish(pendingNetworkData.getConsumerRecord(), runtimeException);
+            } else {
+                log.error("Failed to persist {}. Error cause is {}.", networkData, runtimeException.toString(),
+                        runtimeException);
+                ingestMetrics.countFailedToAdd(runtimeException);
+            }
+        }
+        pendingNetworkData.getAcknowledgment().acknowledge();
+        return true;
+    }
+
+    /**
+     * Let the writer persist the events already received before the application stops. Offsets of the ones not
+     * persisted in time are not committed, so that they are received again.
+     */
+    @PreDestroy
+    public void shutdown() {
+        writeBehindBuffer.shutdown(SHUTDOWN_TIMEOUT);
+    }
+
+    @AllArgsConstructor
+    @Getter
+    private static class PendingNetworkData {
+
+        private final ConsumerRecord<String, CpsDataUpdatedEvent> consumerRecord;
+        private final NetworkData networkData;
+        private final Acknowledgment acknowledgment;
+
+    }
+
+}
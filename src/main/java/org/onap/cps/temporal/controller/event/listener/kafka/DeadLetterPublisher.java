@@ -0,0 +1,78 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publisher of the records still failing on a transient error after the last attempt to the dead letter topic, in the
+ * listener modes persisting events out of the listener container. Failed records are only logged when retry is
+ * disabled, as in record listener mode.
+ */
+@Component
+@ConditionalOnExpression("'${app.listener.data-updated.mode:record}' == 'parallel'"
+    + " or '${app.listener.data-updated.mode:record}' == 'write-behind'")
+@Slf4j
+class DeadLetterPublisher {
+
+    private final DeadLetterPublishingRecoverer deadLetterPublishingRecoverer;
+
+    /**
+     * Constructor.
+     *
+     * @param deadLetterPublishingRecoverer the publisher to the dead letter topic, not available if retry is disabled
+     */
+    DeadLetterPublisher(final ObjectProvider<DeadLetterPublishingRecoverer> deadLetterPublishingRecoverer) {
+        this.deadLetterPublishingRecoverer = deadLetterPublishingRecoverer.getIfAvailable();
+    }
+
+    /**
+     * Publish the failed record to the dead letter topic, waiting for the publication to be acknowledged by the
+     * broker. The record is logged and skipped if it can not be published, so that it does not block its partition.
+     *
+     * @param consumerRecord the failed record
+     * @param exception      the failure of the last attempt
+     */
+    void publish(final ConsumerRecord<?, ?> consumerRecord, final Exception exception) {
+        if (deadLetterPublishingRecoverer == null) {
+            log.error("Failed to persist record at partition {} and offset {} after the last attempt. "
+                + "Error cause is {}.", consumerRecord.partition(), consumerRecord.offset(), exception.toString(),
+                exception);
+            return;
+        }
+        try {
+            deadLetterPublishingRecoverer.accept(consumerRecord, exception);
+            log.warn("Failed to persist record at partition {} and offset {} after the last attempt, it is sent to the "
+                + "dead letter topic. Error cause is {}.", consumerRecord.partition(), consumerRecord.offset(),
+                exception.toString());
+        } catch (final RuntimeException publicationException) {
+            log.error("Failed to send record at partition {} and offset {} to the dead letter topic, it is skipped. "
+                + "Error cause is {}.", consumerRecord.partition(), consumerRecord.offset(),
+                publicationException.toString(), exception);
+        }
+    }
+
+}
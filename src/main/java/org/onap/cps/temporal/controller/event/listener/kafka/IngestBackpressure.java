@@ -0,0 +1,148 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.SQLException;
+import java.time.Duration;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.onap.cps.temporal.controller.event.listener.kafka.ListenerContainerPauses.Reason;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Backpressure of the ingest pipeline on the database, shared by all the listener modes.
+ * The listener containers are paused when the persistence latency or the number of threads waiting for a database
+ * connection crosses its threshold, so that a database slowing down makes the consumer lag grow instead of events
+ * failing with timeouts. They are resumed once paused for a minimum time and connections are available again. The
+ * latency is not considered while paused, as no event is persisted then: if the database is still slow, the
+ * containers are paused again by the next checks.
+ */
+@Component
+@ConditionalOnProperty(name = "app.listener.data-updated.backpressure.enabled", havingValue = "true")
+@Slf4j
+class IngestBackpressure {
+
+    private final ListenerContainerPauses listenerContainerPauses;
+    private final IngestMetrics ingestMetrics;
+    private final DataSource dataSource;
+    private final Duration latencyThreshold;
+    private final int pendingConnectionsThreshold;
+    private final Duration minimumPause;
+    private final Counter pauseCounter;
+
+    private volatile long pausedSince;
+    private volatile boolean paused;
+    private volatile double throttleLevel;
+
+    /**
+     * Constructor.
+     *
+     * @param listenerContainerPauses     the pauses of the listener containers
+     * @param ingestMetrics               the ingest metrics, providing the persistence latency
+     * @param dataSource                  the data source, providing the number of threads waiting for a connection
+     *                                    when it is a Hikari pool
+     * @param latencyThreshold            the persistence latency from which containers are paused
+     * @param pendingConnectionsThreshold the number of threads waiting for a connection from which containers are
+     *                                    paused
+     * @param minimumPause                the minimum time containers stay paused
+     * @param meterRegistry               the meter registry
+     */
+    IngestBackpressure(
+            final ListenerContainerPauses listenerContainerPauses, final IngestMetrics ingestMetrics,
+            final DataSource dataSource,
+            final @Value("${app.listener.data-updated.backpressure.latency-threshold}") Duration latencyThreshold,
+            final @Value("${app.listener.data-updated.backpressure.pending-connections-threshold}")
+                int pendingConnectionsThreshold,
+            final @Value("${app.listener.data-updated.backpressure.minimum-pause}") Duration minimumPause,
+            final MeterRegistry meterRegistry) {
+        this.listenerContainerPauses = listenerContainerPauses;
+        this.ingestMetrics = ingestMetrics;
+        this.dataSource = dataSource;
+        this.latencyThreshold = latencyThreshold;
+        this.pendingConnectionsThreshold = pendingConnectionsThreshold;
+        this.minimumPause = minimumPause;
+        Gauge.builder("cps.temporal.ingest.paused", this, backpressure -> backpressure.paused ? 1 : 0)
+            .description("Whether the consumption of events is paused because the database is saturated")
+            .register(meterRegistry);
+        Gauge.builder("cps.temporal.ingest.throttle.level", this, backpressure -> backpressure.throttleLevel)
+            .description("Highest ratio of the persistence latency and of the threads waiting for a database "
+                + "connection to their thresholds, the consumption of events is paused from 1")
+            .register(meterRegistry);
+        pauseCounter = Counter.builder("cps.temporal.ingest.pauses")
+            .description("Number of times the consumption of events has been paused")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Pause or resume the listener containers depending on the database load.
+     */
+    @Scheduled(fixedDelayString = "${app.listener.data-updated.backpressure.check-interval-ms}")
+    void check() {
+        final int pendingConnections = getPendingConnections();
+        final double pendingConnectionsLevel = (double) pendingConnections / pendingConnectionsThreshold;
+        final double latencyLevel = ingestMetrics.getPersistenceLatency()
+            .map(latency -> (double) latency.toNanos() / latencyThreshold.toNanos()).orElse(0.0);
+        throttleLevel = Math.max(pendingConnectionsLevel, latencyLevel);
+        if (!paused && throttleLevel >= 1) {
+            log.warn("Pausing consumption of events, persistence latency is {} and {} threads are waiting for a "
+                + "database connection", ingestMetrics.getPersistenceLatency().orElse(null), pendingConnections);
+            listenerContainerPauses.pauseAll(Reason.DATABASE_SATURATED);
+            ingestMetrics.resetPersistenceLatency();
+            pausedSince = System.nanoTime();
+            paused = true;
+            pauseCounter.increment();
+        } else if (paused && pendingConnectionsLevel < 1 && System.nanoTime() - pausedSince >= minimumPause.toNanos()) {
+            log.info("Resuming consumption of events, {} threads are waiting for a database connection",
+                pendingConnections);
+            ingestMetrics.resetPersistenceLatency();
+            listenerContainerPauses.resumeAll(Reason.DATABASE_SATURATED);
+            paused = false;
+        }
+    }
+
+    boolean isPaused() {
+        return paused;
+    }
+
+    double getThrottleLevel() {
+        return throttleLevel;
+    }
+
+    private int getPendingConnections() {
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                return 0;
+            }
+            final var hikariPool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+            return hikariPool == null ? 0 : hikariPool.getThreadsAwaitingConnection();
+        } catch (final SQLException sqlException) {
+            return 0;
+        }
+    }
+
+}
@@ -0,0 +1,227 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.validation.ValidationException;
+import org.onap.cps.temporal.domain.NetworkData;
+import org.onap.cps.temporal.domain.NetworkDataInsertResult;
+import org.onap.cps.temporal.service.DuplicateNetworkDataException;
+import org.onap.cps.temporal.service.LateNetworkDataException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Metrics of the ingest pipeline, shared by all the listener modes: time spent in each stage of the processing of
+ * events, number of events per outcome, and age of the events when persisted, i.e. how far the network data stored
+ * are behind the network.
+ * The latency of the persistence stage is also smoothed exponentially over the last persistence calls, to detect a
+ * slowing down of the database.
+ */
+@Component
+class IngestMetrics {
+
+    enum Stage {
+        VALIDATION, MAPPING, PERSISTENCE
+    }
+
+    enum Outcome {
+        PERSISTED, DUPLICATE, UNCHANGED, LATE, INVALID_ENVELOP, DESERIALIZATION_FAILURE, VALIDATION_FAILURE, FAILURE
+    }
+
+    private static final Duration MAXIMUM_EXPECTED_EVENT_AGE = Duration.ofDays(1);
+    private static final double LATENCY_SMOOTHING_FACTOR = 0.2;
+    private static final long NO_LATENCY = -1;
+
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Map<Outcome, Counter> outcomeCounters = new EnumMap<>(Outcome.class);
+    private final Timer eventAgeTimer;
+    private final AtomicLong persistenceLatencyNanos = new AtomicLong(NO_LATENCY);
+
+    /**
+     * Constructor.
+     *
+     * @param meterRegistry the meter registry
+     */
+    IngestMetrics(final MeterRegistry meterRegistry) {
+        for (final Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("cps.temporal.ingest.stage")
+                .description("Time spent processing events per stage, a batch of events being persisted at once")
+                .tag("stage", toTagValue(stage))
+                .register(meterRegistry));
+        }
+        for (final Outcome outcome : Outcome.values()) {
+            outcomeCounters.put(outcome, Counter.builder("cps.temporal.ingest.events")
+                .description("Number of events processed per outcome")
+                .tag("outcome", toTagValue(outcome))
+                .register(meterRegistry));
+        }
+        eventAgeTimer = Timer.builder("cps.temporal.ingest.event.age")
+            .description("Time between the observation of the data of events and their persistence")
+            .publishPercentileHistogram()
+            .maximumExpectedValue(MAXIMUM_EXPECTED_EVENT_AGE)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Run the specified stage of the event processing, recording the time it takes, failed ones included.
+     *
+     * @param stage the stage
+     * @param step  the processing of the stage
+     * @param <T>   the processing result type
+     * @return the processing result
+     */
+    <T> T record(final Stage stage, final Supplier<T> step) {
+        final long startTime = System.nanoTime();
+        try {
+            return step.get();
+        } finally {
+            record(stage, System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Run the specified stage of the event processing, recording the time it takes, failed ones included.
+     *
+     * @param stage the stage
+     * @param step  the processing of the stage
+     */
+    void record(final Stage stage, final Runnable step) {
+        final long startTime = System.nanoTime();
+        try {
+            step.run();
+        } finally {
+            record(stage, System.nanoTime() - startTime);
+        }
+    }
+
+    private void record(final Stage stage, final long durationNanos) {
+        stageTimers.get(stage).record(durationNanos, TimeUnit.NANOSECONDS);
+        if (stage == Stage.PERSISTENCE) {
+            persistenceLatencyNanos.accumulateAndGet(durationNanos, (latencyNanos, nanos) -> latencyNanos == NO_LATENCY
+                ? nanos : Math.round(latencyNanos + LATENCY_SMOOTHING_FACTOR * (nanos - latencyNanos)));
+        }
+    }
+
+    /**
+     * Get the latency of the persistence stage, smoothed over the last persistence calls since the latest reset.
+     *
+     * @return the persistence latency, empty if no persistence call happened since the latest reset
+     */
+    Optional<Duration> getPersistenceLatency() {
+        final long latencyNanos = persistenceLatencyNanos.get();
+        return latencyNanos == NO_LATENCY ? Optional.empty() : Optional.of(Duration.ofNanos(latencyNanos));
+    }
+
+    void resetPersistenceLatency() {
+        persistenceLatencyNanos.set(NO_LATENCY);
+    }
+
+    void count(final Outcome outcome) {
+        count(outcome, 1);
+    }
+
+    void count(final Outcome outcome, final int eventCount) {
+        if (eventCount > 0) {
+            outcomeCounters.get(outcome).increment(eventCount);
+        }
+    }
+
+    /**
+     * Count the outcome of the specified network data, just added one by one, recording its age if inserted.
+     * Network data skipped because their payload is unchanged are returned as is, without created timestamp.
+     *
+     * @param networkData          the network data added
+     * @param persistedNetworkData the network data returned once added
+     */
+    void countAdded(final NetworkData networkData, final NetworkData persistedNetworkData) {
+        if (persistedNetworkData != null && persistedNetworkData.getCreatedTimestamp() == null) {
+            count(Outcome.UNCHANGED);
+            return;
+        }
+        count(Outcome.PERSISTED);
+        recordEventAge(List.of(networkData));
+    }
+
+    /**
+     * Count the outcome of a network data failing to be added one by one. Network data service fails with a duplicate
+     * network data exception when the network data already exists, and with a late network data exception when it is
+     * observed within compressed data.
+     *
+     * @param runtimeException the failure
+     */
+    void countFailedToAdd(final RuntimeException runtimeException) {
+        if (runtimeException instanceof LateNetworkDataException) {
+            count(Outcome.LATE);
+        } else if (runtimeException instanceof DuplicateNetworkDataException) {
+            count(Outcome.DUPLICATE);
+        } else if (runtimeException instanceof ValidationException) {
+            count(Outcome.VALIDATION_FAILURE);
+        } else {
+            count(Outcome.FAILURE);
+        }
+    }
+
+    /**
+     * Count the outcome of the specified network data, just added together, recording the age of the inserted ones.
+     * Network data failing service validation are not part of the insert result.
+     *
+     * @param networkDataCount the number of network data added
+     * @param insertResult     the result of adding them
+     */
+    void countAdded(final int networkDataCount, final NetworkDataInsertResult insertResult) {
+        count(Outcome.PERSISTED, insertResult.getInsertedCount());
+        count(Outcome.DUPLICATE, insertResult.getDuplicateCount());
+        count(Outcome.UNCHANGED, insertResult.getUnchangedCount());
+        count(Outcome.LATE, insertResult.getLateCount());
+        count(Outcome.VALIDATION_FAILURE, networkDataCount - insertResult.getInsertedCount()
+            - insertResult.getDuplicateCount() - insertResult.getUnchangedCount() - insertResult.getLateCount());
+        recordEventAge(insertResult.getInserted());
+    }
+
+    /**
+     * Record the age of the specified network data, just persisted.
+     *
+     * @param persistedNetworkDataList the network data persisted
+     */
+    void recordEventAge(final List<NetworkData> persistedNetworkDataList) {
+        final var now = OffsetDateTime.now();
+        for (final NetworkData networkData : persistedNetworkDataList) {
+            eventAgeTimer.record(Duration.between(networkData.getObservedTimestamp(), now));
+        }
+    }
+
+    private static String toTagValue(final Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Pool of single threaded workers, each task being executed by the worker its key is assigned to.
+ * Tasks with the same key are therefore executed one at a time in submission order, while tasks with different keys
+ * are executed in parallel as long as their keys are assigned to different workers.
+ */
+@Slf4j
+class KeyedWorkerPool {
+
+    private final List<ThreadPoolExecutor> workers;
+    private final int queueCapacity;
+
+    /**
+     * Constructor.
+     *
+     * @param threadNamePrefix the prefix of worker thread names
+     * @param workerCount      the number of workers
+     * @param queueCapacity    the number of tasks waiting for a worker from which the pool is saturated
+     */
+    KeyedWorkerPool(final String threadNamePrefix, final int workerCount, final int queueCapacity) {
+        final var threadFactory = new CustomizableThreadFactory(threadNamePrefix);
+        workers = new ArrayList<>(workerCount);
+        for (int index = 0; index < workerCount; index++) {
+            workers.add(new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                threadFactory));
+        }
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Execute the task by the worker the key is assigned to, once all the tasks previously submitted to this worker
+     * are executed. Never blocks, the task being queued even when the pool is saturated: submitters are expected to
+     * stop submitting tasks meanwhile, rejecting the task or running it in the submitter thread would break the
+     * execution order of the key.
+     *
+     * @param key  the key of the task
+     * @param task the task
+     * @throws RejectedExecutionException if the pool is shut down
+     */
+    void execute(final String key, final Runnable task) {
+        workers.get(Math.floorMod(key.hashCode(), workers.size())).execute(task);
+    }
+
+    /**
+     * Tell whether the queue of a worker has reached the capacity.
+     *
+     * @return true if the pool is saturated
+     */
+    boolean isSaturated() {
+        return workers.stream().anyMatch(worker -> worker.getQueue().size() >= queueCapacity);
+    }
+
+    /**
+     * Shut down the pool, letting workers execute the tasks already submitted within the specified timeout.
+     *
+     * @param timeout the maximum time to wait for submitted tasks to be executed
+     */
+    void shutdown(final Duration timeout) {
+        workers.forEach(ThreadPoolExecutor::shutdown);
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            for (final ThreadPoolExecutor worker : workers) {
+                if (!worker.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    log.warn("Worker pool not terminated within {}, {} tasks are not executed", timeout,
+                        workers.stream().mapToInt(pendingWorker -> pendingWorker.shutdownNow().size()).sum());
+                    return;
+                }
+            }
+        } catch (final InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            workers.forEach(ThreadPoolExecutor::shutdownNow);
+        }
+    }
+
+}
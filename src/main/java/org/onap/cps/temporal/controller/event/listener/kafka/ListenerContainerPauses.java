@@ -0,0 +1,100 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pauses of the listener containers, requested for several reasons: a container is paused by the first reason
+ * requesting it and only resumed once none of the reasons requests it anymore, so that the backpressure on the
+ * database and the saturation of a listener do not resume each other's pause.
+ */
+@Component
+class ListenerContainerPauses {
+
+    enum Reason {
+        DATABASE_SATURATED, LISTENER_SATURATED
+    }
+
+    private final KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+    private final Map<String, Set<Reason>> reasonsByListenerId = new HashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param kafkaListenerEndpointRegistry the registry of the listener containers to be paused and resumed
+     */
+    ListenerContainerPauses(final KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry) {
+        this.kafkaListenerEndpointRegistry = kafkaListenerEndpointRegistry;
+    }
+
+    /**
+     * Request the container of the specified listener to be paused for the specified reason. Consumers keep polling
+     * while paused, without receiving records.
+     *
+     * @param listenerId the listener id
+     * @param reason     the reason
+     */
+    synchronized void pause(final String listenerId, final Reason reason) {
+        final var reasons = reasonsByListenerId.computeIfAbsent(listenerId, id -> new HashSet<>());
+        if (reasons.add(reason) && reasons.size() == 1) {
+            kafkaListenerEndpointRegistry.getListenerContainer(listenerId).pause();
+        }
+    }
+
+    /**
+     * Withdraw the request of the specified reason to pause the container of the specified listener, resuming it if
+     * no other reason requests it to be paused.
+     *
+     * @param listenerId the listener id
+     * @param reason     the reason
+     */
+    synchronized void resume(final String listenerId, final Reason reason) {
+        final var reasons = reasonsByListenerId.get(listenerId);
+        if (reasons != null && reasons.remove(reason) && reasons.isEmpty()) {
+            kafkaListenerEndpointRegistry.getListenerContainer(listenerId).resume();
+        }
+    }
+
+    /**
+     * Request the containers of all the listeners to be paused for the specified reason.
+     *
+     * @param reason the reason
+     */
+    synchronized void pauseAll(final Reason reason) {
+        kafkaListenerEndpointRegistry.getListenerContainerIds().forEach(listenerId -> pause(listenerId, reason));
+    }
+
+    /**
+     * Withdraw the request of the specified reason to pause the containers of all the listeners.
+     *
+     * @param reason the reason
+     */
+    synchronized void resumeAll(final Reason reason) {
+        kafkaListenerEndpointRegistry.getListenerContainerIds().forEach(listenerId -> resume(listenerId, reason));
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties.AckMode;
+
+/**
+ * Configuration of the listener container used in parallel and write-behind listener modes, where events are
+ * persisted by other threads than the consumer one.
+ */
+@Configuration
+@ConditionalOnExpression("'${app.listener.data-updated.mode:record}' == 'parallel'"
+    + " or '${app.listener.data-updated.mode:record}' == 'write-behind'")
+public class ManualAckListenerConfig {
+
+    static final String CONTAINER_FACTORY = "manualAckKafkaListenerContainerFactory";
+
+    /**
+     * Listener container factory acknowledging records manually and out of order: the offset of a partition is
+     * committed up to its lowest record not acknowledged yet, whatever the order records are persisted in.
+     *
+     * @param configurer      the configurer applying Spring Boot kafka properties
+     * @param consumerFactory the consumer factory
+     * @return the listener container factory
+     */
+    @Bean(CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> manualAckKafkaListenerContainerFactory(
+            final ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            final ConsumerFactory<Object, Object> consumerFactory) {
+        final var containerFactory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(containerFactory, consumerFactory);
+        containerFactory.getContainerProperties().setAckMode(AckMode.MANUAL);
+        containerFactory.getContainerProperties().setAsyncAcks(true);
+        return containerFactory;
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka;
+
+import java.util.List;
+import java.util.Map;
+import javax.validation.ValidationException;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.onap.cps.event.model.CpsDataUpdatedEvent;
+import org.onap.cps.temporal.controller.event.listener.exception.InvalidEventEnvelopException;
+import org.onap.cps.temporal.service.LateNetworkDataException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
+import org.springframework.kafka.retrytopic.RetryTopicConstants;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+/**
+ * Configuration of the non-blocking retries of the data updated events failing to be persisted in record listener
+ * mode. Failed events are forwarded to retry topics and consumed again after an exponential backoff, so that the
+ * partitions of the data updated topic keep being consumed meanwhile. Events still failing after the last attempt,
+ * and events that can not be persisted whatever the number of attempts, are forwarded to the dead letter topic with
+ * their failure headers. In parallel and write-behind listener modes, events are attempted again in place and only
+ * the ones still failing after the last attempt are forwarded to the dead letter topic.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.listener.data-updated.retry.enabled", havingValue = "true")
+public class RetryTopicConfig implements DisposableBean {
+
+    /*
+    Invalid events and events observed within compressed data fail again whatever the number of attempts, the other
+    listener modes do not retry them either. Events already persisted do not fail, listeners treat them as persisted.
+     */
+    static final List<Class<? extends Throwable>> NOT_RETRYABLE_EXCEPTIONS =
+        List.of(InvalidEventEnvelopException.class, ValidationException.class, LateNetworkDataException.class);
+
+    private static final String MANUAL_ACK_MODES = "'${app.listener.data-updated.mode:record}' == 'parallel'"
+        + " or '${app.listener.data-updated.mode:record}' == 'write-behind'";
+
+    private DefaultKafkaProducerFactory<Object, Object> producerFactory;
+
+    /**
+     * Retry topics and dead letter topic of the data updated topic, in record listener mode.
+     *
+     * @param topic           the data updated topic
+     * @param retryProperties the retry configuration
+     * @param kafkaProperties the Spring Boot kafka properties, used to connect the producer of failed events
+     * @return the retry topic configuration
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.listener.data-updated.mode", havingValue = "record", matchIfMissing = true)
+    public RetryTopicConfiguration dataUpdatedEventRetryTopicConfiguration(
+            final @Value("${app.listener.data-updated.topic}") String topic,
+            final DataUpdatedEventRetryProperties retryProperties, final KafkaProperties kafkaProperties) {
+        return RetryTopicConfigurationBuilder.newInstance()
+            .includeTopic(topic)
+            .maxAttempts(retryProperties.getAttempts())
+            .exponentialBackoff(retryProperties.getInitialInterval().toMillis(), retryProperties.getMultiplier(),
+                retryProperties.getMaxInterval().toMillis())
+            .notRetryOn(NOT_RETRYABLE_EXCEPTIONS)
+            .traversingCauses()
+            .setTopicSuffixingStrategy(TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE)
+            .autoCreateTopicsWith(retryProperties.getTopicPartitions(), retryProperties.getTopicReplicationFactor())
+            .create(createKafkaTemplate(kafkaProperties));
+    }
+
+    /**
+     * Dead letter topic of the data updated topic, in the listener modes persisting events out of the listener
+     * container. These modes retry events failing on a transient error in place, without retry topics.
+     *
+     * @param topic           the data updated topic
+     * @param retryProperties the retry configuration
+     * @return the dead letter topic, created by the application if it does not exist
+     */
+    @Bean
+    @ConditionalOnExpression(MANUAL_ACK_MODES)
+    public NewTopic dataUpdatedEventDeadLetterTopic(final @Value("${app.listener.data-updated.topic}") String topic,
+                                                    final DataUpdatedEventRetryProperties retryProperties) {
+        return TopicBuilder.name(topic + RetryTopicConstants.DEFAULT_DLT_SUFFIX)
+            .partitions(retryProperties.getTopicPartitions())
+            .replicas(retryProperties.getTopicReplicationFactor())
+            .build();
+    }
+
+    /**
+     * Publisher of failed records to the dead letter topic, with failure headers, in the listener modes persisting
+     * events out of the listener container. The partition is chosen by the producer, the dead letter topic having
+     * its own number of partitions.
+     *
+     * @param kafkaProperties the Spring Boot kafka properties, used to connect the producer of failed events
+     * @return the dead letter publisher
+     */
+    @Bean
+    @ConditionalOnExpression(MANUAL_ACK_MODES)
+    public DeadLetterPublishingRecoverer dataUpdatedEventDeadLetterPublishingRecoverer(
+            final KafkaProperties kafkaProperties) {
+        return new DeadLetterPublishingRecoverer(createKafkaTemplate(kafkaProperties), (consumerRecord, exception) ->
+            new TopicPartition(consumerRecord.topic() + RetryTopicConstants.DEFAULT_DLT_SUFFIX, -1));
+    }
+
+    private KafkaTemplate<Object, Object> createKafkaTemplate(final KafkaProperties kafkaProperties) {
+        producerFactory = new DefaultKafkaProducerFactory<>(kafkaProperties.buildProducerProperties(),
+            new NullSafeSerializer(), new NullSafeSerializer());
+        return new KafkaTemplate<>(producerFactory);
+    }
+
+    @Override
+    public void destroy() {
+        if (producerFactory != null) {
+            producerFactory.destroy();
+        }
+    }
+
+    /*
+    Events failing deserialization are forwarded with their original bytes, other events as JSON. Records without
+    key or value are forwarded as such.
+     */
+    private static class NullSafeSerializer extends DelegatingByTypeSerializer {
+
+        NullSafeSerializer() {
+            super(Map.of(
+                byte[].class, new ByteArraySerializer(),
+                String.class, new StringSerializer(),
+                CpsDataUpdatedEvent.class, new JsonSerializer<>().noTypeInfo()));
+        }
+
+        @Override
+        public byte[] serialize(final String topic, final Object data) {
+            return data == null ? null : super.serialize(topic, data);
+        }
+
+        @Override
+        public byte[] serialize(final String topic, final Headers headers, final Object data) {
+            return data == null ? null : super.serialize(topic, headers, data);
+        }
+
+    }
+
+}
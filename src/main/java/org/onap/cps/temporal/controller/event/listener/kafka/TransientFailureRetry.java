@@ -0,0 +1,102 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka;
+
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.onap.cps.temporal.service.DuplicateNetworkDataException;
+
+/**
+ * Blocking retry of the persistence of events by the threads persisting them in parallel and write-behind listener
+ * modes. A record can not be handed back to the container from such a thread, so an event failing on a transient error
+ * is retried with the exponential backoff of the retry configuration until it is persisted. Its record stays not
+ * acknowledged meanwhile, and the container pauses the consumer until all the records of its previous poll are
+ * acknowledged. Events failing whatever the number of attempts are not retried.
+ */
+@Slf4j
+class TransientFailureRetry {
+
+    private final DataUpdatedEventRetryProperties retryProperties;
+    private final IngestMetrics ingestMetrics;
+
+    /**
+     * Constructor.
+     *
+     * @param retryProperties the retry configuration, giving the number of attempts and the backoff between them
+     * @param ingestMetrics   the ingest metrics, counting each failed attempt as in record listener mode
+     */
+    TransientFailureRetry(final DataUpdatedEventRetryProperties retryProperties, final IngestMetrics ingestMetrics) {
+        this.retryProperties = retryProperties;
+        this.ingestMetrics = ingestMetrics;
+    }
+
+    /**
+     * Persist, attempting again while persistence fails on a transient error, up to the maximum number of attempts.
+     *
+     * @param description the description of what is persisted, for logging
+     * @param persistence the persistence
+     * @param <T>         the type of the persistence result
+     * @return the persistence result
+     * @throws RuntimeException     the failure of the persistence, if not transient or if failing at the last attempt
+     * @throws InterruptedException if interrupted while waiting for the next attempt, nothing being persisted
+     */
+    <T> T execute(final String description, final Supplier<T> persistence) throws InterruptedException {
+        final long maxIntervalMillis = retryProperties.getMaxInterval().toMillis();
+        long intervalMillis = Math.min(retryProperties.getInitialInterval().toMillis(), maxIntervalMillis);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return persistence.get();
+            } catch (final RuntimeException runtimeException) {
+                if (!isTransient(runtimeException)) {
+                    throw runtimeException;
+                }
+                ingestMetrics.countFailedToAdd(runtimeException);
+                if (attempt >= retryProperties.getAttempts()) {
+                    throw runtimeException;
+                }
+                log.warn("Failed to persist {} at attempt {}, attempting again in {} ms. Error cause is {}.",
+                    description, attempt, intervalMillis, runtimeException.toString());
+            }
+            Thread.sleep(intervalMillis);
+            intervalMillis = Math.min((long) (intervalMillis * retryProperties.getMultiplier()), maxIntervalMillis);
+        }
+    }
+
+    /**
+     * Tell whether the specified failure is transient, that is neither caused by network data already persisted, which
+     * listeners treat as persisted, nor by one of the failures the record listener mode does not retry either.
+     *
+     * @param throwable the failure
+     * @return true if the failure is transient
+     */
+    static boolean isTransient(final Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            final var currentCause = cause;
+            if (currentCause instanceof DuplicateNetworkDataException
+                    || RetryTopicConfig.NOT_RETRYABLE_EXCEPTIONS.stream()
+                        .anyMatch(notRetryable -> notRetryable.isInstance(currentCause))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
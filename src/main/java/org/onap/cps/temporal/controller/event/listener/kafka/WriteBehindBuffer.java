@@ -0,0 +1,161 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Buffer drained by a dedicated writer thread, which writes the buffered items by groups.
+ * A group is written once it reaches the maximum group size, or once the maximum group delay has elapsed since its
+ * first item was taken from the buffer, whichever comes first. Items are written in the order they are added.
+ *
+ * @param <T> the item type
+ */
+@Slf4j
+class WriteBehindBuffer<T> {
+
+    // Maximum time the writer waits for an item before checking whether the buffer is shut down
+    private static final long IDLE_POLL_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final BlockingQueue<T> buffer = new LinkedBlockingQueue<>();
+    private final int capacity;
+    private final int maxGroupSize;
+    private final Duration maxGroupDelay;
+    private final Consumer<List<T>> groupWriter;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    /**
+     * Constructor, starting the writer thread.
+     *
+     * @param threadName    the name of the writer thread
+     * @param capacity      the number of items waiting to be written from which the buffer is saturated
+     * @param maxGroupSize  the maximum number of items written together
+     * @param maxGroupDelay the maximum time the first item of a group waits for more items
+     * @param groupWriter   the writer of a group of items, expected to handle its own failures
+     */
+    WriteBehindBuffer(final String threadName, final int capacity, final int maxGroupSize,
+                      final Duration maxGroupDelay, final Consumer<List<T>> groupWriter) {
+        this.capacity = capacity;
+        this.maxGroupSize = maxGroupSize;
+        this.maxGroupDelay = maxGroupDelay;
+        this.groupWriter = groupWriter;
+        this.writerThread = new CustomizableThreadFactory(threadName).newThread(this::drain);
+        writerThread.start();
+    }
+
+    /**
+     * Add the item to the buffer. Never blocks, the item being added even when the buffer is saturated: callers are
+     * expected to stop adding items meanwhile.
+     *
+     * @param item the item
+     * @throws RejectedExecutionException if the buffer is shut down
+     */
+    void add(final T item) {
+        if (!running) {
+            throw new RejectedExecutionException("Write-behind buffer is shut down");
+        }
+        buffer.add(item);
+    }
+
+    int size() {
+        return buffer.size();
+    }
+
+    /**
+     * Tell whether the number of items waiting to be written has reached the capacity.
+     *
+     * @return true if the buffer is saturated
+     */
+    boolean isSaturated() {
+        return buffer.size() >= capacity;
+    }
+
+    /**
+     * Shut down the buffer, letting the writer write the items already added within the specified timeout.
+     *
+     * @param timeout the maximum time to wait for added items to be written
+     */
+    void shutdown(final Duration timeout) {
+        running = false;
+        try {
+            writerThread.join(timeout.toMillis());
+        } catch (final InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            log.warn("Write-behind buffer not drained within {}, {} items are not written", timeout, buffer.size());
+            writerThread.interrupt();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (running || !buffer.isEmpty()) {
+                final T firstItem = buffer.poll(IDLE_POLL_TIMEOUT_NANOS, TimeUnit.NANOSECONDS);
+                if (firstItem == null) {
+                    continue;
+                }
+                final List<T> group = new ArrayList<>(maxGroupSize);
+                group.add(firstItem);
+                fillGroup(group, System.nanoTime() + maxGroupDelay.toNanos());
+                write(group);
+            }
+        } catch (final InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void fillGroup(final List<T> group, final long deadline) throws InterruptedException {
+        while (group.size() < maxGroupSize) {
+            if (buffer.drainTo(group, maxGroupSize - group.size()) > 0) {
+                continue;
+            }
+            final long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0 || !running) {
+                return;
+            }
+            final T item = buffer.poll(Math.min(remainingNanos, IDLE_POLL_TIMEOUT_NANOS), TimeUnit.NANOSECONDS);
+            if (item != null) {
+                group.add(item);
+            }
+        }
+    }
+
+    private void write(final List<T> group) {
+        try {
+            groupWriter.accept(group);
+        } catch (final RuntimeException runtimeException) {
+            log.error("Failed to write group of {} items. Error cause is {}.", group.size(),
+                runtimeException.toString(), runtimeException);
+        }
+    }
+
+}
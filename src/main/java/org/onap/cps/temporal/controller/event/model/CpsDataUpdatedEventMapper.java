@@ -47,6 +47,9 @@ public abstract class CpsDataUpdatedEventMapper {
     @Mapping(source = "content.data", target = "payload")
     @Mapping(source = "content.operation", target = "operation")
     @Mapping(expression = "java(null)", target = "createdTimestamp")
+    @Mapping(target = "payloadFormat", ignore = true)
+    @Mapping(target = "payloadBaseTimestamp", ignore = true)
+    @Mapping(target = "payloadHash", ignore = true)
     public abstract NetworkData eventToEntity(CpsDataUpdatedEvent cpsDataUpdatedEvent);
 
     String map(final Data data) throws JsonProcessingException {
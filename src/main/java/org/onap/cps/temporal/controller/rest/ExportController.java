@@ -0,0 +1,157 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021-2022 Bell Canada
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import lombok.extern.slf4j.Slf4j;
+import org.onap.cps.temporal.controller.rest.model.AnchorDetailsMapper;
+import org.onap.cps.temporal.controller.rest.model.SortMapper;
+import org.onap.cps.temporal.domain.NetworkData;
+import org.onap.cps.temporal.domain.SearchCriteria;
+import org.onap.cps.temporal.service.NetworkDataService;
+import org.onap.cps.temporal.service.QueryAdmission;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Export of anchors history as newline delimited JSON, one AnchorDetails per line.
+ * Records are written to the response as they are read from the database, so that the memory used does not depend
+ * on the number of records exported. These operations are documented in openapi.yml but not generated from it, as
+ * the generated interface can not return a streaming response body.
+ */
+@RestController
+@RequestMapping("${rest.api.base-path}")
+@Slf4j
+public class ExportController {
+
+    private static final String DEFAULT_SORT = StreamedSearchCriteria.DEFAULT_SORT;
+
+    private final NetworkDataService networkDataService;
+    private final QueryAdmission queryAdmission;
+    private final SortMapper sortMapper;
+    private final AnchorDetailsMapper anchorDetailsMapper;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructor.
+     *
+     * @param networkDataService  networkDataService
+     * @param queryAdmission      queryAdmission
+     * @param sortMapper          sortMapper
+     * @param anchorDetailsMapper anchorDetailsMapper
+     * @param objectMapper        objectMapper
+     */
+    public ExportController(final NetworkDataService networkDataService,
+        final QueryAdmission queryAdmission,
+        final SortMapper sortMapper,
+        final AnchorDetailsMapper anchorDetailsMapper,
+        final ObjectMapper objectMapper) {
+        this.networkDataService = networkDataService;
+        this.queryAdmission = queryAdmission;
+        this.sortMapper = sortMapper;
+        this.anchorDetailsMapper = anchorDetailsMapper;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Export the history of the specified anchor.
+     *
+     * @return the streamed history
+     */
+    @GetMapping(value = "/v1/dataspaces/{dataspace-name}/anchors/{anchor-name}/history/export",
+        produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportAnchorDataByName(
+        @PathVariable("dataspace-name") final String dataspaceName,
+        @PathVariable("anchor-name") final String anchorName,
+        @RequestParam(value = "observedTimestampAfter", required = false) final String observedTimestampAfter,
+        @RequestParam(value = "observedTimestampBefore", required = false) final String observedTimestampBefore,
+        @RequestParam(value = "simplePayloadFilter", required = false) final String simplePayloadFilter,
+        @RequestParam(value = "pointInTime", required = false) final String pointInTime,
+        @RequestParam(value = "sort", required = false, defaultValue = DEFAULT_SORT) final String sortAsString) {
+
+        final var searchCriteria =
+            StreamedSearchCriteria.builder(sortMapper, observedTimestampAfter, observedTimestampBefore,
+                simplePayloadFilter, pointInTime, sortAsString)
+                .dataspaceName(dataspaceName).anchorName(anchorName).build();
+        return exportNetworkData(searchCriteria);
+    }
+
+    /**
+     * Export the history of the anchors of the specified schema set.
+     *
+     * @return the streamed history
+     */
+    @GetMapping(value = "/v1/dataspaces/{dataspace-name}/anchors/history/export",
+        produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportAnchorsDataByFilter(
+        @PathVariable("dataspace-name") final String dataspaceName,
+        @RequestParam(value = "schema-set-name") final String schemaSetName,
+        @RequestParam(value = "observedTimestampAfter", required = false) final String observedTimestampAfter,
+        @RequestParam(value = "observedTimestampBefore", required = false) final String observedTimestampBefore,
+        @RequestParam(value = "simplePayloadFilter", required = false) final String simplePayloadFilter,
+        @RequestParam(value = "pointInTime", required = false) final String pointInTime,
+        @RequestParam(value = "sort", required = false, defaultValue = DEFAULT_SORT) final String sortAsString) {
+
+        final var searchCriteria =
+            StreamedSearchCriteria.builder(sortMapper, observedTimestampAfter, observedTimestampBefore,
+                simplePayloadFilter, pointInTime, sortAsString)
+                .dataspaceName(dataspaceName).schemaSetName(schemaSetName).build();
+        return exportNetworkData(searchCriteria);
+    }
+
+    /*
+    Search criteria are validated before the response is committed, so that invalid requests are still reported with
+    an error status. Failures happening while streaming can only interrupt the response.
+    The export is admitted before the streaming transaction starts, so that it does not hold a database connection
+    while waiting to be admitted.
+     */
+    private ResponseEntity<StreamingResponseBody> exportNetworkData(final SearchCriteria searchCriteria) {
+        final StreamingResponseBody responseBody = outputStream -> {
+            try {
+                queryAdmission.admit(() -> networkDataService.streamNetworkData(searchCriteria,
+                    networkData -> writeNetworkData(networkData, outputStream)));
+            } catch (final UncheckedIOException uncheckedIoException) {
+                throw uncheckedIoException.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(responseBody);
+    }
+
+    private void writeNetworkData(final NetworkData networkData, final OutputStream outputStream) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(anchorDetailsMapper.toAnchorDetails(networkData)));
+            outputStream.write('\n');
+        } catch (final IOException ioException) {
+            log.debug("Export interrupted: {}", ioException.getMessage());
+            throw new UncheckedIOException(ioException);
+        }
+    }
+
+}
@@ -25,6 +25,7 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.stream.Collectors;
 import javax.validation.Valid;
 import javax.validation.ValidationException;
@@ -34,10 +35,18 @@ import org.apache.commons.lang3.StringUtils;
 import org.onap.cps.temporal.controller.rest.model.AnchorDetails;
 import org.onap.cps.temporal.controller.rest.model.AnchorDetailsMapper;
 import org.onap.cps.temporal.controller.rest.model.AnchorHistory;
+import org.onap.cps.temporal.controller.rest.model.ChangeCount;
+import org.onap.cps.temporal.controller.rest.model.ChangeCountMapper;
+import org.onap.cps.temporal.controller.rest.model.ChangeStatistics;
+import org.onap.cps.temporal.controller.rest.model.ContinuationTokenMapper;
 import org.onap.cps.temporal.controller.rest.model.SortMapper;
 import org.onap.cps.temporal.controller.utils.DateTimeUtility;
+import org.onap.cps.temporal.domain.ChangeCountCriteria;
+import org.onap.cps.temporal.domain.ChangeCountGranularity;
 import org.onap.cps.temporal.domain.NetworkData;
+import org.onap.cps.temporal.domain.NetworkDataChangeCount;
 import org.onap.cps.temporal.domain.SearchCriteria;
+import org.onap.cps.temporal.domain.SnapshotCriteria;
 import org.onap.cps.temporal.service.NetworkDataService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
@@ -53,23 +62,32 @@ public class QueryController implements CpsTemporalQueryApi {
 
     private NetworkDataService networkDataService;
     private SortMapper sortMapper;
+    private AnchorDetailsMapper anchorDetailsMapper;
+    private ContinuationTokenMapper continuationTokenMapper;
     private QueryResponseFactory queryResponseFactory;
 
     /**
      * Constructor.
      *
-     * @param networkDataService  networkDataService
-     * @param sortMapper          sortMapper
-     * @param anchorDetailsMapper anchorDetailsMapper
-     * @param basePath            basePath
+     * @param networkDataService      networkDataService
+     * @param sortMapper              sortMapper
+     * @param anchorDetailsMapper     anchorDetailsMapper
+     * @param continuationTokenMapper continuationTokenMapper
+     * @param changeCountMapper       changeCountMapper
+     * @param basePath                basePath
      */
     public QueryController(final NetworkDataService networkDataService,
         final SortMapper sortMapper,
         final AnchorDetailsMapper anchorDetailsMapper,
+        final ContinuationTokenMapper continuationTokenMapper,
+        final ChangeCountMapper changeCountMapper,
         @Value("${rest.api.base-path}") final String basePath) {
         this.networkDataService = networkDataService;
         this.sortMapper = sortMapper;
-        this.queryResponseFactory = new QueryResponseFactory(sortMapper, anchorDetailsMapper, basePath);
+        this.anchorDetailsMapper = anchorDetailsMapper;
+        this.continuationTokenMapper = continuationTokenMapper;
+        this.queryResponseFactory = new QueryResponseFactory(sortMapper, anchorDetailsMapper,
+            continuationTokenMapper, changeCountMapper, basePath);
     }
 
     @Override
@@ -77,11 +95,12 @@ public class QueryController implements CpsTemporalQueryApi {
         final String anchorName, final @Valid String observedTimestampAfter,
         final @Valid String simplePayloadFilter,
         final @Valid String pointInTime, final @Min(0) @Valid Integer pageNumber,
-        final @Min(0) @Valid Integer pageLimit, final @Valid String sortAsString) {
+        final @Min(0) @Valid Integer pageLimit, final @Valid String sortAsString,
+        final @Valid String continuationToken) {
 
         final var searchCriteriaBuilder =
             getSearchCriteriaBuilder(observedTimestampAfter, simplePayloadFilter, pointInTime,
-                pageNumber, pageLimit, sortAsString)
+                pageNumber, pageLimit, sortAsString, continuationToken)
                 .dataspaceName(dataspaceName).anchorName(anchorName);
         final var searchCriteria = searchCriteriaBuilder.build();
         final Slice<NetworkData> searchResult = networkDataService.searchNetworkData(searchCriteria);
@@ -90,17 +109,25 @@ public class QueryController implements CpsTemporalQueryApi {
         return ResponseEntity.ok(anchorHistory);
     }
 
+    @Override
+    public ResponseEntity<AnchorDetails> getAnchorLatestDataByName(final String dataspaceName,
+        final String anchorName) {
+        final var latestNetworkData = networkDataService.getLatestNetworkData(dataspaceName, anchorName);
+        return ResponseEntity.ok(anchorDetailsMapper.toAnchorDetails(latestNetworkData));
+    }
+
     @Override
     public ResponseEntity<AnchorHistory> getAnchorsDataByFilter(final String dataspaceName,
         final @NotNull @Valid String schemaSetName, final @Valid String observedTimestampAfter,
         final @Valid String simplePayloadFilter,
         final @Valid String pointInTime, final @Min(0) @Valid Integer pageNumber,
-        final @Min(0) @Valid Integer pageLimit, final @Valid String sortAsString) {
+        final @Min(0) @Valid Integer pageLimit, final @Valid String sortAsString,
+        final @Valid String continuationToken) {
         final var searchCriteriaBuilder =
             getSearchCriteriaBuilder(observedTimestampAfter,
                 simplePayloadFilter,
                 pointInTime, pageNumber,
-                pageLimit, sortAsString)
+                pageLimit, sortAsString, continuationToken)
                 .dataspaceName(dataspaceName).schemaSetName(schemaSetName);
         final var searchCriteria = searchCriteriaBuilder.build();
         final Slice<NetworkData> searchResult = networkDataService.searchNetworkData(searchCriteria);
@@ -109,10 +136,84 @@ public class QueryController implements CpsTemporalQueryApi {
         return ResponseEntity.ok(anchorHistory);
     }
 
+    @Override
+    public ResponseEntity<AnchorHistory> getAnchorsSnapshot(final String dataspaceName,
+        final @NotNull @Valid String schemaSetName, final @Valid String observedTimestamp,
+        final @Valid String pointInTime, final @Min(0) @Valid Integer pageNumber,
+        final @Min(0) @Valid Integer pageLimit) {
+        final var snapshotCriteriaBuilder = SnapshotCriteria.builder()
+            .dataspaceName(dataspaceName)
+            .schemaSetName(schemaSetName)
+            .pagination(pageNumber, pageLimit);
+        if (!StringUtils.isEmpty(observedTimestamp)) {
+            snapshotCriteriaBuilder.observedTimestamp(getOffsetDateTime(observedTimestamp, "observedTimestamp"));
+        }
+        if (!StringUtils.isEmpty(pointInTime)) {
+            snapshotCriteriaBuilder.createdBefore(getOffsetDateTime(pointInTime, "pointInTime"));
+        }
+        final var snapshotCriteria = snapshotCriteriaBuilder.build();
+        final Slice<NetworkData> searchResult = networkDataService.searchNetworkDataSnapshot(snapshotCriteria);
+        final var anchorHistory = queryResponseFactory
+            .createAnchorsSnapshotResponse(snapshotCriteria, searchResult);
+        return ResponseEntity.ok(anchorHistory);
+    }
+
+    @Override
+    public ResponseEntity<ChangeStatistics> getAnchorChangeStatisticsByName(final String dataspaceName,
+        final String anchorName, final @Valid String granularity, final @Valid String observedTimestampAfter,
+        final @Valid String observedTimestampBefore, final @Min(0) @Valid Integer pageNumber,
+        final @Min(0) @Valid Integer pageLimit) {
+        final var changeCountCriteria = getChangeCountCriteriaBuilder(granularity, observedTimestampAfter,
+            observedTimestampBefore, pageNumber, pageLimit)
+            .dataspaceName(dataspaceName).anchorName(anchorName).build();
+        final Slice<NetworkDataChangeCount> searchResult =
+            networkDataService.searchNetworkDataChangeCounts(changeCountCriteria);
+        return ResponseEntity.ok(queryResponseFactory
+            .createAnchorChangeStatisticsByNameResponse(changeCountCriteria, searchResult));
+    }
+
+    @Override
+    public ResponseEntity<ChangeStatistics> getAnchorsChangeStatisticsByFilter(final String dataspaceName,
+        final @NotNull @Valid String schemaSetName, final @Valid String granularity,
+        final @Valid String observedTimestampAfter, final @Valid String observedTimestampBefore,
+        final @Min(0) @Valid Integer pageNumber, final @Min(0) @Valid Integer pageLimit) {
+        final var changeCountCriteria = getChangeCountCriteriaBuilder(granularity, observedTimestampAfter,
+            observedTimestampBefore, pageNumber, pageLimit)
+            .dataspaceName(dataspaceName).schemaSetName(schemaSetName).build();
+        final Slice<NetworkDataChangeCount> searchResult =
+            networkDataService.searchNetworkDataChangeCounts(changeCountCriteria);
+        return ResponseEntity.ok(queryResponseFactory
+            .createAnchorsChangeStatisticsByFilterResponse(changeCountCriteria, searchResult));
+    }
+
+    private ChangeCountCriteria.Builder getChangeCountCriteriaBuilder(final String granularity,
+        final String observedTimestampAfter, final String observedTimestampBefore,
+        final Integer pageNumber, final Integer pageLimit) {
+
+        final var changeCountCriteriaBuilder = ChangeCountCriteria.builder()
+            .pagination(pageNumber, pageLimit)
+            .observedAfter(getOffsetDateTime(observedTimestampAfter, "observedTimestampAfter"))
+            .observedBefore(getOffsetDateTime(observedTimestampBefore, "observedTimestampBefore"));
+
+        if (!StringUtils.isEmpty(granularity)) {
+            changeCountCriteriaBuilder.granularity(getChangeCountGranularity(granularity));
+        }
+
+        return changeCountCriteriaBuilder;
+    }
+
+    private ChangeCountGranularity getChangeCountGranularity(final String granularity) {
+        try {
+            return ChangeCountGranularity.valueOf(granularity.toUpperCase(Locale.ROOT));
+        } catch (final IllegalArgumentException exception) {
+            throw new ValidationException("granularity must be one of 'hour', 'day' or 'week'");
+        }
+    }
+
     private SearchCriteria.Builder getSearchCriteriaBuilder(final String observedTimestampAfter,
         final String simplePayloadFilter,
         final String pointInTime, final Integer pageNumber,
-        final Integer pageLimit, final String sortAsString) {
+        final Integer pageLimit, final String sortAsString, final String continuationToken) {
 
         final var searchCriteriaBuilder = SearchCriteria.builder()
             .pagination(pageNumber, pageLimit)
@@ -124,6 +225,13 @@ public class QueryController implements CpsTemporalQueryApi {
             searchCriteriaBuilder.createdBefore(getOffsetDateTime(pointInTime, "pointInTime"));
         }
 
+        if (!StringUtils.isEmpty(continuationToken)) {
+            if (pageNumber != 0) {
+                throw new ValidationException("pageNumber must not be provided with continuationToken");
+            }
+            searchCriteriaBuilder.cursor(continuationTokenMapper.toSearchCursor(continuationToken));
+        }
+
         return searchCriteriaBuilder;
 
     }
@@ -143,19 +251,27 @@ public class QueryController implements CpsTemporalQueryApi {
         private SortMapper sortMapper;
         private String basePath;
         private AnchorDetailsMapper anchorDetailsMapper;
+        private ContinuationTokenMapper continuationTokenMapper;
+        private ChangeCountMapper changeCountMapper;
 
         /**
          * Constructor.
          *
-         * @param sortMapper          sortMapper
-         * @param anchorDetailsMapper anchorDetailsMapper
-         * @param basePath            basePath
+         * @param sortMapper              sortMapper
+         * @param anchorDetailsMapper     anchorDetailsMapper
+         * @param continuationTokenMapper continuationTokenMapper
+         * @param changeCountMapper       changeCountMapper
+         * @param basePath                basePath
          */
         public QueryResponseFactory(final SortMapper sortMapper,
             final AnchorDetailsMapper anchorDetailsMapper,
+            final ContinuationTokenMapper continuationTokenMapper,
+            final ChangeCountMapper changeCountMapper,
             final String basePath) {
             this.sortMapper = sortMapper;
             this.anchorDetailsMapper = anchorDetailsMapper;
+            this.continuationTokenMapper = continuationTokenMapper;
+            this.changeCountMapper = changeCountMapper;
             this.basePath = basePath;
         }
 
@@ -170,13 +286,17 @@ public class QueryController implements CpsTemporalQueryApi {
             final Slice<NetworkData> searchResult) {
 
             final var anchorHistory = new AnchorHistory();
+            final String nextContinuationToken = getNextContinuationToken(searchResult);
+            anchorHistory.setNextContinuationToken(nextContinuationToken);
             if (searchResult.hasNext()) {
                 anchorHistory.setNextRecordsLink(
-                        getRelativeLinkForGetAnchorsDataByFilter(searchCriteria, searchResult.nextPageable()));
+                        getRelativeLinkForGetAnchorsDataByFilter(searchCriteria, searchResult.nextPageable(),
+                            searchCriteria.getCursor() == null ? null : nextContinuationToken));
             }
             if (searchResult.hasPrevious()) {
                 anchorHistory.setPreviousRecordsLink(
-                        getRelativeLinkForGetAnchorsDataByFilter(searchCriteria, searchResult.previousPageable()));
+                        getRelativeLinkForGetAnchorsDataByFilter(searchCriteria, searchResult.previousPageable(),
+                            null));
             }
             anchorHistory.setRecords(convertToAnchorDetails(searchResult.getContent()));
             return anchorHistory;
@@ -193,18 +313,112 @@ public class QueryController implements CpsTemporalQueryApi {
             final Slice<NetworkData> searchResult) {
 
             final var anchorHistory = new AnchorHistory();
+            final String nextContinuationToken = getNextContinuationToken(searchResult);
+            anchorHistory.setNextContinuationToken(nextContinuationToken);
             if (searchResult.hasNext()) {
                 anchorHistory.setNextRecordsLink(
-                    getRelativeLinkForGetAnchorDataByName(searchCriteria, searchResult.nextPageable()));
+                    getRelativeLinkForGetAnchorDataByName(searchCriteria, searchResult.nextPageable(),
+                        searchCriteria.getCursor() == null ? null : nextContinuationToken));
             }
             if (searchResult.hasPrevious()) {
                 anchorHistory.setPreviousRecordsLink(
-                    getRelativeLinkForGetAnchorDataByName(searchCriteria, searchResult.previousPageable()));
+                    getRelativeLinkForGetAnchorDataByName(searchCriteria, searchResult.previousPageable(), null));
             }
             anchorHistory.setRecords(convertToAnchorDetails(searchResult.getContent()));
             return anchorHistory;
         }
 
+        /**
+         * Use snapshot criteria and search result-set to create response.
+         *
+         * @param snapshotCriteria snapshotCriteria
+         * @param searchResult     searchResult
+         * @return AnchorHistory
+         */
+        public AnchorHistory createAnchorsSnapshotResponse(final SnapshotCriteria snapshotCriteria,
+            final Slice<NetworkData> searchResult) {
+
+            final var anchorHistory = new AnchorHistory();
+            if (searchResult.hasNext()) {
+                anchorHistory.setNextRecordsLink(
+                    getRelativeLinkForGetAnchorsSnapshot(snapshotCriteria, searchResult.nextPageable()));
+            }
+            if (searchResult.hasPrevious()) {
+                anchorHistory.setPreviousRecordsLink(
+                    getRelativeLinkForGetAnchorsSnapshot(snapshotCriteria, searchResult.previousPageable()));
+            }
+            anchorHistory.setRecords(convertToAnchorDetails(searchResult.getContent()));
+            return anchorHistory;
+        }
+
+        /**
+         * Use change count criteria and search result-set to create response.
+         *
+         * @param changeCountCriteria changeCountCriteria
+         * @param searchResult        searchResult
+         * @return ChangeStatistics
+         */
+        public ChangeStatistics createAnchorChangeStatisticsByNameResponse(
+            final ChangeCountCriteria changeCountCriteria, final Slice<NetworkDataChangeCount> searchResult) {
+
+            final var changeStatistics = new ChangeStatistics();
+            if (searchResult.hasNext()) {
+                changeStatistics.setNextRecordsLink(
+                    getRelativeLinkForGetAnchorChangeStatisticsByName(changeCountCriteria,
+                        searchResult.nextPageable()));
+            }
+            if (searchResult.hasPrevious()) {
+                changeStatistics.setPreviousRecordsLink(
+                    getRelativeLinkForGetAnchorChangeStatisticsByName(changeCountCriteria,
+                        searchResult.previousPageable()));
+            }
+            changeStatistics.setRecords(convertToChangeCounts(searchResult.getContent()));
+            return changeStatistics;
+        }
+
+        /**
+         * Use change count criteria and search result-set to create response.
+         *
+         * @param changeCountCriteria changeCountCriteria
+         * @param searchResult        searchResult
+         * @return ChangeStatistics
+         */
+        public ChangeStatistics createAnchorsChangeStatisticsByFilterResponse(
+            final ChangeCountCriteria changeCountCriteria, final Slice<NetworkDataChangeCount> searchResult) {
+
+            final var changeStatistics = new ChangeStatistics();
+            if (searchResult.hasNext()) {
+                changeStatistics.setNextRecordsLink(
+                    getRelativeLinkForGetAnchorsChangeStatisticsByFilter(changeCountCriteria,
+                        searchResult.nextPageable()));
+            }
+            if (searchResult.hasPrevious()) {
+                changeStatistics.setPreviousRecordsLink(
+                    getRelativeLinkForGetAnchorsChangeStatisticsByFilter(changeCountCriteria,
+                        searchResult.previousPageable()));
+            }
+            changeStatistics.setRecords(convertToChangeCounts(searchResult.getContent()));
+            return changeStatistics;
+        }
+
+        private List<ChangeCount> convertToChangeCounts(final List<NetworkDataChangeCount> changeCounts) {
+            return changeCounts.stream()
+                .map(changeCount -> changeCountMapper.toChangeCount(changeCount))
+                .collect(Collectors.toList());
+        }
+
+        /*
+        Continuation token is positioned on the last record returned. It is provided whenever more records are
+        available, so that a client can switch from page number to continuation token at any time.
+         */
+        private String getNextContinuationToken(final Slice<NetworkData> searchResult) {
+            if (!searchResult.hasNext() || !searchResult.hasContent()) {
+                return null;
+            }
+            final List<NetworkData> content = searchResult.getContent();
+            return continuationTokenMapper.toContinuationToken(content.get(content.size() - 1));
+        }
+
         private List<AnchorDetails> convertToAnchorDetails(final List<NetworkData> networkDataList) {
             return networkDataList.stream()
                 .map(networkData -> anchorDetailsMapper.toAnchorDetails(networkData))
@@ -226,29 +440,71 @@ public class QueryController implements CpsTemporalQueryApi {
             return basePath + absoluteLink.substring(contextPathBeginIndex + 21);
         }
 
+        /*
+        When the search is based on a cursor, the link is based on the continuation token and not on the page number.
+         */
         private String getRelativeLinkForGetAnchorDataByName(final SearchCriteria searchCriteria,
-                                                             final Pageable pageable) {
+                                                             final Pageable pageable,
+                                                             final String continuationToken) {
             final Link absoluteLink = linkTo(methodOn(QueryController.class).getAnchorDataByName(
                 searchCriteria.getDataspaceName(),
                 searchCriteria.getAnchorName(),
                 DateTimeUtility.toString(searchCriteria.getObservedAfter()),
                 searchCriteria.getSimplePayloadFilter(),
                 DateTimeUtility.toString(searchCriteria.getCreatedBefore()),
-                pageable.getPageNumber(), pageable.getPageSize(),
-                sortMapper.sortAsString(searchCriteria.getPageable().getSort()))).withSelfRel();
+                continuationToken == null ? pageable.getPageNumber() : null, pageable.getPageSize(),
+                sortMapper.sortAsString(searchCriteria.getPageable().getSort()),
+                continuationToken)).withSelfRel();
             return Link.of(toRelativeLink(absoluteLink.getHref())).expand().getHref();
         }
 
         private String getRelativeLinkForGetAnchorsDataByFilter(final SearchCriteria searchCriteria,
-                                                                final Pageable pageable) {
+                                                                final Pageable pageable,
+                                                                final String continuationToken) {
             final Link absoluteLink = linkTo(methodOn(QueryController.class).getAnchorsDataByFilter(
                 searchCriteria.getDataspaceName(),
                 searchCriteria.getSchemaSetName(),
                 DateTimeUtility.toString(searchCriteria.getObservedAfter()),
                 searchCriteria.getSimplePayloadFilter(),
                 DateTimeUtility.toString(searchCriteria.getCreatedBefore()),
-                pageable.getPageNumber(), pageable.getPageSize(),
-                sortMapper.sortAsString(searchCriteria.getPageable().getSort()))).withSelfRel();
+                continuationToken == null ? pageable.getPageNumber() : null, pageable.getPageSize(),
+                sortMapper.sortAsString(searchCriteria.getPageable().getSort()),
+                continuationToken)).withSelfRel();
+            return Link.of(toRelativeLink(absoluteLink.getHref())).expand().getHref();
+        }
+
+        private String getRelativeLinkForGetAnchorsSnapshot(final SnapshotCriteria snapshotCriteria,
+                                                            final Pageable pageable) {
+            final Link absoluteLink = linkTo(methodOn(QueryController.class).getAnchorsSnapshot(
+                snapshotCriteria.getDataspaceName(),
+                snapshotCriteria.getSchemaSetName(),
+                DateTimeUtility.toString(snapshotCriteria.getObservedTimestamp()),
+                DateTimeUtility.toString(snapshotCriteria.getCreatedBefore()),
+                pageable.getPageNumber(), pageable.getPageSize())).withSelfRel();
+            return Link.of(toRelativeLink(absoluteLink.getHref())).expand().getHref();
+        }
+
+        private String getRelativeLinkForGetAnchorChangeStatisticsByName(
+            final ChangeCountCriteria changeCountCriteria, final Pageable pageable) {
+            final Link absoluteLink = linkTo(methodOn(QueryController.class).getAnchorChangeStatisticsByName(
+                changeCountCriteria.getDataspaceName(),
+                changeCountCriteria.getAnchorName(),
+                changeCountCriteria.getGranularity().name().toLowerCase(Locale.ROOT),
+                DateTimeUtility.toString(changeCountCriteria.getObservedAfter()),
+                DateTimeUtility.toString(changeCountCriteria.getObservedBefore()),
+                pageable.getPageNumber(), pageable.getPageSize())).withSelfRel();
+            return Link.of(toRelativeLink(absoluteLink.getHref())).expand().getHref();
+        }
+
+        private String getRelativeLinkForGetAnchorsChangeStatisticsByFilter(
+            final ChangeCountCriteria changeCountCriteria, final Pageable pageable) {
+            final Link absoluteLink = linkTo(methodOn(QueryController.class).getAnchorsChangeStatisticsByFilter(
+                changeCountCriteria.getDataspaceName(),
+                changeCountCriteria.getSchemaSetName(),
+                changeCountCriteria.getGranularity().name().toLowerCase(Locale.ROOT),
+                DateTimeUtility.toString(changeCountCriteria.getObservedAfter()),
+                DateTimeUtility.toString(changeCountCriteria.getObservedBefore()),
+                pageable.getPageNumber(), pageable.getPageSize())).withSelfRel();
             return Link.of(toRelativeLink(absoluteLink.getHref())).expand().getHref();
         }
     }
@@ -23,6 +23,8 @@ package org.onap.cps.temporal.controller.rest;
 import javax.validation.ValidationException;
 import lombok.extern.slf4j.Slf4j;
 import org.onap.cps.temporal.controller.rest.model.ErrorMessage;
+import org.onap.cps.temporal.service.NetworkDataNotFoundException;
+import org.onap.cps.temporal.service.QueryRejectedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -42,6 +44,16 @@ public class QueryExceptionHandler {
         return logAndBuildErrorMessage(HttpStatus.BAD_REQUEST, illegalArgumentException);
     }
 
+    @ExceptionHandler({NetworkDataNotFoundException.class})
+    public ResponseEntity<ErrorMessage> handleNotFound(final NetworkDataNotFoundException notFoundException) {
+        return buildErrorMessage(HttpStatus.NOT_FOUND, notFoundException);
+    }
+
+    @ExceptionHandler({QueryRejectedException.class})
+    public ResponseEntity<ErrorMessage> handleServiceUnavailable(final QueryRejectedException queryRejectedException) {
+        return buildErrorMessage(HttpStatus.SERVICE_UNAVAILABLE, queryRejectedException);
+    }
+
     @ExceptionHandler
     public ResponseEntity<ErrorMessage> handleInternalServerError(final Exception exception) {
         return logAndBuildErrorMessage(HttpStatus.INTERNAL_SERVER_ERROR, exception);
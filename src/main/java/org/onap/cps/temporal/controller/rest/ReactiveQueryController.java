@@ -0,0 +1,120 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.rest;
+
+import org.onap.cps.temporal.controller.rest.model.AnchorDetails;
+import org.onap.cps.temporal.controller.rest.model.AnchorDetailsMapper;
+import org.onap.cps.temporal.controller.rest.model.SortMapper;
+import org.onap.cps.temporal.domain.SearchCriteria;
+import org.onap.cps.temporal.service.NetworkDataReactiveService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking streaming of anchors history as newline delimited JSON, one AnchorDetails per line, only when reactive
+ * queries are enabled. The request thread is released as soon as the query is submitted: records are read from the
+ * database by the R2DBC driver as the previous ones are written to the response, so that many long-running history
+ * reads are served by a few threads. These operations are documented in openapi.yml but not generated from it, as
+ * the generated interface can not return a reactive response body.
+ */
+@RestController
+@RequestMapping("${rest.api.base-path}")
+@ConditionalOnProperty(name = "app.query.reactive.enabled", havingValue = "true")
+public class ReactiveQueryController {
+
+    private static final String DEFAULT_SORT = StreamedSearchCriteria.DEFAULT_SORT;
+
+    private final NetworkDataReactiveService networkDataReactiveService;
+    private final SortMapper sortMapper;
+    private final AnchorDetailsMapper anchorDetailsMapper;
+
+    /**
+     * Constructor.
+     *
+     * @param networkDataReactiveService networkDataReactiveService
+     * @param sortMapper                 sortMapper
+     * @param anchorDetailsMapper        anchorDetailsMapper
+     */
+    public ReactiveQueryController(final NetworkDataReactiveService networkDataReactiveService,
+        final SortMapper sortMapper,
+        final AnchorDetailsMapper anchorDetailsMapper) {
+        this.networkDataReactiveService = networkDataReactiveService;
+        this.sortMapper = sortMapper;
+        this.anchorDetailsMapper = anchorDetailsMapper;
+    }
+
+    /**
+     * Stream the history of the specified anchor.
+     *
+     * @return the streamed history
+     */
+    @GetMapping(value = "/v1/dataspaces/{dataspace-name}/anchors/{anchor-name}/history/stream",
+        produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<AnchorDetails> streamAnchorDataByName(
+        @PathVariable("dataspace-name") final String dataspaceName,
+        @PathVariable("anchor-name") final String anchorName,
+        @RequestParam(value = "observedTimestampAfter", required = false) final String observedTimestampAfter,
+        @RequestParam(value = "observedTimestampBefore", required = false) final String observedTimestampBefore,
+        @RequestParam(value = "simplePayloadFilter", required = false) final String simplePayloadFilter,
+        @RequestParam(value = "pointInTime", required = false) final String pointInTime,
+        @RequestParam(value = "sort", required = false, defaultValue = DEFAULT_SORT) final String sortAsString) {
+
+        final var searchCriteria =
+            StreamedSearchCriteria.builder(sortMapper, observedTimestampAfter, observedTimestampBefore,
+                simplePayloadFilter, pointInTime, sortAsString)
+                .dataspaceName(dataspaceName).anchorName(anchorName).build();
+        return streamNetworkData(searchCriteria);
+    }
+
+    /**
+     * Stream the history of the anchors of the specified schema set.
+     *
+     * @return the streamed history
+     */
+    @GetMapping(value = "/v1/dataspaces/{dataspace-name}/anchors/history/stream",
+        produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<AnchorDetails> streamAnchorsDataByFilter(
+        @PathVariable("dataspace-name") final String dataspaceName,
+        @RequestParam(value = "schema-set-name") final String schemaSetName,
+        @RequestParam(value = "observedTimestampAfter", required = false) final String observedTimestampAfter,
+        @RequestParam(value = "observedTimestampBefore", required = false) final String observedTimestampBefore,
+        @RequestParam(value = "simplePayloadFilter", required = false) final String simplePayloadFilter,
+        @RequestParam(value = "pointInTime", required = false) final String pointInTime,
+        @RequestParam(value = "sort", required = false, defaultValue = DEFAULT_SORT) final String sortAsString) {
+
+        final var searchCriteria =
+            StreamedSearchCriteria.builder(sortMapper, observedTimestampAfter, observedTimestampBefore,
+                simplePayloadFilter, pointInTime, sortAsString)
+                .dataspaceName(dataspaceName).schemaSetName(schemaSetName).build();
+        return streamNetworkData(searchCriteria);
+    }
+
+    private Flux<AnchorDetails> streamNetworkData(final SearchCriteria searchCriteria) {
+        return networkDataReactiveService.streamNetworkData(searchCriteria).map(anchorDetailsMapper::toAnchorDetails);
+    }
+
+}
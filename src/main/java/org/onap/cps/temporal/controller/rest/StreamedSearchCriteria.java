@@ -0,0 +1,73 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.rest;
+
+import java.time.OffsetDateTime;
+import javax.validation.ValidationException;
+import org.apache.commons.lang3.StringUtils;
+import org.onap.cps.temporal.controller.rest.model.SortMapper;
+import org.onap.cps.temporal.controller.utils.DateTimeUtility;
+import org.onap.cps.temporal.domain.SearchCriteria;
+
+/**
+ * Search criteria of streamed history requests, shared by export and reactive query controllers.
+ */
+final class StreamedSearchCriteria {
+
+    static final String DEFAULT_SORT = "observed_timestamp:desc";
+
+    private StreamedSearchCriteria() {
+    }
+
+    /**
+     * Get an unpaged search criteria builder from the request parameters common to all streamed history requests.
+     *
+     * @return the search criteria builder, without dataspace, anchor and schema set
+     * @throws ValidationException if a timestamp is not in the expected format
+     */
+    static SearchCriteria.Builder builder(final SortMapper sortMapper, final String observedTimestampAfter,
+        final String observedTimestampBefore, final String simplePayloadFilter,
+        final String pointInTime, final String sortAsString) {
+
+        final var searchCriteriaBuilder = SearchCriteria.builder()
+            .unpaged()
+            .observedAfter(getOffsetDateTime(observedTimestampAfter, "observedTimestampAfter"))
+            .observedBefore(getOffsetDateTime(observedTimestampBefore, "observedTimestampBefore"))
+            .simplePayloadFilter(simplePayloadFilter)
+            .sort(sortMapper.toSort(sortAsString));
+
+        if (!StringUtils.isEmpty(pointInTime)) {
+            searchCriteriaBuilder.createdBefore(getOffsetDateTime(pointInTime, "pointInTime"));
+        }
+
+        return searchCriteriaBuilder;
+    }
+
+    private static OffsetDateTime getOffsetDateTime(final String datetime, final String propertyName) {
+        try {
+            return DateTimeUtility.toOffsetDateTime(datetime);
+        } catch (final Exception exception) {
+            throw new ValidationException(
+                String.format("%s must be in '%s' format", propertyName, DateTimeUtility.ISO_TIMESTAMP_PATTERN));
+        }
+    }
+
+}
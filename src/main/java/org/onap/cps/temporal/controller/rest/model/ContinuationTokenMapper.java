@@ -0,0 +1,74 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.rest.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import javax.validation.ValidationException;
+import org.onap.cps.temporal.domain.NetworkData;
+import org.onap.cps.temporal.domain.SearchCursor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Convert between search cursor and the opaque continuation token exposed in query responses.
+ * The token is the base64url encoding of "observedTimestamp|anchor", the timestamp keeping the full database
+ * precision.
+ */
+@Component
+public class ContinuationTokenMapper {
+
+    private static final String FIELD_SEPARATOR = "|";
+
+    /**
+     * Create the continuation token positioned on the specified network data.
+     *
+     * @param networkData the last network data returned
+     * @return continuation token
+     */
+    public String toContinuationToken(final NetworkData networkData) {
+        final String cursorAsString = DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(networkData.getObservedTimestamp())
+            + FIELD_SEPARATOR + networkData.getAnchor();
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(cursorAsString.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Convert the continuation token to search cursor.
+     *
+     * @param continuationToken continuationToken
+     * @return SearchCursor
+     */
+    public SearchCursor toSearchCursor(final String continuationToken) {
+        try {
+            final var cursorAsString =
+                new String(Base64.getUrlDecoder().decode(continuationToken), StandardCharsets.UTF_8);
+            final int separatorIndex = cursorAsString.indexOf(FIELD_SEPARATOR);
+            final var observedTimestamp = OffsetDateTime.parse(
+                cursorAsString.substring(0, separatorIndex), DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+            return new SearchCursor(observedTimestamp, cursorAsString.substring(separatorIndex + 1));
+        } catch (final Exception exception) {
+            throw new ValidationException(
+                String.format("Invalid continuationToken '%s'", continuationToken), exception);
+        }
+    }
+}
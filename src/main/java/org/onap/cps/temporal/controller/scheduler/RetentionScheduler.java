@@ -0,0 +1,67 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.scheduler;
+
+import javax.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.onap.cps.temporal.service.NetworkDataRetentionService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduler applying network data retention periodically.
+ */
+@Component
+@ConditionalOnProperty(name = "app.retention.enabled", havingValue = "true")
+@Slf4j
+public class RetentionScheduler {
+
+    private final NetworkDataRetentionService networkDataRetentionService;
+
+    public RetentionScheduler(final NetworkDataRetentionService networkDataRetentionService) {
+        this.networkDataRetentionService = networkDataRetentionService;
+    }
+
+    /**
+     * Check retention rules at startup, so that a configuration that can not be applied prevents the service from
+     * starting rather than failing every run.
+     */
+    @PostConstruct
+    public void validateRetentionRules() {
+        networkDataRetentionService.validateRules();
+    }
+
+    /**
+     * Apply retention. Failures are logged and retention is attempted again on next schedule.
+     */
+    @Scheduled(cron = "${app.retention.cron}")
+    public void applyRetention() {
+        log.info("Applying network data retention ...");
+        try {
+            networkDataRetentionService.applyRetention();
+        } catch (final Exception exception) {
+            log.error("Failed to apply network data retention. Error cause is {}.", exception.getMessage(),
+                exception);
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.domain;
+
+import java.time.OffsetDateTime;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Criteria to count network data changes by time bucket.
+ * Changes are counted from hourly aggregates: observed after and before filters are applied to hourly buckets start.
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+@Builder(builderClassName = "Builder")
+@EqualsAndHashCode
+public class ChangeCountCriteria {
+
+    private String dataspaceName;
+    private String anchorName;
+    private String schemaSetName;
+    private OffsetDateTime observedAfter;
+    private OffsetDateTime observedBefore;
+    private ChangeCountGranularity granularity;
+    private Pageable pageable;
+
+    public static class Builder {
+
+        private ChangeCountGranularity granularity = ChangeCountGranularity.HOUR;
+
+        public Builder pagination(final int pageNumber, final int pageSize) {
+            pageable = PageRequest.of(pageNumber, pageSize);
+            return this;
+        }
+
+        /**
+         * Validates the state before building change count criteria.
+         *
+         * @return ChangeCountCriteria changeCountCriteria
+         */
+        public ChangeCountCriteria build() {
+
+            if (StringUtils.isEmpty(anchorName) && StringUtils.isEmpty(schemaSetName)) {
+                throw new IllegalStateException(
+                    "Either anchorName or schemaSetName must be provided");
+            }
+
+            if (StringUtils.isEmpty(dataspaceName)) {
+                throw new IllegalStateException("Dataspace is mandatory");
+            }
+
+            if (granularity == null) {
+                throw new IllegalStateException("Granularity is mandatory");
+            }
+
+            if (pageable == null) {
+                throw new IllegalStateException("Pageable is mandatory");
+            }
+
+            final var changeCountCriteria = new ChangeCountCriteria();
+            changeCountCriteria.dataspaceName = dataspaceName;
+            changeCountCriteria.anchorName = anchorName;
+            changeCountCriteria.schemaSetName = schemaSetName;
+            changeCountCriteria.observedAfter = observedAfter;
+            changeCountCriteria.observedBefore = observedBefore;
+            changeCountCriteria.granularity = granularity;
+            changeCountCriteria.pageable = pageable;
+            return changeCountCriteria;
+        }
+
+    }
+
+}
@@ -82,6 +82,25 @@ public class NetworkData implements Serializable {
     @Column(columnDefinition = "jsonb", updatable = false)
     private String payload;
 
+    /**
+     * Format of the stored payload, full payload if not set. Payloads read from the repository are always full.
+     */
+    @Column(updatable = false)
+    @Enumerated(EnumType.STRING)
+    private PayloadFormat payloadFormat;
+
+    /**
+     * Observed timestamp of the network data the stored payload is a patch from.
+     */
+    @Column(updatable = false)
+    private OffsetDateTime payloadBaseTimestamp;
+
+    /**
+     * SHA-256 hash of the full payload, with object members sorted by name.
+     */
+    @Column(updatable = false)
+    private String payloadHash;
+
     @CreationTimestamp
     @Column(updatable = false)
     private OffsetDateTime createdTimestamp;
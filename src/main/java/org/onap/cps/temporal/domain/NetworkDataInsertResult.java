@@ -0,0 +1,124 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Outcome of inserting network data: the ones actually inserted, the ones skipped because they already exist, the
+ * ones skipped because their payload is unchanged since the previous network data of their anchor and the ones
+ * rejected because they are observed within a compressed chunk.
+ */
+@EqualsAndHashCode
+@ToString
+public class NetworkDataInsertResult {
+
+    private final List<NetworkData> inserted = new ArrayList<>();
+    private final List<NetworkData> duplicates = new ArrayList<>();
+    private final List<NetworkData> unchanged = new ArrayList<>();
+    private final List<NetworkData> late = new ArrayList<>();
+
+    public void addInserted(final NetworkData networkData) {
+        inserted.add(networkData);
+    }
+
+    public void addDuplicate(final NetworkData networkData) {
+        duplicates.add(networkData);
+    }
+
+    public void addUnchanged(final NetworkData networkData) {
+        unchanged.add(networkData);
+    }
+
+    public void addLate(final NetworkData networkData) {
+        late.add(networkData);
+    }
+
+    /**
+     * Merge the specified result into this one.
+     *
+     * @param insertResult the result to be merged
+     */
+    public void addAll(final NetworkDataInsertResult insertResult) {
+        inserted.addAll(insertResult.inserted);
+        duplicates.addAll(insertResult.duplicates);
+        unchanged.addAll(insertResult.unchanged);
+        late.addAll(insertResult.late);
+    }
+
+    /**
+     * Get the inserted network data, with their created timestamp set.
+     *
+     * @return the inserted network data
+     */
+    public List<NetworkData> getInserted() {
+        return Collections.unmodifiableList(inserted);
+    }
+
+    /**
+     * Get the network data that have not been inserted because they already exist.
+     *
+     * @return the duplicated network data
+     */
+    public List<NetworkData> getDuplicates() {
+        return Collections.unmodifiableList(duplicates);
+    }
+
+    /**
+     * Get the network data that have not been inserted because their payload is unchanged since the previous
+     * network data of their anchor.
+     *
+     * @return the unchanged network data
+     */
+    public List<NetworkData> getUnchanged() {
+        return Collections.unmodifiableList(unchanged);
+    }
+
+    /**
+     * Get the network data that have not been inserted because they are observed within a compressed chunk.
+     *
+     * @return the late network data
+     */
+    public List<NetworkData> getLate() {
+        return Collections.unmodifiableList(late);
+    }
+
+    public int getInsertedCount() {
+        return inserted.size();
+    }
+
+    public int getDuplicateCount() {
+        return duplicates.size();
+    }
+
+    public int getUnchangedCount() {
+        return unchanged.size();
+    }
+
+    public int getLateCount() {
+        return late.size();
+    }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.domain;
+
+/**
+ * Format of a stored network data payload.
+ */
+public enum PayloadFormat {
+    /**
+     * Complete payload.
+     */
+    FULL,
+    /**
+     * JSON Patch (RFC 6902) from the payload of the network data observed at the payload base timestamp.
+     */
+    JSON_PATCH,
+    /**
+     * Reference to the payload stored once in the network data payload table, by its payload hash.
+     */
+    REFERENCE
+}
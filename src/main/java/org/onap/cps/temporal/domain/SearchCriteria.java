@@ -45,11 +45,14 @@ public class SearchCriteria {
 
     private OffsetDateTime createdBefore;
     private OffsetDateTime observedAfter;
+    private OffsetDateTime observedBefore;
     private String dataspaceName;
     private String anchorName;
     private String schemaSetName;
     private Pageable pageable;
+    private Sort sort;
     private String simplePayloadFilter;
+    private SearchCursor cursor;
 
     public static class Builder {
 
@@ -68,6 +71,16 @@ public class SearchCriteria {
             return this;
         }
 
+        /**
+         * Do not paginate: all the data matching the search criteria are requested.
+         *
+         * @return Builder
+         */
+        public Builder unpaged() {
+            pageable = Pageable.unpaged();
+            return this;
+        }
+
         /**
          * Validate that simplePayloadFilter is a valid json.
          *
@@ -130,14 +143,22 @@ public class SearchCriteria {
                 throw new IllegalStateException("Pageable is mandatory");
             }
 
+            if (cursor != null && (pageable.isUnpaged() || pageable.getPageNumber() != 0)) {
+                throw new IllegalStateException(
+                    "Cursor can only be combined with the first page of a paginated search");
+            }
+
             final var searchCriteria = new SearchCriteria();
             searchCriteria.createdBefore = createdBefore;
             searchCriteria.observedAfter = observedAfter;
+            searchCriteria.observedBefore = observedBefore;
             searchCriteria.dataspaceName = dataspaceName;
             searchCriteria.anchorName = anchorName;
             searchCriteria.schemaSetName = schemaSetName;
-            searchCriteria.pageable = ((PageRequest) pageable).withSort(sort);
+            searchCriteria.pageable = pageable.isPaged() ? ((PageRequest) pageable).withSort(sort) : pageable;
+            searchCriteria.sort = sort;
             searchCriteria.simplePayloadFilter = simplePayloadFilter;
+            searchCriteria.cursor = cursor;
             return searchCriteria;
         }
 
@@ -0,0 +1,91 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.domain;
+
+import java.time.OffsetDateTime;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Criteria to get the latest data of each anchor of a schema set at a given time.
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+@Builder(builderClassName = "Builder")
+@EqualsAndHashCode
+public class SnapshotCriteria {
+
+    private OffsetDateTime observedTimestamp;
+    private OffsetDateTime createdBefore;
+    private String dataspaceName;
+    private String schemaSetName;
+    private Pageable pageable;
+
+    public static class Builder {
+
+        private static final Sort SORT = Sort.by(Sort.Direction.ASC, "anchor");
+
+        private OffsetDateTime observedTimestamp = OffsetDateTime.now();
+        private OffsetDateTime createdBefore = OffsetDateTime.now();
+
+        public Builder pagination(final int pageNumber, final int pageSize) {
+            pageable = PageRequest.of(pageNumber, pageSize, SORT);
+            return this;
+        }
+
+        /**
+         * Validates the state before building snapshot criteria.
+         *
+         * @return SnapshotCriteria snapshotCriteria
+         */
+        public SnapshotCriteria build() {
+
+            if (StringUtils.isEmpty(dataspaceName)) {
+                throw new IllegalStateException("Dataspace is mandatory");
+            }
+
+            if (StringUtils.isEmpty(schemaSetName)) {
+                throw new IllegalStateException("Schema set is mandatory");
+            }
+
+            if (pageable == null) {
+                throw new IllegalStateException("Pageable is mandatory");
+            }
+
+            final var snapshotCriteria = new SnapshotCriteria();
+            snapshotCriteria.observedTimestamp = observedTimestamp;
+            snapshotCriteria.createdBefore = createdBefore;
+            snapshotCriteria.dataspaceName = dataspaceName;
+            snapshotCriteria.schemaSetName = schemaSetName;
+            snapshotCriteria.pageable = pageable;
+            return snapshotCriteria;
+        }
+
+    }
+
+}
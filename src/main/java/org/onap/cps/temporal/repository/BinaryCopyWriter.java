@@ -0,0 +1,111 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Writer of rows in the PostgreSQL binary COPY format: a header, then for each row its number of columns followed by
+ * the length and the binary representation of each column value, and a trailer.
+ */
+class BinaryCopyWriter {
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final Instant POSTGRES_EPOCH = Instant.parse("2000-01-01T00:00:00Z");
+    private static final int JSONB_VERSION = 1;
+    private static final int NULL_LENGTH = -1;
+    private static final int TRAILER = -1;
+    private static final int BUFFER_SIZE = 65_536;
+
+    private final DataOutputStream dataOutputStream;
+
+    /**
+     * Constructor, writing the header.
+     *
+     * @param outputStream the output stream, typically a COPY FROM STDIN operation
+     * @throws IOException if the header can not be written
+     */
+    BinaryCopyWriter(final OutputStream outputStream) throws IOException {
+        dataOutputStream = new DataOutputStream(new BufferedOutputStream(outputStream, BUFFER_SIZE));
+        dataOutputStream.write(SIGNATURE);
+        // Flags, then header extension length
+        dataOutputStream.writeInt(0);
+        dataOutputStream.writeInt(0);
+    }
+
+    void startRow(final int columnCount) throws IOException {
+        dataOutputStream.writeShort(columnCount);
+    }
+
+    void writeText(final String value) throws IOException {
+        if (value == null) {
+            dataOutputStream.writeInt(NULL_LENGTH);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        dataOutputStream.writeInt(bytes.length);
+        dataOutputStream.write(bytes);
+    }
+
+    /*
+    Binary representation of jsonb is its text representation, preceded by a format version byte.
+     */
+    void writeJsonb(final String value) throws IOException {
+        if (value == null) {
+            dataOutputStream.writeInt(NULL_LENGTH);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        dataOutputStream.writeInt(bytes.length + 1);
+        dataOutputStream.writeByte(JSONB_VERSION);
+        dataOutputStream.write(bytes);
+    }
+
+    /*
+    Binary representation of timestamptz is the number of microseconds since PostgreSQL epoch, in UTC.
+     */
+    void writeTimestamp(final OffsetDateTime value) throws IOException {
+        if (value == null) {
+            dataOutputStream.writeInt(NULL_LENGTH);
+            return;
+        }
+        dataOutputStream.writeInt(Long.BYTES);
+        dataOutputStream.writeLong(ChronoUnit.MICROS.between(POSTGRES_EPOCH, value.toInstant()));
+    }
+
+    /**
+     * Write the trailer and flush the rows written.
+     *
+     * @throws IOException if the trailer can not be written
+     */
+    void finish() throws IOException {
+        dataOutputStream.writeShort(TRAILER);
+        dataOutputStream.flush();
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Time ranges of the compressed chunks of network data hypertable, read again at most once per refresh interval.
+ * Compressed chunks do not support inserts with conflict handling in TimescaleDB 2.5, network data observed within
+ * them must not be inserted.
+ */
+class CompressedChunkRanges {
+
+    private static final String SELECT_COMPRESSED_CHUNK_RANGES =
+        "SELECT range_start, range_end FROM timescaledb_information.chunks"
+            + " WHERE hypertable_name = 'network_data' AND is_compressed";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration refreshInterval;
+
+    private volatile List<Range> ranges;
+    private volatile long loadedAtNanos;
+
+    CompressedChunkRanges(final JdbcTemplate jdbcTemplate, final Duration refreshInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Check if the specified observed timestamp is within a compressed chunk.
+     *
+     * @param observedTimestamp the observed timestamp
+     * @return true if network data observed at this timestamp belong to a compressed chunk
+     */
+    boolean contains(final OffsetDateTime observedTimestamp) {
+        return getRanges().stream().anyMatch(range -> range.contains(observedTimestamp));
+    }
+
+    /**
+     * Read the ranges again on next check, e.g. after an insert failed because a chunk has been compressed since the
+     * ranges were read.
+     */
+    void invalidate() {
+        ranges = null;
+    }
+
+    private List<Range> getRanges() {
+        var currentRanges = ranges;
+        if (currentRanges == null || System.nanoTime() - loadedAtNanos >= refreshInterval.toNanos()) {
+            currentRanges = jdbcTemplate.query(SELECT_COMPRESSED_CHUNK_RANGES, (resultSet, rowNumber) ->
+                new Range(resultSet.getObject("range_start", OffsetDateTime.class),
+                    resultSet.getObject("range_end", OffsetDateTime.class)));
+            loadedAtNanos = System.nanoTime();
+            ranges = currentRanges;
+        }
+        return currentRanges;
+    }
+
+    @AllArgsConstructor
+    private static class Range {
+
+        private final OffsetDateTime start;
+        private final OffsetDateTime end;
+
+        boolean contains(final OffsetDateTime timestamp) {
+            return !timestamp.isBefore(start) && timestamp.isBefore(end);
+        }
+
+    }
+
+}
@@ -0,0 +1,306 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.onap.cps.temporal.domain.NetworkData;
+import org.onap.cps.temporal.domain.Operation;
+import org.onap.cps.temporal.domain.PayloadFormat;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * Content addressed storage of network data payloads. Payloads are identified by the hash of their canonical form,
+ * i.e. with object members sorted by name, so that identical payloads are stored once in the network data payload
+ * table and referenced by network data.
+ */
+@Slf4j
+class DeduplicatedPayloadStore {
+
+    private static final int MAX_PAYLOADS_PER_STATEMENT = 1000;
+    private static final int RESOLVED_PAYLOADS_CACHE_SIZE = 1000;
+
+    /*
+    The last referenced timestamp is only updated once it is more than an hour old, so that payloads referenced
+    again and again are not rewritten by each insert. Conflicting rows are locked in any case, which prevents
+    the deletion of unreferenced payloads from deleting them before the network data referencing them are committed.
+     */
+    private static final String UPSERT_PAYLOADS =
+        "INSERT INTO network_data_payload (payload_hash, payload, last_referenced_timestamp) VALUES %s"
+            + " ON CONFLICT (payload_hash) DO UPDATE SET last_referenced_timestamp = EXCLUDED.last_referenced_timestamp"
+            + " WHERE network_data_payload.last_referenced_timestamp"
+            + " < EXCLUDED.last_referenced_timestamp - INTERVAL '1 hour'";
+
+    private static final String UPSERT_PAYLOADS_VALUES = "(?, ?::jsonb, ?)";
+
+    private static final String SELECT_PAYLOADS =
+        "SELECT payload_hash, CAST(payload AS TEXT) AS payload FROM network_data_payload"
+            + " WHERE payload_hash IN (:payloadHashes)";
+
+    /*
+    Latest network data of each anchor, each one read with a single index scan.
+     */
+    private static final String SELECT_LATEST_PAYLOAD_HASHES =
+        "SELECT requested.anchor_name, latest.observed_timestamp, latest.operation, latest.payload_hash"
+            + " FROM unnest(CAST(:anchors AS TEXT[])) requested(anchor_name)"
+            + " CROSS JOIN LATERAL (SELECT observed_timestamp, operation, payload_hash FROM network_data"
+            + " WHERE dataspace = :dataspace AND anchor = requested.anchor_name"
+            + " ORDER BY observed_timestamp DESC LIMIT 1) latest";
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    DeduplicatedPayloadStore(final NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    }
+
+    /**
+     * Compute the hashes of the payloads of the network data.
+     *
+     * @param networkDataList the network data
+     * @return the payload hashes, in the order of the network data, null for network data without payload
+     */
+    List<String> hashPayloads(final List<NetworkData> networkDataList) {
+        return networkDataList.stream().map(networkData -> hashPayload(networkData.getPayload()))
+            .collect(Collectors.toList());
+    }
+
+    private String hashPayload(final String payload) {
+        if (payload == null) {
+            return null;
+        }
+        try {
+            final byte[] canonicalPayload = objectMapper.writeValueAsBytes(objectMapper.readValue(payload,
+                Object.class));
+            final byte[] hash = MessageDigest.getInstance("SHA-256").digest(canonicalPayload);
+            return String.format("%064x", new BigInteger(1, hash));
+        } catch (final JsonProcessingException jsonProcessingException) {
+            throw new IllegalStateException("Invalid network data payload", jsonProcessingException);
+        } catch (final NoSuchAlgorithmException noSuchAlgorithmException) {
+            throw new IllegalStateException("SHA-256 is not supported", noSuchAlgorithmException);
+        }
+    }
+
+    /**
+     * Identify the network data updating their anchor with the same payload as its previous network data, stored
+     * or in the list. Network data not observed after the latest one of their anchor are never identified.
+     *
+     * @param networkDataList the network data to be inserted
+     * @param payloadHashes   the payload hashes of the network data
+     * @return the indexes in the list of the unchanged network data
+     */
+    Set<Integer> findUnchanged(final List<NetworkData> networkDataList, final List<String> payloadHashes) {
+        final Map<String, Map<String, AnchorVersion>> latestVersionsByDataspace = new HashMap<>();
+        networkDataList.stream().collect(Collectors.groupingBy(NetworkData::getDataspace,
+                Collectors.mapping(NetworkData::getAnchor, Collectors.toSet())))
+            .forEach((dataspace, anchors) ->
+                latestVersionsByDataspace.put(dataspace, loadLatestVersions(dataspace, anchors)));
+
+        final List<Integer> indexesByObservedTimestamp = IntStream.range(0, networkDataList.size()).boxed()
+            .sorted(Comparator.comparing(index -> networkDataList.get(index).getObservedTimestamp()))
+            .collect(Collectors.toList());
+        final Set<Integer> unchangedIndexes = new HashSet<>();
+        for (final int index : indexesByObservedTimestamp) {
+            final var networkData = networkDataList.get(index);
+            final Map<String, AnchorVersion> latestVersions =
+                latestVersionsByDataspace.get(networkData.getDataspace());
+            final var latestVersion = latestVersions.get(networkData.getAnchor());
+            if (latestVersion != null
+                && !networkData.getObservedTimestamp().isAfter(latestVersion.getObservedTimestamp())) {
+                continue;
+            }
+            if (latestVersion != null && networkData.getOperation() == Operation.UPDATE
+                && latestVersion.getOperation() != Operation.DELETE
+                && payloadHashes.get(index) != null
+                && payloadHashes.get(index).equals(latestVersion.getPayloadHash())) {
+                unchangedIndexes.add(index);
+            } else {
+                latestVersions.put(networkData.getAnchor(), new AnchorVersion(networkData.getObservedTimestamp(),
+                    networkData.getOperation(), payloadHashes.get(index)));
+            }
+        }
+        return unchangedIndexes;
+    }
+
+    private Map<String, AnchorVersion> loadLatestVersions(final String dataspace, final Set<String> anchors) {
+        final var parameters = new MapSqlParameterSource();
+        parameters.addValue("dataspace", dataspace);
+        parameters.addValue("anchors", anchors.toArray(new String[0]));
+        final Map<String, AnchorVersion> latestVersions = new HashMap<>();
+        namedParameterJdbcTemplate.query(SELECT_LATEST_PAYLOAD_HASHES, parameters, resultSet -> {
+            latestVersions.put(resultSet.getString("anchor_name"), new AnchorVersion(
+                resultSet.getObject("observed_timestamp", OffsetDateTime.class),
+                Operation.valueOf(resultSet.getString("operation")),
+                resultSet.getString("payload_hash")));
+        });
+        return latestVersions;
+    }
+
+    /**
+     * Store the payloads of the network data to be inserted in the network data payload table, if not already.
+     *
+     * @param networkDataList the network data to be inserted
+     * @param payloadHashes   the payload hashes of the network data
+     */
+    void storePayloads(final List<NetworkData> networkDataList, final List<String> payloadHashes) {
+        // Sorted by hash so that concurrent inserts lock existing payloads in the same order
+        final SortedMap<String, String> payloadsByHash = new TreeMap<>();
+        for (int index = 0; index < networkDataList.size(); index++) {
+            if (payloadHashes.get(index) != null) {
+                payloadsByHash.putIfAbsent(payloadHashes.get(index), networkDataList.get(index).getPayload());
+            }
+        }
+        final List<Map.Entry<String, String>> payloads = new ArrayList<>(payloadsByHash.entrySet());
+        final var referencedTimestamp = OffsetDateTime.now();
+        for (int fromIndex = 0; fromIndex < payloads.size(); fromIndex += MAX_PAYLOADS_PER_STATEMENT) {
+            final List<Map.Entry<String, String>> statementPayloads =
+                payloads.subList(fromIndex, Math.min(fromIndex + MAX_PAYLOADS_PER_STATEMENT, payloads.size()));
+            final var sql = String.format(UPSERT_PAYLOADS,
+                String.join(", ", Collections.nCopies(statementPayloads.size(), UPSERT_PAYLOADS_VALUES)));
+            namedParameterJdbcTemplate.getJdbcOperations().update(sql,
+                preparedStatement -> setValues(preparedStatement, statementPayloads, referencedTimestamp));
+        }
+    }
+
+    private static void setValues(final PreparedStatement preparedStatement,
+                                  final List<Map.Entry<String, String>> payloads,
+                                  final OffsetDateTime referencedTimestamp) throws SQLException {
+        var parameterIndex = 1;
+        for (final Map.Entry<String, String> payload : payloads) {
+            preparedStatement.setString(parameterIndex++, payload.getKey());
+            preparedStatement.setString(parameterIndex++, payload.getValue());
+            preparedStatement.setObject(parameterIndex++, referencedTimestamp);
+        }
+    }
+
+    /**
+     * Create a resolver, replacing payload references of network data by the payloads they reference.
+     *
+     * @return the resolver
+     */
+    Resolver newResolver() {
+        return new Resolver();
+    }
+
+    /**
+     * Resolver of payload references. The latest resolved payloads are kept, as network data read in sequence
+     * often reference the same payloads.
+     */
+    class Resolver {
+
+        private final Map<String, String> resolvedPayloadsByHash =
+            new LinkedHashMap<>(RESOLVED_PAYLOADS_CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, String> eldest) {
+                    return size() > RESOLVED_PAYLOADS_CACHE_SIZE;
+                }
+            };
+
+        /**
+         * Replace the payload reference of the network data by the payload it references.
+         *
+         * @param networkData the network data, not attached to a persistence context
+         */
+        void resolve(final NetworkData networkData) {
+            resolveAll(List.of(networkData));
+        }
+
+        /**
+         * Replace the payload references of the network data by the payloads they reference, reading all the
+         * payloads not resolved yet at once.
+         *
+         * @param networkDataList the network data, not attached to a persistence context
+         */
+        void resolveAll(final List<NetworkData> networkDataList) {
+            final List<NetworkData> references = networkDataList.stream()
+                .filter(networkData -> networkData.getPayloadFormat() == PayloadFormat.REFERENCE)
+                .collect(Collectors.toList());
+            if (references.isEmpty()) {
+                return;
+            }
+            final Map<String, String> payloadsByHash = new HashMap<>();
+            final Set<String> unresolvedPayloadHashes = new HashSet<>();
+            for (final NetworkData networkData : references) {
+                final String payload = resolvedPayloadsByHash.get(networkData.getPayloadHash());
+                if (payload == null) {
+                    unresolvedPayloadHashes.add(networkData.getPayloadHash());
+                } else {
+                    payloadsByHash.put(networkData.getPayloadHash(), payload);
+                }
+            }
+            if (!unresolvedPayloadHashes.isEmpty()) {
+                namedParameterJdbcTemplate.query(SELECT_PAYLOADS,
+                    new MapSqlParameterSource("payloadHashes", unresolvedPayloadHashes), resultSet -> {
+                        payloadsByHash.put(resultSet.getString("payload_hash"), resultSet.getString("payload"));
+                    });
+                unresolvedPayloadHashes.forEach(payloadHash -> {
+                    if (payloadsByHash.containsKey(payloadHash)) {
+                        resolvedPayloadsByHash.put(payloadHash, payloadsByHash.get(payloadHash));
+                    }
+                });
+            }
+            for (final NetworkData networkData : references) {
+                final String payload = payloadsByHash.get(networkData.getPayloadHash());
+                if (payload == null) {
+                    log.warn("Payload of network data observed at {} for dataspace {} and anchor {} does not exist,"
+                            + " its hash is {}", networkData.getObservedTimestamp(), networkData.getDataspace(),
+                        networkData.getAnchor(), networkData.getPayloadHash());
+                }
+                networkData.setPayload(payload);
+                networkData.setPayloadFormat(PayloadFormat.FULL);
+            }
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class AnchorVersion {
+        private final OffsetDateTime observedTimestamp;
+        private final Operation operation;
+        private final String payloadHash;
+    }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository;
+
+import java.util.List;
+import org.onap.cps.temporal.domain.NetworkData;
+import org.onap.cps.temporal.domain.NetworkDataInsertResult;
+
+public interface NetworkDataBatchRepository {
+
+    /**
+     * Insert all the network data using multi-row insert statements.
+     * Network data already existing for the same observed timestamp, dataspace and anchor are not inserted and are
+     * reported as duplicates, without reading the existing ones.
+     *
+     * @param networkDataList the network data to be inserted
+     * @return the inserted network data, with their created timestamp, and the duplicated ones
+     */
+    NetworkDataInsertResult insertAll(List<NetworkData> networkDataList);
+
+}
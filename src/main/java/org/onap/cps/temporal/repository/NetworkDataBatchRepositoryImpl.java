@@ -0,0 +1,278 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.onap.cps.temporal.domain.NetworkData;
+import org.onap.cps.temporal.domain.NetworkDataId;
+import org.onap.cps.temporal.domain.NetworkDataInsertResult;
+import org.onap.cps.temporal.repository.PayloadDeltaCodec.KeyframeSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+@Slf4j
+public class NetworkDataBatchRepositoryImpl implements NetworkDataBatchRepository {
+
+    /*
+    Number of rows inserted by a single statement. Each row binds 10 parameters, this keeps statements well below
+    the maximum number of bind parameters supported by the PostgreSQL protocol.
+     */
+    static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private static final String INSERT_NETWORK_DATA =
+        "INSERT INTO network_data "
+            + "(observed_timestamp, dataspace, anchor, schema_set, operation, payload, payload_format,"
+            + " payload_base_timestamp, payload_hash, created_timestamp) VALUES ";
+
+    private static final String INSERT_NETWORK_DATA_VALUES = "(?, ?, ?, ?, ?, ?::jsonb, ?, ?, ?, ?)";
+
+    static final String PAYLOAD_MODE_FULL = "full";
+    static final String PAYLOAD_MODE_DELTA = "delta";
+    static final String PAYLOAD_MODE_DEDUPLICATED = "deduplicated";
+
+    /*
+    Conflicting rows are ignored so that data redelivered by Kafka (offsets not committed before a failure
+    or a rebalance) can be persisted again without failing on the unique index. Only inserted rows are returned,
+    which allows to identify duplicates without reading existing data.
+     */
+    private static final String ON_CONFLICT_RETURNING =
+        " ON CONFLICT DO NOTHING RETURNING observed_timestamp, dataspace, anchor, created_timestamp";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String payloadMode;
+    private final PayloadDeltaCodec payloadDeltaCodec;
+    private final KeyframeSettings keyframeSettings;
+    private final DeduplicatedPayloadStore deduplicatedPayloadStore;
+    private final boolean skipUnchanged;
+    private final CompressedChunkRanges compressedChunkRanges;
+
+    /**
+     * Constructor.
+     *
+     * @param jdbcTemplate               the JDBC template
+     * @param namedParameterJdbcTemplate the named parameter JDBC template, used to read previous payloads
+     * @param payloadMode                the payload storage mode, 'full', 'delta' or 'deduplicated'
+     * @param keyframeMaxChanges         the maximum number of patches stored after a full payload, in delta mode
+     * @param keyframeMaxAge             the maximum time after a full payload, in delta mode
+     * @param skipUnchanged              true to skip network data updating their anchor with an unchanged payload
+     * @param compressedChunksRefresh    the maximum time compressed chunks are cached before being read again
+     */
+    public NetworkDataBatchRepositoryImpl(
+        final JdbcTemplate jdbcTemplate, final NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+        final @Value("${app.storage.payload.mode}") String payloadMode,
+        final @Value("${app.storage.payload.delta.keyframe-max-changes}") int keyframeMaxChanges,
+        final @Value("${app.storage.payload.delta.keyframe-max-age}") Duration keyframeMaxAge,
+        final @Value("${app.storage.payload.skip-unchanged}") boolean skipUnchanged,
+        final @Value("${app.storage.compressed-chunks.refresh-interval}") Duration compressedChunksRefresh) {
+        if (!Set.of(PAYLOAD_MODE_FULL, PAYLOAD_MODE_DELTA, PAYLOAD_MODE_DEDUPLICATED).contains(payloadMode)) {
+            throw new IllegalArgumentException("Payload storage mode must be one of 'full', 'delta' or 'deduplicated',"
+                + " but was '" + payloadMode + "'");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.payloadMode = payloadMode;
+        this.payloadDeltaCodec = new PayloadDeltaCodec(namedParameterJdbcTemplate);
+        this.keyframeSettings = new KeyframeSettings(keyframeMaxChanges, keyframeMaxAge);
+        this.deduplicatedPayloadStore = new DeduplicatedPayloadStore(namedParameterJdbcTemplate);
+        this.skipUnchanged = skipUnchanged;
+        this.compressedChunkRanges = new CompressedChunkRanges(jdbcTemplate, compressedChunksRefresh);
+    }
+
+    @Override
+    public NetworkDataInsertResult insertAll(final List<NetworkData> networkDataList) {
+        final var insertResult = new NetworkDataInsertResult();
+        try {
+            insertTimely(rejectLate(networkDataList, insertResult), insertResult);
+        } catch (final DataAccessException dataAccessException) {
+            // A chunk may have been compressed since compressed chunks were read
+            compressedChunkRanges.invalidate();
+            throw dataAccessException;
+        }
+        log.debug("Inserted {} out of {} network data, {} already existing, {} unchanged, {} late",
+            insertResult.getInsertedCount(), networkDataList.size(), insertResult.getDuplicateCount(),
+            insertResult.getUnchangedCount(), insertResult.getLateCount());
+        return insertResult;
+    }
+
+    /*
+    Network data observed within a compressed chunk can not be inserted with conflict handling, they are rejected
+    explicitly instead of failing the insert of all the other network data.
+     */
+    private List<NetworkData> rejectLate(final List<NetworkData> networkDataList,
+                                         final NetworkDataInsertResult insertResult) {
+        final List<NetworkData> timelyNetworkDataList = new ArrayList<>(networkDataList.size());
+        for (final NetworkData networkData : networkDataList) {
+            if (compressedChunkRanges.contains(networkData.getObservedTimestamp())) {
+                log.warn("Network data {} rejected, it is observed within a compressed chunk", networkData);
+                insertResult.addLate(networkData);
+            } else {
+                timelyNetworkDataList.add(networkData);
+            }
+        }
+        return timelyNetworkDataList;
+    }
+
+    /*
+    Payloads are only hashed when the hashes are used, to deduplicate payloads or to skip unchanged ones, as parsing
+    and hashing each payload is costly.
+     */
+    private void insertTimely(final List<NetworkData> networkDataList, final NetworkDataInsertResult insertResult) {
+        List<NetworkData> changedNetworkDataList = networkDataList;
+        List<String> payloadHashes = PAYLOAD_MODE_DEDUPLICATED.equals(payloadMode) || skipUnchanged
+            ? deduplicatedPayloadStore.hashPayloads(networkDataList)
+            : Collections.nCopies(networkDataList.size(), null);
+        if (skipUnchanged) {
+            final Set<Integer> unchangedIndexes = deduplicatedPayloadStore.findUnchanged(networkDataList,
+                payloadHashes);
+            changedNetworkDataList = new ArrayList<>(networkDataList.size() - unchangedIndexes.size());
+            final List<String> changedPayloadHashes = new ArrayList<>(changedNetworkDataList.size());
+            for (int index = 0; index < networkDataList.size(); index++) {
+                if (unchangedIndexes.contains(index)) {
+                    insertResult.addUnchanged(networkDataList.get(index));
+                } else {
+                    changedNetworkDataList.add(networkDataList.get(index));
+                    changedPayloadHashes.add(payloadHashes.get(index));
+                }
+            }
+            payloadHashes = changedPayloadHashes;
+        }
+        final List<StoredPayload> storedPayloads = storePayloads(changedNetworkDataList, payloadHashes);
+        for (int fromIndex = 0; fromIndex < changedNetworkDataList.size(); fromIndex += MAX_ROWS_PER_STATEMENT) {
+            final int toIndex = Math.min(fromIndex + MAX_ROWS_PER_STATEMENT, changedNetworkDataList.size());
+            insertResult.addAll(insertChunk(changedNetworkDataList.subList(fromIndex, toIndex),
+                storedPayloads.subList(fromIndex, toIndex), payloadHashes.subList(fromIndex, toIndex)));
+        }
+    }
+
+    /*
+    Payloads are stored for the whole list before it is split in statements, so that a patch can be based on a
+    payload inserted by a previous statement.
+     */
+    private List<StoredPayload> storePayloads(final List<NetworkData> networkDataList,
+                                              final List<String> payloadHashes) {
+        if (PAYLOAD_MODE_DELTA.equals(payloadMode)) {
+            return payloadDeltaCodec.encode(networkDataList, keyframeSettings);
+        }
+        if (PAYLOAD_MODE_DEDUPLICATED.equals(payloadMode)) {
+            deduplicatedPayloadStore.storePayloads(networkDataList, payloadHashes);
+            return networkDataList.stream().map(networkData -> networkData.getPayload() == null
+                ? StoredPayload.full(null) : StoredPayload.reference()).collect(Collectors.toList());
+        }
+        return networkDataList.stream().map(networkData -> StoredPayload.full(networkData.getPayload()))
+            .collect(Collectors.toList());
+    }
+
+    private NetworkDataInsertResult insertChunk(final List<NetworkData> networkDataList,
+                                                final List<StoredPayload> storedPayloads,
+                                                final List<String> payloadHashes) {
+        final var createdTimestamp = OffsetDateTime.now();
+        final var sql = INSERT_NETWORK_DATA
+            + String.join(", ", Collections.nCopies(networkDataList.size(), INSERT_NETWORK_DATA_VALUES))
+            + ON_CONFLICT_RETURNING;
+
+        final Map<NetworkDataId, OffsetDateTime> createdTimestampsById = new HashMap<>();
+        jdbcTemplate.query(sql,
+            preparedStatement -> setValues(preparedStatement, networkDataList, storedPayloads, payloadHashes,
+                createdTimestamp),
+            resultSet -> {
+                createdTimestampsById.put(
+                    toId(resultSet.getObject("observed_timestamp", OffsetDateTime.class),
+                        resultSet.getString("dataspace"), resultSet.getString("anchor")),
+                    resultSet.getObject("created_timestamp", OffsetDateTime.class));
+            });
+
+        final var insertResult = new NetworkDataInsertResult();
+        for (final NetworkData networkData : networkDataList) {
+            // Removed once matched: a second occurrence of the same id in the chunk is a duplicate
+            final var insertedCreatedTimestamp = createdTimestampsById.remove(
+                toId(networkData.getObservedTimestamp(), networkData.getDataspace(), networkData.getAnchor()));
+            if (insertedCreatedTimestamp == null) {
+                insertResult.addDuplicate(networkData);
+            } else {
+                insertResult.addInserted(copyWithCreatedTimestamp(networkData, insertedCreatedTimestamp));
+            }
+        }
+        return insertResult;
+    }
+
+    private static void setValues(final PreparedStatement preparedStatement, final List<NetworkData> networkDataList,
+                                  final List<StoredPayload> storedPayloads, final List<String> payloadHashes,
+                                  final OffsetDateTime createdTimestamp) throws SQLException {
+        var parameterIndex = 1;
+        for (int index = 0; index < networkDataList.size(); index++) {
+            final var networkData = networkDataList.get(index);
+            final var storedPayload = storedPayloads.get(index);
+            preparedStatement.setObject(parameterIndex++, toDatabasePrecision(networkData.getObservedTimestamp()));
+            preparedStatement.setString(parameterIndex++, networkData.getDataspace());
+            preparedStatement.setString(parameterIndex++, networkData.getAnchor());
+            preparedStatement.setString(parameterIndex++, networkData.getSchemaSet());
+            preparedStatement.setString(parameterIndex++, networkData.getOperation().name());
+            preparedStatement.setString(parameterIndex++, storedPayload.getPayload());
+            preparedStatement.setString(parameterIndex++, storedPayload.getPayloadFormat().name());
+            preparedStatement.setObject(parameterIndex++, storedPayload.getPayloadBaseTimestamp());
+            preparedStatement.setString(parameterIndex++, payloadHashes.get(index));
+            preparedStatement.setObject(parameterIndex++, createdTimestamp);
+        }
+    }
+
+    /*
+    Timestamps are compared at the database precision and offset, as returned by the insert statement.
+     */
+    private static NetworkDataId toId(final OffsetDateTime observedTimestamp, final String dataspace,
+                                      final String anchor) {
+        return new NetworkDataId(
+            toDatabasePrecision(observedTimestamp).withOffsetSameInstant(ZoneOffset.UTC), dataspace, anchor);
+    }
+
+    private static OffsetDateTime toDatabasePrecision(final OffsetDateTime timestamp) {
+        return timestamp == null ? null : timestamp.truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private static NetworkData copyWithCreatedTimestamp(final NetworkData networkData,
+                                                        final OffsetDateTime createdTimestamp) {
+        return NetworkData.builder()
+            .observedTimestamp(networkData.getObservedTimestamp())
+            .dataspace(networkData.getDataspace())
+            .schemaSet(networkData.getSchemaSet())
+            .anchor(networkData.getAnchor())
+            .operation(networkData.getOperation())
+            .payload(networkData.getPayload())
+            .createdTimestamp(createdTimestamp)
+            .build();
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository;
+
+import java.util.List;
+import org.onap.cps.temporal.domain.NetworkData;
+
+public interface NetworkDataBulkRepository {
+
+    /**
+     * Copy all the network data in bulk, with a binary COPY to a staging table from which they are inserted.
+     * Network data already existing for the same observed timestamp, dataspace and anchor are not inserted. Payloads
+     * are stored full, bulk copies are thus only supported with the 'full' payload storage mode, and they are only
+     * hashed when unchanged payloads are skipped. Compressed chunks network data are observed within are
+     * decompressed, so that network data observed before the compression horizon are copied too. It must be called
+     * within a transaction.
+     *
+     * @param networkDataList the network data to be copied
+     * @return the number of network data inserted
+     */
+    int copyAll(List<NetworkData> networkDataList);
+
+    /**
+     * Drop the GIN index of network data payloads, so that it is not maintained while copying network data in bulk.
+     */
+    void dropPayloadIndex();
+
+    /**
+     * Create the GIN index of network data payloads, if it does not exist.
+     */
+    void createPayloadIndex();
+
+}
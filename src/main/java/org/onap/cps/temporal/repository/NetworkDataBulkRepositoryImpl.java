@@ -0,0 +1,161 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.onap.cps.temporal.domain.NetworkData;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+@Slf4j
+public class NetworkDataBulkRepositoryImpl implements NetworkDataBulkRepository {
+
+    private static final String STAGING_TABLE = "network_data_bulk_load";
+
+    private static final String CREATE_STAGING_TABLE =
+        "CREATE TEMPORARY TABLE IF NOT EXISTS " + STAGING_TABLE
+            + " (observed_timestamp TIMESTAMPTZ, dataspace TEXT, anchor TEXT, schema_set TEXT, operation TEXT,"
+            + " payload JSONB, payload_hash TEXT) ON COMMIT DROP";
+
+    private static final int STAGING_TABLE_COLUMN_COUNT = 7;
+
+    private static final String COPY_TO_STAGING_TABLE =
+        "COPY " + STAGING_TABLE
+            + " (observed_timestamp, dataspace, anchor, schema_set, operation, payload, payload_hash)"
+            + " FROM STDIN (FORMAT binary)";
+
+    /*
+    Rows are inserted in observed timestamp order, so that rows of the same chunk are inserted together. Conflicting
+    rows, already existing or copied twice, are ignored so that a topic can be replayed over existing data.
+     */
+    private static final String INSERT_FROM_STAGING_TABLE =
+        "INSERT INTO network_data"
+            + " (observed_timestamp, dataspace, anchor, schema_set, operation, payload, payload_format, payload_hash,"
+            + " created_timestamp)"
+            + " SELECT observed_timestamp, dataspace, anchor, schema_set, operation, payload, 'FULL', payload_hash,"
+            + " now() FROM " + STAGING_TABLE + " ORDER BY observed_timestamp"
+            + " ON CONFLICT DO NOTHING";
+
+    /*
+    Compressed chunks do not support inserts with conflict handling in TimescaleDB 2.5: the compressed chunks copied
+    rows are observed within are decompressed beforehand, the compression policy compressing them again later.
+     */
+    private static final String DECOMPRESS_TARGET_CHUNKS =
+        "SELECT count(decompress_chunk(format('%I.%I', chunk.chunk_schema, chunk.chunk_name)::regclass, true))"
+            + " FROM timescaledb_information.chunks chunk"
+            + " WHERE chunk.hypertable_name = 'network_data' AND chunk.is_compressed"
+            + " AND EXISTS (SELECT 1 FROM " + STAGING_TABLE + " staged"
+            + " WHERE staged.observed_timestamp >= chunk.range_start"
+            + " AND staged.observed_timestamp < chunk.range_end)";
+
+    private static final String PAYLOAD_INDEX = "network_data_payload_idx";
+
+    private static final int COPY_BUFFER_SIZE = 65_536;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DeduplicatedPayloadStore deduplicatedPayloadStore;
+    private final boolean skipUnchanged;
+
+    /**
+     * Constructor.
+     *
+     * @param jdbcTemplate               the JDBC template
+     * @param namedParameterJdbcTemplate the named parameter JDBC template
+     * @param skipUnchanged              true if network data updating their anchor with an unchanged payload are
+     *                                   skipped when inserted afterwards
+     */
+    public NetworkDataBulkRepositoryImpl(final JdbcTemplate jdbcTemplate,
+                                         final NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                         final @Value("${app.storage.payload.skip-unchanged}") boolean skipUnchanged) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.deduplicatedPayloadStore = new DeduplicatedPayloadStore(namedParameterJdbcTemplate);
+        this.skipUnchanged = skipUnchanged;
+    }
+
+    @Override
+    public int copyAll(final List<NetworkData> networkDataList) {
+        if (networkDataList.isEmpty()) {
+            return 0;
+        }
+        // Hashes are only stored when network data inserted afterwards are compared to the copied ones
+        final List<String> payloadHashes = skipUnchanged
+            ? deduplicatedPayloadStore.hashPayloads(networkDataList)
+            : Collections.nCopies(networkDataList.size(), null);
+        jdbcTemplate.execute(CREATE_STAGING_TABLE);
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            copyToStagingTable(connection, networkDataList, payloadHashes);
+            return null;
+        });
+        final Integer decompressedChunkCount = jdbcTemplate.queryForObject(DECOMPRESS_TARGET_CHUNKS, Integer.class);
+        if (decompressedChunkCount != null && decompressedChunkCount > 0) {
+            log.info("Decompressed {} chunks to copy network data observed within them", decompressedChunkCount);
+        }
+        final int insertedCount = jdbcTemplate.update(INSERT_FROM_STAGING_TABLE);
+        // Staging table is only dropped on commit, it is emptied for the next copy of the same transaction
+        jdbcTemplate.execute("TRUNCATE " + STAGING_TABLE);
+        log.debug("Copied {} network data, {} inserted", networkDataList.size(), insertedCount);
+        return insertedCount;
+    }
+
+    private static void copyToStagingTable(final Connection connection, final List<NetworkData> networkDataList,
+                                           final List<String> payloadHashes) throws SQLException {
+        try (var copyOutputStream = new PGCopyOutputStream(connection.unwrap(PGConnection.class),
+                COPY_TO_STAGING_TABLE, COPY_BUFFER_SIZE)) {
+            final var binaryCopyWriter = new BinaryCopyWriter(copyOutputStream);
+            for (int index = 0; index < networkDataList.size(); index++) {
+                final var networkData = networkDataList.get(index);
+                binaryCopyWriter.startRow(STAGING_TABLE_COLUMN_COUNT);
+                binaryCopyWriter.writeTimestamp(networkData.getObservedTimestamp());
+                binaryCopyWriter.writeText(networkData.getDataspace());
+                binaryCopyWriter.writeText(networkData.getAnchor());
+                binaryCopyWriter.writeText(networkData.getSchemaSet());
+                binaryCopyWriter.writeText(networkData.getOperation().name());
+                binaryCopyWriter.writeJsonb(networkData.getPayload());
+                binaryCopyWriter.writeText(payloadHashes.get(index));
+            }
+            binaryCopyWriter.finish();
+        } catch (final IOException ioException) {
+            throw new SQLException("Failed to copy network data", ioException);
+        }
+    }
+
+    @Override
+    public void dropPayloadIndex() {
+        jdbcTemplate.execute("DROP INDEX IF EXISTS " + PAYLOAD_INDEX);
+    }
+
+    @Override
+    public void createPayloadIndex() {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + PAYLOAD_INDEX + " ON network_data USING GIN (payload)");
+    }
+
+}
@@ -20,12 +20,32 @@
 
 package org.onap.cps.temporal.repository;
 
+import java.util.stream.Stream;
 import org.onap.cps.temporal.domain.NetworkData;
 import org.onap.cps.temporal.domain.SearchCriteria;
+import org.onap.cps.temporal.domain.SnapshotCriteria;
 import org.springframework.data.domain.Slice;
 
 public interface NetworkDataQueryRepository {
 
     Slice<NetworkData> findBySearchCriteria(SearchCriteria searchCriteria);
 
+    /**
+     * Stream all the network data matching the search criteria, ignoring pagination.
+     * Data are read from a database cursor and must be consumed within a transaction. The stream must be closed.
+     *
+     * @param searchCriteria the search criteria
+     * @return the stream of network data, detached from the persistence context
+     */
+    Stream<NetworkData> streamBySearchCriteria(SearchCriteria searchCriteria);
+
+    /**
+     * Find the latest network data of each anchor of a schema set, observed at or before the snapshot criteria
+     * observed timestamp. Anchors whose latest network data is a deletion are not returned.
+     *
+     * @param snapshotCriteria the snapshot criteria
+     * @return one network data per anchor, sorted by anchor
+     */
+    Slice<NetworkData> findLatestBySnapshotCriteria(SnapshotCriteria snapshotCriteria);
+
 }
@@ -0,0 +1,41 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository;
+
+import org.onap.cps.temporal.domain.NetworkData;
+import org.onap.cps.temporal.domain.SearchCriteria;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking access to network data, available when reactive queries are enabled.
+ */
+public interface NetworkDataReactiveRepository {
+
+    /**
+     * Find all the network data matching the search criteria, ignoring pagination.
+     * Rows are read from the database as they are requested by the subscriber.
+     *
+     * @param searchCriteria the search criteria
+     * @return the network data, in the search criteria sort order
+     */
+    Flux<NetworkData> findBySearchCriteria(SearchCriteria searchCriteria);
+
+}
@@ -0,0 +1,115 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository;
+
+import io.r2dbc.postgresql.codec.Json;
+import io.r2dbc.spi.Row;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import org.onap.cps.temporal.domain.NetworkData;
+import org.onap.cps.temporal.domain.Operation;
+import org.onap.cps.temporal.domain.PayloadFormat;
+import org.onap.cps.temporal.domain.SearchCriteria;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@Repository
+@ConditionalOnProperty(name = "app.query.reactive.enabled", havingValue = "true")
+public class NetworkDataReactiveRepositoryImpl implements NetworkDataReactiveRepository {
+
+    private final DatabaseClient databaseClient;
+    private final String payloadMode;
+    private final PayloadDeltaCodec payloadDeltaCodec;
+    private final DeduplicatedPayloadStore deduplicatedPayloadStore;
+
+    /**
+     * Constructor.
+     *
+     * @param databaseClient             the R2DBC database client
+     * @param namedParameterJdbcTemplate the named parameter JDBC template, used to rebuild stored payloads
+     * @param payloadMode                the payload storage mode, 'full', 'delta' or 'deduplicated'
+     */
+    public NetworkDataReactiveRepositoryImpl(final DatabaseClient databaseClient,
+                                             final NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                             final @Value("${app.storage.payload.mode}") String payloadMode) {
+        this.databaseClient = databaseClient;
+        this.payloadMode = payloadMode;
+        this.payloadDeltaCodec = new PayloadDeltaCodec(namedParameterJdbcTemplate);
+        this.deduplicatedPayloadStore = new DeduplicatedPayloadStore(namedParameterJdbcTemplate);
+    }
+
+    /*
+    The R2DBC driver fetches rows according to the subscriber demand, so that a slow consumer does not make rows
+    accumulate in memory. Payloads stored as references or patches are rebuilt with blocking JDBC queries, which are
+    moved to the bounded elastic scheduler in order not to block the driver event loop. Rows stay in order, as they
+    are rebuilt one at a time.
+     */
+    @Override
+    public Flux<NetworkData> findBySearchCriteria(final SearchCriteria searchCriteria) {
+        final var searchCriteriaQueryBuilder = new SearchCriteriaQueryBuilder(searchCriteria, payloadMode);
+        searchCriteriaQueryBuilder.buildQuery();
+
+        return Flux.defer(() -> {
+            var dataQuery = databaseClient.sql(searchCriteriaQueryBuilder.getDataNativeQuery());
+            for (final Map.Entry<String, Object> queryParameter :
+                searchCriteriaQueryBuilder.getQueryParameters().entrySet()) {
+                dataQuery = dataQuery.bind(queryParameter.getKey(), queryParameter.getValue());
+            }
+            final var payloadResolver = deduplicatedPayloadStore.newResolver();
+            final var payloadDecoder = payloadDeltaCodec.newDecoder();
+            return dataQuery.map((row, rowMetadata) -> toNetworkData(row)).all()
+                .concatMap(networkData -> {
+                    if (NetworkDataRepositoryImpl.isFullPayload(networkData)) {
+                        return Mono.just(networkData);
+                    }
+                    return Mono.fromCallable(() -> {
+                        payloadResolver.resolve(networkData);
+                        payloadDecoder.decode(networkData);
+                        return networkData;
+                    }).subscribeOn(Schedulers.boundedElastic());
+                });
+        });
+    }
+
+    private static NetworkData toNetworkData(final Row row) {
+        final var payload = row.get("payload", Json.class);
+        final var payloadFormat = row.get("payload_format", String.class);
+        return NetworkData.builder()
+            .observedTimestamp(row.get("observed_timestamp", OffsetDateTime.class))
+            .dataspace(row.get("dataspace", String.class))
+            .schemaSet(row.get("schema_set", String.class))
+            .anchor(row.get("anchor", String.class))
+            .operation(Operation.valueOf(row.get("operation", String.class)))
+            .payload(payload == null ? null : payload.asString())
+            .payloadFormat(payloadFormat == null ? null : PayloadFormat.valueOf(payloadFormat))
+            .payloadBaseTimestamp(row.get("payload_base_timestamp", OffsetDateTime.class))
+            .payloadHash(row.get("payload_hash", String.class))
+            .createdTimestamp(row.get("created_timestamp", OffsetDateTime.class))
+            .build();
+    }
+
+}
@@ -27,5 +27,6 @@ import org.springframework.stereotype.Repository;
 
 @Repository
 public interface NetworkDataRepository extends JpaRepository<NetworkData, NetworkDataId>,
-    NetworkDataQueryRepository {
+    NetworkDataQueryRepository, NetworkDataBatchRepository, NetworkDataStatisticsRepository,
+    NetworkDataRetentionRepository, NetworkDataBulkRepository {
 }
@@ -20,30 +20,94 @@
 
 package org.onap.cps.temporal.repository;
 
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
-import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
 import org.onap.cps.temporal.domain.NetworkData;
+import org.onap.cps.temporal.domain.PayloadFormat;
 import org.onap.cps.temporal.domain.SearchCriteria;
+import org.onap.cps.temporal.domain.SnapshotCriteria;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.SliceImpl;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 
 @Repository
 @Slf4j
 public class NetworkDataRepositoryImpl implements NetworkDataQueryRepository {
 
+    private static final String HINT_FETCH_SIZE = "org.hibernate.fetchSize";
+    private static final String HINT_READ_ONLY = "org.hibernate.readOnly";
+
+    /*
+    Anchors of the schema set observed up to the snapshot time are enumerated by a recursive skip scan of the
+    dataspace, schema set, anchor and timestamp index, one index seek per anchor, and the latest row of each anchor at
+    the snapshot time is read by a backward seek on the dataspace, anchor and timestamp index. The cost grows with the
+    number of anchors of the schema set, not with their history nor with the other schema sets. Anchors whose latest
+    row belongs to another schema set or is a deletion are filtered out only after, so that an older row is not
+    returned instead.
+     */
+    static final String FIND_LATEST_BY_SNAPSHOT_CRITERIA =
+        "WITH RECURSIVE anchors AS ("
+            + " (SELECT anchor FROM network_data"
+            + " WHERE dataspace = :dataspace AND schema_set = :schemaSetName"
+            + " AND observed_timestamp <= :observedTimestamp"
+            + " ORDER BY anchor LIMIT 1)"
+            + " UNION ALL"
+            + " SELECT (SELECT candidate.anchor FROM network_data candidate"
+            + " WHERE candidate.dataspace = :dataspace AND candidate.schema_set = :schemaSetName"
+            + " AND candidate.anchor > anchors.anchor AND candidate.observed_timestamp <= :observedTimestamp"
+            + " ORDER BY candidate.anchor LIMIT 1)"
+            + " FROM anchors WHERE anchors.anchor IS NOT NULL"
+            + ")"
+            + " SELECT latest.* FROM anchors CROSS JOIN LATERAL ("
+            + " SELECT * FROM network_data"
+            + " WHERE dataspace = :dataspace AND anchor = anchors.anchor"
+            + " AND observed_timestamp <= :observedTimestamp AND created_timestamp <= :createdBefore"
+            + " ORDER BY observed_timestamp DESC LIMIT 1"
+            + ") latest"
+            + " WHERE latest.schema_set = :schemaSetName AND latest.operation <> 'DELETE'"
+            + " ORDER BY latest.anchor ASC";
+
     @PersistenceContext
     private EntityManager entityManager;
 
+    private final int streamFetchSize;
+    private final String payloadMode;
+    private final PayloadDeltaCodec payloadDeltaCodec;
+    private final DeduplicatedPayloadStore deduplicatedPayloadStore;
+    private final QueryPlanSampler queryPlanSampler;
+    private final SearchQueryMetrics searchQueryMetrics;
+
+    /**
+     * Constructor.
+     *
+     * @param streamFetchSize            the number of rows read at once when streaming
+     * @param payloadMode                the payload storage mode, 'full', 'delta' or 'deduplicated'
+     * @param namedParameterJdbcTemplate the named parameter JDBC template, used to rebuild stored payloads
+     * @param queryPlanSampler           the sampler of the plans of search queries
+     * @param searchQueryMetrics         the metrics of search queries
+     */
+    public NetworkDataRepositoryImpl(final @Value("${app.query.stream.fetch-size}") int streamFetchSize,
+                                     final @Value("${app.storage.payload.mode}") String payloadMode,
+                                     final NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                     final QueryPlanSampler queryPlanSampler,
+                                     final SearchQueryMetrics searchQueryMetrics) {
+        this.streamFetchSize = streamFetchSize;
+        this.payloadMode = payloadMode;
+        this.payloadDeltaCodec = new PayloadDeltaCodec(namedParameterJdbcTemplate);
+        this.deduplicatedPayloadStore = new DeduplicatedPayloadStore(namedParameterJdbcTemplate);
+        this.queryPlanSampler = queryPlanSampler;
+        this.searchQueryMetrics = searchQueryMetrics;
+    }
+
     /*
     Slice is the response type instead of List<NetworkData> to provide the information if next set of data is available.
     To identify if next slice is available, the getDatNetworkDataList fetches one record extra ( n+1).
@@ -52,19 +116,66 @@ public class NetworkDataRepositoryImpl implements NetworkDataQueryRepository {
     @Override
     public Slice<NetworkData> findBySearchCriteria(final SearchCriteria searchCriteria) {
 
-        final var searchCriteriaQueryBuilder = new SearchCriteriaQueryBuilder(searchCriteria);
+        final var searchCriteriaQueryBuilder = new SearchCriteriaQueryBuilder(searchCriteria, payloadMode);
         searchCriteriaQueryBuilder.buildQuery();
 
+        final long startTime = System.nanoTime();
         final List<NetworkData> data = getNetworkDataList(searchCriteriaQueryBuilder.getDataNativeQuery(),
             searchCriteriaQueryBuilder.getQueryParameters(), searchCriteria.getPageable());
+        final long durationNanos = System.nanoTime() - startTime;
+        final var slice = toSlice(data, searchCriteria.getPageable());
+        searchQueryMetrics.record(searchCriteria, durationNanos, slice.getNumberOfElements());
+        queryPlanSampler.sample(searchCriteriaQueryBuilder, searchCriteria.getPageable());
+        queryPlanSampler.logIfSlow(searchCriteriaQueryBuilder, searchCriteria.getPageable(),
+            Duration.ofNanos(durationNanos));
+        return slice;
+    }
+
+    @Override
+    public Slice<NetworkData> findLatestBySnapshotCriteria(final SnapshotCriteria snapshotCriteria) {
+        final Map<String, Object> queryParameters = Map.of(
+            "dataspace", snapshotCriteria.getDataspaceName(),
+            "schemaSetName", snapshotCriteria.getSchemaSetName(),
+            "observedTimestamp", snapshotCriteria.getObservedTimestamp(),
+            "createdBefore", snapshotCriteria.getCreatedBefore());
+        final List<NetworkData> data = getNetworkDataList(FIND_LATEST_BY_SNAPSHOT_CRITERIA, queryParameters,
+            snapshotCriteria.getPageable());
+        return toSlice(data, snapshotCriteria.getPageable());
+    }
 
-        final boolean hasNextSlice = data.size() > searchCriteria.getPageable().getPageSize();
+    private static Slice<NetworkData> toSlice(final List<NetworkData> data, final Pageable pageable) {
+        final boolean hasNextSlice = data.size() > pageable.getPageSize();
         final List<NetworkData> sliceData = new ArrayList<>(data);
         if (hasNextSlice) {
-            sliceData.remove(searchCriteria.getPageable().getPageSize());
+            sliceData.remove(pageable.getPageSize());
         }
+        return new SliceImpl<>(sliceData, pageable, hasNextSlice);
+    }
 
-        return new SliceImpl<>(sliceData, searchCriteria.getPageable(), hasNextSlice);
+    /*
+    PostgreSQL driver reads the result set by batches of fetch size rows from a server side cursor, as the query is
+    executed within a transaction. Each entity is detached once read so that the persistence context does not grow
+    with the number of rows streamed.
+     */
+    @Override
+    public Stream<NetworkData> streamBySearchCriteria(final SearchCriteria searchCriteria) {
+        final var searchCriteriaQueryBuilder = new SearchCriteriaQueryBuilder(searchCriteria, payloadMode);
+        searchCriteriaQueryBuilder.buildQuery();
+
+        final var dataQuery =
+            entityManager.createNativeQuery(searchCriteriaQueryBuilder.getDataNativeQuery(), NetworkData.class);
+        searchCriteriaQueryBuilder.getQueryParameters().forEach(dataQuery::setParameter);
+        dataQuery.setHint(HINT_FETCH_SIZE, streamFetchSize);
+        dataQuery.setHint(HINT_READ_ONLY, true);
+        final Stream<NetworkData> dataStream = dataQuery.getResultStream();
+        final var payloadResolver = deduplicatedPayloadStore.newResolver();
+        final var payloadDecoder = payloadDeltaCodec.newDecoder();
+        return dataStream.map(networkData -> {
+            entityManager.detach(networkData);
+            payloadResolver.resolve(networkData);
+            payloadDecoder.decode(networkData);
+            return networkData;
+        });
     }
 
     private List<NetworkData> getNetworkDataList(final String nativeDataQuery,
@@ -73,90 +184,26 @@ public class NetworkDataRepositoryImpl implements NetworkDataQueryRepository {
         queryParameters.forEach(dataQuery::setParameter);
         dataQuery.setFirstResult(Math.toIntExact(pageable.getOffset()));
         dataQuery.setMaxResults(pageable.getPageSize() + 1);
-        return dataQuery.getResultList();
+        final List<NetworkData> data = dataQuery.getResultList();
+        decodePayloads(data);
+        return data;
     }
 
-    private static class SearchCriteriaQueryBuilder {
-
-        @Getter
-        private Map<String, Object> queryParameters = new HashMap<>();
-        private StringBuilder queryBuilder = new StringBuilder();
-
-        private String dataQuery;
-
-        private final SearchCriteria searchCriteria;
-
-        SearchCriteriaQueryBuilder(final SearchCriteria searchCriteria) {
-            this.searchCriteria = searchCriteria;
-        }
-
-        private void buildQuery() {
-
-            queryBuilder.append("SELECT * FROM network_data nd WHERE dataspace = :dataspace ");
-            queryParameters.put("dataspace", searchCriteria.getDataspaceName());
-
-            addAnchorCondition();
-            addSchemaSetCondition();
-            addObservedAfterCondition();
-            addSimplePayloadCondition();
-            addCreatedBeforeCondition();
-            addOrderBy();
-            dataQuery = queryBuilder.toString();
-
-        }
-
-
-        private void addSchemaSetCondition() {
-            if (!StringUtils.isEmpty(searchCriteria.getSchemaSetName())) {
-                queryBuilder.append(" AND schema_set = :schemaSetName ");
-                queryParameters.put("schemaSetName", searchCriteria.getSchemaSetName());
-            }
-        }
-
-        private void addAnchorCondition() {
-            if (!StringUtils.isEmpty(searchCriteria.getAnchorName())) {
-                queryBuilder.append(" AND anchor = :anchorName");
-                queryParameters.put("anchorName", searchCriteria.getAnchorName());
-            }
-        }
-
-        private void addSimplePayloadCondition() {
-            if (!StringUtils.isEmpty(searchCriteria.getSimplePayloadFilter())) {
-                queryBuilder.append(" AND payload @> :simplePayloadFilter\\:\\:jsonb ");
-                queryParameters.put("simplePayloadFilter", searchCriteria.getSimplePayloadFilter());
-            }
-        }
-
-        private void addCreatedBeforeCondition() {
-            if (searchCriteria.getCreatedBefore() != null) {
-                queryBuilder.append(" AND created_timestamp <= :createdBefore");
-                queryParameters.put("createdBefore", searchCriteria.getCreatedBefore());
-            }
-        }
-
-        private void addObservedAfterCondition() {
-            if (searchCriteria.getObservedAfter() != null) {
-                queryBuilder.append(" AND observed_timestamp >= :observedAfter");
-                queryParameters.put("observedAfter", searchCriteria.getObservedAfter());
-            }
-        }
-
-        private void addOrderBy() {
-            final var sortBy = searchCriteria.getPageable().getSort();
-            queryBuilder.append(" ORDER BY ");
-            final String orderByQuery = sortBy.stream().map(order -> {
-                final var direction = order.isAscending() ? "asc" : "desc";
-                return order.getProperty() + " " + direction;
-            }).collect(Collectors.joining(","));
-            queryBuilder.append(orderByQuery);
-        }
-
-        String getDataNativeQuery() {
-            return dataQuery;
+    /*
+    Network data stored as references or patches are detached before their payload is replaced by the full one, so
+    that the change is never flushed to the database. References are resolved first, as they can be patch bases.
+     */
+    private void decodePayloads(final List<NetworkData> data) {
+        if (data.stream().allMatch(NetworkDataRepositoryImpl::isFullPayload)) {
+            return;
         }
-
+        data.stream().filter(networkData -> !isFullPayload(networkData)).forEach(entityManager::detach);
+        deduplicatedPayloadStore.newResolver().resolveAll(data);
+        payloadDeltaCodec.newDecoder().decodeAll(data);
     }
 
+    static boolean isFullPayload(final NetworkData networkData) {
+        return networkData.getPayloadFormat() == null || networkData.getPayloadFormat() == PayloadFormat.FULL;
+    }
 
 }
-
@@ -0,0 +1,81 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import org.onap.cps.temporal.domain.NetworkDataChunkStatistics;
+
+public interface NetworkDataRetentionRepository {
+
+    /**
+     * Drop the chunks of network data hypertable only holding data observed before the specified timestamp.
+     *
+     * @param observedBefore the timestamp all the data of a chunk must be observed before for it to be dropped
+     * @return the statistics of the dropped chunks, their size being measured before they are dropped
+     */
+    NetworkDataChunkStatistics dropChunksObservedBefore(OffsetDateTime observedBefore);
+
+    /**
+     * Find the age of network data from which their chunk is compressed by the compression policy.
+     *
+     * @return the compression age, or null if network data are not compressed
+     */
+    Duration findCompressionAge();
+
+    /**
+     * Delete a batch of network data observed before the specified timestamp.
+     *
+     * @param dataspaceName  the dataspace
+     * @param schemaSetName  the schema set, or null for all the schema sets of the dataspace
+     * @param observedAfter  the timestamp network data must be observed after to be deleted, or null for no start
+     * @param observedBefore the timestamp network data must be observed before to be deleted
+     * @param batchSize      the maximum number of network data to be deleted
+     * @return the number of deleted network data, less than batch size when there are no more to delete
+     */
+    int deleteObservedBefore(String dataspaceName, String schemaSetName, OffsetDateTime observedAfter,
+                             OffsetDateTime observedBefore, int batchSize);
+
+    /**
+     * Delete a batch of network data observed in the specified time range that are not the latest ones of their
+     * anchor within their time bucket, keeping one network data per anchor per bucket.
+     *
+     * @param dataspaceName  the dataspace
+     * @param schemaSetName  the schema set, or null for all the schema sets of the dataspace
+     * @param observedAfter  the start of the time range, or null for no start
+     * @param observedBefore the end of the time range, excluded
+     * @param bucketWidth    the width of the time buckets
+     * @param batchSize      the maximum number of network data to be deleted
+     * @return the number of deleted network data, less than batch size when there are no more to delete
+     */
+    int deleteAllButLatestPerBucket(String dataspaceName, String schemaSetName, OffsetDateTime observedAfter,
+                                    OffsetDateTime observedBefore, Duration bucketWidth, int batchSize);
+
+    /**
+     * Delete a batch of payloads of the network data payload table that are not referenced by any network data.
+     *
+     * @param referencedBefore the timestamp payloads must have last been referenced before to be deleted
+     * @param batchSize        the maximum number of payloads to be deleted
+     * @return the number of deleted payloads
+     */
+    int deleteUnreferencedPayloads(OffsetDateTime referencedBefore, int batchSize);
+
+}
@@ -0,0 +1,214 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.onap.cps.temporal.domain.NetworkDataChunkStatistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+@Slf4j
+public class NetworkDataRetentionRepositoryImpl implements NetworkDataRetentionRepository {
+
+    /*
+    drop_chunks drops the chunks whose range ends before the specified timestamp, the same chunks are measured first.
+     */
+    private static final String SELECT_CHUNK_STATISTICS_OBSERVED_BEFORE =
+        "SELECT COUNT(*) AS chunk_count, COUNT(*) FILTER (WHERE chunk.is_compressed) AS compressed_chunk_count,"
+            + " COALESCE(SUM(size.total_bytes), 0) AS total_bytes"
+            + " FROM timescaledb_information.chunks chunk"
+            + " JOIN chunks_detailed_size('network_data') size"
+            + " ON size.chunk_schema = chunk.chunk_schema AND size.chunk_name = chunk.chunk_name"
+            + " WHERE chunk.hypertable_name = 'network_data' AND chunk.range_end <= :observedBefore";
+
+    private static final String DROP_CHUNKS =
+        "SELECT COUNT(*) FROM drop_chunks('network_data', older_than => :observedBefore)";
+
+    /*
+    Oldest payload still needed by the patches observed after the timestamp, following their chains back to their
+    keyframes. A patch is observed less than the keyframe max age after its keyframe, so only the patches observed
+    within the max age after the timestamp can have their chain cross it.
+     */
+    private static final String SELECT_OLDEST_PAYLOAD_BASE_NEEDED_AFTER =
+        "WITH RECURSIVE payload_base AS ("
+            + " SELECT dataspace, anchor, payload_base_timestamp AS observed_timestamp FROM network_data"
+            + " WHERE payload_format = 'JSON_PATCH' AND observed_timestamp >= :observedBefore"
+            + " AND observed_timestamp < :observedBefore + CAST(:keyframeMaxAge AS INTERVAL)"
+            + " AND payload_base_timestamp < :observedBefore"
+            + " UNION"
+            + " SELECT nd.dataspace, nd.anchor, nd.payload_base_timestamp FROM payload_base pb"
+            + " JOIN network_data nd ON nd.dataspace = pb.dataspace AND nd.anchor = pb.anchor"
+            + " AND nd.observed_timestamp = pb.observed_timestamp WHERE nd.payload_format = 'JSON_PATCH')"
+            + " SELECT MIN(observed_timestamp) FROM payload_base";
+
+    private static final String SELECT_COMPRESSION_AGE =
+        "SELECT CAST(EXTRACT(EPOCH FROM CAST(config ->> 'compress_after' AS INTERVAL)) AS BIGINT)"
+            + " FROM timescaledb_information.jobs"
+            + " WHERE proc_name = 'policy_compression' AND hypertable_name = 'network_data'";
+
+    /*
+    Rows are deleted by key rather than by ctid, ctid being only unique within a chunk.
+     */
+    private static final String DELETE_BY_KEY =
+        "DELETE FROM network_data nd USING (%s) batch"
+            + " WHERE nd.dataspace = batch.dataspace AND nd.anchor = batch.anchor"
+            + " AND nd.observed_timestamp = batch.observed_timestamp";
+
+    /*
+    Network data whose payload is the base of a payload stored as patch are kept, until the latter is deleted
+    itself, so that payloads remain rebuildable. Chains of patches are therefore deleted over several batches.
+     */
+    private static final String NOT_PAYLOAD_BASE =
+        " AND NOT EXISTS (SELECT 1 FROM network_data ref WHERE ref.dataspace = candidate.dataspace"
+            + " AND ref.anchor = candidate.anchor AND ref.payload_base_timestamp = candidate.observed_timestamp)";
+
+    /*
+    Last referenced timestamp is checked again on the deleted row, so that a payload referenced by an insert committed
+    while the deletion waits for its lock is kept.
+     */
+    private static final String DELETE_UNREFERENCED_PAYLOADS =
+        "DELETE FROM network_data_payload ndp USING ("
+            + "SELECT payload_hash FROM network_data_payload candidate"
+            + " WHERE last_referenced_timestamp < :referencedBefore"
+            + " AND NOT EXISTS (SELECT 1 FROM network_data nd WHERE nd.payload_format = 'REFERENCE'"
+            + " AND nd.payload_hash = candidate.payload_hash) LIMIT :batchSize) batch"
+            + " WHERE ndp.payload_hash = batch.payload_hash AND ndp.last_referenced_timestamp < :referencedBefore";
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final Duration keyframeMaxAge;
+
+    /**
+     * Constructor.
+     *
+     * @param namedParameterJdbcTemplate the named parameter JDBC template
+     * @param keyframeMaxAge             the maximum time after a full payload, in delta mode
+     */
+    public NetworkDataRetentionRepositoryImpl(
+        final NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+        final @Value("${app.storage.payload.delta.keyframe-max-age}") Duration keyframeMaxAge) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.keyframeMaxAge = keyframeMaxAge;
+    }
+
+    /*
+    Chunks holding the base of a patch observed after the timestamp are kept, so that its payload remains
+    rebuildable, by dropping chunks before the oldest base still needed instead.
+     */
+    @Override
+    public NetworkDataChunkStatistics dropChunksObservedBefore(final OffsetDateTime observedBefore) {
+        final var parameters = new MapSqlParameterSource("observedBefore", observedBefore);
+        parameters.addValue("keyframeMaxAge", keyframeMaxAge.getSeconds() + " seconds");
+        final var oldestPayloadBase = namedParameterJdbcTemplate.queryForObject(
+            SELECT_OLDEST_PAYLOAD_BASE_NEEDED_AFTER, parameters, OffsetDateTime.class);
+        if (oldestPayloadBase != null) {
+            log.info("Chunks observed from {} to {} are kept, they hold the base of payloads observed after",
+                oldestPayloadBase, observedBefore);
+            parameters.addValue("observedBefore", oldestPayloadBase);
+        }
+        final var droppedChunkStatistics = namedParameterJdbcTemplate.queryForObject(
+            SELECT_CHUNK_STATISTICS_OBSERVED_BEFORE, parameters, (resultSet, rowNumber) ->
+                new NetworkDataChunkStatistics(
+                    resultSet.getLong("chunk_count"),
+                    resultSet.getLong("compressed_chunk_count"),
+                    resultSet.getLong("total_bytes")));
+        namedParameterJdbcTemplate.queryForObject(DROP_CHUNKS, parameters, Integer.class);
+        return droppedChunkStatistics;
+    }
+
+    @Override
+    public Duration findCompressionAge() {
+        return namedParameterJdbcTemplate.queryForList(SELECT_COMPRESSION_AGE, Map.of(), Long.class).stream()
+            .findFirst().map(Duration::ofSeconds).orElse(null);
+    }
+
+    @Override
+    public int deleteObservedBefore(final String dataspaceName, final String schemaSetName,
+                                    final OffsetDateTime observedAfter, final OffsetDateTime observedBefore,
+                                    final int batchSize) {
+        final var parameters = new MapSqlParameterSource();
+        final var batchQuery = new StringBuilder(
+            "SELECT dataspace, anchor, observed_timestamp FROM network_data candidate WHERE dataspace = :dataspace");
+        parameters.addValue("dataspace", dataspaceName);
+        addSchemaSetCondition(batchQuery, parameters, schemaSetName);
+        if (observedAfter != null) {
+            batchQuery.append(" AND observed_timestamp >= :observedAfter");
+            parameters.addValue("observedAfter", observedAfter);
+        }
+        batchQuery.append(" AND observed_timestamp < :observedBefore").append(NOT_PAYLOAD_BASE)
+            .append(" LIMIT :batchSize");
+        parameters.addValue("observedBefore", observedBefore);
+        parameters.addValue("batchSize", batchSize);
+        return namedParameterJdbcTemplate.update(String.format(DELETE_BY_KEY, batchQuery), parameters);
+    }
+
+    /*
+    The latest network data of each anchor within a bucket holds the state of the anchor at the end of the bucket.
+    Keeping it, even when it is a deletion, preserves the state of all anchors at each bucket boundary.
+     */
+    @Override
+    public int deleteAllButLatestPerBucket(final String dataspaceName, final String schemaSetName,
+                                           final OffsetDateTime observedAfter, final OffsetDateTime observedBefore,
+                                           final Duration bucketWidth, final int batchSize) {
+        final var parameters = new MapSqlParameterSource();
+        final var rankedQuery = new StringBuilder(
+            "SELECT dataspace, anchor, observed_timestamp, ROW_NUMBER() OVER ("
+                + "PARTITION BY anchor, time_bucket(CAST(:bucketWidth AS INTERVAL), observed_timestamp)"
+                + " ORDER BY observed_timestamp DESC) AS bucket_rank"
+                + " FROM network_data WHERE dataspace = :dataspace");
+        parameters.addValue("bucketWidth", bucketWidth.getSeconds() + " seconds");
+        parameters.addValue("dataspace", dataspaceName);
+        addSchemaSetCondition(rankedQuery, parameters, schemaSetName);
+        if (observedAfter != null) {
+            rankedQuery.append(" AND observed_timestamp >= :observedAfter");
+            parameters.addValue("observedAfter", observedAfter);
+        }
+        rankedQuery.append(" AND observed_timestamp < :observedBefore");
+        parameters.addValue("observedBefore", observedBefore);
+        final String batchQuery = "SELECT dataspace, anchor, observed_timestamp FROM (" + rankedQuery
+            + ") candidate WHERE bucket_rank > 1" + NOT_PAYLOAD_BASE + " LIMIT :batchSize";
+        parameters.addValue("batchSize", batchSize);
+        return namedParameterJdbcTemplate.update(String.format(DELETE_BY_KEY, batchQuery), parameters);
+    }
+
+    @Override
+    public int deleteUnreferencedPayloads(final OffsetDateTime referencedBefore, final int batchSize) {
+        final var parameters = new MapSqlParameterSource();
+        parameters.addValue("referencedBefore", referencedBefore);
+        parameters.addValue("batchSize", batchSize);
+        return namedParameterJdbcTemplate.update(DELETE_UNREFERENCED_PAYLOADS, parameters);
+    }
+
+    private static void addSchemaSetCondition(final StringBuilder queryBuilder,
+                                              final MapSqlParameterSource parameters, final String schemaSetName) {
+        if (!StringUtils.isEmpty(schemaSetName)) {
+            queryBuilder.append(" AND schema_set = :schemaSetName");
+            parameters.addValue("schemaSetName", schemaSetName);
+        }
+    }
+
+}
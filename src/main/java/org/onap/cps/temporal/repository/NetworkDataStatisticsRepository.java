@@ -0,0 +1,45 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository;
+
+import org.onap.cps.temporal.domain.ChangeCountCriteria;
+import org.onap.cps.temporal.domain.NetworkDataChangeCount;
+import org.onap.cps.temporal.domain.NetworkDataChunkStatistics;
+import org.springframework.data.domain.Slice;
+
+public interface NetworkDataStatisticsRepository {
+
+    /**
+     * Count network data changes by time bucket, anchor and operation, from the hourly continuous aggregate.
+     *
+     * @param changeCountCriteria the change count criteria
+     * @return the change counts, the most recent buckets first
+     */
+    Slice<NetworkDataChangeCount> findChangeCounts(ChangeCountCriteria changeCountCriteria);
+
+    /**
+     * Get the number of chunks of network data hypertable and its size on disk, including indexes.
+     *
+     * @return the chunk statistics
+     */
+    NetworkDataChunkStatistics findChunkStatistics();
+
+}
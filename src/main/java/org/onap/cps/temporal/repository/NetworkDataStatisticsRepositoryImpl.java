@@ -0,0 +1,122 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.lang3.StringUtils;
+import org.onap.cps.temporal.domain.ChangeCountCriteria;
+import org.onap.cps.temporal.domain.NetworkDataChangeCount;
+import org.onap.cps.temporal.domain.NetworkDataChunkStatistics;
+import org.onap.cps.temporal.domain.Operation;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class NetworkDataStatisticsRepositoryImpl implements NetworkDataStatisticsRepository {
+
+    private static final String SELECT_CHUNK_STATISTICS =
+        "SELECT COUNT(*) AS chunk_count, COUNT(*) FILTER (WHERE is_compressed) AS compressed_chunk_count,"
+            + " hypertable_size('network_data') AS total_bytes"
+            + " FROM timescaledb_information.chunks WHERE hypertable_name = 'network_data'";
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public NetworkDataStatisticsRepositoryImpl(final NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    }
+
+    /*
+    Hourly buckets of the continuous aggregate are summed into buckets of the requested granularity, so that the
+    cost of the query depends on the number of buckets and not on the number of network data.
+    As for findBySearchCriteria, one extra row is fetched to know if a next slice exists.
+     */
+    @Override
+    public Slice<NetworkDataChangeCount> findChangeCounts(final ChangeCountCriteria changeCountCriteria) {
+        final var parameters = new MapSqlParameterSource();
+        final var queryBuilder = new StringBuilder(
+            "SELECT time_bucket(CAST(:bucketWidth AS INTERVAL), bucket) AS bucket_start,"
+                + " dataspace, schema_set, anchor, operation, SUM(change_count) AS change_count"
+                + " FROM network_data_change_count_hourly WHERE dataspace = :dataspace");
+        parameters.addValue("bucketWidth", changeCountCriteria.getGranularity().getInterval());
+        parameters.addValue("dataspace", changeCountCriteria.getDataspaceName());
+
+        if (!StringUtils.isEmpty(changeCountCriteria.getAnchorName())) {
+            queryBuilder.append(" AND anchor = :anchorName");
+            parameters.addValue("anchorName", changeCountCriteria.getAnchorName());
+        }
+        if (!StringUtils.isEmpty(changeCountCriteria.getSchemaSetName())) {
+            queryBuilder.append(" AND schema_set = :schemaSetName");
+            parameters.addValue("schemaSetName", changeCountCriteria.getSchemaSetName());
+        }
+        if (changeCountCriteria.getObservedAfter() != null) {
+            queryBuilder.append(" AND bucket >= :observedAfter");
+            parameters.addValue("observedAfter", changeCountCriteria.getObservedAfter());
+        }
+        if (changeCountCriteria.getObservedBefore() != null) {
+            queryBuilder.append(" AND bucket < :observedBefore");
+            parameters.addValue("observedBefore", changeCountCriteria.getObservedBefore());
+        }
+
+        final var pageable = changeCountCriteria.getPageable();
+        queryBuilder.append(" GROUP BY bucket_start, dataspace, schema_set, anchor, operation")
+            .append(" ORDER BY bucket_start DESC, anchor ASC, operation ASC")
+            .append(" LIMIT :limit OFFSET :offset");
+        parameters.addValue("limit", pageable.getPageSize() + 1);
+        parameters.addValue("offset", pageable.getOffset());
+
+        final List<NetworkDataChangeCount> changeCounts = new ArrayList<>(
+            namedParameterJdbcTemplate.query(queryBuilder.toString(), parameters, this::toChangeCount));
+        final boolean hasNextSlice = changeCounts.size() > pageable.getPageSize();
+        if (hasNextSlice) {
+            changeCounts.remove(pageable.getPageSize());
+        }
+        return new SliceImpl<>(changeCounts, pageable, hasNextSlice);
+    }
+
+    @Override
+    public NetworkDataChunkStatistics findChunkStatistics() {
+        return namedParameterJdbcTemplate.queryForObject(SELECT_CHUNK_STATISTICS, Map.of(),
+            (resultSet, rowNumber) -> new NetworkDataChunkStatistics(
+                resultSet.getLong("chunk_count"),
+                resultSet.getLong("compressed_chunk_count"),
+                resultSet.getLong("total_bytes")));
+    }
+
+    private NetworkDataChangeCount toChangeCount(final ResultSet resultSet, final int rowNumber) throws SQLException {
+        return NetworkDataChangeCount.builder()
+            .bucket(resultSet.getObject("bucket_start", OffsetDateTime.class))
+            .dataspace(resultSet.getString("dataspace"))
+            .schemaSet(resultSet.getString("schema_set"))
+            .anchor(resultSet.getString("anchor"))
+            .operation(Operation.valueOf(resultSet.getString("operation")))
+            .count(resultSet.getLong("change_count"))
+            .build();
+    }
+
+}
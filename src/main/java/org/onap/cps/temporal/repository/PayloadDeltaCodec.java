@@ -0,0 +1,305 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flipkart.zjsonpatch.JsonDiff;
+import com.flipkart.zjsonpatch.JsonPatch;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.tuple.Pair;
+import org.onap.cps.temporal.domain.NetworkData;
+import org.onap.cps.temporal.domain.Operation;
+import org.onap.cps.temporal.domain.PayloadFormat;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * Encoding of network data payloads as JSON Patch (RFC 6902) from the previous payload of their anchor, and decoding
+ * of the stored payloads back to full payloads.
+ * A full payload, the keyframe, is stored every max changes or max age, which bounds the number of patches to be
+ * applied to rebuild a payload.
+ */
+@Slf4j
+class PayloadDeltaCodec {
+
+    /*
+    Payload chain of an anchor, from a network data back to its keyframe following the payload base timestamps.
+    The keyframe is returned first, with its payload read from the network data payload table if it is a reference.
+     */
+    private static final String SELECT_PAYLOAD_CHAIN =
+        "WITH RECURSIVE payload_chain AS ("
+            + " (SELECT observed_timestamp, operation, payload, payload_format, payload_base_timestamp, payload_hash,"
+            + " 0 AS depth"
+            + " FROM network_data WHERE dataspace = :dataspace AND anchor = :anchor%s"
+            + " ORDER BY observed_timestamp DESC LIMIT 1)"
+            + " UNION ALL"
+            + " SELECT nd.observed_timestamp, nd.operation, nd.payload, nd.payload_format, nd.payload_base_timestamp,"
+            + " nd.payload_hash, pc.depth + 1"
+            + " FROM payload_chain pc JOIN network_data nd ON nd.dataspace = :dataspace AND nd.anchor = :anchor"
+            + " AND nd.observed_timestamp = pc.payload_base_timestamp)"
+            + " SELECT pc.observed_timestamp, pc.operation, CAST(COALESCE(pc.payload, ndp.payload) AS TEXT) AS payload,"
+            + " pc.payload_format FROM payload_chain pc"
+            + " LEFT JOIN network_data_payload ndp ON pc.payload_format = 'REFERENCE'"
+            + " AND ndp.payload_hash = pc.payload_hash ORDER BY pc.depth DESC";
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    PayloadDeltaCodec(final NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    }
+
+    /**
+     * Encode the payloads of the network data to be inserted.
+     * Network data not observed after the latest one of their anchor, i.e. received late, are stored as full
+     * payloads without changing the payload chain of the anchor.
+     *
+     * @param networkDataList  the network data to be inserted
+     * @param keyframeSettings the keyframe settings
+     * @return the payloads to be stored, in the order of the network data
+     */
+    List<StoredPayload> encode(final List<NetworkData> networkDataList, final KeyframeSettings keyframeSettings) {
+        final var storedPayloads = new StoredPayload[networkDataList.size()];
+        final Map<Pair<String, String>, AnchorPayload> latestPayloadsByAnchor = new HashMap<>();
+        final List<Integer> indexesByObservedTimestamp = IntStream.range(0, networkDataList.size()).boxed()
+            .sorted(Comparator.comparing(index -> networkDataList.get(index).getObservedTimestamp()))
+            .collect(Collectors.toList());
+        for (final int index : indexesByObservedTimestamp) {
+            final var networkData = networkDataList.get(index);
+            final var anchorKey = Pair.of(networkData.getDataspace(), networkData.getAnchor());
+            if (!latestPayloadsByAnchor.containsKey(anchorKey)) {
+                latestPayloadsByAnchor.put(anchorKey,
+                    loadLatestPayload(networkData.getDataspace(), networkData.getAnchor()));
+            }
+            final var latestPayload = latestPayloadsByAnchor.get(anchorKey);
+            final var observedTimestamp = networkData.getObservedTimestamp().truncatedTo(ChronoUnit.MICROS);
+            if (latestPayload != null && !observedTimestamp.isAfter(latestPayload.getObservedTimestamp())) {
+                storedPayloads[index] = StoredPayload.full(networkData.getPayload());
+                continue;
+            }
+            final var payload = toJsonNode(networkData.getPayload());
+            if (isKeyframe(latestPayload, payload, observedTimestamp, keyframeSettings)) {
+                storedPayloads[index] = StoredPayload.full(networkData.getPayload());
+                latestPayloadsByAnchor.put(anchorKey, new AnchorPayload(observedTimestamp, payload, 0,
+                    observedTimestamp));
+                continue;
+            }
+            final String patch = JsonDiff.asJson(latestPayload.getPayload(), payload).toString();
+            if (patch.length() >= networkData.getPayload().length()) {
+                // Patch is not worth it, e.g. when most of the payload has changed
+                storedPayloads[index] = StoredPayload.full(networkData.getPayload());
+                latestPayloadsByAnchor.put(anchorKey, new AnchorPayload(observedTimestamp, payload, 0,
+                    observedTimestamp));
+            } else {
+                storedPayloads[index] = new StoredPayload(patch, PayloadFormat.JSON_PATCH,
+                    latestPayload.getObservedTimestamp());
+                latestPayloadsByAnchor.put(anchorKey, new AnchorPayload(observedTimestamp, payload,
+                    latestPayload.getChangeCount() + 1, latestPayload.getKeyframeTimestamp()));
+            }
+        }
+        return List.of(storedPayloads);
+    }
+
+    private static boolean isKeyframe(final AnchorPayload latestPayload, final JsonNode payload,
+                                      final OffsetDateTime observedTimestamp,
+                                      final KeyframeSettings keyframeSettings) {
+        return latestPayload == null || latestPayload.getPayload() == null || payload == null
+            || latestPayload.getChangeCount() >= keyframeSettings.getMaxChanges()
+            || !Duration.between(latestPayload.getKeyframeTimestamp(), observedTimestamp)
+                .minus(keyframeSettings.getMaxAge()).isNegative();
+    }
+
+    /**
+     * Create a decoder, rebuilding full payloads of network data read in sequence.
+     *
+     * @return the decoder
+     */
+    Decoder newDecoder() {
+        return new Decoder();
+    }
+
+    /**
+     * Decoder of network data payloads. The latest payload decoded for each anchor is kept, so that network data
+     * read in ascending observed timestamp order are decoded without reading their base from the database.
+     */
+    class Decoder {
+
+        private final Map<Pair<String, String>, AnchorPayload> decodedPayloadsByAnchor = new HashMap<>();
+
+        /**
+         * Replace the stored payload of the network data by its full payload.
+         *
+         * @param networkData the network data, not attached to a persistence context
+         */
+        void decode(final NetworkData networkData) {
+            if (networkData.getPayloadFormat() != PayloadFormat.JSON_PATCH) {
+                return;
+            }
+            final var anchorKey = Pair.of(networkData.getDataspace(), networkData.getAnchor());
+            final var decodedPayload = decodedPayloadsByAnchor.get(anchorKey);
+            final JsonNode basePayload;
+            if (decodedPayload != null
+                && decodedPayload.getObservedTimestamp().isEqual(networkData.getPayloadBaseTimestamp())) {
+                basePayload = decodedPayload.getPayload();
+            } else {
+                basePayload = loadPayload(networkData.getDataspace(), networkData.getAnchor(),
+                    networkData.getPayloadBaseTimestamp());
+            }
+            if (basePayload == null) {
+                log.warn("Payload of network data observed at {} for dataspace {} and anchor {} can not be rebuilt,"
+                        + " its base observed at {} does not exist anymore", networkData.getObservedTimestamp(),
+                    networkData.getDataspace(), networkData.getAnchor(), networkData.getPayloadBaseTimestamp());
+                networkData.setPayload(null);
+            } else {
+                final var payload = JsonPatch.apply(toJsonNode(networkData.getPayload()), basePayload);
+                networkData.setPayload(payload.toString());
+                decodedPayloadsByAnchor.put(anchorKey,
+                    new AnchorPayload(networkData.getObservedTimestamp(), payload, 0, null));
+            }
+            networkData.setPayloadFormat(PayloadFormat.FULL);
+            networkData.setPayloadBaseTimestamp(null);
+        }
+
+        /**
+         * Replace the stored payloads of the network data by their full payloads, in ascending observed timestamp
+         * order so that payloads decoded first can be used as base of the following ones.
+         *
+         * @param networkDataList the network data, not attached to a persistence context
+         */
+        void decodeAll(final List<NetworkData> networkDataList) {
+            final List<NetworkData> sortedNetworkDataList = new ArrayList<>(networkDataList);
+            sortedNetworkDataList.sort(Comparator.comparing(NetworkData::getObservedTimestamp));
+            for (final NetworkData networkData : sortedNetworkDataList) {
+                if (networkData.getPayloadFormat() != PayloadFormat.JSON_PATCH && networkData.getPayload() != null) {
+                    decodedPayloadsByAnchor.put(Pair.of(networkData.getDataspace(), networkData.getAnchor()),
+                        new AnchorPayload(networkData.getObservedTimestamp(), toJsonNode(networkData.getPayload()),
+                            0, null));
+                }
+                decode(networkData);
+            }
+        }
+    }
+
+    private AnchorPayload loadLatestPayload(final String dataspace, final String anchor) {
+        return loadPayloadChain(dataspace, anchor, null);
+    }
+
+    private JsonNode loadPayload(final String dataspace, final String anchor, final OffsetDateTime observedTimestamp) {
+        final var anchorPayload = loadPayloadChain(dataspace, anchor, observedTimestamp);
+        return anchorPayload == null ? null : anchorPayload.getPayload();
+    }
+
+    /*
+    Rebuild the payload of the network data observed at the specified timestamp, or of the latest one if not
+    specified, by applying the patches of its chain to its keyframe. Payload is null if the network data is a
+    deletion or if its chain is broken.
+     */
+    private AnchorPayload loadPayloadChain(final String dataspace, final String anchor,
+                                           final OffsetDateTime observedTimestamp) {
+        final var parameters = new MapSqlParameterSource();
+        parameters.addValue("dataspace", dataspace);
+        parameters.addValue("anchor", anchor);
+        String startCondition = "";
+        if (observedTimestamp != null) {
+            startCondition = " AND observed_timestamp = :observedTimestamp";
+            parameters.addValue("observedTimestamp", observedTimestamp);
+        }
+        final List<ChainedPayload> chain = namedParameterJdbcTemplate.query(
+            String.format(SELECT_PAYLOAD_CHAIN, startCondition), parameters,
+            (resultSet, rowNumber) -> new ChainedPayload(
+                resultSet.getObject("observed_timestamp", OffsetDateTime.class),
+                Operation.valueOf(resultSet.getString("operation")),
+                resultSet.getString("payload"),
+                resultSet.getString("payload_format")));
+        if (chain.isEmpty()) {
+            return null;
+        }
+        final var keyframe = chain.get(0);
+        final var latest = chain.get(chain.size() - 1);
+        JsonNode payload = null;
+        if (!PayloadFormat.JSON_PATCH.name().equals(keyframe.getPayloadFormat())) {
+            payload = toJsonNode(keyframe.getPayload());
+            for (final ChainedPayload chainedPayload : chain.subList(1, chain.size())) {
+                payload = JsonPatch.apply(toJsonNode(chainedPayload.getPayload()), payload);
+            }
+        }
+        if (latest.getOperation() == Operation.DELETE) {
+            payload = null;
+        }
+        return new AnchorPayload(latest.getObservedTimestamp(), payload, chain.size() - 1,
+            keyframe.getObservedTimestamp());
+    }
+
+    private JsonNode toJsonNode(final String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(json);
+        } catch (final JsonProcessingException jsonProcessingException) {
+            throw new IllegalStateException("Invalid network data payload", jsonProcessingException);
+        }
+    }
+
+    /**
+     * Keyframe settings: a full payload is stored when the previous one has been followed by max changes patches,
+     * or has been observed max age ago or more.
+     */
+    @Getter
+    @AllArgsConstructor
+    static class KeyframeSettings {
+        private final int maxChanges;
+        private final Duration maxAge;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class AnchorPayload {
+        private final OffsetDateTime observedTimestamp;
+        private final JsonNode payload;
+        private final int changeCount;
+        private final OffsetDateTime keyframeTimestamp;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class ChainedPayload {
+        private final OffsetDateTime observedTimestamp;
+        private final Operation operation;
+        private final String payload;
+        private final String payloadFormat;
+    }
+
+}
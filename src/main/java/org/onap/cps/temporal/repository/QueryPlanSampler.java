@@ -0,0 +1,165 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sampler of the plans of the search queries, reporting their planning and execution times per query shape.
+ * A shape is explained at most once per interval, the explained query being run a second time, so that the overhead
+ * stays negligible. The plan is logged at debug level.
+ * Plans of slow queries, including buffers usage, can also be logged at warn level, at most once per slow query
+ * interval for each shape.
+ */
+@Component
+@Slf4j
+class QueryPlanSampler {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final Duration interval;
+    private final Duration slowQueryThreshold;
+    private final Duration slowQueryInterval;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Long> lastSampleTimeByShape = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastSlowQueryLogTimeByShape = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param namedParameterJdbcTemplate the named parameter JDBC template
+     * @param interval                   the minimum time between two samples of a shape, 0 to disable sampling
+     * @param slowQueryThreshold         the duration from which a query is slow, 0 to disable slow query logging
+     * @param slowQueryInterval          the minimum time between two slow queries logged for a shape
+     * @param meterRegistry              the meter registry
+     */
+    QueryPlanSampler(final NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                     final @Value("${app.query.explain.interval}") Duration interval,
+                     final @Value("${app.query.explain.slow-query-threshold}") Duration slowQueryThreshold,
+                     final @Value("${app.query.explain.slow-query-interval}") Duration slowQueryInterval,
+                     final MeterRegistry meterRegistry) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.interval = interval;
+        this.slowQueryThreshold = slowQueryThreshold;
+        this.slowQueryInterval = slowQueryInterval;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Explain the search query if its shape has not been sampled within the interval.
+     *
+     * @param searchCriteriaQueryBuilder the builder of the search query, once built
+     * @param pageable                   the page requested
+     */
+    void sample(final SearchCriteriaQueryBuilder searchCriteriaQueryBuilder, final Pageable pageable) {
+        final var queryShape = searchCriteriaQueryBuilder.getQueryShape();
+        if (interval.isZero() || !isDue(lastSampleTimeByShape, queryShape, interval)) {
+            return;
+        }
+        try {
+            final var plan = explain("ANALYZE, FORMAT JSON", searchCriteriaQueryBuilder, pageable);
+            final JsonNode explainedQuery = OBJECT_MAPPER.readTree(plan).path(0);
+            record("cps.temporal.query.planning", "Time spent planning search queries, per query shape",
+                queryShape, explainedQuery.path("Planning Time"));
+            record("cps.temporal.query.execution", "Time spent executing search queries, per query shape",
+                queryShape, explainedQuery.path("Execution Time"));
+            log.debug("Plan of search query shape '{}': {}", queryShape, plan);
+        } catch (final DataAccessException | JsonProcessingException exception) {
+            log.warn("Failed to sample plan of search query shape '{}': {}", queryShape, exception.getMessage());
+        }
+    }
+
+    /**
+     * Log the plan of the search query if it is slow and no slow query of its shape has been logged within the slow
+     * query interval. The query is run a second time to be explained, with the same parameters.
+     *
+     * @param searchCriteriaQueryBuilder the builder of the search query, once built
+     * @param pageable                   the page requested
+     * @param duration                   the time the search query took
+     */
+    void logIfSlow(final SearchCriteriaQueryBuilder searchCriteriaQueryBuilder, final Pageable pageable,
+                   final Duration duration) {
+        final var queryShape = searchCriteriaQueryBuilder.getQueryShape();
+        if (slowQueryThreshold.isZero() || duration.compareTo(slowQueryThreshold) < 0
+            || !isDue(lastSlowQueryLogTimeByShape, queryShape, slowQueryInterval)) {
+            return;
+        }
+        try {
+            final var plan = explain("ANALYZE, BUFFERS, FORMAT JSON", searchCriteriaQueryBuilder, pageable);
+            log.warn("Slow search query of shape '{}' took {} ms, with page size {} and offset {}. Plan is {}",
+                queryShape, duration.toMillis(), pageable.getPageSize(), pageable.getOffset(), plan);
+        } catch (final DataAccessException dataAccessException) {
+            log.warn("Slow search query of shape '{}' took {} ms, failed to explain it: {}", queryShape,
+                duration.toMillis(), dataAccessException.getMessage());
+        }
+    }
+
+    private String explain(final String options, final SearchCriteriaQueryBuilder searchCriteriaQueryBuilder,
+                           final Pageable pageable) {
+        final Map<String, Object> queryParameters = new HashMap<>(searchCriteriaQueryBuilder.getQueryParameters());
+        queryParameters.put("limit", pageable.getPageSize() + 1);
+        queryParameters.put("offset", pageable.getOffset());
+        return namedParameterJdbcTemplate.queryForObject("EXPLAIN (" + options + ") "
+            + searchCriteriaQueryBuilder.getDataNativeQuery() + " LIMIT :limit OFFSET :offset",
+            queryParameters, String.class);
+    }
+
+    private static boolean isDue(final Map<String, Long> lastTimeByShape, final String queryShape,
+                                 final Duration interval) {
+        final long now = System.nanoTime();
+        final var isDue = new AtomicBoolean();
+        lastTimeByShape.compute(queryShape, (shape, lastTime) -> {
+            if (lastTime != null && now - lastTime < interval.toNanos()) {
+                return lastTime;
+            }
+            isDue.set(true);
+            return now;
+        });
+        return isDue.get();
+    }
+
+    private void record(final String name, final String description, final String queryShape,
+                        final JsonNode milliseconds) {
+        if (!milliseconds.isNumber()) {
+            return;
+        }
+        Timer.builder(name).description(description).tag("shape", queryShape).register(meterRegistry)
+            .record(Math.round(milliseconds.asDouble() * 1_000_000), TimeUnit.NANOSECONDS);
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository;
+
+import io.r2dbc.pool.PoolingConnectionFactoryProvider;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * R2DBC connections to the database, only when reactive queries are enabled.
+ * Connections are made to the datasource database, its JDBC URL being converted to an R2DBC one. Spring Boot R2DBC
+ * auto-configuration is excluded, so that its reactive transaction manager does not conflict with the JPA one.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.query.reactive.enabled", havingValue = "true")
+public class ReactiveRepositoryConfig {
+
+    private static final String JDBC_URL_PREFIX = "jdbc:";
+    private static final String R2DBC_POOL_URL_PREFIX = "r2dbc:pool:";
+
+    /**
+     * Create the pool of R2DBC connections.
+     *
+     * @param jdbcUrl     the datasource JDBC URL
+     * @param username    the datasource username
+     * @param password    the datasource password
+     * @param maxPoolSize the maximum number of R2DBC connections
+     * @return the connection factory
+     */
+    @Bean
+    public ConnectionFactory connectionFactory(final @Value("${spring.datasource.url}") String jdbcUrl,
+                                               final @Value("${spring.datasource.username}") String username,
+                                               final @Value("${spring.datasource.password}") String password,
+                                               final @Value("${app.query.reactive.pool.max-size}") int maxPoolSize) {
+        if (!jdbcUrl.startsWith(JDBC_URL_PREFIX)) {
+            throw new IllegalStateException("Unsupported datasource URL for reactive queries: " + jdbcUrl);
+        }
+        final var connectionFactoryOptions =
+            ConnectionFactoryOptions.parse(R2DBC_POOL_URL_PREFIX + jdbcUrl.substring(JDBC_URL_PREFIX.length()))
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .option(PoolingConnectionFactoryProvider.INITIAL_SIZE, 1)
+                .option(PoolingConnectionFactoryProvider.MAX_SIZE, maxPoolSize)
+                .build();
+        return ConnectionFactories.get(connectionFactoryOptions);
+    }
+
+    @Bean
+    public DatabaseClient databaseClient(final ConnectionFactory connectionFactory) {
+        return DatabaseClient.create(connectionFactory);
+    }
+
+}
@@ -0,0 +1,247 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import javax.validation.ValidationException;
+import lombok.Getter;
+import org.apache.commons.lang3.ObjectUtils;
+import org.onap.cps.temporal.domain.SearchCriteria;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Order;
+
+/**
+ * Builder of the native query selecting the network data matching search criteria, ignoring pagination.
+ * Named parameters are used, so that the query can be run with JPA as well as with R2DBC.
+ * The query text only depends on the shape of the criteria, i.e. which criteria are present and the sort, and is
+ * built once per shape. Searches of the same shape then send the exact same statement, so that the driver reuses its
+ * server side prepared statement and PostgreSQL does not plan it again.
+ */
+class SearchCriteriaQueryBuilder {
+
+    private static final String ANCHOR_COLUMN_NAME = "anchor";
+    private static final Map<String, String> CURSOR_PARAMETER_NAMES = Map.of(
+        "observed_timestamp", "cursorObservedTimestamp",
+        ANCHOR_COLUMN_NAME, "cursorAnchor");
+
+    /*
+    Bounded, as the number of shapes is limited by the optional criteria and the supported sort orders. Keyed by
+    payload storage mode as well, which changes the payload condition.
+     */
+    private static final Map<String, String> DATA_QUERY_BY_SHAPE = new ConcurrentHashMap<>();
+
+    @Getter
+    private Map<String, Object> queryParameters = new HashMap<>();
+
+    @Getter
+    private String queryShape;
+
+    private String dataQuery;
+
+    private final SearchCriteria searchCriteria;
+    private final String payloadMode;
+
+    SearchCriteriaQueryBuilder(final SearchCriteria searchCriteria, final String payloadMode) {
+        this.searchCriteria = searchCriteria;
+        this.payloadMode = payloadMode;
+    }
+
+    /**
+     * Build the query of the search criteria.
+     *
+     * @throws ValidationException if a payload filter is requested while payloads are stored as patches, as it would
+     *                             not match them, or if a cursor is combined with a sort on other columns than the
+     *                             ones it holds
+     */
+    void buildQuery() {
+
+        if (NetworkDataBatchRepositoryImpl.PAYLOAD_MODE_DELTA.equals(payloadMode)
+            && ObjectUtils.isNotEmpty(searchCriteria.getSimplePayloadFilter())) {
+            throw new ValidationException("simplePayloadFilter is not supported when payloads are stored as deltas");
+        }
+
+        queryParameters.put("dataspace", searchCriteria.getDataspaceName());
+        final List<String> presentCriteria = new ArrayList<>();
+        addQueryParameter(presentCriteria, "anchorName", searchCriteria.getAnchorName());
+        addQueryParameter(presentCriteria, "schemaSetName", searchCriteria.getSchemaSetName());
+        addQueryParameter(presentCriteria, "observedAfter", searchCriteria.getObservedAfter());
+        addQueryParameter(presentCriteria, "observedBefore", searchCriteria.getObservedBefore());
+        addQueryParameter(presentCriteria, "simplePayloadFilter", searchCriteria.getSimplePayloadFilter());
+        addQueryParameter(presentCriteria, "createdBefore", searchCriteria.getCreatedBefore());
+        final var cursor = searchCriteria.getCursor();
+        if (cursor != null) {
+            validateCursorSort();
+            presentCriteria.add("cursor");
+            queryParameters.put(CURSOR_PARAMETER_NAMES.get("observed_timestamp"), cursor.getObservedTimestamp());
+            queryParameters.put(CURSOR_PARAMETER_NAMES.get(ANCHOR_COLUMN_NAME), cursor.getAnchor());
+        }
+        queryShape = String.join(",", presentCriteria) + " order by " + getOrderBy();
+        dataQuery = DATA_QUERY_BY_SHAPE.computeIfAbsent(payloadMode + ":" + queryShape, shape -> buildDataQuery());
+
+    }
+
+    private void validateCursorSort() {
+        searchCriteria.getSort().stream()
+            .filter(order -> !CURSOR_PARAMETER_NAMES.containsKey(order.getProperty()))
+            .findFirst()
+            .ifPresent(order -> {
+                throw new ValidationException("continuationToken can not be combined with a sort on "
+                    + order.getProperty() + ", only observed_timestamp and anchor are supported");
+            });
+    }
+
+    private void addQueryParameter(final List<String> presentCriteria, final String name, final Object value) {
+        if (ObjectUtils.isNotEmpty(value)) {
+            presentCriteria.add(name);
+            queryParameters.put(name, value);
+        }
+    }
+
+    private String buildDataQuery() {
+        final var queryBuilder = new StringBuilder();
+        queryBuilder.append("SELECT * FROM network_data nd WHERE dataspace = :dataspace ");
+        addAnchorCondition(queryBuilder);
+        addSchemaSetCondition(queryBuilder);
+        addObservedAfterCondition(queryBuilder);
+        addObservedBeforeCondition(queryBuilder);
+        addSimplePayloadCondition(queryBuilder);
+        addCreatedBeforeCondition(queryBuilder);
+        addCursorCondition(queryBuilder);
+        queryBuilder.append(" ORDER BY ").append(getOrderBy());
+        return queryBuilder.toString();
+    }
+
+    private void addSchemaSetCondition(final StringBuilder queryBuilder) {
+        if (queryParameters.containsKey("schemaSetName")) {
+            queryBuilder.append(" AND schema_set = :schemaSetName ");
+        }
+    }
+
+    private void addAnchorCondition(final StringBuilder queryBuilder) {
+        if (queryParameters.containsKey("anchorName")) {
+            queryBuilder.append(" AND anchor = :anchorName");
+        }
+    }
+
+    /*
+    The filter is applied to the stored payloads, it is rejected in delta mode and payloads stored as patches before
+    the mode was changed are not matched. In deduplicated mode, payloads stored as references are matched in the
+    network data payload table as well, both sides using their GIN index. In full mode, the payload table is not
+    searched, so that the condition remains a single GIN index scan.
+     */
+    private void addSimplePayloadCondition(final StringBuilder queryBuilder) {
+        if (!queryParameters.containsKey("simplePayloadFilter")) {
+            return;
+        }
+        if (NetworkDataBatchRepositoryImpl.PAYLOAD_MODE_DEDUPLICATED.equals(payloadMode)) {
+            queryBuilder.append(" AND (payload @> CAST(:simplePayloadFilter AS jsonb)"
+                + " OR (payload_format = 'REFERENCE' AND payload_hash IN (SELECT payload_hash"
+                + " FROM network_data_payload WHERE payload @> CAST(:simplePayloadFilter AS jsonb)))) ");
+        } else {
+            queryBuilder.append(" AND payload @> CAST(:simplePayloadFilter AS jsonb) ");
+        }
+    }
+
+    private void addCreatedBeforeCondition(final StringBuilder queryBuilder) {
+        if (queryParameters.containsKey("createdBefore")) {
+            queryBuilder.append(" AND created_timestamp <= :createdBefore");
+        }
+    }
+
+    private void addObservedAfterCondition(final StringBuilder queryBuilder) {
+        if (queryParameters.containsKey("observedAfter")) {
+            queryBuilder.append(" AND observed_timestamp >= :observedAfter");
+        }
+    }
+
+    /*
+    Seek predicate on the (observed_timestamp, anchor) of the last record returned, instead of an offset, so
+    that deep pages do not require to scan and discard all the preceding rows. When both columns are sorted in
+    the same direction, a row value comparison is used, which is resolved with a single index range scan.
+     */
+    private void addCursorCondition(final StringBuilder queryBuilder) {
+        if (searchCriteria.getCursor() == null) {
+            return;
+        }
+        final List<Order> seekOrders = getSeekOrders();
+        final boolean isSameDirection =
+            seekOrders.stream().map(Order::getDirection).distinct().count() == 1;
+        if (isSameDirection) {
+            queryBuilder.append(" AND (")
+                .append(seekOrders.stream().map(Order::getProperty).collect(Collectors.joining(", ")))
+                .append(") ").append(getSeekOperator(seekOrders.get(0))).append(" (")
+                .append(seekOrders.stream().map(order -> ":" + CURSOR_PARAMETER_NAMES.get(order.getProperty()))
+                    .collect(Collectors.joining(", ")))
+                .append(")");
+        } else {
+            final List<String> equalityConditions = new ArrayList<>();
+            final List<String> seekConditions = new ArrayList<>();
+            for (final Order order : seekOrders) {
+                final var parameter = ":" + CURSOR_PARAMETER_NAMES.get(order.getProperty());
+                final List<String> seekCondition = new ArrayList<>(equalityConditions);
+                seekCondition.add(order.getProperty() + " " + getSeekOperator(order) + " " + parameter);
+                seekConditions.add("(" + String.join(" AND ", seekCondition) + ")");
+                equalityConditions.add(order.getProperty() + " = " + parameter);
+            }
+            queryBuilder.append(" AND (").append(String.join(" OR ", seekConditions)).append(")");
+        }
+    }
+
+    private static String getSeekOperator(final Order order) {
+        return order.isAscending() ? ">" : "<";
+    }
+
+    /*
+    Requested sort completed with anchor, so that records observed at the same timestamp are always returned
+    in the same order and the cursor identifies a single position. It applies to searches by page number as well, as
+    their responses also hold the continuation token of the next records.
+     */
+    private List<Order> getSeekOrders() {
+        final var sort = searchCriteria.getSort();
+        if (sort.getOrderFor(ANCHOR_COLUMN_NAME) != null) {
+            return sort.toList();
+        }
+        return sort.and(Sort.by(Order.desc(ANCHOR_COLUMN_NAME))).toList();
+    }
+
+    private void addObservedBeforeCondition(final StringBuilder queryBuilder) {
+        if (queryParameters.containsKey("observedBefore")) {
+            queryBuilder.append(" AND observed_timestamp < :observedBefore");
+        }
+    }
+
+    private String getOrderBy() {
+        return getSeekOrders().stream().map(order -> {
+            final var direction = order.isAscending() ? "asc" : "desc";
+            return order.getProperty() + " " + direction;
+        }).collect(Collectors.joining(","));
+    }
+
+    String getDataNativeQuery() {
+        return dataQuery;
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.ObjectUtils;
+import org.onap.cps.temporal.domain.SearchCriteria;
+import org.springframework.stereotype.Component;
+
+/**
+ * Metrics of the search queries, reporting their latency and the number of rows they return per criteria shape.
+ * The shape tells which optional criteria are set, with the page size and the offset grouped in buckets so that
+ * the number of time series stays bounded.
+ */
+@Component
+class SearchQueryMetrics {
+
+    private static final String SEARCH_TIMER_NAME = "cps.temporal.query.search";
+    private static final String SEARCH_ROWS_SUMMARY_NAME = "cps.temporal.query.search.rows";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Constructor.
+     *
+     * @param meterRegistry the meter registry
+     */
+    SearchQueryMetrics(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Record a search query.
+     *
+     * @param searchCriteria the criteria of the search query
+     * @param durationNanos  the time the search query took, in nanoseconds
+     * @param rowCount       the number of rows returned
+     */
+    void record(final SearchCriteria searchCriteria, final long durationNanos, final int rowCount) {
+        final var tags = toTags(searchCriteria);
+        Timer.builder(SEARCH_TIMER_NAME)
+            .description("Time spent running search queries, per criteria shape")
+            .tags(tags)
+            .publishPercentileHistogram()
+            .minimumExpectedValue(Duration.ofMillis(1))
+            .maximumExpectedValue(Duration.ofMinutes(1))
+            .register(meterRegistry)
+            .record(durationNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder(SEARCH_ROWS_SUMMARY_NAME)
+            .description("Number of rows returned by search queries, per criteria shape")
+            .baseUnit("rows")
+            .tags(tags)
+            .register(meterRegistry)
+            .record(rowCount);
+    }
+
+    /*
+    Created before is not part of the shape as it is always set, defaulting to the current time.
+     */
+    private static Tags toTags(final SearchCriteria searchCriteria) {
+        final var pageable = searchCriteria.getPageable();
+        return Tags.of(
+            "anchor", isSet(searchCriteria.getAnchorName()),
+            "schema-set", isSet(searchCriteria.getSchemaSetName()),
+            "payload-filter", isSet(searchCriteria.getSimplePayloadFilter()),
+            "observed-after", isSet(searchCriteria.getObservedAfter()),
+            "observed-before", isSet(searchCriteria.getObservedBefore()),
+            "cursor", isSet(searchCriteria.getCursor()),
+            "page-size", pageable.isPaged() ? toPageSizeBucket(pageable.getPageSize()) : "unpaged",
+            "offset", pageable.isPaged() ? toOffsetBucket(pageable.getOffset()) : "0");
+    }
+
+    private static String isSet(final Object criterion) {
+        return String.valueOf(ObjectUtils.isNotEmpty(criterion));
+    }
+
+    private static String toPageSizeBucket(final int pageSize) {
+        if (pageSize <= 10) {
+            return "1-10";
+        }
+        if (pageSize <= 100) {
+            return "11-100";
+        }
+        return pageSize <= 1000 ? "101-1000" : "1001+";
+    }
+
+    private static String toOffsetBucket(final long offset) {
+        if (offset == 0) {
+            return "0";
+        }
+        if (offset < 1000) {
+            return "1-999";
+        }
+        return offset < 10_000 ? "1000-9999" : "10000+";
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository;
+
+import java.time.OffsetDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.onap.cps.temporal.domain.PayloadFormat;
+
+/**
+ * Payload of a network data as stored in the database.
+ */
+@Getter
+@AllArgsConstructor
+class StoredPayload {
+
+    private final String payload;
+    private final PayloadFormat payloadFormat;
+    private final OffsetDateTime payloadBaseTimestamp;
+
+    static StoredPayload full(final String payload) {
+        return new StoredPayload(payload, PayloadFormat.FULL, null);
+    }
+
+    static StoredPayload reference() {
+        return new StoredPayload(null, PayloadFormat.REFERENCE, null);
+    }
+
+}
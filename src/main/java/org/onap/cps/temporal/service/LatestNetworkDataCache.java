@@ -0,0 +1,159 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.onap.cps.temporal.domain.NetworkData;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * In-memory cache of the latest network data of each anchor, i.e. the last one observed.
+ * The cache is updated with the network data inserted one by one or by batches by this instance, and loaded from the
+ * database on miss. It is invalidated as a whole by bulk loads and retention runs of this instance. Its memory is
+ * bounded by an estimate of the size of the cached network data, the least recently used being evicted first.
+ * The cache is therefore only correct when this instance is the single writer of network data: network data
+ * inserted, loaded in bulk or removed by other instances are only read from the database once the cached entries
+ * expire.
+ */
+@Component
+public class LatestNetworkDataCache {
+
+    static final String CACHE_NAME = "cps-temporal-latest-network-data";
+
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    private final boolean enabled;
+    private final Cache<AnchorKey, NetworkData> cache;
+
+    /**
+     * Constructor.
+     *
+     * @param enabled          true to cache the latest network data
+     * @param maxSize          the maximum estimated memory used by the cached network data
+     * @param expireAfterWrite the time after which a cached network data is read again from the database
+     * @param meterRegistry    the meter registry, the cache statistics are registered to
+     */
+    public LatestNetworkDataCache(
+            final @Value("${app.query.latest-cache.enabled}") boolean enabled,
+            final @Value("${app.query.latest-cache.max-size}") DataSize maxSize,
+            final @Value("${app.query.latest-cache.expire-after-write}") Duration expireAfterWrite,
+            final MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(maxSize.toBytes())
+            .weigher(LatestNetworkDataCache::estimateSize)
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Get the latest network data of the specified anchor, loading it on cache miss.
+     *
+     * @param dataspace the dataspace name
+     * @param anchor    the anchor name
+     * @param loader    the loader of the latest network data from the database, returning null if there is none
+     * @return the latest network data, null if there is none
+     */
+    public NetworkData get(final String dataspace, final String anchor, final Supplier<NetworkData> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return cache.get(new AnchorKey(dataspace, anchor), anchorKey -> loader.get());
+    }
+
+    /**
+     * Update the cache with inserted network data, each one replacing the cached network data of its anchor only if
+     * it has been observed later. Within a transaction, the cache is updated only once the transaction is committed.
+     *
+     * @param networkDataList the inserted network data
+     */
+    public void update(final List<NetworkData> networkDataList) {
+        if (!enabled || networkDataList.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    networkDataList.forEach(LatestNetworkDataCache.this::update);
+                }
+            });
+        } else {
+            networkDataList.forEach(this::update);
+        }
+    }
+
+    /**
+     * Invalidate all the cached network data, after network data are added or removed without updating the cache.
+     * Within a transaction, the cache is invalidated only once the transaction is committed.
+     */
+    public void invalidateAll() {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidateAll();
+                }
+            });
+        } else {
+            cache.invalidateAll();
+        }
+    }
+
+    private void update(final NetworkData networkData) {
+        cache.asMap().merge(new AnchorKey(networkData.getDataspace(), networkData.getAnchor()), networkData,
+            (cachedNetworkData, insertedNetworkData) ->
+                insertedNetworkData.getObservedTimestamp().isAfter(cachedNetworkData.getObservedTimestamp())
+                    ? insertedNetworkData : cachedNetworkData);
+    }
+
+    private static int estimateSize(final AnchorKey anchorKey, final NetworkData networkData) {
+        final long characterCount = (long) networkData.getDataspace().length() + networkData.getAnchor().length()
+            + networkData.getSchemaSet().length()
+            + (networkData.getPayload() == null ? 0 : networkData.getPayload().length());
+        return (int) Math.min(Integer.MAX_VALUE, ENTRY_OVERHEAD_BYTES + 2 * characterCount);
+    }
+
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static final class AnchorKey {
+        private final String dataspace;
+        private final String anchor;
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.service;
+
+import org.onap.cps.temporal.domain.NetworkData;
+import org.onap.cps.temporal.domain.SearchCriteria;
+import org.onap.cps.temporal.repository.NetworkDataReactiveRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+/**
+ * Reactive service implementation for Network Data, only when reactive queries are enabled.
+ */
+@Service
+@ConditionalOnProperty(name = "app.query.reactive.enabled", havingValue = "true")
+public class NetworkDataReactiveServiceImpl implements NetworkDataReactiveService {
+
+    private final NetworkDataReactiveRepository networkDataReactiveRepository;
+
+    public NetworkDataReactiveServiceImpl(final NetworkDataReactiveRepository networkDataReactiveRepository) {
+        this.networkDataReactiveRepository = networkDataReactiveRepository;
+    }
+
+    @Override
+    public Flux<NetworkData> streamNetworkData(final SearchCriteria searchCriteria) {
+        return networkDataReactiveRepository.findBySearchCriteria(searchCriteria);
+    }
+
+}
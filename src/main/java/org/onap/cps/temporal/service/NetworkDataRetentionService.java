@@ -0,0 +1,40 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.service;
+
+public interface NetworkDataRetentionService {
+
+    /**
+     * Apply retention rules: downsample and delete network data of specific dataspaces or schema sets, then drop
+     * the chunks older than the default retention period.
+     */
+    void applyRetention();
+
+    /**
+     * Check that retention rules only delete network data before they are compressed, rows of compressed chunks
+     * not being deletable, and that they do not downsample network data whose payloads are stored as deltas.
+     *
+     * @throws IllegalStateException if a rule period or downsampling age is not shorter than the compression age, or
+     *                               if a rule downsamples network data while payloads are stored as deltas
+     */
+    void validateRules();
+
+}
@@ -0,0 +1,227 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.function.IntSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.onap.cps.temporal.repository.NetworkDataRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+@Service
+@Slf4j
+public class NetworkDataRetentionServiceImpl implements NetworkDataRetentionService {
+
+    private static final String DELETED_ROWS_METRIC = "cps.temporal.retention.deleted";
+    private static final String PAYLOAD_MODE_DELTA = "delta";
+
+    /*
+    Payloads are referenced again by inserts without their last referenced timestamp being updated for up to an hour,
+    unreferenced payloads are therefore only deleted well after.
+     */
+    private static final Duration UNREFERENCED_PAYLOAD_RETENTION_PERIOD = Duration.ofDays(1);
+
+    private final NetworkDataRepository networkDataRepository;
+    private final RetentionProperties retentionProperties;
+    private final String payloadMode;
+    private final LatestNetworkDataCache latestNetworkDataCache;
+    private final SearchResultCache searchResultCache;
+    private final MeterRegistry meterRegistry;
+    private final Counter droppedChunksCounter;
+    private final Counter reclaimedBytesCounter;
+    private final Counter deletedPayloadsCounter;
+    private final Timer retentionTimer;
+
+    /**
+     * Constructor.
+     *
+     * @param networkDataRepository  network data repository
+     * @param retentionProperties    retention configuration
+     * @param payloadMode            payload storage mode, 'full', 'delta' or 'deduplicated'
+     * @param latestNetworkDataCache the cache of the latest network data of each anchor, invalidated by retention
+     * @param searchResultCache      the cache of the results of searches over historical windows, invalidated by
+     *                               retention
+     * @param meterRegistry          meter registry
+     */
+    public NetworkDataRetentionServiceImpl(final NetworkDataRepository networkDataRepository,
+                                           final RetentionProperties retentionProperties,
+                                           final @Value("${app.storage.payload.mode}") String payloadMode,
+                                           final LatestNetworkDataCache latestNetworkDataCache,
+                                           final SearchResultCache searchResultCache,
+                                           final MeterRegistry meterRegistry) {
+        this.networkDataRepository = networkDataRepository;
+        this.retentionProperties = retentionProperties;
+        this.payloadMode = payloadMode;
+        this.latestNetworkDataCache = latestNetworkDataCache;
+        this.searchResultCache = searchResultCache;
+        this.meterRegistry = meterRegistry;
+        this.droppedChunksCounter = Counter.builder("cps.temporal.retention.dropped.chunks")
+            .description("Number of network data chunks dropped by retention")
+            .register(meterRegistry);
+        this.reclaimedBytesCounter = Counter.builder("cps.temporal.retention.reclaimed")
+            .description("Disk space reclaimed by retention, as the size of the dropped chunks")
+            .baseUnit(BaseUnits.BYTES)
+            .register(meterRegistry);
+        this.deletedPayloadsCounter = Counter.builder("cps.temporal.retention.deleted.payloads")
+            .description("Number of deduplicated payloads deleted by retention once no longer referenced")
+            .register(meterRegistry);
+        this.retentionTimer = Timer.builder("cps.temporal.retention.duration")
+            .description("Duration of retention runs")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void applyRetention() {
+        retentionTimer.record(() -> {
+            final var now = OffsetDateTime.now();
+            final var compressionAge = networkDataRepository.findCompressionAge();
+            final var compressionHorizon = compressionAge == null ? null : now.minus(compressionAge);
+            for (final RetentionProperties.Rule rule : retentionProperties.getRules()) {
+                applyRule(rule, now, compressionHorizon);
+            }
+            if (retentionProperties.getDefaultPeriod() != null) {
+                final var observedBefore = now.minus(retentionProperties.getDefaultPeriod());
+                final var droppedChunks = networkDataRepository.dropChunksObservedBefore(observedBefore);
+                droppedChunksCounter.increment(droppedChunks.getChunkCount());
+                reclaimedBytesCounter.increment(droppedChunks.getTotalBytes());
+                log.info("Retention dropped {} chunks observed before {}, reclaiming {} bytes",
+                    droppedChunks.getChunkCount(), observedBefore, droppedChunks.getTotalBytes());
+            }
+            deleteUnreferencedPayloads(now.minus(UNREFERENCED_PAYLOAD_RETENTION_PERIOD));
+            latestNetworkDataCache.invalidateAll();
+            searchResultCache.invalidateAll();
+        });
+    }
+
+    @Override
+    public void validateRules() {
+        if (PAYLOAD_MODE_DELTA.equals(payloadMode)) {
+            validateNoDownsampling();
+        }
+        final var compressionAge = networkDataRepository.findCompressionAge();
+        if (compressionAge == null) {
+            return;
+        }
+        for (final RetentionProperties.Rule rule : retentionProperties.getRules()) {
+            validateAge(rule, "period", rule.getPeriod(), compressionAge);
+            if (rule.getDownsampling() != null) {
+                validateAge(rule, "downsampling after", rule.getDownsampling().getAfter(), compressionAge);
+            }
+        }
+    }
+
+    /*
+    In delta mode, each row of a patch chain is the base of the next one and is never deleted while a patch is based
+    on it: downsampling would silently delete nothing.
+     */
+    private void validateNoDownsampling() {
+        for (final RetentionProperties.Rule rule : retentionProperties.getRules()) {
+            if (rule.getDownsampling() != null) {
+                throw new IllegalStateException(String.format("Retention rule of dataspace %s: downsampling is not "
+                    + "supported when payloads are stored as deltas", rule.getDataspace()));
+            }
+        }
+    }
+
+    private static void validateAge(final RetentionProperties.Rule rule, final String ageName, final Duration age,
+                                    final Duration compressionAge) {
+        if (age != null && age.compareTo(compressionAge) >= 0) {
+            throw new IllegalStateException(String.format("Retention rule of dataspace %s: %s %s must be shorter "
+                + "than compression age %s, network data of compressed chunks can not be deleted",
+                rule.getDataspace(), ageName, age, compressionAge));
+        }
+    }
+
+    /*
+    Rules only delete network data of chunks which are not compressed yet, the older ones having been deleted or
+    downsampled before their chunk is compressed, as checked by validateRules.
+     */
+    private void applyRule(final RetentionProperties.Rule rule, final OffsetDateTime now,
+                           final OffsetDateTime compressionHorizon) {
+        final var retentionHorizon = rule.getPeriod() == null ? null : now.minus(rule.getPeriod());
+        final var downsampling = rule.getDownsampling();
+        if (downsampling != null) {
+            final var observedAfter = latest(retentionHorizon, compressionHorizon);
+            final var observedBefore = now.minus(downsampling.getAfter());
+            final int downsampledCount = deleteInBatches(rule, "downsampling",
+                () -> networkDataRepository.deleteAllButLatestPerBucket(rule.getDataspace(), rule.getSchemaSet(),
+                    observedAfter, observedBefore, downsampling.getInterval(), retentionProperties.getBatchSize()));
+            log.info("Retention downsampled dataspace {} schema set {} to one network data per anchor per {}, "
+                    + "{} network data deleted", rule.getDataspace(), rule.getSchemaSet(),
+                downsampling.getInterval(), downsampledCount);
+        }
+        if (retentionHorizon != null) {
+            final int deletedCount = deleteInBatches(rule, "period",
+                () -> networkDataRepository.deleteObservedBefore(rule.getDataspace(), rule.getSchemaSet(),
+                    compressionHorizon, retentionHorizon, retentionProperties.getBatchSize()));
+            log.info("Retention deleted {} network data of dataspace {} schema set {} observed before {}",
+                deletedCount, rule.getDataspace(), rule.getSchemaSet(), retentionHorizon);
+        }
+    }
+
+    private static OffsetDateTime latest(final OffsetDateTime timestamp, final OffsetDateTime otherTimestamp) {
+        if (timestamp == null || otherTimestamp == null) {
+            return timestamp == null ? otherTimestamp : timestamp;
+        }
+        return timestamp.isAfter(otherTimestamp) ? timestamp : otherTimestamp;
+    }
+
+    private void deleteUnreferencedPayloads(final OffsetDateTime referencedBefore) {
+        int deletedCount = 0;
+        int batchDeletedCount;
+        do {
+            batchDeletedCount = networkDataRepository.deleteUnreferencedPayloads(referencedBefore,
+                retentionProperties.getBatchSize());
+            deletedCount += batchDeletedCount;
+            deletedPayloadsCounter.increment(batchDeletedCount);
+        } while (batchDeletedCount > 0);
+        log.info("Retention deleted {} payloads not referenced since {}", deletedCount, referencedBefore);
+    }
+
+    /*
+    Each batch is deleted in its own transaction, so that locks are held for a short time and progress is kept
+    if the run is interrupted. A batch that is not full does not mean that all rows have been deleted, as rows
+    which are the base of a payload patch are only deleted once the patch is.
+     */
+    private int deleteInBatches(final RetentionProperties.Rule rule, final String reason,
+                                final IntSupplier batchDeletion) {
+        final var deletedCounter = Counter.builder(DELETED_ROWS_METRIC)
+            .description("Number of network data deleted by retention")
+            .tag("dataspace", rule.getDataspace())
+            .tag("reason", reason)
+            .register(meterRegistry);
+        int deletedCount = 0;
+        int batchDeletedCount;
+        do {
+            batchDeletedCount = batchDeletion.getAsInt();
+            deletedCount += batchDeletedCount;
+            deletedCounter.increment(batchDeletedCount);
+        } while (batchDeletedCount > 0);
+        return deletedCount;
+    }
+
+}
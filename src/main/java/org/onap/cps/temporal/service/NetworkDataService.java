@@ -20,8 +20,14 @@
 
 package org.onap.cps.temporal.service;
 
+import java.util.List;
+import java.util.function.Consumer;
+import org.onap.cps.temporal.domain.ChangeCountCriteria;
 import org.onap.cps.temporal.domain.NetworkData;
+import org.onap.cps.temporal.domain.NetworkDataChangeCount;
+import org.onap.cps.temporal.domain.NetworkDataInsertResult;
 import org.onap.cps.temporal.domain.SearchCriteria;
+import org.onap.cps.temporal.domain.SnapshotCriteria;
 import org.springframework.data.domain.Slice;
 
 public interface NetworkDataService {
@@ -30,8 +36,82 @@ public interface NetworkDataService {
      * Add Network data.
      *
      * @param networkData the network data to be stored
+     * @return the stored network data, with its created timestamp, or the network data itself if it has been skipped
+     *         because its payload is unchanged since the previous network data of its anchor
+     * @throws DuplicateNetworkDataException if network data already exists for the same observed timestamp, dataspace
+     *                                       and anchor
+     * @throws LateNetworkDataException if network data is observed within compressed data
      */
     NetworkData addNetworkData(NetworkData networkData);
 
+    /**
+     * Add a batch of network data in a single transaction.
+     * Network data failing validation are logged and skipped, and network data that already exist are ignored.
+     * Network data observed within compressed data are rejected without failing the others.
+     *
+     * @param networkDataList the network data to be stored
+     * @return the stored network data and the ones ignored because they already exist, are unchanged or are late
+     */
+    NetworkDataInsertResult addNetworkDataList(List<NetworkData> networkDataList);
+
+    /**
+     * Add a large number of network data in a single transaction, through a bulk copy to the database.
+     * Network data failing validation are logged and skipped, and network data that already exist are ignored.
+     * Unlike other additions, payloads are always stored full, network data with unchanged payloads are not skipped
+     * and the latest network data cache is not updated: it is meant for backfill before serving requests.
+     *
+     * @param networkDataList the network data to be stored
+     * @return the number of network data stored
+     */
+    int addNetworkDataInBulk(List<NetworkData> networkDataList);
+
+    /**
+     * Suspend the maintenance of the payload index, by dropping it, before adding network data in bulk.
+     * Searches by payload are slower until the payload index is rebuilt.
+     */
+    void suspendPayloadIndex();
+
+    /**
+     * Rebuild the payload index if it has been suspended.
+     */
+    void rebuildPayloadIndex();
+
     Slice<NetworkData> searchNetworkData(SearchCriteria searchCriteria);
+
+    /**
+     * Get the latest network data of an anchor, i.e. the last one observed, whatever its operation.
+     * It is served from the latest network data cache when possible.
+     *
+     * @param dataspaceName the dataspace name
+     * @param anchorName    the anchor name
+     * @return the latest network data
+     * @throws NetworkDataNotFoundException if there is no network data for the anchor
+     */
+    NetworkData getLatestNetworkData(String dataspaceName, String anchorName);
+
+    /**
+     * Stream all the network data matching the search criteria to the specified consumer, ignoring pagination.
+     * Network data are read from the database as they are consumed, without loading all of them in memory.
+     *
+     * @param searchCriteria      the search criteria
+     * @param networkDataConsumer the consumer called for each network data, in the search criteria sort order
+     */
+    void streamNetworkData(SearchCriteria searchCriteria, Consumer<NetworkData> networkDataConsumer);
+
+    /**
+     * Get the latest network data of each anchor of a schema set at the snapshot time.
+     *
+     * @param snapshotCriteria the snapshot criteria
+     * @return one network data per anchor not deleted at the snapshot time, sorted by anchor
+     */
+    Slice<NetworkData> searchNetworkDataSnapshot(SnapshotCriteria snapshotCriteria);
+
+    /**
+     * Count network data changes by time bucket, anchor and operation.
+     * Counts of the ongoing hour are computed in real time, older ones are read from the pre-computed aggregate.
+     *
+     * @param changeCountCriteria the change count criteria
+     * @return the change counts, the most recent buckets first
+     */
+    Slice<NetworkDataChangeCount> searchNetworkDataChangeCounts(ChangeCountCriteria changeCountCriteria);
 }
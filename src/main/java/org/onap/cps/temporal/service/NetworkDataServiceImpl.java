@@ -20,17 +20,25 @@
 
 package org.onap.cps.temporal.service;
 
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import javax.validation.ValidationException;
 import lombok.extern.slf4j.Slf4j;
+import org.onap.cps.temporal.domain.ChangeCountCriteria;
 import org.onap.cps.temporal.domain.NetworkData;
-import org.onap.cps.temporal.domain.NetworkDataId;
+import org.onap.cps.temporal.domain.NetworkDataChangeCount;
+import org.onap.cps.temporal.domain.NetworkDataInsertResult;
 import org.onap.cps.temporal.domain.Operation;
 import org.onap.cps.temporal.domain.SearchCriteria;
+import org.onap.cps.temporal.domain.SnapshotCriteria;
 import org.onap.cps.temporal.repository.NetworkDataRepository;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service implementation for Network Data.
@@ -40,28 +48,106 @@ import org.springframework.stereotype.Service;
 public class NetworkDataServiceImpl implements NetworkDataService {
 
     private final NetworkDataRepository networkDataRepository;
+    private final QueryAdmission queryAdmission;
+    private final LatestNetworkDataCache latestNetworkDataCache;
+    private final SearchResultCache searchResultCache;
     private final int maxPageSize;
 
+    /**
+     * Constructor.
+     *
+     * @param networkDataRepository  the network data repository
+     * @param queryAdmission         the admission of queries to the database
+     * @param latestNetworkDataCache the cache of the latest network data of each anchor
+     * @param searchResultCache      the cache of the results of searches over historical windows
+     * @param maxPageSize            the maximum page size of searches
+     */
     public NetworkDataServiceImpl(final NetworkDataRepository networkDataRepository,
+                                  final QueryAdmission queryAdmission,
+                                  final LatestNetworkDataCache latestNetworkDataCache,
+                                  final SearchResultCache searchResultCache,
                                   final @Value("${app.query.response.max-page-size}") int maxPageSize) {
         this.networkDataRepository = networkDataRepository;
+        this.queryAdmission = queryAdmission;
+        this.latestNetworkDataCache = latestNetworkDataCache;
+        this.searchResultCache = searchResultCache;
         this.maxPageSize = maxPageSize;
     }
 
     @Override
+    @Transactional
     public NetworkData addNetworkData(final NetworkData networkData) {
         validateNetworkData(networkData);
-        final var savedNetworkData = networkDataRepository.save(networkData);
-        if (savedNetworkData.getCreatedTimestamp() == null) {
+        final var insertResult = networkDataRepository.insertAll(List.of(networkData));
+        if (insertResult.getUnchangedCount() > 0) {
+            log.debug("Network data {} skipped, its payload is unchanged since the previous one", networkData);
+            return networkData;
+        }
+        if (insertResult.getLateCount() > 0) {
+            throw new LateNetworkDataException(
+                    "Failed to create network data. Data observed at " + networkData.getObservedTimestamp()
+                            + " are compressed and can not be added anymore");
+        }
+        if (insertResult.getInsertedCount() == 0) {
             // Data already exists and can not be inserted
-            final var id =
-                    new NetworkDataId(
-                            networkData.getObservedTimestamp(), networkData.getDataspace(), networkData.getAnchor());
-            final Optional<NetworkData> existingNetworkData = networkDataRepository.findById(id);
-            throw new ServiceException(
-                    "Failed to create network data. It already exists: " + (existingNetworkData.orElse(null)));
+            throw new DuplicateNetworkDataException(
+                    "Failed to create network data. It already exists for observed timestamp "
+                            + networkData.getObservedTimestamp() + ", dataspace " + networkData.getDataspace()
+                            + " and anchor " + networkData.getAnchor());
+        }
+        latestNetworkDataCache.update(insertResult.getInserted());
+        return insertResult.getInserted().get(0);
+    }
+
+    @Override
+    @Transactional
+    public NetworkDataInsertResult addNetworkDataList(final List<NetworkData> networkDataList) {
+        final List<NetworkData> validNetworkDataList = filterValidNetworkData(networkDataList);
+        if (validNetworkDataList.isEmpty()) {
+            return new NetworkDataInsertResult();
+        }
+        final var insertResult = networkDataRepository.insertAll(validNetworkDataList);
+        latestNetworkDataCache.update(insertResult.getInserted());
+        return insertResult;
+    }
+
+    @Override
+    @Transactional
+    public int addNetworkDataInBulk(final List<NetworkData> networkDataList) {
+        final List<NetworkData> validNetworkDataList = filterValidNetworkData(networkDataList);
+        if (validNetworkDataList.isEmpty()) {
+            return 0;
+        }
+        final int copiedCount = networkDataRepository.copyAll(validNetworkDataList);
+        latestNetworkDataCache.invalidateAll();
+        return copiedCount;
+    }
+
+    @Override
+    public void suspendPayloadIndex() {
+        log.info("Dropping network data payload index until it is rebuilt");
+        networkDataRepository.dropPayloadIndex();
+    }
+
+    @Override
+    public void rebuildPayloadIndex() {
+        log.info("Rebuilding network data payload index ...");
+        networkDataRepository.createPayloadIndex();
+        log.info("Network data payload index rebuilt");
+    }
+
+    private List<NetworkData> filterValidNetworkData(final List<NetworkData> networkDataList) {
+        final List<NetworkData> validNetworkDataList = new ArrayList<>(networkDataList.size());
+        for (final NetworkData networkData : networkDataList) {
+            try {
+                validateNetworkData(networkData);
+                validNetworkDataList.add(networkData);
+            } catch (final ValidationException validationException) {
+                log.error("Failed to create network data {}. Error cause is {}.",
+                        networkData, validationException.getMessage());
+            }
         }
-        return savedNetworkData;
+        return validNetworkDataList;
     }
 
     private void validateNetworkData(final NetworkData networkData) {
@@ -74,10 +160,58 @@ public class NetworkDataServiceImpl implements NetworkDataService {
 
     @Override
     public Slice<NetworkData> searchNetworkData(final SearchCriteria searchCriteria) {
-        if (searchCriteria.getPageable().getPageSize() > maxPageSize) {
+        validatePageSize(searchCriteria.getPageable());
+        return searchResultCache.get(searchCriteria,
+            () -> queryAdmission.admit(() -> networkDataRepository.findBySearchCriteria(searchCriteria)));
+    }
+
+    @Override
+    public Slice<NetworkData> searchNetworkDataSnapshot(final SnapshotCriteria snapshotCriteria) {
+        validatePageSize(snapshotCriteria.getPageable());
+        return queryAdmission.admit(() -> networkDataRepository.findLatestBySnapshotCriteria(snapshotCriteria));
+    }
+
+    @Override
+    public Slice<NetworkDataChangeCount> searchNetworkDataChangeCounts(final ChangeCountCriteria changeCountCriteria) {
+        validatePageSize(changeCountCriteria.getPageable());
+        return queryAdmission.admit(() -> networkDataRepository.findChangeCounts(changeCountCriteria));
+    }
+
+    @Override
+    public NetworkData getLatestNetworkData(final String dataspaceName, final String anchorName) {
+        final var latestNetworkData = latestNetworkDataCache.get(dataspaceName, anchorName,
+            () -> findLatestNetworkData(dataspaceName, anchorName));
+        if (latestNetworkData == null) {
+            throw new NetworkDataNotFoundException(
+                "No network data found for dataspace " + dataspaceName + " and anchor " + anchorName);
+        }
+        return latestNetworkData;
+    }
+
+    private NetworkData findLatestNetworkData(final String dataspaceName, final String anchorName) {
+        final var searchCriteria = SearchCriteria.builder()
+            .dataspaceName(dataspaceName)
+            .anchorName(anchorName)
+            .pagination(0, 1)
+            .build();
+        final Slice<NetworkData> searchResult =
+            queryAdmission.admit(() -> networkDataRepository.findBySearchCriteria(searchCriteria));
+        return searchResult.hasContent() ? searchResult.getContent().get(0) : null;
+    }
+
+    private void validatePageSize(final Pageable pageable) {
+        if (pageable.getPageSize() > maxPageSize) {
             throw new ValidationException("page-size must be less than or equals to " + maxPageSize);
         }
-        return networkDataRepository.findBySearchCriteria(searchCriteria);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamNetworkData(final SearchCriteria searchCriteria,
+                                  final Consumer<NetworkData> networkDataConsumer) {
+        try (Stream<NetworkData> networkDataStream = networkDataRepository.streamBySearchCriteria(searchCriteria)) {
+            networkDataStream.forEach(networkDataConsumer);
+        }
     }
 
 }
@@ -0,0 +1,96 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.function.ToLongFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.onap.cps.temporal.domain.NetworkDataChunkStatistics;
+import org.onap.cps.temporal.repository.NetworkDataRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gauges exposing the number of chunks of network data hypertable and its size.
+ * Statistics are read from the database at most once per refresh interval, whatever the number of gauges and
+ * the scraping frequency.
+ */
+@Component
+@Slf4j
+public class NetworkDataStorageMetrics implements MeterBinder {
+
+    private final NetworkDataRepository networkDataRepository;
+    private final long refreshIntervalNanos;
+
+    private NetworkDataChunkStatistics chunkStatistics;
+    private long refreshedAtNanos;
+
+    /**
+     * Constructor.
+     *
+     * @param networkDataRepository network data repository
+     * @param refreshInterval       minimum interval between two reads of the statistics
+     */
+    public NetworkDataStorageMetrics(final NetworkDataRepository networkDataRepository,
+            final @Value("${app.metrics.network-data.storage.refresh-interval}") Duration refreshInterval) {
+        this.networkDataRepository = networkDataRepository;
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry meterRegistry) {
+        Gauge.builder("cps.temporal.network.data.chunks", this,
+                metrics -> metrics.getStatistic(
+                    statistics -> statistics.getChunkCount() - statistics.getCompressedChunkCount()))
+            .description("Number of chunks of network data hypertable")
+            .tag("compressed", "false")
+            .register(meterRegistry);
+        Gauge.builder("cps.temporal.network.data.chunks", this,
+                metrics -> metrics.getStatistic(NetworkDataChunkStatistics::getCompressedChunkCount))
+            .description("Number of chunks of network data hypertable")
+            .tag("compressed", "true")
+            .register(meterRegistry);
+        Gauge.builder("cps.temporal.network.data.size", this,
+                metrics -> metrics.getStatistic(NetworkDataChunkStatistics::getTotalBytes))
+            .description("Size on disk of network data hypertable, including indexes")
+            .baseUnit(BaseUnits.BYTES)
+            .register(meterRegistry);
+    }
+
+    private synchronized double getStatistic(final ToLongFunction<NetworkDataChunkStatistics> statisticFunction) {
+        final long now = System.nanoTime();
+        if (chunkStatistics == null || now - refreshedAtNanos >= refreshIntervalNanos) {
+            try {
+                chunkStatistics = networkDataRepository.findChunkStatistics();
+            } catch (final Exception exception) {
+                log.warn("Failed to read network data chunk statistics: {}", exception.getMessage());
+                chunkStatistics = null;
+            }
+            refreshedAtNanos = now;
+        }
+        return chunkStatistics == null ? Double.NaN : statisticFunction.applyAsLong(chunkStatistics);
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Admission of queries to the database. The number of queries running at the same time is bounded, so that queries
+ * do not take all the database connections, and request threads do not pile up waiting for a connection: a query
+ * not admitted within the maximum wait is rejected instead.
+ * Queries must be admitted before their transaction starts, a connection being acquired by the transaction.
+ */
+@Component
+@Slf4j
+public class QueryAdmission {
+
+    private final boolean enabled;
+    private final int maxConcurrentQueries;
+    private final Duration maxWait;
+    private final Semaphore permits;
+    private final Timer waitTimer;
+    private final Counter rejectedCounter;
+
+    /**
+     * Constructor.
+     *
+     * @param enabled              true to bound the number of concurrent queries
+     * @param maxConcurrentQueries the maximum number of queries running at the same time
+     * @param maxWait              the maximum time a query waits to be admitted before being rejected
+     * @param meterRegistry        the meter registry
+     */
+    public QueryAdmission(final @Value("${app.query.admission.enabled}") boolean enabled,
+                          final @Value("${app.query.admission.max-concurrent-queries}") int maxConcurrentQueries,
+                          final @Value("${app.query.admission.max-wait}") Duration maxWait,
+                          final MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxConcurrentQueries = maxConcurrentQueries;
+        this.maxWait = maxWait;
+        this.permits = new Semaphore(maxConcurrentQueries, true);
+        this.waitTimer = Timer.builder("cps.temporal.query.admission.wait")
+            .description("Time queries wait to be admitted, rejected ones included")
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("cps.temporal.query.admission.rejected")
+            .description("Number of queries rejected because too many queries are running")
+            .register(meterRegistry);
+        Gauge.builder("cps.temporal.query.admission.active", this, QueryAdmission::getActiveQueryCount)
+            .description("Number of queries running")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Run the query once admitted.
+     *
+     * @param query the query
+     * @param <T>   the query result type
+     * @return the query result
+     * @throws QueryRejectedException if the query is not admitted within the maximum wait
+     */
+    public <T> T admit(final Supplier<T> query) {
+        if (!enabled) {
+            return query.get();
+        }
+        acquire();
+        try {
+            return query.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Run the query once admitted.
+     *
+     * @param query the query
+     * @throws QueryRejectedException if the query is not admitted within the maximum wait
+     */
+    public void admit(final Runnable query) {
+        admit(() -> {
+            query.run();
+            return null;
+        });
+    }
+
+    private void acquire() {
+        final long startTime = System.nanoTime();
+        final boolean isAdmitted;
+        try {
+            isAdmitted = permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (final InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new QueryRejectedException("Interrupted while waiting for the query to be admitted");
+        } finally {
+            waitTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+        if (!isAdmitted) {
+            rejectedCounter.increment();
+            log.warn("Query rejected, {} queries are already running", maxConcurrentQueries);
+            throw new QueryRejectedException(
+                "Too many queries are running, the query has not been admitted within " + maxWait);
+        }
+    }
+
+    private int getActiveQueryCount() {
+        return enabled ? maxConcurrentQueries - permits.availablePermits() : 0;
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Retention configuration of network data.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.retention")
+@Getter
+@Setter
+public class RetentionProperties {
+
+    /**
+     * Maximum number of network data deleted by a single statement.
+     */
+    private int batchSize = 10000;
+
+    /**
+     * Retention period of all network data, enforced by dropping whole chunks. Network data are kept forever if not
+     * set.
+     */
+    private Duration defaultPeriod;
+
+    /**
+     * Retention rules of specific dataspaces or schema sets, enforced by deleting network data.
+     */
+    private List<Rule> rules = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Rule {
+
+        private String dataspace;
+
+        /**
+         * Schema set of the dataspace the rule applies to, all the schema sets of the dataspace if not set.
+         */
+        private String schemaSet;
+
+        /**
+         * Retention period, network data are kept as long as the default period if not set.
+         */
+        private Duration period;
+
+        private Downsampling downsampling;
+
+    }
+
+    /**
+     * Downsampling of network data older than 'after' to one network data per anchor per 'interval'.
+     */
+    @Getter
+    @Setter
+    public static class Downsampling {
+
+        private Duration after;
+        private Duration interval;
+
+    }
+
+}
@@ -0,0 +1,182 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.function.Supplier;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.onap.cps.temporal.domain.NetworkData;
+import org.onap.cps.temporal.domain.SearchCriteria;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * In-memory cache of search results over historical windows.
+ * Network data are never updated, so the network data created before a point in time do not change anymore once
+ * all the transactions started before it are committed. Only searches whose created before timestamp is older than a
+ * safety lag are cached, the lag covering both running transactions and clock differences between instances. Search
+ * criteria are normalized, so that equivalent searches share the same entry. The cache memory is bounded by an
+ * estimate of the size of the cached results. The cache is invalidated as a whole by the retention runs of this
+ * instance, and entries expire so that data removed by the retention runs of other instances are eventually not
+ * returned anymore.
+ */
+@Component
+public class SearchResultCache {
+
+    static final String CACHE_NAME = "cps-temporal-search-results";
+
+    private static final int ENTRY_OVERHEAD_BYTES = 512;
+    private static final int NETWORK_DATA_OVERHEAD_BYTES = 256;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final boolean enabled;
+    private final Duration safetyLag;
+    private final Cache<SearchKey, Slice<NetworkData>> cache;
+
+    /**
+     * Constructor.
+     *
+     * @param enabled          true to cache the results of searches over historical windows
+     * @param safetyLag        the minimum age of the created before timestamp of the searches cached
+     * @param maxSize          the maximum estimated memory used by the cached results
+     * @param expireAfterWrite the time after which a cached result is read again from the database
+     * @param meterRegistry    the meter registry, the cache statistics are registered to
+     */
+    public SearchResultCache(
+            final @Value("${app.query.result-cache.enabled}") boolean enabled,
+            final @Value("${app.query.result-cache.safety-lag}") Duration safetyLag,
+            final @Value("${app.query.result-cache.max-size}") DataSize maxSize,
+            final @Value("${app.query.result-cache.expire-after-write}") Duration expireAfterWrite,
+            final MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.safetyLag = safetyLag;
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(maxSize.toBytes())
+            .weigher(SearchResultCache::estimateSize)
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Get the result of the search, from the cache if the search is over a historical window.
+     *
+     * @param searchCriteria the search criteria
+     * @param search         the search in the database
+     * @return the search result
+     */
+    public Slice<NetworkData> get(final SearchCriteria searchCriteria, final Supplier<Slice<NetworkData>> search) {
+        if (!enabled || !isHistorical(searchCriteria)) {
+            return search.get();
+        }
+        return cache.get(toSearchKey(searchCriteria), searchKey -> search.get());
+    }
+
+    /**
+     * Invalidate all the cached results, after network data are removed.
+     */
+    public void invalidateAll() {
+        if (enabled) {
+            cache.invalidateAll();
+        }
+    }
+
+    private boolean isHistorical(final SearchCriteria searchCriteria) {
+        return searchCriteria.getCreatedBefore() != null
+            && searchCriteria.getCreatedBefore().isBefore(OffsetDateTime.now().minus(safetyLag));
+    }
+
+    private static SearchKey toSearchKey(final SearchCriteria searchCriteria) {
+        final var cursor = searchCriteria.getCursor();
+        return new SearchKey(
+            searchCriteria.getDataspaceName(),
+            searchCriteria.getAnchorName(),
+            searchCriteria.getSchemaSetName(),
+            toInstant(searchCriteria.getCreatedBefore()),
+            toInstant(searchCriteria.getObservedAfter()),
+            toInstant(searchCriteria.getObservedBefore()),
+            toJsonNode(searchCriteria.getSimplePayloadFilter()),
+            searchCriteria.getPageable(),
+            searchCriteria.getSort(),
+            cursor == null ? null : toInstant(cursor.getObservedTimestamp()),
+            cursor == null ? null : cursor.getAnchor());
+    }
+
+    private static Instant toInstant(final OffsetDateTime offsetDateTime) {
+        return offsetDateTime == null ? null : offsetDateTime.toInstant();
+    }
+
+    /*
+    Object nodes are equal whatever the order of their members, so that filters differing only by their formatting
+    or member order share the same entry.
+     */
+    private static JsonNode toJsonNode(final String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return OBJECT_MAPPER.readTree(json);
+        } catch (final JsonProcessingException jsonProcessingException) {
+            throw new IllegalArgumentException("simplePayloadFilter must be a valid json");
+        }
+    }
+
+    private static int estimateSize(final SearchKey searchKey, final Slice<NetworkData> searchResult) {
+        long size = ENTRY_OVERHEAD_BYTES;
+        for (final NetworkData networkData : searchResult) {
+            size += NETWORK_DATA_OVERHEAD_BYTES
+                + 2L * (networkData.getPayload() == null ? 0 : networkData.getPayload().length());
+        }
+        return (int) Math.min(Integer.MAX_VALUE, size);
+    }
+
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static final class SearchKey {
+        private final String dataspaceName;
+        private final String anchorName;
+        private final String schemaSetName;
+        private final Instant createdBefore;
+        private final Instant observedAfter;
+        private final Instant observedBefore;
+        private final JsonNode simplePayloadFilter;
+        private final Pageable pageable;
+        private final Sort sort;
+        private final Instant cursorObservedTimestamp;
+        private final String cursorAnchor;
+    }
+
+}
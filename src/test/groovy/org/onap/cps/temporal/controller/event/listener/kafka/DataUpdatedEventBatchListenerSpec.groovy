@@ -0,0 +1,117 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.apache.kafka.clients.consumer.ConsumerRecord
+import org.mapstruct.factory.Mappers
+import org.onap.cps.event.model.CpsDataUpdatedEvent
+import org.onap.cps.temporal.controller.event.model.CpsDataUpdatedEventMapper
+import org.onap.cps.temporal.domain.NetworkDataInsertResult
+import org.onap.cps.temporal.service.NetworkDataService
+import spock.lang.Specification
+
+/**
+ * Test specification for data updated event batch listener.
+ */
+class DataUpdatedEventBatchListenerSpec extends Specification {
+
+    def aTimestamp = EventFixtures.currentIsoTimestamp()
+
+    def mockService = Mock(NetworkDataService)
+
+    def mapper = Mappers.getMapper(CpsDataUpdatedEventMapper.class)
+
+    def meterRegistry = new SimpleMeterRegistry()
+
+    def objectUnderTest = new DataUpdatedEventBatchListener(mockService, mapper, new IngestMetrics(meterRegistry))
+
+    def 'Batch consumption of valid events'() {
+        given: 'a batch of 2 valid events'
+            def records = [toRecord(0, buildEvent('my-anchor-1')), toRecord(1, buildEvent('my-anchor-2'))]
+        when: 'the batch is received'
+            objectUnderTest.consume(records)
+        then: 'network data service is requested to persist all the data changes at once'
+            1 * mockService.addNetworkDataList({
+                it.size() == 2 && it*.getAnchor() == ['my-anchor-1', 'my-anchor-2']
+            }) >> new NetworkDataInsertResult()
+    }
+
+    def 'Batch consumption skips #scenario'() {
+        given: 'a batch with one valid event and one invalid event'
+            def records = [toRecord(0, buildEvent('my-anchor-1')), toRecord(1, invalidEvent)]
+        when: 'the batch is received'
+            objectUnderTest.consume(records)
+        then: 'only the valid event is persisted'
+            1 * mockService.addNetworkDataList({ it.size() == 1 && it[0].getAnchor() == 'my-anchor-1' }) >>
+                    new NetworkDataInsertResult()
+        where:
+            scenario                        | invalidEvent
+            'event with invalid envelop'    | new CpsDataUpdatedEvent()
+            'event failing deserialization' | null
+    }
+
+    def 'Batch consumption without any valid event'() {
+        when: 'a batch without valid event is received'
+            objectUnderTest.consume([toRecord(0, new CpsDataUpdatedEvent())])
+        then: 'network data service is not requested to persist anything'
+            0 * mockService.addNetworkDataList(_)
+    }
+
+    def 'Batch consumption metrics'() {
+        given: 'a batch of 4 valid events and 2 invalid ones'
+            def records = (0..3).collect { toRecord(it, buildEvent("my-anchor-${it}")) } +
+                    [toRecord(4, new CpsDataUpdatedEvent()), toRecord(5, null)]
+        and: 'network data service inserting one, skipping one duplicate and one unchanged'
+            mockService.addNetworkDataList(_) >> { args ->
+                def networkDataList = args[0]
+                def insertResult = new NetworkDataInsertResult()
+                insertResult.addInserted(networkDataList[0])
+                insertResult.addDuplicate(networkDataList[1])
+                insertResult.addUnchanged(networkDataList[2])
+                return insertResult
+            }
+        when: 'the batch is received'
+            objectUnderTest.consume(records)
+        then: 'events are counted per outcome, the one missing from the insert result having failed validation'
+            def expectedCounts = ['persisted'         : 1, 'duplicate': 1, 'unchanged': 1, 'invalid-envelop': 1,
+                                  'validation-failure': 1, 'deserialization-failure': 1, 'failure': 0]
+            expectedCounts.every { outcome, count ->
+                meterRegistry.get('cps.temporal.ingest.events').tag('outcome', outcome).counter().count() == count
+            }
+        and: 'validation and mapping are timed per event, persistence per batch'
+            meterRegistry.get('cps.temporal.ingest.stage').tag('stage', 'validation').timer().count() == 5
+            meterRegistry.get('cps.temporal.ingest.stage').tag('stage', 'mapping').timer().count() == 4
+            meterRegistry.get('cps.temporal.ingest.stage').tag('stage', 'persistence').timer().count() == 1
+        and: 'the age of the inserted event is recorded'
+            meterRegistry.get('cps.temporal.ingest.event.age').timer().count() == 1
+    }
+
+    def buildEvent(anchor) {
+        return EventFixtures.buildEvent(observedTimestamp: aTimestamp, dataspace: 'my-dataspace',
+                schemaSet: 'my-schema-set', anchor: anchor, data: ['my-data-name': 'my-data-value'])
+    }
+
+    static def toRecord(offset, event) {
+        return new ConsumerRecord<String, CpsDataUpdatedEvent>('my-topic', 0, offset, null, event)
+    }
+
+}
@@ -0,0 +1,225 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.apache.kafka.clients.consumer.ConsumerRecord
+import org.apache.kafka.clients.consumer.MockConsumer
+import org.apache.kafka.clients.consumer.OffsetAndMetadata
+import org.apache.kafka.clients.consumer.OffsetResetStrategy
+import org.apache.kafka.common.PartitionInfo
+import org.apache.kafka.common.TopicPartition
+import org.mapstruct.factory.Mappers
+import org.onap.cps.event.model.CpsDataUpdatedEvent
+import org.onap.cps.temporal.controller.event.listener.kafka.DataUpdatedEventBulkLoadProperties.Source
+import org.onap.cps.temporal.controller.event.model.CpsDataUpdatedEventMapper
+import org.onap.cps.temporal.service.NetworkDataService
+import org.springframework.kafka.core.ConsumerFactory
+import org.springframework.kafka.listener.AbstractMessageListenerContainer
+import spock.lang.Specification
+
+/**
+ * Test specification for data updated event bulk loader.
+ */
+class DataUpdatedEventBulkLoaderSpec extends Specification {
+
+    def topic = 'my-topic'
+
+    def partition = new TopicPartition(topic, 0)
+
+    def aTimestamp = EventFixtures.currentIsoTimestamp()
+
+    def mockService = Mock(NetworkDataService)
+
+    def mapper = Mappers.getMapper(CpsDataUpdatedEventMapper.class)
+
+    def meterRegistry = new SimpleMeterRegistry()
+
+    def consumer = new CommitRecordingConsumer()
+
+    def mockConsumerFactory = Mock(ConsumerFactory)
+
+    def objectMapper = new ObjectMapper()
+
+    def bulkLoadProperties = new DataUpdatedEventBulkLoadProperties(enabled: true, chunkSize: 2)
+
+    def objectUnderTest = new DataUpdatedEventBulkLoader(mockService, mapper, new IngestMetrics(meterRegistry),
+            mockConsumerFactory, objectMapper, bulkLoadProperties, topic, 'full')
+
+    def loadedAnchors = []
+
+    def setup() {
+        mockConsumerFactory.createConsumer(_, _, _, _) >> consumer
+        consumer.updatePartitions(topic, [new PartitionInfo(topic, 0, null, null, null)])
+        consumer.updateBeginningOffsets([(partition): 0L])
+        mockService.addNetworkDataInBulk(_) >> { args ->
+            loadedAnchors << args[0]*.getAnchor()
+            return args[0].size()
+        }
+    }
+
+    def 'Bulk load is rejected when payloads are stored as #payloadMode.'() {
+        when: 'a bulk loader is created with a payload storage mode other than full'
+            new DataUpdatedEventBulkLoader(mockService, mapper, new IngestMetrics(meterRegistry),
+                mockConsumerFactory, objectMapper, bulkLoadProperties, topic, payloadMode)
+        then: 'it is rejected, as payloads are always copied full'
+            thrown(IllegalStateException)
+        where:
+            payloadMode << ['delta', 'deduplicated']
+    }
+
+    def 'Bulk load events from the committed offsets up to the end offsets at startup'() {
+        given: 'a topic with 5 events, the first one already consumed by the consumer group'
+            consumer.commitSync([(partition): new OffsetAndMetadata(1)])
+            consumer.committedOffsets.clear()
+            def records = (0..4).collect { toRecord(it, buildEvent("my-anchor-${it}")) }
+            consumer.schedulePollTask { records.each { consumer.addRecord(it) } }
+        and: 'the last one produced after startup'
+            consumer.updateEndOffsets([(partition): 4L])
+        when: 'the bulk loader is started'
+            objectUnderTest.start()
+        then: 'the events between the committed offset and the end offset are loaded'
+            loadedAnchors == [['my-anchor-1', 'my-anchor-2', 'my-anchor-3']]
+        and: 'the offset after the last loaded event is committed, for the listener to consume the next ones'
+            consumer.committedOffsets[partition].offset() == 4
+        and: 'the loaded events are counted as persisted'
+            meterRegistry.get('cps.temporal.ingest.events').tag('outcome', 'persisted').counter().count() == 3
+        and: 'the bulk loader is running'
+            objectUnderTest.isRunning()
+    }
+
+    def 'Bulk load events from a start offset by chunks, skipping invalid events'() {
+        given: 'a start offset'
+            bulkLoadProperties.setStartOffset(0L)
+        and: 'a first poll with one valid event, one with invalid envelop and one failing deserialization'
+            def firstRecords = [toRecord(0, buildEvent('my-anchor-0')), toRecord(1, new CpsDataUpdatedEvent()),
+                                toRecord(2, null)]
+            consumer.schedulePollTask { firstRecords.each { consumer.addRecord(it) } }
+        and: 'a second poll with two valid events'
+            def secondRecords = (3..4).collect { toRecord(it, buildEvent("my-anchor-${it}")) }
+            consumer.schedulePollTask { secondRecords.each { consumer.addRecord(it) } }
+            consumer.updateEndOffsets([(partition): 5L])
+        when: 'the bulk loader is started'
+            objectUnderTest.start()
+        then: 'valid events are loaded by chunks'
+            loadedAnchors == [['my-anchor-0'], ['my-anchor-3', 'my-anchor-4']]
+        and: 'all the events read are committed'
+            consumer.committedOffsets[partition].offset() == 5
+        and: 'events are counted per outcome'
+            def expectedCounts = ['persisted': 3, 'invalid-envelop': 1, 'deserialization-failure': 1]
+            expectedCounts.every { outcome, count ->
+                meterRegistry.get('cps.temporal.ingest.events').tag('outcome', outcome).counter().count() == count
+            }
+    }
+
+    def 'Bulk load events from a topic already consumed'() {
+        given: 'a topic whose events are all consumed by the consumer group'
+            consumer.commitSync([(partition): new OffsetAndMetadata(3)])
+            consumer.updateEndOffsets([(partition): 3L])
+        when: 'the bulk loader is started'
+            objectUnderTest.start()
+        then: 'nothing is loaded'
+            loadedAnchors.isEmpty()
+        and: 'the bulk loader is running'
+            objectUnderTest.isRunning()
+    }
+
+    def 'Bulk load events from files with deferred payload index'() {
+        given: 'a file with 2 valid events, a blank line and an invalid line'
+            def file = File.createTempFile('events', '.ndjson')
+            file.deleteOnExit()
+            file.text = [objectMapper.writeValueAsString(buildEvent('my-anchor-1')), '', 'not an event',
+                         objectMapper.writeValueAsString(buildEvent('my-anchor-2'))].join('\n')
+        and: 'bulk load from the file, deferring the payload index'
+            bulkLoadProperties.setSource(Source.FILE)
+            bulkLoadProperties.setFiles([file.getPath()])
+            bulkLoadProperties.setDeferPayloadIndex(true)
+        when: 'the bulk loader is started'
+            objectUnderTest.start()
+        then: 'the payload index is suspended'
+            1 * mockService.suspendPayloadIndex()
+        then: 'the valid events are loaded'
+            loadedAnchors == [['my-anchor-1', 'my-anchor-2']]
+        then: 'the payload index is rebuilt'
+            1 * mockService.rebuildPayloadIndex()
+        and: 'the invalid line is counted'
+            meterRegistry.get('cps.temporal.ingest.events').tag('outcome', 'deserialization-failure')
+                    .counter().count() == 1
+        and: 'the topic is not read'
+            0 * mockConsumerFactory.createConsumer(*_)
+    }
+
+    def 'Payload index is rebuilt when bulk load fails'() {
+        given: 'bulk load deferring the payload index'
+            bulkLoadProperties.setDeferPayloadIndex(true)
+            bulkLoadProperties.setStartOffset(0L)
+            consumer.schedulePollTask { consumer.addRecord(toRecord(0, buildEvent('my-anchor'))) }
+            consumer.updateEndOffsets([(partition): 1L])
+        when: 'the bulk loader is started'
+            objectUnderTest.start()
+        then: 'network data service fails to store network data'
+            1 * mockService.addNetworkDataInBulk(_) >> { throw new RuntimeException('some error') }
+        and: 'the failure is thrown'
+            thrown(RuntimeException)
+        and: 'the payload index is rebuilt'
+            1 * mockService.rebuildPayloadIndex()
+        and: 'the event is counted as failed and not committed'
+            meterRegistry.get('cps.temporal.ingest.events').tag('outcome', 'failure').counter().count() == 1
+            consumer.committedOffsets.isEmpty()
+        and: 'the bulk loader is not running'
+            !objectUnderTest.isRunning()
+    }
+
+    def 'Bulk loader is started before listener containers'() {
+        expect: 'its phase is lower than the one of listener containers'
+            objectUnderTest.getPhase() < AbstractMessageListenerContainer.DEFAULT_PHASE
+    }
+
+    def buildEvent(anchor) {
+        return EventFixtures.buildEvent(observedTimestamp: aTimestamp, dataspace: 'my-dataspace',
+                schemaSet: 'my-schema-set', anchor: anchor, data: ['my-data-name': 'my-data-value'])
+    }
+
+    def toRecord(offset, event) {
+        return new ConsumerRecord<String, CpsDataUpdatedEvent>(topic, 0, offset, null, event)
+    }
+
+    /**
+     * Mock consumer keeping the offsets committed, readable once the consumer is closed.
+     */
+    static class CommitRecordingConsumer extends MockConsumer<String, CpsDataUpdatedEvent> {
+
+        Map<TopicPartition, OffsetAndMetadata> committedOffsets = [:]
+
+        CommitRecordingConsumer() {
+            super(OffsetResetStrategy.EARLIEST)
+        }
+
+        @Override
+        synchronized void commitSync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+            super.commitSync(offsets)
+            committedOffsets.putAll(offsets)
+        }
+
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka
+
+import org.onap.cps.temporal.controller.event.listener.exception.InvalidEventEnvelopException
+import org.springframework.kafka.listener.ListenerExecutionFailedException
+import org.springframework.messaging.support.MessageBuilder
+import spock.lang.Specification
+
+/**
+ * Test specification for data updated event listener error handler.
+ */
+class DataUpdatedEventListenerErrorHandlerSpec extends Specification {
+
+    def message = MessageBuilder.withPayload('my-payload').build()
+
+    def exception = new ListenerExecutionFailedException('failed', new InvalidEventEnvelopException('invalid', null))
+
+    def 'Handle error with retries enabled'() {
+        given: 'an error handler with retries enabled'
+            def objectUnderTest = new DataUpdatedEventListenerErrorHandler(new DataUpdatedEventRetryProperties())
+        when: 'an error is handled'
+            objectUnderTest.handleError(message, exception)
+        then: 'the exception is thrown back for the event to be retried or parked'
+            def thrownException = thrown(ListenerExecutionFailedException)
+            thrownException == exception
+    }
+
+    def 'Handle error with retries disabled'() {
+        given: 'an error handler with retries disabled'
+            def retryProperties = new DataUpdatedEventRetryProperties()
+            retryProperties.setEnabled(false)
+            def objectUnderTest = new DataUpdatedEventListenerErrorHandler(retryProperties)
+        when: 'an error is handled'
+            def result = objectUnderTest.handleError(message, exception)
+        then: 'the exception is only returned'
+            result == exception
+    }
+
+}
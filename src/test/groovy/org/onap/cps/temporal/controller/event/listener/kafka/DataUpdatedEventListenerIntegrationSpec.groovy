@@ -26,7 +26,10 @@ import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.beans.factory.annotation.Value
 import org.springframework.boot.test.context.SpringBootTest
 import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.kafka.core.ConsumerFactory
 import org.springframework.kafka.core.KafkaTemplate
+import org.springframework.kafka.support.KafkaHeaders
+import org.springframework.kafka.test.utils.KafkaTestUtils
 import org.springframework.test.context.DynamicPropertyRegistry
 import org.springframework.test.context.DynamicPropertySource
 import org.testcontainers.containers.KafkaContainer
@@ -63,6 +66,9 @@ class DataUpdatedEventListenerIntegrationSpec extends Specification {
     @Autowired
     JdbcTemplate jdbcTemplate
 
+    @Autowired
+    ConsumerFactory<String, CpsDataUpdatedEvent> consumerFactory
+
     @Value('${app.listener.data-updated.topic}')
     String topic
 
@@ -93,6 +99,21 @@ class DataUpdatedEventListenerIntegrationSpec extends Specification {
             networkDataAllRecordCount() == initialRecordsCount
     }
 
+    def 'Processing an event with an invalid envelop'() {
+        given: 'a consumer of the dead letter topic'
+            def consumer = consumerFactory.createConsumer('dead-letter-test-group', null)
+            consumer.subscribe([topic + '-dlt'])
+        when: 'an event with an invalid envelop is produced'
+            this.kafkaTemplate.send(topic, 'my-invalid-event', new CpsDataUpdatedEvent())
+        then: 'the event is parked in the dead letter topic without retry, with its failure headers'
+            def deadLetterRecord = KafkaTestUtils.getSingleRecord(consumer, topic + '-dlt', 30_000)
+            deadLetterRecord.key() == 'my-invalid-event'
+            new String(deadLetterRecord.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC).value()) == topic
+            deadLetterRecord.headers().lastHeader(KafkaHeaders.DLT_EXCEPTION_FQCN) != null
+        cleanup: 'the consumer is closed'
+            consumer?.close()
+    }
+
     def networkDataAllRecordCount() {
         return jdbcTemplate.queryForObject('SELECT COUNT(1) FROM network_data', Integer.class)
     }
@@ -109,6 +130,7 @@ class DataUpdatedEventListenerIntegrationSpec extends Specification {
     @DynamicPropertySource
     static void registerKafkaProperties(DynamicPropertyRegistry registry) {
         registry.add('spring.kafka.bootstrap-servers', kafkaTestContainer::getBootstrapServers)
+        registry.add('app.listener.data-updated.retry.enabled', () -> 'true')
     }
 
 }
@@ -20,15 +20,19 @@
 
 package org.onap.cps.temporal.controller.event.listener.kafka
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
 import org.mapstruct.factory.Mappers
 import org.onap.cps.event.model.Content
 import org.onap.cps.event.model.CpsDataUpdatedEvent
 import org.onap.cps.temporal.controller.event.listener.exception.InvalidEventEnvelopException
 import org.onap.cps.temporal.controller.event.model.CpsDataUpdatedEventMapper
 import org.onap.cps.temporal.domain.Operation
+import org.onap.cps.temporal.service.DuplicateNetworkDataException
 import org.onap.cps.temporal.service.NetworkDataService
 import spock.lang.Specification
 
+import java.time.OffsetDateTime
+
 import static org.onap.cps.temporal.controller.event.listener.exception.InvalidEventEnvelopException.InvalidField.ErrorType.MISSING
 import static org.onap.cps.temporal.controller.event.listener.exception.InvalidEventEnvelopException.InvalidField.ErrorType.UNEXPECTED
 
@@ -50,8 +54,11 @@ class DataUpdatedEventListenerSpec extends Specification {
     // Define mapper
     def mapper = Mappers.getMapper(CpsDataUpdatedEventMapper.class)
 
+    // Define metrics
+    def meterRegistry = new SimpleMeterRegistry()
+
     // Define listener under test
-    def objectUnderTest = new DataUpdatedEventListener(mockService, mapper)
+    def objectUnderTest = new DataUpdatedEventListener(mockService, mapper, new IngestMetrics(meterRegistry))
 
     def 'Event message consumption'() {
         when: 'an event is received #scenario'
@@ -155,4 +162,62 @@ class DataUpdatedEventListenerSpec extends Specification {
                             EventFixtures.defaultEventSource.toString()))
     }
 
+    def 'Event message consumption metrics when #scenario'() {
+        given: 'network data service #scenario'
+            mockService.addNetworkData(_) >> serviceBehavior
+        when: 'a valid event is received'
+            def event = EventFixtures.buildEvent(observedTimestamp: aTimestamp, dataspace: 'my-dataspace',
+                    schemaSet: 'my-schema-set', anchor: 'my-anchor', data: ['my-data-name': 'my-data-value'])
+            try {
+                objectUnderTest.consume(event)
+            } catch (RuntimeException ignored) {
+                // failure is handled by the listener error handler
+            }
+        then: 'the event is counted with the expected outcome'
+            meterRegistry.get('cps.temporal.ingest.events').tag('outcome', expectedOutcome).counter().count() == 1
+        and: 'each stage is timed'
+            ['validation', 'mapping', 'persistence'].every {
+                meterRegistry.get('cps.temporal.ingest.stage').tag('stage', it).timer().count() == 1
+            }
+        and: 'the event age is recorded only when persisted'
+            meterRegistry.get('cps.temporal.ingest.event.age').timer().count() == expectedAgeCount
+        where:
+            scenario                      | serviceBehavior                                       || expectedOutcome | expectedAgeCount
+            'persists the network data'   | { args -> withCreatedTimestamp(args[0]) }             || 'persisted'     | 1
+            'skips an unchanged payload'  | { args -> args[0] }                                   || 'unchanged'     | 0
+            'fails as already existing'   | { throw new DuplicateNetworkDataException('exists') } || 'duplicate'     | 0
+            'fails with a database error' | { throw new IllegalStateException('database error') } || 'failure'       | 0
+    }
+
+    def 'Event message consumption of an event already persisted'() {
+        given: 'network data service failing as the network data already exists'
+            mockService.addNetworkData(_) >> { throw new DuplicateNetworkDataException('already exists') }
+        when: 'a valid event is received'
+            def event = EventFixtures.buildEvent(observedTimestamp: aTimestamp, dataspace: 'my-dataspace',
+                    schemaSet: 'my-schema-set', anchor: 'my-anchor', data: ['my-data-name': 'my-data-value'])
+            objectUnderTest.consume(event)
+        then: 'the event is skipped as persisted, without being retried or parked in the dead letter topic'
+            noExceptionThrown()
+        and: 'it is counted as duplicate'
+            meterRegistry.get('cps.temporal.ingest.events').tag('outcome', 'duplicate').counter().count() == 1
+    }
+
+    def 'Event message consumption metrics for an invalid envelop'() {
+        when: 'an event with an invalid envelop is received'
+            try {
+                objectUnderTest.consume(new CpsDataUpdatedEvent())
+            } catch (InvalidEventEnvelopException ignored) {
+                // failure is handled by the listener error handler
+            }
+        then: 'the event is counted as having an invalid envelop'
+            meterRegistry.get('cps.temporal.ingest.events').tag('outcome', 'invalid-envelop').counter().count() == 1
+        and: 'nothing is persisted'
+            0 * mockService.addNetworkData(_)
+    }
+
+    static def withCreatedTimestamp(networkData) {
+        networkData.setCreatedTimestamp(OffsetDateTime.now())
+        return networkData
+    }
+
 }
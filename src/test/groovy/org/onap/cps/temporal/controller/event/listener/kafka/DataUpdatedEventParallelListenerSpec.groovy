@@ -0,0 +1,194 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.apache.kafka.clients.consumer.ConsumerRecord
+import org.mapstruct.factory.Mappers
+import org.onap.cps.event.model.CpsDataUpdatedEvent
+import org.onap.cps.temporal.controller.event.listener.kafka.ListenerContainerPauses.Reason
+import org.onap.cps.temporal.controller.event.model.CpsDataUpdatedEventMapper
+import org.onap.cps.temporal.service.DuplicateNetworkDataException
+import org.onap.cps.temporal.service.NetworkDataService
+import org.springframework.kafka.support.Acknowledgment
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * Test specification for data updated event parallel listener.
+ */
+class DataUpdatedEventParallelListenerSpec extends Specification {
+
+    def aTimestamp = EventFixtures.currentIsoTimestamp()
+
+    def mockService = Mock(NetworkDataService)
+
+    def mockAcknowledgment = Mock(Acknowledgment)
+
+    def mapper = Mappers.getMapper(CpsDataUpdatedEventMapper.class)
+
+    def meterRegistry = new SimpleMeterRegistry()
+
+    def retryProperties = new DataUpdatedEventRetryProperties(initialInterval: Duration.ofMillis(10))
+
+    def mockDeadLetterPublisher = Mock(DeadLetterPublisher)
+
+    def mockListenerContainerPauses = Mock(ListenerContainerPauses)
+
+    def objectUnderTest = new DataUpdatedEventParallelListener(mockService, mapper, new IngestMetrics(meterRegistry),
+            retryProperties, mockDeadLetterPublisher, mockListenerContainerPauses, 2, 10)
+
+    def 'Consumption of a valid event.'() {
+        when: 'a valid event is received'
+            objectUnderTest.consume(toRecord(0, buildEvent('my-anchor')), mockAcknowledgment)
+        and: 'workers are done'
+            objectUnderTest.shutdown()
+        then: 'network data service is requested to persist the data change'
+            1 * mockService.addNetworkData({ it.getAnchor() == 'my-anchor' })
+        then: 'the record is acknowledged once persisted'
+            1 * mockAcknowledgment.acknowledge()
+    }
+
+    def 'Consumption of events of the same anchor persists them in order.'() {
+        given: 'a list recording the persisted payloads'
+            def persistedPayloads = []
+        when: '2 events of the same anchor are received'
+            objectUnderTest.consume(toRecord(0, buildEvent('my-anchor', 'first-value')), mockAcknowledgment)
+            objectUnderTest.consume(toRecord(1, buildEvent('my-anchor', 'second-value')), mockAcknowledgment)
+        and: 'workers are done'
+            objectUnderTest.shutdown()
+        then: 'both events are persisted in the order they are received'
+            2 * mockService.addNetworkData(_) >> { args -> persistedPayloads.add(args[0].getPayload()) }
+            persistedPayloads.size() == 2
+            persistedPayloads[0].contains('first-value')
+            persistedPayloads[1].contains('second-value')
+        and: 'both records are acknowledged'
+            2 * mockAcknowledgment.acknowledge()
+    }
+
+    def 'Consumption of an event already persisted.'() {
+        given: 'network data service failing as the network data already exists'
+            mockService.addNetworkData(_) >> { throw new DuplicateNetworkDataException('already exists') }
+        when: 'a valid event is received'
+            objectUnderTest.consume(toRecord(0, buildEvent('my-anchor')), mockAcknowledgment)
+        and: 'workers are done'
+            objectUnderTest.shutdown()
+        then: 'the record is acknowledged as persisted, without being sent to the dead letter topic'
+            0 * mockDeadLetterPublisher._
+            1 * mockAcknowledgment.acknowledge()
+        and: 'the event is counted as duplicate'
+            meterRegistry.get('cps.temporal.ingest.events').tag('outcome', 'duplicate').counter().count() == 1
+    }
+
+    def 'Consumption of an event failing to be persisted on a transient error.'() {
+        given: 'network data service failing twice to persist data before succeeding'
+            def attempts = 0
+            mockService.addNetworkData(_) >> {
+                if (++attempts <= 2) {
+                    throw new RuntimeException('connection lost')
+                }
+                return null
+            }
+        when: 'a valid event is received'
+            objectUnderTest.consume(toRecord(0, buildEvent('my-anchor')), mockAcknowledgment)
+        and: 'workers are done'
+            objectUnderTest.shutdown()
+        then: 'the event is persisted again until it succeeds'
+            attempts == 3
+        and: 'the record is acknowledged only once persisted'
+            1 * mockAcknowledgment.acknowledge()
+        and: 'each failed attempt is counted'
+            meterRegistry.get('cps.temporal.ingest.events').tag('outcome', 'failure').counter().count() == 2
+    }
+
+    def 'Consumption of an event failing to be persisted on a transient error at each attempt.'() {
+        given: 'network data service always failing to persist data on a transient error'
+            def exception = new RuntimeException('connection lost')
+            mockService.addNetworkData(_) >> { throw exception }
+        and: 'a record'
+            def consumerRecord = toRecord(0, buildEvent('my-anchor'))
+        when: 'the event is received'
+            objectUnderTest.consume(consumerRecord, mockAcknowledgment)
+        and: 'workers are done'
+            objectUnderTest.shutdown()
+        then: 'the record is sent to the dead letter topic after the last attempt'
+            1 * mockDeadLetterPublisher.publish(consumerRecord, exception)
+        and: 'it is acknowledged so that it does not block the partition'
+            1 * mockAcknowledgment.acknowledge()
+        and: 'each attempt is counted as failed'
+            meterRegistry.get('cps.temporal.ingest.events').tag('outcome', 'failure').counter().count() == 4
+    }
+
+    def 'Consumption while the queue of a worker is full.'() {
+        given: 'a listener with a single worker and a queue capacity of 1'
+            def objectUnderTest = new DataUpdatedEventParallelListener(mockService, mapper,
+                new IngestMetrics(meterRegistry), retryProperties, mockDeadLetterPublisher,
+                mockListenerContainerPauses, 1, 1)
+        and: 'network data service blocked until released'
+            def latch = new CountDownLatch(1)
+            mockService.addNetworkData(_) >> { latch.await(5, TimeUnit.SECONDS); return null }
+        when: '3 events are received'
+            (0..2).each { offset ->
+                objectUnderTest.consume(toRecord(offset, buildEvent('my-anchor')), mockAcknowledgment)
+            }
+        then: 'the container is paused without blocking the consumer'
+            (1.._) * mockListenerContainerPauses.pause(DataUpdatedEventParallelListener.LISTENER_ID,
+                Reason.LISTENER_SATURATED)
+        when: 'the worker catches up'
+            latch.countDown()
+            objectUnderTest.shutdown()
+        then: 'the container is resumed'
+            (1.._) * mockListenerContainerPauses.resume(DataUpdatedEventParallelListener.LISTENER_ID,
+                Reason.LISTENER_SATURATED)
+        and: 'all the records are acknowledged'
+            3 * mockAcknowledgment.acknowledge()
+    }
+
+    def 'Consumption skips #scenario.'() {
+        when: 'an invalid event is received'
+            objectUnderTest.consume(toRecord(0, invalidEvent), mockAcknowledgment)
+        and: 'workers are done'
+            objectUnderTest.shutdown()
+        then: 'nothing is persisted'
+            0 * mockService.addNetworkData(_)
+        and: 'the record is acknowledged'
+            1 * mockAcknowledgment.acknowledge()
+        and: 'the event is counted with the expected outcome'
+            meterRegistry.get('cps.temporal.ingest.events').tag('outcome', expectedOutcome).counter().count() == 1
+        where:
+            scenario                        | invalidEvent              || expectedOutcome
+            'event with invalid envelop'    | new CpsDataUpdatedEvent() || 'invalid-envelop'
+            'event failing deserialization' | null                      || 'deserialization-failure'
+    }
+
+    def buildEvent(anchor, dataValue = 'my-data-value') {
+        return EventFixtures.buildEvent(observedTimestamp: aTimestamp, dataspace: 'my-dataspace',
+                schemaSet: 'my-schema-set', anchor: anchor, data: ['my-data-name': dataValue])
+    }
+
+    static def toRecord(offset, event) {
+        return new ConsumerRecord<String, CpsDataUpdatedEvent>('my-topic', 0, offset, null, event)
+    }
+
+}
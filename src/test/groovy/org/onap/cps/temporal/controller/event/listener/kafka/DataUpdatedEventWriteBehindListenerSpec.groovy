@@ -0,0 +1,193 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.apache.kafka.clients.consumer.ConsumerRecord
+import org.mapstruct.factory.Mappers
+import org.onap.cps.event.model.CpsDataUpdatedEvent
+import org.onap.cps.temporal.controller.event.listener.kafka.ListenerContainerPauses.Reason
+import org.onap.cps.temporal.controller.event.model.CpsDataUpdatedEventMapper
+import org.onap.cps.temporal.domain.NetworkDataInsertResult
+import org.onap.cps.temporal.service.DuplicateNetworkDataException
+import org.onap.cps.temporal.service.NetworkDataService
+import org.springframework.dao.QueryTimeoutException
+import org.springframework.kafka.support.Acknowledgment
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * Test specification for data updated event write-behind listener.
+ */
+class DataUpdatedEventWriteBehindListenerSpec extends Specification {
+
+    def aTimestamp = EventFixtures.currentIsoTimestamp()
+
+    def mockService = Mock(NetworkDataService)
+
+    def mockAcknowledgment = Mock(Acknowledgment)
+
+    def mapper = Mappers.getMapper(CpsDataUpdatedEventMapper.class)
+
+    def meterRegistry = new SimpleMeterRegistry()
+
+    def retryProperties = new DataUpdatedEventRetryProperties(initialInterval: Duration.ofMillis(10))
+
+    def mockDeadLetterPublisher = Mock(DeadLetterPublisher)
+
+    def mockListenerContainerPauses = Mock(ListenerContainerPauses)
+
+    def objectUnderTest = new DataUpdatedEventWriteBehindListener(mockService, mapper, new IngestMetrics(meterRegistry),
+        retryProperties, mockDeadLetterPublisher, mockListenerContainerPauses, 100, 10, Duration.ofSeconds(5))
+
+    def 'Consumption of valid events.'() {
+        when: '2 valid events are received'
+            objectUnderTest.consume(toRecord(0, buildEvent('my-anchor-1')), mockAcknowledgment)
+            objectUnderTest.consume(toRecord(1, buildEvent('my-anchor-2')), mockAcknowledgment)
+        and: 'the writer is done'
+            objectUnderTest.shutdown()
+        then: 'network data service is requested to persist the data changes together'
+            1 * mockService.addNetworkDataList({ it*.getAnchor() == ['my-anchor-1', 'my-anchor-2'] }) >> { args ->
+                def insertResult = new NetworkDataInsertResult()
+                args[0].each { insertResult.addInserted(it) }
+                return insertResult
+            }
+        then: 'the records are acknowledged once persisted'
+            2 * mockAcknowledgment.acknowledge()
+        and: 'the events are counted as persisted'
+            meterRegistry.get('cps.temporal.ingest.events').tag('outcome', 'persisted').counter().count() == 2
+    }
+
+    def 'Consumption of events failing to be persisted together.'() {
+        given: 'network data service failing to persist data together'
+            mockService.addNetworkDataList(_) >> { throw new QueryTimeoutException('timeout') }
+        when: '2 valid events are received'
+            objectUnderTest.consume(toRecord(0, buildEvent('my-anchor-1')), mockAcknowledgment)
+            objectUnderTest.consume(toRecord(1, buildEvent('my-anchor-2')), mockAcknowledgment)
+        and: 'the writer is done'
+            objectUnderTest.shutdown()
+        then: 'network data service is requested to persist the data changes one by one'
+            1 * mockService.addNetworkData({ it.getAnchor() == 'my-anchor-1' })
+            1 * mockService.addNetworkData({ it.getAnchor() == 'my-anchor-2' }) >>
+                { throw new DuplicateNetworkDataException('already exists') }
+        and: 'both records are acknowledged'
+            2 * mockAcknowledgment.acknowledge()
+        and: 'the event failing on its own is counted as duplicate'
+            meterRegistry.get('cps.temporal.ingest.events').tag('outcome', 'duplicate').counter().count() == 1
+    }
+
+    def 'Consumption of an event failing to be persisted on a transient error.'() {
+        given: 'network data service failing to persist data together'
+            mockService.addNetworkDataList(_) >> { throw new QueryTimeoutException('timeout') }
+        and: 'failing once to persist data alone before succeeding'
+            def attempts = 0
+            mockService.addNetworkData(_) >> {
+                if (++attempts == 1) {
+                    throw new QueryTimeoutException('timeout')
+                }
+                return null
+            }
+        when: 'a valid event is received'
+            objectUnderTest.consume(toRecord(0, buildEvent('my-anchor-1')), mockAcknowledgment)
+        and: 'the writer is done'
+            objectUnderTest.shutdown()
+        then: 'the event is persisted again until it succeeds'
+            attempts == 2
+        and: 'the record is acknowledged only once persisted'
+            1 * mockAcknowledgment.acknowledge()
+        and: 'the failed attempt is counted'
+            meterRegistry.get('cps.temporal.ingest.events').tag('outcome', 'failure').counter().count() == 1
+    }
+
+    def 'Consumption of an event failing to be persisted on a transient error at each attempt.'() {
+        given: 'network data service always failing to persist data on a transient error'
+            def exception = new QueryTimeoutException('timeout')
+            mockService.addNetworkDataList(_) >> { throw exception }
+            mockService.addNetworkData(_) >> { throw exception }
+        and: 'a record'
+            def consumerRecord = toRecord(0, buildEvent('my-anchor-1'))
+        when: 'the event is received'
+            objectUnderTest.consume(consumerRecord, mockAcknowledgment)
+        and: 'the writer is done'
+            objectUnderTest.shutdown()
+        then: 'the record is sent to the dead letter topic after the last attempt'
+            1 * mockDeadLetterPublisher.publish(consumerRecord, exception)
+        and: 'it is acknowledged so that it does not block the partition'
+            1 * mockAcknowledgment.acknowledge()
+        and: 'each attempt to persist it alone is counted as failed'
+            meterRegistry.get('cps.temporal.ingest.events').tag('outcome', 'failure').counter().count() == 4
+    }
+
+    def 'Consumption while the buffer is full.'() {
+        given: 'a listener with a buffer of capacity 2, writing groups of 1 event'
+            def objectUnderTest = new DataUpdatedEventWriteBehindListener(mockService, mapper,
+                new IngestMetrics(meterRegistry), retryProperties, mockDeadLetterPublisher,
+                mockListenerContainerPauses, 2, 1, Duration.ZERO)
+        and: 'network data service blocked until released'
+            def latch = new CountDownLatch(1)
+            mockService.addNetworkDataList(_) >> { latch.await(5, TimeUnit.SECONDS); new NetworkDataInsertResult() }
+        when: '3 events are received'
+            (0..2).each { offset ->
+                objectUnderTest.consume(toRecord(offset, buildEvent('my-anchor-' + offset)), mockAcknowledgment)
+            }
+        then: 'the container is paused without blocking the consumer'
+            (1.._) * mockListenerContainerPauses.pause(DataUpdatedEventWriteBehindListener.LISTENER_ID,
+                Reason.LISTENER_SATURATED)
+        when: 'the writer catches up'
+            latch.countDown()
+            objectUnderTest.shutdown()
+        then: 'the container is resumed'
+            (1.._) * mockListenerContainerPauses.resume(DataUpdatedEventWriteBehindListener.LISTENER_ID,
+                Reason.LISTENER_SATURATED)
+        and: 'all the records are acknowledged'
+            3 * mockAcknowledgment.acknowledge()
+    }
+
+    def 'Consumption skips #scenario.'() {
+        when: 'an invalid event is received'
+            objectUnderTest.consume(toRecord(0, invalidEvent), mockAcknowledgment)
+        and: 'the writer is done'
+            objectUnderTest.shutdown()
+        then: 'nothing is persisted'
+            0 * mockService._
+        and: 'the record is acknowledged'
+            1 * mockAcknowledgment.acknowledge()
+        and: 'the event is counted with the expected outcome'
+            meterRegistry.get('cps.temporal.ingest.events').tag('outcome', expectedOutcome).counter().count() == 1
+        where:
+            scenario                        | invalidEvent              || expectedOutcome
+            'event with invalid envelop'    | new CpsDataUpdatedEvent() || 'invalid-envelop'
+            'event failing deserialization' | null                      || 'deserialization-failure'
+    }
+
+    def buildEvent(anchor) {
+        return EventFixtures.buildEvent(observedTimestamp: aTimestamp, dataspace: 'my-dataspace',
+                schemaSet: 'my-schema-set', anchor: anchor, data: ['my-data-name': 'my-data-value'])
+    }
+
+    static def toRecord(offset, event) {
+        return new ConsumerRecord<String, CpsDataUpdatedEvent>('my-topic', 0, offset, null, event)
+    }
+
+}
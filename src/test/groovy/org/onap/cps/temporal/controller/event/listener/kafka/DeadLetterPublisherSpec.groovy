@@ -0,0 +1,68 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka
+
+import org.apache.kafka.clients.consumer.ConsumerRecord
+import org.springframework.beans.factory.ObjectProvider
+import org.springframework.kafka.KafkaException
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer
+import spock.lang.Specification
+
+/**
+ * Test specification for dead letter publisher.
+ */
+class DeadLetterPublisherSpec extends Specification {
+
+    def mockRecoverer = Mock(DeadLetterPublishingRecoverer)
+
+    def consumerRecord = new ConsumerRecord<String, String>('my-topic', 0, 0, null, 'my-event')
+
+    def exception = new RuntimeException('connection lost')
+
+    def 'Publication of a failed record when retry is enabled.'() {
+        given: 'a publisher to the dead letter topic'
+            def objectUnderTest = new DeadLetterPublisher(Mock(ObjectProvider) { getIfAvailable() >> mockRecoverer })
+        when: 'a failed record is published'
+            objectUnderTest.publish(consumerRecord, exception)
+        then: 'it is sent to the dead letter topic with its failure'
+            1 * mockRecoverer.accept(consumerRecord, exception)
+    }
+
+    def 'Publication of a failed record failing to be sent.'() {
+        given: 'a publisher to the dead letter topic failing to send records'
+            def objectUnderTest = new DeadLetterPublisher(Mock(ObjectProvider) { getIfAvailable() >> mockRecoverer })
+            mockRecoverer.accept(consumerRecord, exception) >> { throw new KafkaException('broker not available') }
+        when: 'a failed record is published'
+            objectUnderTest.publish(consumerRecord, exception)
+        then: 'the record is skipped'
+            noExceptionThrown()
+    }
+
+    def 'Publication of a failed record when retry is disabled.'() {
+        given: 'no publisher to the dead letter topic'
+            def objectUnderTest = new DeadLetterPublisher(Mock(ObjectProvider) { getIfAvailable() >> null })
+        when: 'a failed record is published'
+            objectUnderTest.publish(consumerRecord, exception)
+        then: 'the record is skipped'
+            noExceptionThrown()
+    }
+
+}
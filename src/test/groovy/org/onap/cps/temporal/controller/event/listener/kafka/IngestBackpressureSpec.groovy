@@ -0,0 +1,114 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka
+
+import com.zaxxer.hikari.HikariDataSource
+import com.zaxxer.hikari.HikariPoolMXBean
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.onap.cps.temporal.controller.event.listener.kafka.IngestMetrics.Stage
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry
+import org.springframework.kafka.listener.MessageListenerContainer
+import spock.lang.Specification
+
+import javax.sql.DataSource
+import java.time.Duration
+
+/**
+ * Test specification for ingest backpressure.
+ */
+class IngestBackpressureSpec extends Specification {
+
+    def mockContainer = Mock(MessageListenerContainer)
+
+    def mockRegistry = Mock(KafkaListenerEndpointRegistry) {
+        getListenerContainerIds() >> ['my-listener']
+        getListenerContainer('my-listener') >> mockContainer
+    }
+
+    def listenerContainerPauses = new ListenerContainerPauses(mockRegistry)
+
+    def mockHikariPool = Mock(HikariPoolMXBean)
+
+    def mockDataSource = Mock(DataSource) {
+        isWrapperFor(HikariDataSource) >> true
+        unwrap(HikariDataSource) >> Mock(HikariDataSource) {
+            getHikariPoolMXBean() >> mockHikariPool
+        }
+    }
+
+    def meterRegistry = new SimpleMeterRegistry()
+
+    def ingestMetrics = new IngestMetrics(meterRegistry)
+
+    def objectUnderTest = new IngestBackpressure(listenerContainerPauses, ingestMetrics, mockDataSource,
+        Duration.ofMillis(100), 2, Duration.ZERO, meterRegistry)
+
+    def 'Check database load when #scenario'() {
+        given: 'a number of threads waiting for a database connection'
+            mockHikariPool.getThreadsAwaitingConnection() >> pendingConnections
+        and: 'a persistence latency'
+            ingestMetrics.record(Stage.PERSISTENCE, { sleep(latencyMillis) })
+        when: 'the database load is checked'
+            objectUnderTest.check()
+        then: 'the containers are paused only when a threshold is crossed'
+            expectedPauseCount * mockContainer.pause()
+            objectUnderTest.isPaused() == (expectedPauseCount == 1)
+            meterRegistry.get('cps.temporal.ingest.paused').gauge().value() == expectedPauseCount
+            meterRegistry.get('cps.temporal.ingest.pauses').counter().count() == expectedPauseCount
+        and: 'the throttle level is the highest ratio to the thresholds'
+            objectUnderTest.getThrottleLevel() >= expectedMinimumThrottleLevel
+        where:
+            scenario                               | pendingConnections | latencyMillis || expectedPauseCount | expectedMinimumThrottleLevel
+            'the database is not saturated'        | 1                  | 0             || 0                  | 0.5
+            'connections are awaited'              | 2                  | 0             || 1                  | 1
+            'persistence latency is too high'      | 0                  | 150           || 1                  | 1.5
+    }
+
+    def 'Check database load when paused and #scenario'() {
+        given: 'containers paused because of connections awaited'
+            mockHikariPool.getThreadsAwaitingConnection() >>> [2, pendingConnections]
+            objectUnderTest.check()
+        when: 'the database load is checked again'
+            objectUnderTest.check()
+        then: 'the containers are resumed only when connections are available'
+            expectedResumeCount * mockContainer.resume()
+            objectUnderTest.isPaused() == (expectedResumeCount == 0)
+        where:
+            scenario                          | pendingConnections || expectedResumeCount
+            'connections are available'       | 0                  || 1
+            'connections are still awaited'   | 2                  || 0
+    }
+
+    def 'Check database load when paused for less than the minimum pause'() {
+        given: 'backpressure with a minimum pause'
+            def objectUnderTest = new IngestBackpressure(listenerContainerPauses, ingestMetrics, mockDataSource,
+                Duration.ofMillis(100), 2, Duration.ofMinutes(1), meterRegistry)
+        and: 'containers paused because of connections awaited'
+            mockHikariPool.getThreadsAwaitingConnection() >>> [2, 0]
+            objectUnderTest.check()
+        when: 'the database load is checked again with connections available'
+            objectUnderTest.check()
+        then: 'the containers are not resumed yet'
+            0 * mockContainer.resume()
+            objectUnderTest.isPaused()
+    }
+
+}
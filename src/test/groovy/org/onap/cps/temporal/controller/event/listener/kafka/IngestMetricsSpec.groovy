@@ -0,0 +1,131 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.onap.cps.temporal.controller.event.listener.kafka.IngestMetrics.Outcome
+import org.onap.cps.temporal.controller.event.listener.kafka.IngestMetrics.Stage
+import org.onap.cps.temporal.domain.NetworkData
+import org.onap.cps.temporal.domain.NetworkDataInsertResult
+import org.onap.cps.temporal.service.DuplicateNetworkDataException
+import org.onap.cps.temporal.service.LateNetworkDataException
+import spock.lang.Specification
+
+import javax.validation.ValidationException
+import java.time.Duration
+import java.time.OffsetDateTime
+import java.util.concurrent.TimeUnit
+
+/**
+ * Test specification for ingest metrics.
+ */
+class IngestMetricsSpec extends Specification {
+
+    def meterRegistry = new SimpleMeterRegistry()
+
+    def objectUnderTest = new IngestMetrics(meterRegistry)
+
+    def 'Record a stage'() {
+        when: 'a stage is run'
+            def result = objectUnderTest.record(Stage.MAPPING, { 'my-result' })
+        then: 'its result is returned'
+            result == 'my-result'
+        and: 'its duration is recorded for the stage'
+            meterRegistry.get('cps.temporal.ingest.stage').tag('stage', 'mapping').timer().count() == 1
+            meterRegistry.get('cps.temporal.ingest.stage').tag('stage', 'persistence').timer().count() == 0
+    }
+
+    def 'Smoothed persistence latency'() {
+        given: 'no persistence latency yet'
+            assert objectUnderTest.getPersistenceLatency().isEmpty()
+        when: 'persistence stages are run'
+            objectUnderTest.record(Stage.PERSISTENCE, { sleep(20) })
+            objectUnderTest.record(Stage.PERSISTENCE, { sleep(20) })
+        and: 'another stage is run'
+            objectUnderTest.record(Stage.MAPPING, { sleep(100) })
+        then: 'the persistence latency only accounts for the persistence stages'
+            def latency = objectUnderTest.getPersistenceLatency().get()
+            latency >= Duration.ofMillis(20) && latency < Duration.ofMillis(100)
+        when: 'the persistence latency is reset'
+            objectUnderTest.resetPersistenceLatency()
+        then: 'there is no persistence latency anymore'
+            objectUnderTest.getPersistenceLatency().isEmpty()
+    }
+
+    def 'Count events per outcome'() {
+        when: 'events are counted'
+            objectUnderTest.count(Outcome.PERSISTED, 3)
+            objectUnderTest.count(Outcome.INVALID_ENVELOP)
+            objectUnderTest.count(Outcome.DUPLICATE, 0)
+        then: 'counters are incremented per outcome'
+            getCount('persisted') == 3
+            getCount('invalid-envelop') == 1
+            getCount('duplicate') == 0
+    }
+
+    def 'Count a failure to add #scenario'() {
+        when: 'a failure is counted'
+            objectUnderTest.countFailedToAdd(exception)
+        then: 'it is counted with the expected outcome'
+            getCount(expectedOutcome) == 1
+        where:
+            scenario             | exception                                || expectedOutcome
+            'already existing'   | new DuplicateNetworkDataException('exists')     || 'duplicate'
+            'late'               | new LateNetworkDataException('compressed')      || 'late'
+            'failing validation' | new ValidationException('null payload')         || 'validation-failure'
+            'unexpected'         | new IllegalStateException('database')           || 'failure'
+    }
+
+    def 'Count a network data added #scenario'() {
+        given: 'a network data observed 1 minute ago'
+            def networkData = NetworkData.builder().observedTimestamp(OffsetDateTime.now().minusMinutes(1)).build()
+        when: 'the network data is added'
+            objectUnderTest.countAdded(networkData, persistedNetworkData)
+        then: 'it is counted with the expected outcome'
+            getCount(expectedOutcome) == 1
+        and: 'its age is recorded only when inserted'
+            def eventAgeTimer = meterRegistry.get('cps.temporal.ingest.event.age').timer()
+            eventAgeTimer.count() == expectedAgeCount
+            eventAgeTimer.totalTime(TimeUnit.SECONDS) >= 60 * expectedAgeCount
+        where:
+            scenario       | persistedNetworkData                                              || expectedOutcome | expectedAgeCount
+            'as inserted'  | NetworkData.builder().createdTimestamp(OffsetDateTime.now()).build() || 'persisted'     | 1
+            'as unchanged' | NetworkData.builder().build()                                     || 'unchanged'     | 0
+    }
+
+    def 'Count a batch of network data added'() {
+        given: 'an insert result with an inserted, a duplicate, an unchanged and a late network data'
+            def insertResult = new NetworkDataInsertResult()
+            insertResult.addInserted(NetworkData.builder().observedTimestamp(OffsetDateTime.now()).build())
+            insertResult.addDuplicate(NetworkData.builder().build())
+            insertResult.addUnchanged(NetworkData.builder().build())
+            insertResult.addLate(NetworkData.builder().build())
+        when: 'the batch of 5 network data is counted'
+            objectUnderTest.countAdded(5, insertResult)
+        then: 'each network data is counted with its outcome, the remaining one failing validation'
+            ['persisted', 'duplicate', 'unchanged', 'late', 'validation-failure'].every { getCount(it) == 1 }
+    }
+
+    def getCount(outcome) {
+        return meterRegistry.get('cps.temporal.ingest.events').tag('outcome', outcome).counter().count()
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka
+
+import java.time.Duration
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+import spock.lang.Specification
+
+/**
+ * Test specification for keyed worker pool.
+ */
+class KeyedWorkerPoolSpec extends Specification {
+
+    def objectUnderTest = new KeyedWorkerPool('test-worker-', 4, 10)
+
+    def cleanup() {
+        objectUnderTest.shutdown(Duration.ofSeconds(5))
+    }
+
+    def 'Tasks with the same key are executed in submission order.'() {
+        given: 'a list recording the executed tasks'
+            def executedTasks = new CopyOnWriteArrayList()
+        when: '100 tasks with the same key are submitted'
+            (0..99).each { index -> objectUnderTest.execute('my-key', { executedTasks.add(index) }) }
+        and: 'the pool is shut down once they are executed'
+            objectUnderTest.shutdown(Duration.ofSeconds(5))
+        then: 'tasks are executed in submission order'
+            executedTasks == (0..99).toList()
+    }
+
+    def 'Tasks with the same key are executed by a single thread.'() {
+        given: 'a map recording the threads executing the tasks of each key'
+            def threadsByKey = new ConcurrentHashMap<String, Set<String>>()
+        when: 'tasks with 2 keys are submitted'
+            (0..19).each { index ->
+                def key = 'my-key-' + (index % 2)
+                objectUnderTest.execute(key, {
+                    threadsByKey.computeIfAbsent(key, { ConcurrentHashMap.newKeySet() })
+                        .add(Thread.currentThread().getName())
+                })
+            }
+        and: 'the pool is shut down once they are executed'
+            objectUnderTest.shutdown(Duration.ofSeconds(5))
+        then: 'the tasks of each key are executed by a single worker thread'
+            threadsByKey.values()*.size() == [1, 1]
+            threadsByKey.values().flatten().every { it.startsWith('test-worker-') }
+    }
+
+    def 'Tasks with keys of different workers are executed in parallel.'() {
+        given: 'a latch released once all the workers execute a task at the same time'
+            def latch = new CountDownLatch(4)
+            def keys = findKeysOfDistinctWorkers(4)
+        when: 'a task waiting for the latch is submitted for each worker'
+            keys.each { key -> objectUnderTest.execute(key, { latch.countDown(); latch.await(5, TimeUnit.SECONDS) }) }
+        then: 'all the tasks are running at the same time'
+            latch.await(5, TimeUnit.SECONDS)
+    }
+
+    def 'Pool is saturated while the queue of a worker is at capacity.'() {
+        given: 'a latch blocking the worker of a key'
+            def latch = new CountDownLatch(1)
+            objectUnderTest.execute('my-key', { latch.await(5, TimeUnit.SECONDS) })
+        when: 'as many tasks as the queue capacity are submitted for the same key'
+            (1..10).each { objectUnderTest.execute('my-key', {}) }
+        then: 'they are queued and the pool is saturated'
+            objectUnderTest.isSaturated()
+        when: 'the worker is unblocked and the pool is shut down once tasks are executed'
+            latch.countDown()
+            objectUnderTest.shutdown(Duration.ofSeconds(5))
+        then: 'the pool is not saturated anymore'
+            !objectUnderTest.isSaturated()
+    }
+
+    def 'Tasks are rejected once the pool is shut down.'() {
+        given: 'a pool shut down'
+            objectUnderTest.shutdown(Duration.ofSeconds(5))
+        when: 'a task is submitted'
+            objectUnderTest.execute('my-key', {})
+        then: 'it is rejected'
+            thrown(RejectedExecutionException)
+    }
+
+    def findKeysOfDistinctWorkers(int workerCount) {
+        def keysByWorker = [:]
+        def index = 0
+        while (keysByWorker.size() < workerCount) {
+            def key = 'my-key-' + index++
+            keysByWorker.putIfAbsent(Math.floorMod(key.hashCode(), workerCount), key)
+        }
+        return keysByWorker.values()
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka
+
+import org.onap.cps.temporal.controller.event.listener.kafka.ListenerContainerPauses.Reason
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry
+import org.springframework.kafka.listener.MessageListenerContainer
+import spock.lang.Specification
+
+/**
+ * Test specification for listener container pauses.
+ */
+class ListenerContainerPausesSpec extends Specification {
+
+    def mockContainer = Mock(MessageListenerContainer)
+
+    def mockRegistry = Mock(KafkaListenerEndpointRegistry) {
+        getListenerContainerIds() >> ['my-listener']
+        getListenerContainer('my-listener') >> mockContainer
+    }
+
+    def objectUnderTest = new ListenerContainerPauses(mockRegistry)
+
+    def 'Pause of a container for several reasons.'() {
+        when: 'the container is requested to be paused for 2 reasons'
+            objectUnderTest.pause('my-listener', Reason.LISTENER_SATURATED)
+            objectUnderTest.pauseAll(Reason.DATABASE_SATURATED)
+        then: 'it is paused once'
+            1 * mockContainer.pause()
+        when: 'one of the reasons is withdrawn'
+            objectUnderTest.resume('my-listener', Reason.LISTENER_SATURATED)
+        then: 'it is not resumed'
+            0 * mockContainer.resume()
+        when: 'the other reason is withdrawn'
+            objectUnderTest.resumeAll(Reason.DATABASE_SATURATED)
+        then: 'it is resumed'
+            1 * mockContainer.resume()
+    }
+
+    def 'Resume of a container not paused for the reason.'() {
+        given: 'a container paused because the database is saturated'
+            objectUnderTest.pauseAll(Reason.DATABASE_SATURATED)
+        when: 'the listener is not saturated'
+            objectUnderTest.resume('my-listener', Reason.LISTENER_SATURATED)
+        then: 'the container is not resumed'
+            0 * mockContainer.resume()
+    }
+
+}
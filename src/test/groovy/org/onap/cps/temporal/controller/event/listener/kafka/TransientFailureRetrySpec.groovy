@@ -0,0 +1,112 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.onap.cps.temporal.service.DuplicateNetworkDataException
+import org.onap.cps.temporal.service.LateNetworkDataException
+import org.springframework.dao.QueryTimeoutException
+import spock.lang.Specification
+
+import java.time.Duration
+import javax.validation.ValidationException
+
+/**
+ * Test specification for transient failure retry.
+ */
+class TransientFailureRetrySpec extends Specification {
+
+    def meterRegistry = new SimpleMeterRegistry()
+
+    def retryProperties = new DataUpdatedEventRetryProperties(initialInterval: Duration.ofMillis(10), multiplier: 2,
+            maxInterval: Duration.ofMillis(20))
+
+    def objectUnderTest = new TransientFailureRetry(retryProperties, new IngestMetrics(meterRegistry))
+
+    def 'Persistence failing on a transient error is attempted again until it succeeds.'() {
+        given: 'a persistence failing 3 times before succeeding'
+            def attempts = 0
+            def persistence = {
+                if (++attempts <= 3) {
+                    throw new QueryTimeoutException('timeout')
+                }
+                return 'my-result'
+            }
+        when: 'persisting'
+            def result = objectUnderTest.execute('my-event', persistence)
+        then: 'the result of the successful attempt is returned'
+            result == 'my-result'
+            attempts == 4
+        and: 'each failed attempt is counted'
+            meterRegistry.get('cps.temporal.ingest.events').tag('outcome', 'failure').counter().count() == 3
+    }
+
+    def 'Persistence failing on a transient error at each attempt.'() {
+        given: 'a persistence always failing on a transient error'
+            def attempts = 0
+            def exception = new QueryTimeoutException('timeout')
+            def persistence = {
+                attempts++
+                throw exception
+            }
+        when: 'persisting'
+            objectUnderTest.execute('my-event', persistence)
+        then: 'the failure of the last attempt is thrown'
+            def thrown = thrown(RuntimeException)
+            thrown.is(exception)
+            attempts == retryProperties.getAttempts()
+        and: 'each failed attempt is counted'
+            meterRegistry.get('cps.temporal.ingest.events').tag('outcome', 'failure').counter().count() == 4
+    }
+
+    def 'Persistence failing on #scenario is not attempted again.'() {
+        given: 'a persistence always failing'
+            def attempts = 0
+            def persistence = {
+                attempts++
+                throw exception
+            }
+        when: 'persisting'
+            objectUnderTest.execute('my-event', persistence)
+        then: 'the failure is thrown after the first attempt'
+            def thrown = thrown(RuntimeException)
+            thrown.is(exception)
+            attempts == 1
+        where:
+            scenario                  | exception
+            'an event already stored' | new DuplicateNetworkDataException('already exists')
+            'a late event'            | new LateNetworkDataException('compressed')
+            'an invalid event'        | new ValidationException('invalid')
+            'a wrapped invalid event' | new RuntimeException('wrapped', new ValidationException('invalid'))
+    }
+
+    def 'Interruption while waiting for the next attempt.'() {
+        given: 'a persistence always failing on a transient error'
+            def persistence = { throw new QueryTimeoutException('timeout') }
+        and: 'the current thread interrupted'
+            Thread.currentThread().interrupt()
+        when: 'persisting'
+            objectUnderTest.execute('my-event', persistence)
+        then: 'the persistence is given up'
+            thrown(InterruptedException)
+    }
+
+}
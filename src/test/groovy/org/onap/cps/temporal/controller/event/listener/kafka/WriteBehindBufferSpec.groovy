@@ -0,0 +1,108 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.event.listener.kafka
+
+import java.time.Duration
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+import spock.lang.Specification
+
+/**
+ * Test specification for write-behind buffer.
+ */
+class WriteBehindBufferSpec extends Specification {
+
+    def writtenGroups = new CopyOnWriteArrayList<List<Integer>>()
+
+    def 'Items are written by groups of the maximum group size, in the order they are added.'() {
+        given: 'a buffer writing groups of up to 10 items, waiting long for more items'
+            def objectUnderTest = new WriteBehindBuffer<Integer>('test-writer', 100, 10, Duration.ofMinutes(1),
+                { group -> writtenGroups.add(group) })
+        when: '25 items are added'
+            (0..24).each { objectUnderTest.add(it) }
+        and: 'the buffer is shut down once they are written'
+            objectUnderTest.shutdown(Duration.ofSeconds(5))
+        then: 'items are written in order, by groups no larger than the maximum group size'
+            writtenGroups.flatten() == (0..24).toList()
+            writtenGroups.every { it.size() <= 10 }
+            writtenGroups.take(2)*.size() == [10, 10]
+    }
+
+    def 'A group is written once the maximum group delay elapsed.'() {
+        given: 'a buffer writing groups of up to 10 items, waiting 50 ms for more items'
+            def groupWritten = new CountDownLatch(1)
+            def objectUnderTest = new WriteBehindBuffer<Integer>('test-writer', 100, 10, Duration.ofMillis(50),
+                { group -> writtenGroups.add(group); groupWritten.countDown() })
+        when: 'a single item is added'
+            objectUnderTest.add(1)
+        then: 'it is written alone without waiting for more items'
+            groupWritten.await(5, TimeUnit.SECONDS)
+            writtenGroups == [[1]]
+        cleanup: 'the buffer is shut down'
+            objectUnderTest.shutdown(Duration.ofSeconds(5))
+    }
+
+    def 'A group failing to be written does not stop the writer.'() {
+        given: 'a buffer whose first group fails to be written'
+            def attempts = 0
+            def objectUnderTest = new WriteBehindBuffer<Integer>('test-writer', 100, 1, Duration.ZERO,
+                { group -> if (attempts++ == 0) { throw new IllegalStateException('database') }
+                    writtenGroups.add(group) })
+        when: '2 items are added'
+            objectUnderTest.add(1)
+            objectUnderTest.add(2)
+        and: 'the buffer is shut down once they are written'
+            objectUnderTest.shutdown(Duration.ofSeconds(5))
+        then: 'the second item is written'
+            writtenGroups == [[2]]
+    }
+
+    def 'Buffer is saturated while the items waiting to be written reach the capacity.'() {
+        given: 'a buffer of capacity 10 whose writer is blocked until released'
+            def latch = new CountDownLatch(1)
+            def objectUnderTest = new WriteBehindBuffer<Integer>('test-writer', 10, 1, Duration.ZERO,
+                { group -> latch.await(5, TimeUnit.SECONDS); writtenGroups.add(group) })
+        when: 'more items than the capacity are added'
+            (0..10).each { objectUnderTest.add(it) }
+        then: 'they are all buffered and the buffer is saturated'
+            objectUnderTest.isSaturated()
+        when: 'the writer is released and the buffer is shut down once items are written'
+            latch.countDown()
+            objectUnderTest.shutdown(Duration.ofSeconds(5))
+        then: 'all the items are written and the buffer is not saturated anymore'
+            writtenGroups.flatten() == (0..10).toList()
+            !objectUnderTest.isSaturated()
+    }
+
+    def 'Adding an item to a buffer shut down.'() {
+        given: 'a buffer shut down'
+            def objectUnderTest = new WriteBehindBuffer<Integer>('test-writer', 100, 10, Duration.ZERO,
+                { group -> writtenGroups.add(group) })
+            objectUnderTest.shutdown(Duration.ofSeconds(5))
+        when: 'an item is added'
+            objectUnderTest.add(1)
+        then: 'it is rejected'
+            thrown(RejectedExecutionException)
+    }
+
+}
@@ -23,7 +23,9 @@ package org.onap.cps.temporal.controller.rest
 import org.onap.cps.temporal.controller.rest.config.WebSecurityConfig
 import org.onap.cps.temporal.controller.rest.model.AnchorDetailsMapper
 import org.onap.cps.temporal.controller.rest.model.AnchorDetailsMapperImpl
+import org.onap.cps.temporal.controller.rest.model.ChangeCountMapperImpl
 import org.onap.cps.temporal.controller.rest.model.AnchorHistory
+import org.onap.cps.temporal.controller.rest.model.ContinuationTokenMapper
 import org.onap.cps.temporal.controller.rest.model.SortMapper
 import org.onap.cps.temporal.domain.NetworkData
 import org.onap.cps.temporal.service.NetworkDataService
@@ -46,7 +48,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 
 @WebMvcTest(QueryController)
-@Import([WebSecurityConfig, SortMapper, AnchorDetailsMapperImpl])
+@Import([WebSecurityConfig, SortMapper, AnchorDetailsMapperImpl, ContinuationTokenMapper, ChangeCountMapperImpl])
 class ControllerSecuritySpec extends Specification {
 
     @SpringBean
@@ -0,0 +1,155 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021-2022 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.rest
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import org.onap.cps.temporal.controller.rest.model.AnchorDetails
+import org.onap.cps.temporal.controller.rest.model.AnchorDetailsMapperImpl
+import org.onap.cps.temporal.controller.rest.model.ErrorMessage
+import org.onap.cps.temporal.controller.rest.model.SortMapper
+import org.onap.cps.temporal.controller.utils.DateTimeUtility
+import org.onap.cps.temporal.domain.NetworkData
+import org.onap.cps.temporal.domain.Operation
+import org.onap.cps.temporal.domain.SearchCriteria
+import org.onap.cps.temporal.service.NetworkDataService
+import org.onap.cps.temporal.service.QueryAdmission
+import org.spockframework.spring.SpringBean
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest
+import org.springframework.context.annotation.Import
+import org.springframework.data.domain.Sort
+import org.springframework.http.HttpStatus
+import org.springframework.http.MediaType
+import org.springframework.security.test.context.support.WithMockUser
+import org.springframework.test.web.servlet.MockMvc
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.time.OffsetDateTime
+import java.util.function.Consumer
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request
+
+@WebMvcTest(ExportController)
+@Import([SortMapper, AnchorDetailsMapperImpl])
+@WithMockUser
+class ExportControllerSpec extends Specification {
+
+    @SpringBean
+    NetworkDataService mockNetworkDataService = Mock()
+
+    @SpringBean
+    QueryAdmission stubQueryAdmission = Stub() {
+        admit(_ as Runnable) >> { Runnable query -> query.run() }
+    }
+
+    @Autowired
+    MockMvc mvc
+
+    @Shared
+    def objectMapper = new ObjectMapper()
+
+    def myDataspace = 'my-dataspace'
+    def myAnchor = 'my-anchor'
+    def mySchemaSet = 'my-schema-set'
+
+    @Shared
+    def anchorByNameUrl = '/cps-temporal/api/v1/dataspaces/my-dataspace/anchors/my-anchor/history/export'
+    @Shared
+    def anchorsBySchemaSetUrl =
+        '/cps-temporal/api/v1/dataspaces/my-dataspace/anchors/history/export?schema-set-name=my-schema-set'
+
+    def 'Export #endpointName: records are streamed as newline delimited json'() {
+        given: 'network data to be streamed'
+            def networkDataList = [createNetworkData('{"status": "up"}'), createNetworkData('{"status": "down"}')]
+        when: 'endpoint is called with a time range'
+            def mvcResult = mvc.perform(get(url)
+                .queryParam('observedTimestampAfter', '2021-07-24T01:00:01.000-0400')
+                .queryParam('observedTimestampBefore', '2021-07-25T01:00:01.000-0400'))
+                .andExpect(request().asyncStarted()).andReturn()
+            def response = mvc.perform(asyncDispatch(mvcResult)).andReturn().response
+        then: 'network data service streams the data matching the unpaged search criteria'
+            1 * mockNetworkDataService.streamNetworkData(_ as SearchCriteria, _ as Consumer) >> {
+                SearchCriteria searchCriteria, Consumer<NetworkData> consumer ->
+                    assert searchCriteria.getPageable().isUnpaged()
+                    assert searchCriteria.getDataspaceName() == myDataspace
+                    assert searchCriteria.getAnchorName() == expectedAnchorName
+                    assert searchCriteria.getSchemaSetName() == expectedSchemaSetName
+                    assert searchCriteria.getObservedAfter() ==
+                        DateTimeUtility.toOffsetDateTime('2021-07-24T01:00:01.000-0400')
+                    assert searchCriteria.getObservedBefore() ==
+                        DateTimeUtility.toOffsetDateTime('2021-07-25T01:00:01.000-0400')
+                    assert searchCriteria.getSort() == Sort.by(Sort.Direction.DESC, 'observed_timestamp')
+                    networkDataList.each { consumer.accept(it) }
+            }
+        and: 'response is ok with newline delimited json content'
+            response.getStatus() == HttpStatus.OK.value()
+            response.getContentType() == MediaType.APPLICATION_NDJSON_VALUE
+        and: 'each line is a record'
+            def lines = response.getContentAsString().split('\n')
+            lines.collect { objectMapper.readValue(it, AnchorDetails) } == networkDataList.collect { toAnchorDetails(it) }
+        where:
+            endpointName           | url                   || expectedAnchorName | expectedSchemaSetName
+            'anchor by name'       | anchorByNameUrl       || 'my-anchor'        | null
+            'anchors by schemaset' | anchorsBySchemaSetUrl || null               | 'my-schema-set'
+    }
+
+    def 'Export #endpointName Error handling: invalid date format in #queryParamName'() {
+        when: 'endpoint is called with an invalid date'
+            def response = mvc.perform(get(url).queryParam(queryParamName, 'invalid-date-string'))
+                .andReturn().response
+        then: 'received bad request status'
+            response.getStatus() == HttpStatus.BAD_REQUEST.value()
+        and: 'nothing is streamed'
+            0 * mockNetworkDataService.streamNetworkData(*_)
+        and: 'error details'
+            def errorMessage = objectMapper.readValue(response.getContentAsString(), ErrorMessage)
+            errorMessage.getMessage().contains(queryParamName)
+        where:
+            endpointName           | url                   | queryParamName
+            'anchor by name'       | anchorByNameUrl       | 'observedTimestampBefore'
+            'anchor by name'       | anchorByNameUrl       | 'pointInTime'
+            'anchors by schemaset' | anchorsBySchemaSetUrl | 'observedTimestampBefore'
+            'anchors by schemaset' | anchorsBySchemaSetUrl | 'pointInTime'
+    }
+
+    NetworkData createNetworkData(String payload) {
+        return NetworkData.builder().dataspace(myDataspace)
+            .schemaSet(mySchemaSet).anchor(myAnchor).payload(payload)
+            .observedTimestamp(OffsetDateTime.now())
+            .operation(Operation.UPDATE)
+            .createdTimestamp(OffsetDateTime.now()).build()
+    }
+
+    AnchorDetails toAnchorDetails(NetworkData networkData) {
+        AnchorDetails anchorDetails = new AnchorDetails()
+        anchorDetails.setDataspace(networkData.getDataspace())
+        anchorDetails.setAnchor(networkData.getAnchor())
+        anchorDetails.setSchemaSet(networkData.getSchemaSet())
+        anchorDetails.setObservedTimestamp(DateTimeUtility.toString(networkData.getObservedTimestamp()))
+        anchorDetails.setOperation(AnchorDetails.OperationEnum.valueOf(networkData.getOperation().toString()))
+        anchorDetails.setData(networkData.getPayload())
+        return anchorDetails
+    }
+
+}
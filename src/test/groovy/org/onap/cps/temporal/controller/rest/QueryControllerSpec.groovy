@@ -27,12 +27,23 @@ import org.onap.cps.temporal.domain.Operation
 import java.time.OffsetDateTime
 import org.onap.cps.temporal.controller.rest.model.AnchorDetails
 import org.onap.cps.temporal.controller.rest.model.AnchorDetailsMapperImpl
+import org.onap.cps.temporal.controller.rest.model.ChangeCountMapperImpl
 import org.onap.cps.temporal.controller.rest.model.AnchorHistory
+import org.onap.cps.temporal.controller.rest.model.ChangeCount
+import org.onap.cps.temporal.controller.rest.model.ChangeStatistics
+import org.onap.cps.temporal.controller.rest.model.ContinuationTokenMapper
 import org.onap.cps.temporal.controller.rest.model.ErrorMessage
 import org.onap.cps.temporal.controller.rest.model.SortMapper
+import org.onap.cps.temporal.domain.ChangeCountCriteria
+import org.onap.cps.temporal.domain.ChangeCountGranularity
 import org.onap.cps.temporal.domain.NetworkData
+import org.onap.cps.temporal.domain.NetworkDataChangeCount
 import org.onap.cps.temporal.domain.SearchCriteria
+import org.onap.cps.temporal.domain.SearchCursor
+import org.onap.cps.temporal.domain.SnapshotCriteria
+import org.onap.cps.temporal.service.NetworkDataNotFoundException
 import org.onap.cps.temporal.service.NetworkDataService
+import org.onap.cps.temporal.service.QueryRejectedException
 import org.spockframework.spring.SpringBean
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest
@@ -42,13 +53,16 @@ import org.springframework.data.domain.SliceImpl
 import org.springframework.data.domain.Sort
 import org.springframework.http.HttpStatus
 import org.springframework.http.MediaType
+import org.springframework.web.util.UriComponentsBuilder
 import org.springframework.security.test.context.support.WithMockUser
 import org.springframework.test.web.servlet.MockMvc
 import spock.lang.Specification
 import spock.lang.Shared
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get
+
 @WebMvcTest(QueryController)
-@Import([SortMapper, AnchorDetailsMapperImpl])
+@Import([SortMapper, AnchorDetailsMapperImpl, ContinuationTokenMapper, ChangeCountMapperImpl])
 @WithMockUser
 class QueryControllerSpec extends Specification {
 
@@ -237,6 +251,247 @@ class QueryControllerSpec extends Specification {
             'anchors by schemaset' | [schemaSet: mySchemaset]
     }
 
+    def 'Get #endpointName: query data with continuation token'() {
+        given: 'a continuation token positioned on a network data'
+            def lastNetworkData = createNetworkData()
+            def continuationToken = new ContinuationTokenMapper().toContinuationToken(lastNetworkData)
+        and: 'network data to be returned'
+            def networkData = createNetworkData()
+        when: 'endpoint is called with the continuation token'
+            def controllerDataBuilder = new QueryControllerDataBuilder(endpointName,
+                [dataspace: myDataspace, pageLimit: 1] << urlSpecifParams)
+            def response = mvc.perform(controllerDataBuilder.createMockHttpRequestBuilder()
+                .queryParam('continuationToken', continuationToken)).andReturn().response
+        then: 'network data service is called with the cursor of the continuation token'
+            1 * mockNetworkDataService.searchNetworkData(_ as SearchCriteria) >> {
+                SearchCriteria searchCriteria ->
+                    assert searchCriteria.getCursor() ==
+                        new SearchCursor(lastNetworkData.getObservedTimestamp(), lastNetworkData.getAnchor())
+                    return new SliceImpl([networkData], searchCriteria.getPageable(), true)
+            }
+        and: 'response is ok'
+            response.getStatus() == HttpStatus.OK.value()
+            def anchorHistory = objectMapper.readValue(response.getContentAsString(), AnchorHistory)
+        and: 'next continuation token is positioned on the last record returned'
+            def nextContinuationToken = new ContinuationTokenMapper().toContinuationToken(networkData)
+            anchorHistory.getNextContinuationToken() == nextContinuationToken
+        and: 'next records link is based on the next continuation token instead of page number'
+            def nextLinkQueryParams =
+                UriComponentsBuilder.fromUriString(anchorHistory.getNextRecordsLink()).build().getQueryParams()
+            nextLinkQueryParams.getFirst('continuationToken') == nextContinuationToken
+            !nextLinkQueryParams.containsKey('pageNumber')
+        and: 'there is no previous records link'
+            anchorHistory.getPreviousRecordsLink() == null
+        where:
+            endpointName           | urlSpecifParams
+            'anchor by name'       | [anchor: myAnchor]
+            'anchors by schemaset' | [schemaSet: mySchemaset]
+    }
+
+    def 'Get #endpointName: no continuation token for the last records'() {
+        when: 'endpoint is called'
+            def controllerDataBuilder = new QueryControllerDataBuilder(endpointName,
+                [dataspace: myDataspace] << urlSpecifParams)
+            def response = mvc.perform(controllerDataBuilder.createMockHttpRequestBuilder()).andReturn().response
+        then: 'network data service returns the last records'
+            1 * mockNetworkDataService.searchNetworkData(_ as SearchCriteria) >> {
+                SearchCriteria searchCriteria -> new SliceImpl([createNetworkData()], searchCriteria.getPageable(), false)
+            }
+        and: 'response has no next continuation token'
+            def anchorHistory = objectMapper.readValue(response.getContentAsString(), AnchorHistory)
+            anchorHistory.getNextContinuationToken() == null
+        where:
+            endpointName           | urlSpecifParams
+            'anchor by name'       | [anchor: myAnchor]
+            'anchors by schemaset' | [schemaSet: mySchemaset]
+    }
+
+    def 'Get #endpointName Error handling: #scenario'() {
+        given: 'parameters with a continuation token'
+            def parameters = [dataspace: myDataspace, pageNumber: pageNumber] << uriSpecificParams
+        when: 'endpoint is called'
+            def controllerDataBuilder = new QueryControllerDataBuilder(endpointName, parameters)
+            def response = mvc.perform(controllerDataBuilder.createMockHttpRequestBuilder()
+                .queryParam('continuationToken', continuationToken)).andReturn().response
+        then: 'received bad request status'
+            response.getStatus() == HttpStatus.BAD_REQUEST.value()
+        and: 'network data service is not called'
+            0 * mockNetworkDataService.searchNetworkData(_)
+        and: 'error details'
+            def errorMessage = objectMapper.readValue(response.getContentAsString(), ErrorMessage)
+            errorMessage.getMessage().contains('continuationToken')
+        where:
+            scenario                              | endpointName           | uriSpecificParams        | pageNumber | continuationToken
+            'invalid continuation token'          | 'anchor by name'       | [anchor: myAnchor]       | null       | 'invalid-token'
+            'continuation token with page number' | 'anchor by name'       | [anchor: myAnchor]       | 1          | 'MjAyMS0wMy0yMVQwMDowMDowMFp8bXktYW5jaG9y'
+            'invalid continuation token'          | 'anchors by schemaset' | [schemaSet: mySchemaset] | null       | 'invalid-token'
+            'continuation token with page number' | 'anchors by schemaset' | [schemaSet: mySchemaset] | 1          | 'MjAyMS0wMy0yMVQwMDowMDowMFp8bXktYW5jaG9y'
+    }
+
+    def 'Get #endpointName Error handling: query rejected'() {
+        given: 'network data service rejecting the query because too many queries are running'
+            mockNetworkDataService.searchNetworkData(_) >> { throw new QueryRejectedException('too many queries') }
+        when: 'endpoint is called'
+            def parameters = [dataspace: myDataspace] << uriSpecificParams
+            def controllerDataBuilder = new QueryControllerDataBuilder(endpointName, parameters)
+            def response = mvc.perform(controllerDataBuilder.createMockHttpRequestBuilder()).andReturn().response
+        then: 'received service unavailable status'
+            response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value()
+        and: 'error details'
+            def errorMessage = objectMapper.readValue(response.getContentAsString(), ErrorMessage)
+            errorMessage.getMessage() == 'too many queries'
+        where:
+            endpointName           | uriSpecificParams
+            'anchor by name'       | [anchor: myAnchor]
+            'anchors by schemaset' | [schemaSet: mySchemaset]
+    }
+
+    def 'Get anchors snapshot with #scenario'() {
+        given: 'snapshot endpoint'
+            def requestBuilder = get("/cps-temporal/api/v1/dataspaces/${myDataspace}/anchors/snapshot")
+                .queryParam('schema-set-name', mySchemaset)
+            parameters.each { requestBuilder.queryParam(it.key, it.value) }
+        and: 'network data to be returned'
+            def networkData = createNetworkData()
+        when: 'endpoint is called'
+            def response = mvc.perform(requestBuilder).andReturn().response
+        then: 'network data service is called with expected snapshot criteria'
+            1 * mockNetworkDataService.searchNetworkDataSnapshot(_ as SnapshotCriteria) >> {
+                SnapshotCriteria snapshotCriteria ->
+                    assert snapshotCriteria.getDataspaceName() == myDataspace
+                    assert snapshotCriteria.getSchemaSetName() == mySchemaset
+                    assert snapshotCriteria.getPageable().getPageNumber() == expectedPageNumber
+                    assert snapshotCriteria.getPageable().getPageSize() == expectedPageSize
+                    if (parameters.observedTimestamp != null) {
+                        assert snapshotCriteria.getObservedTimestamp() ==
+                            DateTimeUtility.toOffsetDateTime(parameters.observedTimestamp)
+                    } else {
+                        assert snapshotCriteria.getObservedTimestamp().isAfter(OffsetDateTime.now().minusMinutes(2))
+                    }
+                    return new SliceImpl([networkData], snapshotCriteria.getPageable(), true)
+            }
+        and: 'response is ok'
+            response.getStatus() == HttpStatus.OK.value()
+            def anchorHistory = objectMapper.readValue(response.getContentAsString(), AnchorHistory)
+        and: 'content has expected values'
+            anchorHistory.getRecords() == [toAnchorDetails(networkData)]
+        and: 'next records link is provided for the next page'
+            def nextLinkQueryParams =
+                UriComponentsBuilder.fromUriString(anchorHistory.getNextRecordsLink()).build().getQueryParams()
+            nextLinkQueryParams.getFirst('pageNumber') == (expectedPageNumber + 1).toString()
+            nextLinkQueryParams.getFirst('schema-set-name') == mySchemaset
+        where:
+            scenario          | parameters                                                                             || expectedPageNumber | expectedPageSize
+            'default values'  | [:]                                                                                    || 0                  | 1000
+            'provided values' | [observedTimestamp: '2021-07-24T01:00:01.000-0400', pageNumber: '2', pageLimit: '10'] || 2                  | 10
+    }
+
+    def 'Get anchors snapshot Error handling: invalid date format in observedTimestamp'() {
+        when: 'endpoint is called with an invalid observed timestamp'
+            def response = mvc.perform(get("/cps-temporal/api/v1/dataspaces/${myDataspace}/anchors/snapshot")
+                .queryParam('schema-set-name', mySchemaset)
+                .queryParam('observedTimestamp', 'invalid-date-string')).andReturn().response
+        then: 'received bad request status'
+            response.getStatus() == HttpStatus.BAD_REQUEST.value()
+        and: 'error details'
+            def errorMessage = objectMapper.readValue(response.getContentAsString(), ErrorMessage)
+            errorMessage.getMessage().contains('observedTimestamp')
+    }
+
+    def 'Get #endpointName change statistics with #scenario'() {
+        given: 'change statistics endpoint'
+            def endpoint = endpointName == 'anchor by name'
+                ? "/cps-temporal/api/v1/dataspaces/${myDataspace}/anchors/${myAnchor}/change-statistics"
+                : "/cps-temporal/api/v1/dataspaces/${myDataspace}/anchors/change-statistics"
+            def requestBuilder = get(endpoint)
+            parameters.each { requestBuilder.queryParam(it.key, it.value) }
+        and: 'change count to be returned'
+            def changeCount = NetworkDataChangeCount.builder().bucket(OffsetDateTime.parse('2021-07-24T00:00:00Z'))
+                .dataspace(myDataspace).schemaSet(mySchemaset).anchor(myAnchor).operation(Operation.UPDATE)
+                .count(42).build()
+        when: 'endpoint is called'
+            def response = mvc.perform(requestBuilder).andReturn().response
+        then: 'network data service is called with expected change count criteria'
+            1 * mockNetworkDataService.searchNetworkDataChangeCounts(_ as ChangeCountCriteria) >> {
+                ChangeCountCriteria changeCountCriteria ->
+                    assert changeCountCriteria.getDataspaceName() == myDataspace
+                    assert changeCountCriteria.getAnchorName() == expectedAnchorName
+                    assert changeCountCriteria.getSchemaSetName() == expectedSchemaSetName
+                    assert changeCountCriteria.getGranularity() == expectedGranularity
+                    assert changeCountCriteria.getObservedAfter() ==
+                        DateTimeUtility.toOffsetDateTime(parameters.observedTimestampAfter)
+                    assert changeCountCriteria.getObservedBefore() ==
+                        DateTimeUtility.toOffsetDateTime(parameters.observedTimestampBefore)
+                    assert changeCountCriteria.getPageable().getPageNumber() == expectedPageNumber
+                    return new SliceImpl([changeCount], changeCountCriteria.getPageable(), true)
+            }
+        and: 'response is ok'
+            response.getStatus() == HttpStatus.OK.value()
+            def changeStatistics = objectMapper.readValue(response.getContentAsString(), ChangeStatistics)
+        and: 'content has expected values'
+            changeStatistics.getRecords().size() == 1
+            with(changeStatistics.getRecords()[0]) {
+                getBucket() == DateTimeUtility.toString(changeCount.getBucket())
+                getAnchor() == myAnchor
+                getOperation() == ChangeCount.OperationEnum.UPDATE
+                getCount() == 42
+            }
+        and: 'next records link keeps the granularity and points to the next page'
+            def nextLinkQueryParams =
+                UriComponentsBuilder.fromUriString(changeStatistics.getNextRecordsLink()).build().getQueryParams()
+            nextLinkQueryParams.getFirst('pageNumber') == (expectedPageNumber + 1).toString()
+            nextLinkQueryParams.getFirst('granularity') == expectedGranularity.name().toLowerCase()
+        where:
+            scenario          | endpointName           | parameters                                                                                                                                             || expectedPageNumber | expectedGranularity
+            'default values'  | 'anchor by name'       | [:]                                                                                                                                                    || 0                  | ChangeCountGranularity.HOUR
+            'provided values' | 'anchor by name'       | [granularity: 'day', observedTimestampAfter: '2021-07-20T00:00:00.000-0000', observedTimestampBefore: '2021-07-25T00:00:00.000-0000', pageNumber: '2'] || 2                  | ChangeCountGranularity.DAY
+            'default values'  | 'anchors by schemaset' | ['schema-set-name': mySchemaset]                                                                                                                       || 0                  | ChangeCountGranularity.HOUR
+            'provided values' | 'anchors by schemaset' | ['schema-set-name': mySchemaset, granularity: 'week', pageNumber: '1']                                                                                 || 1                  | ChangeCountGranularity.WEEK
+            expectedAnchorName = endpointName == 'anchor by name' ? myAnchor : null
+            expectedSchemaSetName = endpointName == 'anchor by name' ? null : mySchemaset
+    }
+
+    def 'Get change statistics Error handling: #scenario'() {
+        when: 'endpoint is called with an invalid parameter'
+            def response = mvc.perform(get("/cps-temporal/api/v1/dataspaces/${myDataspace}/anchors/${myAnchor}/change-statistics")
+                .queryParam(parameterName, 'invalid-value')).andReturn().response
+        then: 'received bad request status'
+            response.getStatus() == HttpStatus.BAD_REQUEST.value()
+        and: 'error details mention the invalid parameter'
+            def errorMessage = objectMapper.readValue(response.getContentAsString(), ErrorMessage)
+            errorMessage.getMessage().contains(parameterName)
+        where:
+            scenario                        | parameterName
+            'invalid granularity'           | 'granularity'
+            'invalid date format in after'  | 'observedTimestampAfter'
+            'invalid date format in before' | 'observedTimestampBefore'
+    }
+
+    def 'Get latest anchor data by name.'() {
+        given: 'the latest network data of the anchor'
+            def networkData = createNetworkData()
+            mockNetworkDataService.getLatestNetworkData(myDataspace, myAnchor) >> networkData
+        when: 'endpoint is called'
+            def response = mvc.perform(get('/cps-temporal/api/v1/dataspaces/{dataspace}/anchors/{anchor}/latest',
+                myDataspace, myAnchor)).andReturn().response
+        then: 'status is ok'
+            response.getStatus() == HttpStatus.OK.value()
+        and: 'the latest network data is returned'
+            objectMapper.readValue(response.getContentAsString(), AnchorDetails) == toAnchorDetails(networkData)
+    }
+
+    def 'Get latest anchor data by name Error handling: no data for the anchor.'() {
+        given: 'no network data for the anchor'
+            mockNetworkDataService.getLatestNetworkData(myDataspace, myAnchor) >> {
+                throw new NetworkDataNotFoundException('no data')
+            }
+        when: 'endpoint is called'
+            def response = mvc.perform(get('/cps-temporal/api/v1/dataspaces/{dataspace}/anchors/{anchor}/latest',
+                myDataspace, myAnchor)).andReturn().response
+        then: 'received not found status'
+            response.getStatus() == HttpStatus.NOT_FOUND.value()
+    }
+
     NetworkData createNetworkData() {
         return NetworkData.builder().dataspace(myDataspace)
             .schemaSet(mySchemaset).anchor(myAnchor).payload('{"message" : "Hello World"}')
@@ -0,0 +1,128 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.rest
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import org.onap.cps.temporal.controller.rest.model.AnchorDetails
+import org.onap.cps.temporal.controller.rest.model.AnchorDetailsMapperImpl
+import org.onap.cps.temporal.controller.rest.model.ErrorMessage
+import org.onap.cps.temporal.controller.rest.model.SortMapper
+import org.onap.cps.temporal.domain.NetworkData
+import org.onap.cps.temporal.domain.Operation
+import org.onap.cps.temporal.domain.SearchCriteria
+import org.onap.cps.temporal.service.NetworkDataReactiveService
+import org.spockframework.spring.SpringBean
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest
+import org.springframework.context.annotation.Import
+import org.springframework.data.domain.Sort
+import org.springframework.http.HttpStatus
+import org.springframework.http.MediaType
+import org.springframework.security.test.context.support.WithMockUser
+import org.springframework.test.context.TestPropertySource
+import org.springframework.test.web.servlet.MockMvc
+import reactor.core.publisher.Flux
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.time.OffsetDateTime
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request
+
+@WebMvcTest(ReactiveQueryController)
+@TestPropertySource(properties = 'app.query.reactive.enabled=true')
+@Import([SortMapper, AnchorDetailsMapperImpl])
+@WithMockUser
+class ReactiveQueryControllerSpec extends Specification {
+
+    @SpringBean
+    NetworkDataReactiveService mockNetworkDataReactiveService = Mock()
+
+    @Autowired
+    MockMvc mvc
+
+    @Shared
+    def objectMapper = new ObjectMapper()
+
+    @Shared
+    def anchorByNameUrl = '/cps-temporal/api/v1/dataspaces/my-dataspace/anchors/my-anchor/history/stream'
+    @Shared
+    def anchorsBySchemaSetUrl =
+        '/cps-temporal/api/v1/dataspaces/my-dataspace/anchors/history/stream?schema-set-name=my-schema-set'
+
+    def 'Stream #endpointName: records are streamed as newline delimited json'() {
+        given: 'network data to be streamed'
+            def payloads = ['{"status": "up"}', '{"status": "down"}']
+        when: 'endpoint is called with a payload filter'
+            def mvcResult = mvc.perform(get(url).queryParam('simplePayloadFilter', '{"status": "up"}'))
+                .andExpect(request().asyncStarted()).andReturn()
+            def response = mvc.perform(asyncDispatch(mvcResult)).andReturn().response
+        then: 'reactive service streams the data matching the unpaged search criteria'
+            1 * mockNetworkDataReactiveService.streamNetworkData(_ as SearchCriteria) >> {
+                SearchCriteria searchCriteria ->
+                    assert searchCriteria.getPageable().isUnpaged()
+                    assert searchCriteria.getDataspaceName() == 'my-dataspace'
+                    assert searchCriteria.getAnchorName() == expectedAnchorName
+                    assert searchCriteria.getSchemaSetName() == expectedSchemaSetName
+                    assert searchCriteria.getSimplePayloadFilter() == '{"status": "up"}'
+                    assert searchCriteria.getSort() == Sort.by(Sort.Direction.DESC, 'observed_timestamp')
+                    return Flux.fromIterable(payloads.collect { createNetworkData(it) })
+            }
+        and: 'response is ok with newline delimited json content'
+            response.getStatus() == HttpStatus.OK.value()
+            response.getContentType() == MediaType.APPLICATION_NDJSON_VALUE
+        and: 'each line is a record'
+            def lines = response.getContentAsString().split('\n')
+            lines.collect { objectMapper.readValue(it, AnchorDetails).getData() } == payloads
+        where:
+            endpointName           | url                   || expectedAnchorName | expectedSchemaSetName
+            'anchor by name'       | anchorByNameUrl       || 'my-anchor'        | null
+            'anchors by schemaset' | anchorsBySchemaSetUrl || null               | 'my-schema-set'
+    }
+
+    def 'Stream #endpointName Error handling: invalid date format in pointInTime'() {
+        when: 'endpoint is called with an invalid date'
+            def response = mvc.perform(get(url).queryParam('pointInTime', 'invalid-date-string'))
+                .andReturn().response
+        then: 'received bad request status'
+            response.getStatus() == HttpStatus.BAD_REQUEST.value()
+        and: 'nothing is streamed'
+            0 * mockNetworkDataReactiveService.streamNetworkData(_)
+        and: 'error details'
+            def errorMessage = objectMapper.readValue(response.getContentAsString(), ErrorMessage)
+            errorMessage.getMessage().contains('pointInTime')
+        where:
+            endpointName           | url
+            'anchor by name'       | anchorByNameUrl
+            'anchors by schemaset' | anchorsBySchemaSetUrl
+    }
+
+    def createNetworkData(String payload) {
+        return NetworkData.builder().dataspace('my-dataspace')
+            .schemaSet('my-schema-set').anchor('my-anchor').payload(payload)
+            .observedTimestamp(OffsetDateTime.now())
+            .operation(Operation.UPDATE)
+            .createdTimestamp(OffsetDateTime.now()).build()
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.controller.scheduler
+
+import org.onap.cps.temporal.service.NetworkDataRetentionService
+import spock.lang.Specification
+
+/**
+ * Test specification for retention scheduler.
+ */
+class RetentionSchedulerSpec extends Specification {
+
+    def mockNetworkDataRetentionService = Mock(NetworkDataRetentionService)
+
+    def objectUnderTest = new RetentionScheduler(mockNetworkDataRetentionService)
+
+    def 'Retention rules are validated at startup.'() {
+        when: 'the scheduler is initialized'
+            objectUnderTest.validateRetentionRules()
+        then: 'retention rules are validated by the service'
+            1 * mockNetworkDataRetentionService.validateRules()
+    }
+
+    def 'Scheduled retention is applied.'() {
+        when: 'scheduled retention is triggered'
+            objectUnderTest.applyRetention()
+        then: 'retention is applied by the service'
+            1 * mockNetworkDataRetentionService.applyRetention()
+    }
+
+    def 'Scheduled retention failure is not propagated.'() {
+        given: 'retention failing'
+            mockNetworkDataRetentionService.applyRetention() >> { throw new RuntimeException('some error') }
+        when: 'scheduled retention is triggered'
+            objectUnderTest.applyRetention()
+        then: 'no exception is thrown so that next schedule is not affected'
+            noExceptionThrown()
+    }
+
+}
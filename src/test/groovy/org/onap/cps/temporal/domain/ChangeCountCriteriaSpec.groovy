@@ -0,0 +1,88 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.domain
+
+import spock.lang.Specification
+import java.time.OffsetDateTime
+
+class ChangeCountCriteriaSpec extends Specification {
+
+    def myDataspace = 'my-dataspace'
+    def myAnchor = 'my-anchor'
+
+    def 'Change Count Criteria has default values if not provided.'() {
+        when: 'change count criteria is created'
+            def changeCountCriteria = ChangeCountCriteria.builder()
+                .dataspaceName(myDataspace)
+                .anchorName(myAnchor)
+                .pagination(1, 10)
+                .build()
+        then: 'changes are counted by hour'
+            changeCountCriteria.getGranularity() == ChangeCountGranularity.HOUR
+        and: 'time range is not limited'
+            changeCountCriteria.getObservedAfter() == null
+            changeCountCriteria.getObservedBefore() == null
+        and: 'contains the provided value to builder'
+            changeCountCriteria.getDataspaceName() == myDataspace
+            changeCountCriteria.getAnchorName() == myAnchor
+            changeCountCriteria.getPageable().getPageNumber() == 1
+            changeCountCriteria.getPageable().getPageSize() == 10
+    }
+
+    def 'Change Count Criteria with the provided values.'() {
+        given: 'a time range'
+            def oneDayAgo = OffsetDateTime.now().minusDays(1)
+            def oneHourAgo = OffsetDateTime.now().minusHours(1)
+        when: 'change count criteria is created'
+            def changeCountCriteria = ChangeCountCriteria.builder()
+                .dataspaceName(myDataspace)
+                .schemaSetName('my-schemaset')
+                .granularity(ChangeCountGranularity.WEEK)
+                .observedAfter(oneDayAgo)
+                .observedBefore(oneHourAgo)
+                .pagination(0, 10)
+                .build()
+        then: 'change count criteria has expected values'
+            changeCountCriteria.getSchemaSetName() == 'my-schemaset'
+            changeCountCriteria.getGranularity() == ChangeCountGranularity.WEEK
+            changeCountCriteria.getObservedAfter() == oneDayAgo
+            changeCountCriteria.getObservedBefore() == oneHourAgo
+    }
+
+    def 'Error handling: missing #scenario.'() {
+        when: 'change count criteria is created with missing value'
+            def builder = ChangeCountCriteria.builder().dataspaceName(dataspace).anchorName(anchor)
+                .granularity(granularity)
+            if (pagination) {
+                builder.pagination(0, 10)
+            }
+            builder.build()
+        then: 'exception is thrown'
+            thrown(IllegalStateException)
+        where:
+            scenario                   | dataspace      | anchor      | granularity                 | pagination
+            'dataspace'                | null           | 'my-anchor' | ChangeCountGranularity.HOUR | true
+            'anchor and schema set'    | 'my-dataspace' | null        | ChangeCountGranularity.HOUR | true
+            'granularity'              | 'my-dataspace' | 'my-anchor' | null                        | true
+            'pagination'               | 'my-dataspace' | 'my-anchor' | ChangeCountGranularity.HOUR | false
+    }
+
+}
@@ -63,6 +63,8 @@ class SearchCriteriaSpec extends Specification {
             def nowAsObservedAfter = OffsetDateTime.now()
         and: 'simple payload filter'
             def simplePayloadFilter = '{"message":"hello world"}'
+        and: 'cursor'
+            def cursor = new SearchCursor(OffsetDateTime.now().minusHours(1), myAnchorName)
 
         when: 'search criteria is created'
             def searchCriteria = SearchCriteria.builder()
@@ -74,6 +76,7 @@ class SearchCriteriaSpec extends Specification {
                 .sort(sortBy)
                 .observedAfter(nowAsObservedAfter)
                 .createdBefore(lastDayAsCreatedBefore)
+                .cursor(cursor)
                 .build()
 
         then: 'search criteria has expected value'
@@ -87,9 +90,26 @@ class SearchCriteriaSpec extends Specification {
                 pageable.getPageNumber() == 0
                 pageable.getPageSize() == 10
                 pageable.getSort() == sortBy
+                it.cursor == cursor
             }
     }
 
+    def 'Search Criteria without pagination.'() {
+        given: 'sort by parameter'
+            def sortBy = Sort.by(Sort.Order.asc('anchor'), Sort.Order.desc('observed_timestamp'))
+        when: 'unpaged search criteria is created'
+            def searchCriteria = SearchCriteria.builder()
+                .dataspaceName(myDataspace)
+                .schemaSetName(myschemaSetName)
+                .unpaged()
+                .sort(sortBy)
+                .build()
+        then: 'search criteria is unpaged'
+            searchCriteria.getPageable().isUnpaged()
+        and: 'has the provided sort'
+            searchCriteria.getSort() == sortBy
+    }
+
     def 'Error handling: missing dataspace.'() {
         when: 'search criteria is created without dataspace'
             SearchCriteria.builder()
@@ -120,6 +140,18 @@ class SearchCriteriaSpec extends Specification {
             thrown(IllegalStateException)
     }
 
+    def 'Error handling: page number combined with cursor.'() {
+        when: 'search criteria is created with a cursor for another page than the first one'
+            SearchCriteria.builder()
+                .dataspaceName(myDataspace)
+                .anchorName(myAnchorName)
+                .pagination(1, 10)
+                .cursor(new SearchCursor(OffsetDateTime.now(), myAnchorName))
+                .build()
+        then: 'exception is thrown'
+            thrown(IllegalStateException)
+    }
+
     def 'Error Handling: sort based on #scenario .'() {
         when: 'search criteria is created without sorting information'
             SearchCriteria.builder()
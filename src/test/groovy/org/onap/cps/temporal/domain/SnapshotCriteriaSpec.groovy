@@ -0,0 +1,84 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.domain
+
+import org.springframework.data.domain.Sort
+import spock.lang.Specification
+import java.time.OffsetDateTime
+
+class SnapshotCriteriaSpec extends Specification {
+
+    def myDataspace = 'my-dataspace'
+    def mySchemaSetName = 'my-schemaset'
+
+    def 'Snapshot Criteria has default values if not provided.'() {
+        when: 'snapshot criteria is created'
+            def snapshotCriteria = SnapshotCriteria.builder()
+                .dataspaceName(myDataspace)
+                .schemaSetName(mySchemaSetName)
+                .pagination(1, 10)
+                .build()
+        then: 'observed timestamp and created before have almost current time as default value'
+            OffsetDateTime.now().minusMinutes(5).isBefore(snapshotCriteria.getObservedTimestamp())
+            OffsetDateTime.now().minusMinutes(5).isBefore(snapshotCriteria.getCreatedBefore())
+        and: 'data are sorted by anchor'
+            snapshotCriteria.getPageable().getSort() == Sort.by(Sort.Direction.ASC, 'anchor')
+        and: 'contains the provided value to builder'
+            snapshotCriteria.getDataspaceName() == myDataspace
+            snapshotCriteria.getSchemaSetName() == mySchemaSetName
+            snapshotCriteria.getPageable().getPageNumber() == 1
+            snapshotCriteria.getPageable().getPageSize() == 10
+    }
+
+    def 'Snapshot Criteria with the provided values.'() {
+        given: 'observed timestamp and created before'
+            def oneHourAgo = OffsetDateTime.now().minusHours(1)
+            def oneDayAgo = OffsetDateTime.now().minusDays(1)
+        when: 'snapshot criteria is created'
+            def snapshotCriteria = SnapshotCriteria.builder()
+                .dataspaceName(myDataspace)
+                .schemaSetName(mySchemaSetName)
+                .observedTimestamp(oneDayAgo)
+                .createdBefore(oneHourAgo)
+                .pagination(0, 10)
+                .build()
+        then: 'snapshot criteria has expected values'
+            snapshotCriteria.getObservedTimestamp() == oneDayAgo
+            snapshotCriteria.getCreatedBefore() == oneHourAgo
+    }
+
+    def 'Error handling: missing #scenario.'() {
+        when: 'snapshot criteria is created with missing value'
+            def builder = SnapshotCriteria.builder().dataspaceName(dataspace).schemaSetName(schemaSet)
+            if (pagination) {
+                builder.pagination(0, 10)
+            }
+            builder.build()
+        then: 'exception is thrown'
+            thrown(IllegalStateException)
+        where:
+            scenario     | dataspace      | schemaSet        | pagination
+            'dataspace'  | null           | 'my-schemaset'   | true
+            'schema set' | 'my-dataspace' | null             | true
+            'pagination' | 'my-dataspace' | 'my-schemaset'   | false
+    }
+
+}
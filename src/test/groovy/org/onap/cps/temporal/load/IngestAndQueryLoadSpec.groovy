@@ -0,0 +1,379 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.load
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import io.micrometer.core.instrument.Timer
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.apache.kafka.clients.admin.AdminClient
+import org.apache.kafka.clients.admin.AdminClientConfig
+import org.apache.kafka.clients.admin.NewTopic
+import org.apache.kafka.clients.admin.OffsetSpec
+import org.apache.kafka.common.TopicPartition
+import org.onap.cps.event.model.CpsDataUpdatedEvent
+import org.onap.cps.temporal.controller.event.listener.kafka.EventFixtures
+import org.onap.cps.temporal.domain.SearchCriteria
+import org.onap.cps.temporal.domain.SnapshotCriteria
+import org.onap.cps.temporal.repository.NetworkDataRepository
+import org.onap.cps.temporal.repository.containers.TimescaleContainer
+import org.slf4j.LoggerFactory
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.beans.factory.annotation.Value
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.boot.test.web.client.TestRestTemplate
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.kafka.core.KafkaTemplate
+import org.springframework.test.context.DynamicPropertyRegistry
+import org.springframework.test.context.DynamicPropertySource
+import org.testcontainers.containers.KafkaContainer
+import org.testcontainers.spock.Testcontainers
+import spock.lang.Requires
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Stepwise
+
+import java.nio.file.Path
+import java.time.Duration
+import java.time.OffsetDateTime
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Load test specification of event ingestion and history queries, running database and kafka as docker containers.
+ * Synthetic events are published while history queries are run concurrently, then sustained ingestion rate,
+ * consumer lag, query latencies and database growth are reported. It only runs with the 'load-test' profile, its
+ * parameters being provided as system properties:
+ * <ul>
+ *     <li>load-test.event-count: number of events published</li>
+ *     <li>load-test.anchor-count: number of distinct anchors the events are spread over</li>
+ *     <li>load-test.payload-size: approximate size of each event data, in bytes</li>
+ *     <li>load-test.partition-count: number of partitions of the topic, each consumed by its own consumer</li>
+ *     <li>load-test.listener-mode: listener mode, the configured one if not provided</li>
+ *     <li>load-test.query-threads: number of threads running history queries</li>
+ *     <li>load-test.timeout: maximum duration of the ingestion (ISO-8601 duration)</li>
+ *     <li>load-test.report: file the report is written to, in json</li>
+ *     <li>load-test.compression.query-count: number of each history query run on uncompressed, then compressed
+ *     chunks of the ingested network data</li>
+ *     <li>load-test.compression.report: file the compression report is written to, in json</li>
+ * </ul>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Testcontainers
+@Requires({ sys['load-test.enabled'] == 'true' })
+@Stepwise
+class IngestAndQueryLoadSpec extends Specification {
+
+    static final def log = LoggerFactory.getLogger(IngestAndQueryLoadSpec)
+
+    static final String TOPIC = 'load-test.data-updated-events'
+    static final String DATASPACE_NAME = 'load-test-dataspace'
+    static final String SCHEMA_SET_NAME = 'load-test-schema-set'
+
+    static final long EVENT_COUNT = Long.getLong('load-test.event-count', 100_000)
+    static final int ANCHOR_COUNT = Integer.getInteger('load-test.anchor-count', 1_000)
+    static final int PAYLOAD_SIZE = Integer.getInteger('load-test.payload-size', 2_048)
+    static final int PARTITION_COUNT = Integer.getInteger('load-test.partition-count', 6)
+    static final String LISTENER_MODE = System.getProperty('load-test.listener-mode')
+    static final int QUERY_THREADS = Integer.getInteger('load-test.query-threads', 4)
+    static final Duration TIMEOUT = Duration.parse(System.getProperty('load-test.timeout', 'PT30M'))
+    static final String REPORT_PATH = System.getProperty('load-test.report', 'target/load-test-report.json')
+    static final int COMPRESSION_QUERY_COUNT = Integer.getInteger('load-test.compression.query-count', 200)
+    static final String COMPRESSION_REPORT_PATH = System.getProperty('load-test.compression.report',
+        'target/load-test-compression-report.json')
+
+    @Shared
+    TimescaleContainer timescaleTestContainer = TimescaleContainer.getInstance()
+
+    static kafkaTestContainer = new KafkaContainer()
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(kafkaTestContainer::stop))
+    }
+
+    @Shared
+    AdminClient adminClient
+
+    @Autowired
+    KafkaTemplate<String, CpsDataUpdatedEvent> kafkaTemplate
+
+    @Autowired
+    JdbcTemplate jdbcTemplate
+
+    @Autowired
+    NetworkDataRepository networkDataRepository
+
+    @Autowired
+    TestRestTemplate restTemplate
+
+    @Value('${spring.kafka.consumer.group-id}')
+    String consumerGroupId
+
+    @Value('${security.auth.username}')
+    String username
+
+    @Value('${security.auth.password}')
+    String password
+
+    @Value('${rest.api.base-path}')
+    String basePath
+
+    def queryTimers = new ConcurrentHashMap<String, Timer>()
+    def meterRegistry = new SimpleMeterRegistry()
+    def failedQueryCount = new AtomicLong()
+
+    def setupSpec() {
+        kafkaTestContainer.start()
+        adminClient = AdminClient.create([(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG):
+                                              kafkaTestContainer.getBootstrapServers()])
+        adminClient.createTopics([new NewTopic(TOPIC, PARTITION_COUNT, (short) 1)]).all().get()
+    }
+
+    def cleanupSpec() {
+        adminClient?.close()
+    }
+
+    def 'Sustained ingestion of events with concurrent history queries'() {
+        given: 'the database size before the load'
+            def initialSize = getDatabaseSize()
+        and: 'history queries running concurrently'
+            def isIngestionComplete = new AtomicBoolean()
+            def queryExecutor = Executors.newFixedThreadPool(QUERY_THREADS)
+            QUERY_THREADS.times { queryExecutor.submit({ runQueries(isIngestionComplete) } as Runnable) }
+        when: 'the events are published'
+            def startTime = System.nanoTime()
+            publishEvents()
+            def publishDuration = Duration.ofNanos(System.nanoTime() - startTime)
+        and: 'all the events are consumed'
+            def lagSamples = waitForConsumption(startTime)
+            def ingestionDuration = Duration.ofNanos(System.nanoTime() - startTime)
+            isIngestionComplete.set(true)
+            queryExecutor.shutdown()
+            queryExecutor.awaitTermination(1, TimeUnit.MINUTES)
+        then: 'all the events are persisted'
+            countNetworkData() == EVENT_COUNT
+        and: 'all the queries succeed'
+            failedQueryCount.get() == 0
+        cleanup: 'the report is written'
+            if (lagSamples != null) {
+                writeReport(publishDuration, ingestionDuration, lagSamples, initialSize, getDatabaseSize())
+            }
+    }
+
+    def 'History queries on compressed chunks compared to uncompressed chunks'() {
+        given: 'the history queries timed on the uncompressed chunks of the ingested network data'
+            def uncompressedTimers = timeRepositoryQueries()
+            def uncompressedSize = getDatabaseSize()
+        when: 'all the chunks are compressed'
+            def compressionStartTime = System.nanoTime()
+            jdbcTemplate.queryForList(
+                "SELECT compress_chunk(chunk, if_not_compressed => true) FROM show_chunks('network_data') chunk")
+            def compressionDuration = Duration.ofNanos(System.nanoTime() - compressionStartTime)
+        and: 'the same history queries are timed on the compressed chunks'
+            def compressedTimers = timeRepositoryQueries()
+        then: 'all the queries succeed on compressed chunks'
+            compressedTimers.values().every { it.count() == COMPRESSION_QUERY_COUNT }
+        cleanup: 'the report is written and the chunks are decompressed'
+            if (compressedTimers != null) {
+                writeCompressionReport(uncompressedTimers, compressedTimers, uncompressedSize, getDatabaseSize(),
+                    compressionDuration)
+            }
+            jdbcTemplate.queryForList(
+                "SELECT decompress_chunk(chunk, if_compressed => true) FROM show_chunks('network_data') chunk")
+    }
+
+    def publishEvents() {
+        def filler = 'x' * PAYLOAD_SIZE
+        def firstObservedTimestamp = OffsetDateTime.now().minusDays(1)
+        for (long eventIndex = 0; eventIndex < EVENT_COUNT; eventIndex++) {
+            def anchorName = getAnchorName(eventIndex % ANCHOR_COUNT)
+            def event = EventFixtures.buildEvent(
+                observedTimestamp: EventFixtures.isoTimestampFormatter.format(
+                    firstObservedTimestamp.plusNanos(eventIndex * 1_000_000)),
+                dataspace: DATASPACE_NAME, schemaSet: SCHEMA_SET_NAME, anchor: anchorName,
+                data: [sequence: eventIndex, filler: filler])
+            kafkaTemplate.send(TOPIC, anchorName, event)
+        }
+        kafkaTemplate.flush()
+    }
+
+    /*
+    Consumer lag is sampled every second, until all the published events are consumed, i.e. their offsets are
+    committed by the listener once persisted.
+     */
+    def waitForConsumption(startTime) {
+        def lagSamples = []
+        def timeoutTime = startTime + TIMEOUT.toNanos()
+        while (System.nanoTime() < timeoutTime) {
+            def lag = getConsumerLag()
+            lagSamples << [elapsedSeconds: TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startTime), lag: lag]
+            if (lag == 0) {
+                return lagSamples
+            }
+            TimeUnit.SECONDS.sleep(1)
+        }
+        log.warn('Events not consumed within {}', TIMEOUT)
+        return lagSamples
+    }
+
+    def getConsumerLag() {
+        def committedOffsets = adminClient.listConsumerGroupOffsets(consumerGroupId)
+            .partitionsToOffsetAndMetadata().get()
+        def partitions = (0..<PARTITION_COUNT).collect { new TopicPartition(TOPIC, it) }
+        def endOffsets = adminClient.listOffsets(partitions.collectEntries { [(it): OffsetSpec.latest()] }).all().get()
+        return partitions.sum { endOffsets[it].offset() - (committedOffsets[it]?.offset() ?: 0) }
+    }
+
+    /*
+    Query mix of a client browsing history: per anchor history and latest data, history and snapshot of the schema set.
+     */
+    def runQueries(isIngestionComplete) {
+        def random = new Random()
+        def authenticatedRestTemplate = restTemplate.withBasicAuth(username, password)
+        def dataspacePath = "${basePath}/v1/dataspaces/${DATASPACE_NAME}"
+        def randomAnchorPath = { "${dataspacePath}/anchors/${getAnchorName(random.nextInt(ANCHOR_COUNT))}" }
+        def queries = [
+            'anchor-history'  : { "${randomAnchorPath()}/history?pageLimit=20" },
+            'anchor-latest'   : { "${randomAnchorPath()}/latest" },
+            'anchors-history' : { "${dataspacePath}/anchors/history?schema-set-name=${SCHEMA_SET_NAME}&pageLimit=20" },
+            'anchors-snapshot': { "${dataspacePath}/anchors/snapshot?schema-set-name=${SCHEMA_SET_NAME}&pageLimit=20" }
+        ]
+        while (!isIngestionComplete.get()) {
+            def query = queries.entrySet()[random.nextInt(queries.size())]
+            def timer = queryTimers.computeIfAbsent(query.key, {
+                Timer.builder('load-test.query').tag('query', it).publishPercentiles(0.5, 0.99).register(meterRegistry)
+            })
+            def startTime = System.nanoTime()
+            def response = authenticatedRestTemplate.getForEntity(query.value().toString(), String)
+            timer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS)
+            if (response.statusCode.isError() && response.statusCodeValue != 404) {
+                failedQueryCount.incrementAndGet()
+                log.warn('Query {} failed with status {}', query.key, response.statusCodeValue)
+            }
+        }
+    }
+
+    /*
+    Queries are run through the repository rather than the REST API, so that result and latest data caches do not hide
+    the database latency. Anchors are picked with the same seed on each run, for both runs to query the same rows.
+     */
+    def timeRepositoryQueries() {
+        def random = new Random(COMPRESSION_QUERY_COUNT)
+        def timerRegistry = new SimpleMeterRegistry()
+        def searchCriteria = { new SearchCriteria.Builder().dataspaceName(DATASPACE_NAME).pagination(0, 20) }
+        def queries = [
+            'anchor-history'  : {
+                networkDataRepository.findBySearchCriteria(searchCriteria()
+                    .anchorName(getAnchorName(random.nextInt(ANCHOR_COUNT))).build())
+            },
+            'anchors-history' : {
+                networkDataRepository.findBySearchCriteria(searchCriteria().schemaSetName(SCHEMA_SET_NAME).build())
+            },
+            'payload-filter'  : {
+                networkDataRepository.findBySearchCriteria(searchCriteria().schemaSetName(SCHEMA_SET_NAME)
+                    .simplePayloadFilter("{\"sequence\": ${random.nextInt((int) EVENT_COUNT)}}").build())
+            },
+            'anchors-snapshot': {
+                networkDataRepository.findLatestBySnapshotCriteria(SnapshotCriteria.builder()
+                    .dataspaceName(DATASPACE_NAME).schemaSetName(SCHEMA_SET_NAME).pagination(0, 20).build())
+            }
+        ]
+        return queries.collectEntries { name, query ->
+            def timer = Timer.builder('load-test.compression.query').tag('query', name)
+                .publishPercentiles(0.5, 0.99).register(timerRegistry)
+            COMPRESSION_QUERY_COUNT.times { timer.record({ query() } as Runnable) }
+            [(name): timer]
+        }
+    }
+
+    def countNetworkData() {
+        return jdbcTemplate.queryForObject('SELECT COUNT(1) FROM network_data WHERE dataspace = ?', Long,
+            DATASPACE_NAME)
+    }
+
+    def getDatabaseSize() {
+        def networkDataSize = jdbcTemplate.queryForMap('SELECT table_bytes, index_bytes, toast_bytes, total_bytes'
+            + ' FROM hypertable_detailed_size(\'network_data\')')
+        networkDataSize.payload_bytes = jdbcTemplate.queryForObject(
+            'SELECT pg_total_relation_size(\'network_data_payload\')', Long)
+        return networkDataSize
+    }
+
+    def writeReport(publishDuration, ingestionDuration, lagSamples, initialSize, finalSize) {
+        def report = [
+            parameters: [eventCount  : EVENT_COUNT, anchorCount: ANCHOR_COUNT, payloadSize: PAYLOAD_SIZE,
+                         partitionCount: PARTITION_COUNT, queryThreads: QUERY_THREADS],
+            ingestion : [publishSeconds      : publishDuration.toMillis() / 1000,
+                         ingestionSeconds    : ingestionDuration.toMillis() / 1000,
+                         sustainedEventsPerSecond: EVENT_COUNT * 1000 / Math.max(1, ingestionDuration.toMillis()),
+                         maxConsumerLag      : lagSamples*.lag.max(),
+                         consumerLag         : lagSamples],
+            queries   : toQueryReport(queryTimers) + [failed: failedQueryCount.get()],
+            database  : [initial: initialSize, final: finalSize,
+                         growth : finalSize.collectEntries { key, value -> [(key): value - (initialSize[key] ?: 0)] }]
+        ]
+        def reportFile = Path.of(REPORT_PATH).toFile()
+        reportFile.parentFile?.mkdirs()
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(reportFile, report)
+        log.info('Load test report written to {}: {}', reportFile, report.findAll { it.key != 'database' })
+    }
+
+    def writeCompressionReport(uncompressedTimers, compressedTimers, uncompressedSize, compressedSize,
+                               compressionDuration) {
+        def report = [
+            parameters: [eventCount: EVENT_COUNT, anchorCount: ANCHOR_COUNT, payloadSize: PAYLOAD_SIZE,
+                         queryCount: COMPRESSION_QUERY_COUNT],
+            compressionSeconds: compressionDuration.toMillis() / 1000,
+            queries   : [uncompressed: toQueryReport(uncompressedTimers), compressed: toQueryReport(compressedTimers)],
+            database  : [uncompressed: uncompressedSize, compressed: compressedSize]
+        ]
+        def reportFile = Path.of(COMPRESSION_REPORT_PATH).toFile()
+        reportFile.parentFile?.mkdirs()
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(reportFile, report)
+        log.info('Load test compression report written to {}: {}', reportFile, report.queries)
+    }
+
+    static def toQueryReport(timers) {
+        return timers.collectEntries { name, timer ->
+            def snapshot = timer.takeSnapshot()
+            def percentiles = snapshot.percentileValues().collectEntries {
+                [("p${(int) (it.percentile() * 100)}".toString()): it.value(TimeUnit.MILLISECONDS)]
+            }
+            [(name): [count: snapshot.count(), meanMillis: snapshot.mean(TimeUnit.MILLISECONDS)] + percentiles]
+        }
+    }
+
+    static def getAnchorName(anchorIndex) {
+        return String.format('load-test-anchor-%06d', anchorIndex)
+    }
+
+    @DynamicPropertySource
+    static void registerKafkaProperties(DynamicPropertyRegistry registry) {
+        registry.add('spring.kafka.bootstrap-servers', kafkaTestContainer::getBootstrapServers)
+        registry.add('spring.kafka.listener.concurrency', () -> PARTITION_COUNT)
+        registry.add('app.listener.data-updated.topic', () -> TOPIC)
+        if (LISTENER_MODE != null) {
+            registry.add('app.listener.data-updated.mode', () -> LISTENER_MODE)
+        }
+    }
+
+}
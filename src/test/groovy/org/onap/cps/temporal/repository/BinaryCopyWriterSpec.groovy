@@ -0,0 +1,85 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository
+
+import java.nio.charset.StandardCharsets
+import java.time.OffsetDateTime
+import java.time.ZoneOffset
+import spock.lang.Specification
+
+/**
+ * Test specification for binary copy writer.
+ */
+class BinaryCopyWriterSpec extends Specification {
+
+    def outputStream = new ByteArrayOutputStream()
+
+    def 'Write rows in PostgreSQL binary copy format.'() {
+        given: 'a binary copy writer'
+            def objectUnderTest = new BinaryCopyWriter(outputStream)
+        when: 'a row with a timestamp, a text, a null and a jsonb is written'
+            objectUnderTest.startRow(4)
+            objectUnderTest.writeTimestamp(OffsetDateTime.of(2000, 1, 1, 1, 0, 0, 1000, ZoneOffset.ofHours(1)))
+            objectUnderTest.writeText('\u00e9')
+            objectUnderTest.writeText(null)
+            objectUnderTest.writeJsonb('{}')
+        and: 'the writer is finished'
+            objectUnderTest.finish()
+        then: 'the header is written with its signature, flags and extension length'
+            def input = new DataInputStream(new ByteArrayInputStream(outputStream.toByteArray()))
+            def signature = new byte[11]
+            input.readFully(signature)
+            signature == 'PGCOPY\n\u00ff\r\n\u0000'.getBytes(StandardCharsets.ISO_8859_1)
+            input.readInt() == 0
+            input.readInt() == 0
+        and: 'the row is written with its column count'
+            input.readShort() == 4
+        and: 'the timestamp is written as microseconds since 2000-01-01 UTC'
+            input.readInt() == 8
+            input.readLong() == 1
+        and: 'the text is written as UTF-8'
+            input.readInt() == 2
+            input.readUnsignedShort() == 0xC3A9
+        and: 'the null is written as a negative length'
+            input.readInt() == -1
+        and: 'the jsonb is written with its version'
+            input.readInt() == 3
+            input.readByte() == 1
+            input.readUnsignedShort() == 0x7B7D
+        and: 'the trailer ends the output'
+            input.readShort() == -1
+            input.available() == 0
+    }
+
+    def 'Nothing but the header is flushed until the writer is finished.'() {
+        given: 'a binary copy writer with a row written'
+            def objectUnderTest = new BinaryCopyWriter(outputStream)
+            objectUnderTest.startRow(1)
+            objectUnderTest.writeText('my-text')
+        expect: 'nothing is flushed yet'
+            outputStream.size() == 0
+        when: 'the writer is finished'
+            objectUnderTest.finish()
+        then: 'header, row and trailer are flushed'
+            outputStream.size() == 19 + 2 + 4 + 7 + 2
+    }
+
+}
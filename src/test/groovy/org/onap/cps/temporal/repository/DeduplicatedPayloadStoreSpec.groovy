@@ -0,0 +1,160 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import static org.onap.cps.temporal.domain.Operation.CREATE
+import static org.onap.cps.temporal.domain.Operation.DELETE
+import static org.onap.cps.temporal.domain.Operation.UPDATE
+
+import groovy.json.JsonSlurper
+import org.onap.cps.temporal.domain.NetworkData
+import org.onap.cps.temporal.domain.Operation
+import org.onap.cps.temporal.domain.SearchCriteria
+import org.onap.cps.temporal.repository.containers.TimescaleContainer
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest
+import org.springframework.context.annotation.Import
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.test.context.TestPropertySource
+import org.testcontainers.spock.Testcontainers
+import spock.lang.Shared
+import spock.lang.Specification
+import java.time.OffsetDateTime
+import java.util.stream.Collectors
+
+/**
+ * Test specification for network data payloads stored once and referenced by their hash.
+ */
+@Testcontainers
+@DataJpaTest
+@Import([QueryPlanSampler, SearchQueryMetrics, SimpleMeterRegistry])
+@TestPropertySource(properties = ['app.storage.payload.mode=deduplicated', 'app.storage.payload.skip-unchanged=true'])
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class DeduplicatedPayloadStoreSpec extends Specification {
+
+    def myDataspaceName = 'DEDUPLICATED-DATASPACE'
+    def mySchemaSetName = 'DEDUPLICATED-SCHEMA-SET'
+    def baseTimestamp = OffsetDateTime.parse('2021-07-22T10:00:00.000Z')
+    def upPayload = '{"interface": {"name": "eth0", "status": "up"}}'
+    def upPayloadReordered = '{"interface": {"status": "up", "name": "eth0"}}'
+    def downPayload = '{"interface": {"name": "eth0", "status": "down"}}'
+
+    @Autowired
+    NetworkDataRepository networkDataRepository
+
+    @Autowired
+    JdbcTemplate jdbcTemplate
+
+    @Shared
+    TimescaleContainer databaseTestContainer = TimescaleContainer.getInstance()
+
+    def 'Deduplicated mode: identical payloads are stored once.'() {
+        when: 'anchors are created with identical payloads, but for the order of their members, and a distinct one'
+            def insertResult = networkDataRepository.insertAll([
+                buildNetworkData('ANCHOR-01', 0, CREATE, upPayload),
+                buildNetworkData('ANCHOR-02', 0, CREATE, upPayloadReordered),
+                buildNetworkData('ANCHOR-03', 0, CREATE, downPayload)])
+        then: 'all the network data are inserted'
+            insertResult.getInsertedCount() == 3
+        and: 'they reference their payload instead of storing it'
+            getStoredFormats() == ['REFERENCE', 'REFERENCE', 'REFERENCE']
+        and: 'identical payloads are stored once'
+            jdbcTemplate.queryForObject('SELECT COUNT(*) FROM network_data_payload', Integer) == 2
+    }
+
+    def 'Deduplicated mode: queries return full payloads.'() {
+        given: 'anchors created with identical and distinct payloads'
+            networkDataRepository.insertAll([buildNetworkData('ANCHOR-01', 0, CREATE, upPayload),
+                                             buildNetworkData('ANCHOR-02', 1, CREATE, upPayload),
+                                             buildNetworkData('ANCHOR-03', 2, CREATE, downPayload)])
+        and: 'search criteria of the dataspace'
+            def searchCriteriaBuilder = (new SearchCriteria.Builder()).dataspaceName(myDataspaceName)
+                .pagination(0, 10)
+        expect: 'query returns the full payloads'
+            toJson(networkDataRepository.findBySearchCriteria(searchCriteriaBuilder.build()).getContent()) ==
+                toJson([downPayload, upPayload, upPayload])
+        and: 'stream returns the full payloads'
+            toJson(networkDataRepository.streamBySearchCriteria(searchCriteriaBuilder.build())
+                .collect(Collectors.toList())) == toJson([downPayload, upPayload, upPayload])
+        and: 'payload filter matches referenced payloads'
+            def searchCriteria = searchCriteriaBuilder.simplePayloadFilter('{"interface": {"status": "up"}}').build()
+            networkDataRepository.findBySearchCriteria(searchCriteria).getContent()*.getAnchor() ==
+                ['ANCHOR-02', 'ANCHOR-01']
+    }
+
+    def 'Skip unchanged: #scenario.'() {
+        given: 'a version of an anchor already stored'
+            networkDataRepository.insertAll([buildNetworkData('ANCHOR-01', 0, storedOperation, storedPayload)])
+        when: 'a next version is inserted'
+            def insertResult = networkDataRepository.insertAll([
+                buildNetworkData('ANCHOR-01', 1, UPDATE, upPayloadReordered)])
+        then: 'it is skipped only if it does not change the payload'
+            insertResult.getUnchangedCount() == expectedUnchangedCount
+            insertResult.getInsertedCount() == 1 - expectedUnchangedCount
+        where:
+            scenario                           | storedOperation | storedPayload || expectedUnchangedCount
+            'update with the same payload'     | CREATE          | upPayload     || 1
+            'update with a different payload'  | CREATE          | downPayload   || 0
+            'update following a deletion'      | DELETE          | null          || 0
+    }
+
+    def 'Skip unchanged: successive versions of a batch are compared to each other.'() {
+        when: 'a batch updates an anchor 3 times, the second time without changing its payload'
+            def insertResult = networkDataRepository.insertAll([
+                buildNetworkData('ANCHOR-01', 0, CREATE, upPayload),
+                buildNetworkData('ANCHOR-01', 1, UPDATE, upPayload),
+                buildNetworkData('ANCHOR-01', 2, UPDATE, downPayload)])
+        then: 'the update that does not change the payload is skipped'
+            insertResult.getUnchanged()*.getObservedTimestamp() == [baseTimestamp.plusMinutes(1)]
+            insertResult.getInsertedCount() == 2
+    }
+
+    def 'Retention: payloads are deleted once no longer referenced.'() {
+        given: 'an anchor created with a payload'
+            networkDataRepository.insertAll([buildNetworkData('ANCHOR-01', 0, CREATE, upPayload)])
+        and: 'a time after the payload has last been referenced'
+            def referencedBefore = OffsetDateTime.now().plusMinutes(1)
+        expect: 'the payload is kept while it is referenced'
+            networkDataRepository.deleteUnreferencedPayloads(referencedBefore, 10) == 0
+        and: 'it is deleted once the network data referencing it is deleted'
+            networkDataRepository.deleteObservedBefore(myDataspaceName, null, null,
+                baseTimestamp.plusMinutes(1), 10) == 1
+            networkDataRepository.deleteUnreferencedPayloads(referencedBefore, 10) == 1
+    }
+
+    def buildNetworkData(String anchor, int version, Operation operation, String payload) {
+        return NetworkData.builder().observedTimestamp(baseTimestamp.plusMinutes(version))
+            .dataspace(myDataspaceName).schemaSet(mySchemaSetName).anchor(anchor)
+            .operation(operation).payload(payload).build()
+    }
+
+    def getStoredFormats() {
+        return jdbcTemplate.queryForList('SELECT payload_format FROM network_data WHERE dataspace = ?'
+            + ' ORDER BY anchor', String, myDataspaceName)
+    }
+
+    static def toJson(List payloads) {
+        return payloads.collect { new JsonSlurper().parseText(it instanceof NetworkData ? it.getPayload() : it) }
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import groovy.json.JsonSlurper
+import org.onap.cps.temporal.domain.Operation
+import org.onap.cps.temporal.domain.SearchCriteria
+import org.onap.cps.temporal.repository.containers.TimescaleContainer
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest
+import org.springframework.context.annotation.Import
+import org.springframework.data.domain.Sort
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate
+import org.springframework.test.annotation.Rollback
+import org.springframework.test.context.jdbc.Sql
+import org.testcontainers.spock.Testcontainers
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.time.OffsetDateTime
+
+/**
+ * Test specification for network data reactive repository.
+ * Data are committed before being queried, as R2DBC connections do not take part in the test transaction.
+ */
+@Testcontainers
+@DataJpaTest
+@Import([QueryPlanSampler, SearchQueryMetrics, SimpleMeterRegistry])
+@Rollback(false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class NetworkDataReactiveRepositoryImplSpec extends Specification {
+
+    static final String RELOAD_DATA_FOR_SEARCHING = '/data/network-data-changes.sql'
+
+    @Shared
+    TimescaleContainer databaseTestContainer = TimescaleContainer.getInstance()
+
+    @Autowired
+    NamedParameterJdbcTemplate namedParameterJdbcTemplate
+
+    def reactiveRepositoryConfig = new ReactiveRepositoryConfig()
+
+    NetworkDataReactiveRepository objectUnderTest
+
+    def setup() {
+        def connectionFactory = reactiveRepositoryConfig.connectionFactory(System.getProperty('DB_URL'),
+            System.getProperty('DB_USERNAME'), System.getProperty('DB_PASSWORD'), 2)
+        objectUnderTest = new NetworkDataReactiveRepositoryImpl(
+            reactiveRepositoryConfig.databaseClient(connectionFactory), namedParameterJdbcTemplate, 'full')
+    }
+
+    @Sql([RELOAD_DATA_FOR_SEARCHING])
+    def 'Find by search criteria: all the records of an anchor in the requested order.'() {
+        given: 'search criteria for an anchor sorted by ascending observed timestamp'
+            def searchCriteria = SearchCriteria.builder()
+                .dataspaceName('DATASPACE-02')
+                .anchorName('ANCHOR-01')
+                .unpaged()
+                .sort(Sort.by(Sort.Direction.ASC, 'observed_timestamp'))
+                .build()
+        when: 'data is streamed'
+            def result = objectUnderTest.findBySearchCriteria(searchCriteria).collectList().block()
+        then: 'all the records of the anchor are returned in ascending order'
+            result*.getObservedTimestamp()*.toInstant() == ['2021-07-24T00:00:01.000Z', '2021-07-24T01:00:01.000Z',
+                '2021-07-24T02:00:01.000Z', '2021-07-24T03:00:01.000Z'].collect { OffsetDateTime.parse(it).toInstant() }
+        and: 'records are fully mapped'
+            result*.getOperation() == [Operation.CREATE, Operation.UPDATE, Operation.UPDATE, Operation.DELETE]
+            result.every { it.getSchemaSet() == 'SCHEMA-SET-01' && it.getCreatedTimestamp() != null }
+            new JsonSlurper().parseText(result[0].getPayload()) == [interfaces: [[id: '01', status: 'up']]]
+            result[3].getPayload() == null
+    }
+
+    @Sql([RELOAD_DATA_FOR_SEARCHING])
+    def 'Find by search criteria: records matching a simple payload filter.'() {
+        given: 'search criteria with a simple payload filter'
+            def searchCriteria = SearchCriteria.builder()
+                .dataspaceName('DATASPACE-02')
+                .anchorName('ANCHOR-01')
+                .unpaged()
+                .simplePayloadFilter('{"interfaces": [{"status": "up"}]}')
+                .sort(Sort.by(Sort.Direction.ASC, 'observed_timestamp'))
+                .build()
+        when: 'data is streamed'
+            def result = objectUnderTest.findBySearchCriteria(searchCriteria).collectList().block()
+        then: 'only the records matching the filter are returned'
+            result*.getObservedTimestamp()*.toInstant() == ['2021-07-24T00:00:01.000Z', '2021-07-24T02:00:01.000Z']
+                .collect { OffsetDateTime.parse(it).toInstant() }
+    }
+
+}
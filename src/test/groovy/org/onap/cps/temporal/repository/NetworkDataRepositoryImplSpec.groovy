@@ -20,13 +20,20 @@
 
 package org.onap.cps.temporal.repository
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.onap.cps.temporal.domain.ChangeCountCriteria
+import org.onap.cps.temporal.domain.ChangeCountGranularity
 import org.onap.cps.temporal.domain.NetworkData
+import org.onap.cps.temporal.domain.NetworkDataChangeCount
 import org.onap.cps.temporal.domain.Operation
 import org.onap.cps.temporal.domain.SearchCriteria
+import org.onap.cps.temporal.domain.SearchCursor
+import org.onap.cps.temporal.domain.SnapshotCriteria
 import org.onap.cps.temporal.repository.containers.TimescaleContainer
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest
+import org.springframework.context.annotation.Import
 import org.springframework.data.domain.PageRequest
 import org.springframework.data.domain.Slice
 import org.springframework.data.domain.Sort
@@ -35,16 +42,20 @@ import org.testcontainers.spock.Testcontainers
 import org.springframework.test.annotation.Rollback
 import spock.lang.Shared
 import spock.lang.Specification
+import java.time.Duration
 import java.time.LocalDateTime
 import java.time.OffsetDateTime
 import java.time.ZoneOffset
 import java.time.format.DateTimeFormatter
+import java.util.stream.Collectors
+import javax.persistence.EntityManager
 
 /**
  * Test specification for network data repository.
  */
 @Testcontainers
 @DataJpaTest
+@Import([QueryPlanSampler, SearchQueryMetrics, SimpleMeterRegistry])
 @Rollback(false)
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 class NetworkDataRepositoryImplSpec extends Specification {
@@ -70,6 +81,9 @@ class NetworkDataRepositoryImplSpec extends Specification {
     @Autowired
     NetworkDataRepository networkDataRepository
 
+    @Autowired
+    EntityManager entityManager
+
     @Shared
     TimescaleContainer databaseTestContainer = TimescaleContainer.getInstance()
 
@@ -200,6 +214,399 @@ class NetworkDataRepositoryImplSpec extends Specification {
 
     }
 
+    @Sql([RELOAD_DATA_FOR_SEARCHING])
+    def 'Query: seek after cursor with sort #scenario.'() {
+        given: 'search criteria with a cursor'
+            def searchCriteria = (new SearchCriteria.Builder())
+                .dataspaceName(queryDataspaceName)
+                .schemaSetName(querySchemaSetName)
+                .sort(sortOrder)
+                .cursor(new SearchCursor(getOffsetDateDate(cursorObservedTimestamp), cursorAnchorName))
+                .pagination(0, 1)
+                .build()
+        when: 'data is fetched'
+            Slice<NetworkData> result = networkDataRepository.findBySearchCriteria(searchCriteria)
+        then: 'the record following the cursor is returned'
+            result.getNumberOfElements() == 1L
+            with(result.getContent().get(0)) {
+                anchor == expectedAnchorName
+                observedTimestamp == getOffsetDateDate(expectedObservedTimestamp)
+            }
+        where:
+            scenario                      | sortOrder                                          | cursorObservedTimestamp   | cursorAnchorName || expectedObservedTimestamp | expectedAnchorName
+            'observed timestamp desc'     | Sort.by(observedDescSortOrder)                     | '2021-07-23 00:00:01.000' | 'ANCHOR-01'      || '2021-07-22 01:00:01.000' | 'ANCHOR-01'
+            'anchor asc, ' +
+                'observed timestamp desc' | Sort.by(anchorAscSortOrder, observedDescSortOrder) | '2021-07-22 00:00:01.000' | 'ANCHOR-01'      || '2021-07-24 00:00:01.000' | 'ANCHOR-02'
+    }
+
+    @Sql([RELOAD_DATA_FOR_SEARCHING])
+    def 'Query: seek pagination returns the same records as offset pagination with sort #scenario.'() {
+        given: 'all records fetched with a single page'
+            def allRecords = networkDataRepository.findBySearchCriteria(
+                buildSearchCriteria(sortOrder, 0, 10, null)).getContent()
+        when: 'records are fetched one by one with a cursor on the last record'
+            def seekRecords = []
+            Slice<NetworkData> result = networkDataRepository.findBySearchCriteria(
+                buildSearchCriteria(sortOrder, 0, 1, null))
+            seekRecords.addAll(result.getContent())
+            while (result.hasNext()) {
+                def last = result.getContent().get(0)
+                result = networkDataRepository.findBySearchCriteria(buildSearchCriteria(sortOrder, 0, 1,
+                    new SearchCursor(last.getObservedTimestamp(), last.getAnchor())))
+                seekRecords.addAll(result.getContent())
+            }
+        then: 'the same records are returned in the same order'
+            allRecords.size() == 4
+            seekRecords == allRecords
+        where:
+            scenario                      | sortOrder
+            'observed timestamp desc'     | Sort.by(observedDescSortOrder)
+            'anchor asc, ' +
+                'observed timestamp desc' | Sort.by(anchorAscSortOrder, observedDescSortOrder)
+    }
+
+    @Sql([RELOAD_DATA_FOR_SEARCHING])
+    def 'Stream: all data observed in a time range.'() {
+        given: 'unpaged search criteria with a time range'
+            def observedAfter = getOffsetDateDate('2021-07-22 01:00:01.000')
+            def observedBefore = getOffsetDateDate('2021-07-24 00:00:01.000')
+            def searchCriteria = (new SearchCriteria.Builder())
+                .dataspaceName(queryDataspaceName)
+                .schemaSetName(querySchemaSetName)
+                .observedAfter(observedAfter)
+                .observedBefore(observedBefore)
+                .unpaged()
+                .build()
+        when: 'data is streamed'
+            def result = networkDataRepository.streamBySearchCriteria(searchCriteria).withCloseable {
+                it.collect(Collectors.toList())
+            }
+        then: 'records observed in the time range are returned in the expected order'
+            result*.getObservedTimestamp() ==
+                [getOffsetDateDate('2021-07-23 00:00:01.000'), getOffsetDateDate('2021-07-22 01:00:01.000')]
+        and: 'records are not managed by the persistence context'
+            result.every { !entityManager.contains(it) }
+    }
+
+    @Sql([RELOAD_DATA_FOR_SEARCHING])
+    def 'Snapshot: latest data of each anchor #scenario.'() {
+        given: 'snapshot criteria'
+            def snapshotCriteria = SnapshotCriteria.builder()
+                .dataspaceName(dataspaceName)
+                .schemaSetName(querySchemaSetName)
+                .observedTimestamp(getOffsetDateDate(snapshotTimestamp))
+                .pagination(0, 10)
+                .build()
+        when: 'snapshot is fetched'
+            Slice<NetworkData> result = networkDataRepository.findLatestBySnapshotCriteria(snapshotCriteria)
+        then: 'one record per anchor not deleted is returned'
+            result.getContent().collect { [it.getAnchor(), it.getObservedTimestamp()] } ==
+                expectedRecords.collect { [it[0], getOffsetDateDate(it[1])] }
+            !result.hasNext()
+        where:
+            scenario                               | dataspaceName  | snapshotTimestamp         || expectedRecords
+            'before the first anchor deletion'     | 'DATASPACE-01' | '2021-07-22 12:00:00.000' || [['ANCHOR-01', '2021-07-22 01:00:01.000']]
+            'after the first anchor deletion'      | 'DATASPACE-01' | '2021-07-23 12:00:00.000' || []
+            'at the second anchor observed time'   | 'DATASPACE-01' | '2021-07-24 00:00:01.000' || [['ANCHOR-02', '2021-07-24 00:00:01.000']]
+            'between updates'                      | 'DATASPACE-02' | '2021-07-24 02:30:00.000' || [['ANCHOR-01', '2021-07-24 02:00:01.000']]
+            'after deletion following updates'     | 'DATASPACE-02' | '2021-07-25 00:00:00.000' || []
+    }
+
+    @Sql([RELOAD_DATA_FOR_SEARCHING])
+    def 'Snapshot: pagination on anchors.'() {
+        given: 'snapshot criteria for one anchor per page'
+            def snapshotCriteria = SnapshotCriteria.builder()
+                .dataspaceName(queryDataspaceName)
+                .schemaSetName(querySchemaSetName)
+                .observedTimestamp(getOffsetDateDate('2021-07-22 12:00:00.000'))
+                .pagination(0, 1)
+                .build()
+        and: 'another anchor observed before the snapshot time'
+            networkDataRepository.insertAll([NetworkData.builder()
+                .observedTimestamp(getOffsetDateDate('2021-07-22 02:00:00.000'))
+                .dataspace(queryDataspaceName).schemaSet(querySchemaSetName).anchor('ANCHOR-00')
+                .operation(Operation.CREATE).payload('{ "status" : "up" }').build()])
+        when: 'snapshot is fetched'
+            Slice<NetworkData> result = networkDataRepository.findLatestBySnapshotCriteria(snapshotCriteria)
+        then: 'the first anchor by name is returned'
+            result.getContent()*.getAnchor() == ['ANCHOR-00']
+        and: 'next page is available'
+            result.hasNext()
+    }
+
+    @Sql([RELOAD_DATA_FOR_SEARCHING])
+    def 'Snapshot: anchors of other schema sets and anchors observed after the snapshot time are ignored.'() {
+        given: 'snapshot criteria'
+            def snapshotCriteria = SnapshotCriteria.builder()
+                .dataspaceName(queryDataspaceName)
+                .schemaSetName(querySchemaSetName)
+                .observedTimestamp(getOffsetDateDate('2021-07-22 12:00:00.000'))
+                .pagination(0, 10)
+                .build()
+        and: 'an anchor of another schema set and an anchor only observed after the snapshot time'
+            networkDataRepository.insertAll([
+                buildSnapshotNetworkData('2021-07-22 02:00:00.000', 'SCHEMA-SET-02', 'ANCHOR-00'),
+                buildSnapshotNetworkData('2021-07-22 13:00:00.000', querySchemaSetName, 'ANCHOR-00A')])
+        when: 'snapshot is fetched'
+            Slice<NetworkData> result = networkDataRepository.findLatestBySnapshotCriteria(snapshotCriteria)
+        then: 'only the anchor of the schema set observed before the snapshot time is returned'
+            result.getContent()*.getAnchor() == ['ANCHOR-01']
+    }
+
+    @Sql([RELOAD_DATA_FOR_SEARCHING])
+    def 'Snapshot: plan enumerates the anchors of the schema set only.'() {
+        given: 'sequential scans disabled, so that the plan of the small test data set uses indexes'
+            entityManager.createNativeQuery('SET LOCAL enable_seqscan = off').executeUpdate()
+        when: 'the snapshot query is explained'
+            def explainQuery = entityManager.createNativeQuery('EXPLAIN ' +
+                NetworkDataRepositoryImpl.FIND_LATEST_BY_SNAPSHOT_CRITERIA)
+            ['dataspace'        : queryDataspaceName, 'schemaSetName': querySchemaSetName,
+             'observedTimestamp': OffsetDateTime.now(), 'createdBefore': OffsetDateTime.now()]
+                .each { name, value -> explainQuery.setParameter(name, value) }
+            def plan = explainQuery.getResultList().join('\n')
+        then: 'anchors are enumerated on the dataspace, schema set, anchor and timestamp index'
+            plan.contains('network_data_dataspace_schema_set_anchor_timestamp_idx')
+    }
+
+    @Sql([RELOAD_DATA_FOR_SEARCHING])
+    def 'Snapshot: plan seeks the latest row of each anchor instead of sorting the history.'() {
+        given: 'sequential scans disabled, so that the plan of the small test data set uses indexes'
+            entityManager.createNativeQuery('SET LOCAL enable_seqscan = off').executeUpdate()
+        when: 'the snapshot query is explained'
+            def explainQuery = entityManager.createNativeQuery('EXPLAIN ' +
+                NetworkDataRepositoryImpl.FIND_LATEST_BY_SNAPSHOT_CRITERIA)
+            ['dataspace'        : queryDataspaceName, 'schemaSetName': querySchemaSetName,
+             'observedTimestamp': OffsetDateTime.now(), 'createdBefore': OffsetDateTime.now()]
+                .each { name, value -> explainQuery.setParameter(name, value) }
+            def plan = explainQuery.getResultList().join('\n')
+        then: 'anchors are enumerated by a recursive skip scan'
+            plan.contains('Recursive Union')
+        and: 'the latest row of each anchor is read by a limited seek on the dataspace, anchor and timestamp index'
+            plan.contains('Nested Loop')
+            plan.contains('Limit')
+            plan.contains('network_data_dataspace_anchor_timestamp_idx')
+        and: 'rows are not deduplicated from the sorted history of the schema set'
+            !plan.contains('Unique')
+    }
+
+    @Sql([RELOAD_DATA_FOR_SEARCHING])
+    def 'Change count: hourly changes of an anchor.'() {
+        given: 'change count criteria for an anchor'
+            def changeCountCriteria = ChangeCountCriteria.builder()
+                .dataspaceName('DATASPACE-02')
+                .anchorName(queryAnchorName)
+                .pagination(0, 10)
+                .build()
+        when: 'change counts are fetched'
+            Slice<NetworkDataChangeCount> result = networkDataRepository.findChangeCounts(changeCountCriteria)
+        then: 'one count per hour is returned, the most recent first'
+            result.getContent()*.getOperation() == [Operation.DELETE, Operation.UPDATE, Operation.UPDATE, Operation.CREATE]
+            result.getContent()*.getCount() == [1L, 1L, 1L, 1L]
+            result.getContent()[0].getBucket().isEqual(getOffsetDateDate('2021-07-24 03:00:00.000'))
+            result.getContent()[3].getBucket().isEqual(getOffsetDateDate('2021-07-24 00:00:00.000'))
+        and: 'no more change counts are available'
+            !result.hasNext()
+    }
+
+    @Sql([RELOAD_DATA_FOR_SEARCHING])
+    def 'Change count: weekly changes of a schema set.'() {
+        given: 'change count criteria for a schema set by week'
+            def changeCountCriteria = ChangeCountCriteria.builder()
+                .dataspaceName(queryDataspaceName)
+                .schemaSetName(querySchemaSetName)
+                .granularity(ChangeCountGranularity.WEEK)
+                .pagination(0, 10)
+                .build()
+        when: 'change counts are fetched'
+            Slice<NetworkDataChangeCount> result = networkDataRepository.findChangeCounts(changeCountCriteria)
+        then: 'all the changes of the schema set anchors are counted'
+            result.getContent()*.getAnchor().toSet() == ['ANCHOR-01', 'ANCHOR-02'] as Set
+            result.getContent()*.getCount().sum() == 4L
+    }
+
+    @Sql([RELOAD_DATA_FOR_SEARCHING])
+    def 'Change count: filter by observed after and before.'() {
+        given: 'change count criteria for a time range'
+            def changeCountCriteria = ChangeCountCriteria.builder()
+                .dataspaceName('DATASPACE-02')
+                .anchorName(queryAnchorName)
+                .observedAfter(getOffsetDateDate('2021-07-24 01:00:00.000'))
+                .observedBefore(getOffsetDateDate('2021-07-24 03:00:00.000'))
+                .pagination(0, 10)
+                .build()
+        when: 'change counts are fetched'
+            Slice<NetworkDataChangeCount> result = networkDataRepository.findChangeCounts(changeCountCriteria)
+        then: 'only the buckets in the time range are returned'
+            result.getContent()*.getBucket().collect { it.toInstant() } ==
+                [getOffsetDateDate('2021-07-24 02:00:00.000'), getOffsetDateDate('2021-07-24 01:00:00.000')]
+                    .collect { it.toInstant() }
+    }
+
+    @Sql([RELOAD_DATA_FOR_SEARCHING])
+    def 'Change count: pagination.'() {
+        given: 'change count criteria with 2 counts per page'
+            def changeCountCriteria = ChangeCountCriteria.builder()
+                .dataspaceName(queryDataspaceName)
+                .schemaSetName(querySchemaSetName)
+                .pagination(0, 2)
+                .build()
+        when: 'change counts are fetched'
+            Slice<NetworkDataChangeCount> result = networkDataRepository.findChangeCounts(changeCountCriteria)
+        then: 'the most recent counts are returned'
+            result.getContent()*.getAnchor() == ['ANCHOR-02', 'ANCHOR-01']
+            result.getContent()*.getOperation() == [Operation.UPDATE, Operation.DELETE]
+        and: 'next page is available'
+            result.hasNext()
+    }
+
+    @Sql([RELOAD_DATA_FOR_SEARCHING])
+    def 'Chunk statistics of network data hypertable.'() {
+        when: 'chunk statistics are fetched'
+            def result = networkDataRepository.findChunkStatistics()
+        then: 'chunks holding test data are counted, none of them is compressed'
+            result.getChunkCount() > 0
+            result.getCompressedChunkCount() == 0
+        and: 'size on disk is provided'
+            result.getTotalBytes() > 0
+    }
+
+    @Sql([RELOAD_DATA_FOR_SEARCHING])
+    def 'Retention: delete network data of a dataspace observed before a timestamp.'() {
+        when: 'network data observed before the timestamp are deleted'
+            def deletedCount = networkDataRepository.deleteObservedBefore(queryDataspaceName, querySchemaSetName, null,
+                getOffsetDateDate('2021-07-23 00:00:00.000'), 10)
+        then: 'the 2 network data observed before are deleted'
+            deletedCount == 2
+        and: 'network data observed after are kept'
+            def keptData = networkDataRepository.findBySearchCriteria(
+                buildSearchCriteria(Sort.by(observedDescSortOrder), 0, 10, null)).getContent()
+            keptData*.getAnchor() == ['ANCHOR-02', queryAnchorName]
+            keptData*.getOperation() == [Operation.UPDATE, Operation.DELETE]
+    }
+
+    @Sql([RELOAD_DATA_FOR_SEARCHING])
+    def 'Retention: delete network data in batches.'() {
+        given: 'a timestamp after all the network data of the dataspace'
+            def observedBefore = getOffsetDateDate('2021-07-25 00:00:00.000')
+        expect: 'network data are deleted by batch of 3'
+            networkDataRepository.deleteObservedBefore('DATASPACE-02', null, null, observedBefore, 3) == 3
+            networkDataRepository.deleteObservedBefore('DATASPACE-02', null, null, observedBefore, 3) == 1
+            networkDataRepository.deleteObservedBefore('DATASPACE-02', null, null, observedBefore, 3) == 0
+    }
+
+    @Sql([RELOAD_DATA_FOR_SEARCHING])
+    def 'Retention: delete network data of a dataspace observed in a time range.'() {
+        when: 'network data observed within a time range starting after the first network data are deleted'
+            def deletedCount = networkDataRepository.deleteObservedBefore('DATASPACE-02', null,
+                getOffsetDateDate('2021-07-24 01:00:00.000'), getOffsetDateDate('2021-07-25 00:00:00.000'), 10)
+        then: 'the 3 network data observed within the range are deleted'
+            deletedCount == 3
+    }
+
+    @Sql([RELOAD_DATA_FOR_SEARCHING])
+    def 'Retention: downsample network data to the latest one per anchor per bucket.'() {
+        when: 'network data are downsampled to one per week'
+            def deletedCount = networkDataRepository.deleteAllButLatestPerBucket('DATASPACE-02', null, null,
+                getOffsetDateDate('2021-07-25 00:00:00.000'), Duration.ofDays(7), 10)
+        then: 'all the network data but the latest one are deleted'
+            deletedCount == 3
+        and: 'the latest network data is kept'
+            def searchCriteria = (new SearchCriteria.Builder()).dataspaceName('DATASPACE-02')
+                .anchorName(queryAnchorName).pagination(0, 10).build()
+            networkDataRepository.findBySearchCriteria(searchCriteria).getContent()*.getOperation() == [Operation.DELETE]
+    }
+
+    def 'Retention: drop chunks observed before a timestamp.'() {
+        given: 'network data observed a long time ago'
+            networkDataRepository.insertAll([NetworkData.builder()
+                .observedTimestamp(getOffsetDateDate('2000-01-01 00:00:00.000'))
+                .dataspace('DATASPACE-03').schemaSet(querySchemaSetName).anchor(queryAnchorName)
+                .operation(Operation.CREATE).payload('{ "status" : "up" }').build()])
+        when: 'chunks observed before are dropped'
+            def droppedChunks = networkDataRepository.dropChunksObservedBefore(getOffsetDateDate('2000-02-01 00:00:00.000'))
+        then: 'the chunk holding the network data is dropped'
+            droppedChunks.getChunkCount() == 1
+        and: 'its size before being dropped is provided'
+            droppedChunks.getTotalBytes() > 0
+        and: 'the network data does not exist anymore'
+            def searchCriteria = (new SearchCriteria.Builder()).dataspaceName('DATASPACE-03')
+                .anchorName(queryAnchorName).pagination(0, 10).build()
+            networkDataRepository.findBySearchCriteria(searchCriteria).isEmpty()
+    }
+
+    def 'Retention: compression age is the one of the compression policy.'() {
+        expect: 'no compression age without compression policy'
+            networkDataRepository.findCompressionAge() == null
+        when: 'a compression policy is added'
+            entityManager.createNativeQuery(
+                "SELECT add_compression_policy('network_data', compress_after => INTERVAL '7 days')").getResultList()
+        then: 'its compression age is found'
+            networkDataRepository.findCompressionAge() == Duration.ofDays(7)
+        cleanup: 'the compression policy is removed'
+            entityManager.createNativeQuery(
+                "SELECT remove_compression_policy('network_data', if_exists => true)").getResultList()
+    }
+
+    @Sql([RELOAD_DATA_FOR_SEARCHING])
+    def 'Compressed chunks: #scenario returns the same data as uncompressed chunks.'() {
+        given: 'data fetched from uncompressed chunks'
+            def expectedData = fetchData(scenario)
+        when: 'all the chunks are compressed'
+            entityManager.createNativeQuery(
+                "SELECT compress_chunk(chunk, if_not_compressed => true) FROM show_chunks('network_data') chunk")
+                .getResultList()
+        and: 'entities are evicted from the persistence context to be read again'
+            entityManager.clear()
+        then: 'data fetched from compressed chunks is unchanged'
+            fetchData(scenario) == expectedData
+        cleanup: 'chunks are decompressed so that test data can be reloaded'
+            entityManager.createNativeQuery(
+                "SELECT decompress_chunk(chunk, if_compressed => true) FROM show_chunks('network_data') chunk")
+                .getResultList()
+        where:
+            scenario << ['anchor query', 'schema set query', 'payload filter query', 'snapshot query']
+    }
+
+    List<String> fetchData(String scenario) {
+        def searchCriteriaBuilder = (new SearchCriteria.Builder())
+            .dataspaceName(queryDataspaceName)
+            .pagination(0, 10)
+        switch (scenario) {
+            case 'anchor query':
+                searchCriteriaBuilder.anchorName(queryAnchorName)
+                break
+            case 'schema set query':
+                searchCriteriaBuilder.schemaSetName(querySchemaSetName)
+                    .sort(Sort.by(anchorAscSortOrder, observedDescSortOrder))
+                break
+            case 'payload filter query':
+                searchCriteriaBuilder.schemaSetName(querySchemaSetName).simplePayloadFilter('{"status" : "up"}')
+                break
+            default:
+                def snapshotCriteria = SnapshotCriteria.builder().dataspaceName(queryDataspaceName)
+                    .schemaSetName(querySchemaSetName).pagination(0, 10).build()
+                return networkDataRepository.findLatestBySnapshotCriteria(snapshotCriteria).getContent()*.toString()
+        }
+        return networkDataRepository.findBySearchCriteria(searchCriteriaBuilder.build()).getContent()*.toString()
+    }
+
+    SearchCriteria buildSearchCriteria(Sort sortOrder, int pageNumber, int pageSize, SearchCursor cursor) {
+        return (new SearchCriteria.Builder())
+            .dataspaceName(queryDataspaceName)
+            .schemaSetName(querySchemaSetName)
+            .sort(sortOrder)
+            .cursor(cursor)
+            .pagination(pageNumber, pageSize)
+            .build()
+    }
+
+    NetworkData buildSnapshotNetworkData(String observedTimestamp, String schemaSetName, String anchorName) {
+        return NetworkData.builder()
+            .observedTimestamp(getOffsetDateDate(observedTimestamp))
+            .dataspace(queryDataspaceName).schemaSet(schemaSetName).anchor(anchorName)
+            .operation(Operation.CREATE).payload('{ "status" : "up" }').build()
+    }
+
     OffsetDateTime getOffsetDateDate(String dateTimeString) {
         def localDateTime = LocalDateTime.parse(dateTimeString, ISO_TIMESTAMP_FORMATTER)
         def localZoneOffset = ZoneOffset.systemDefault().getRules().getOffset(localDateTime)
@@ -20,12 +20,15 @@
 
 package org.onap.cps.temporal.repository
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
 import org.onap.cps.temporal.domain.NetworkData
 import org.onap.cps.temporal.domain.Operation
 import org.onap.cps.temporal.repository.containers.TimescaleContainer
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest
+import org.springframework.context.annotation.Import
+import org.springframework.jdbc.core.JdbcTemplate
 import org.testcontainers.spock.Testcontainers
 import org.springframework.test.annotation.Rollback
 import org.springframework.test.context.transaction.TestTransaction
@@ -38,6 +41,7 @@ import java.time.OffsetDateTime
  */
 @Testcontainers
 @DataJpaTest
+@Import([QueryPlanSampler, SearchQueryMetrics, SimpleMeterRegistry])
 @Rollback(false)
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 class NetworkDataRepositorySpec extends Specification {
@@ -52,6 +56,9 @@ class NetworkDataRepositorySpec extends Specification {
     @Autowired
     NetworkDataRepository networkDataRepository
 
+    @Autowired
+    JdbcTemplate jdbcTemplate
+
     def networkData = NetworkData.builder()
         .observedTimestamp(observedTimestamp)
         .dataspace(myDataspaceName)
@@ -83,4 +90,127 @@ class NetworkDataRepositorySpec extends Specification {
             savedData.getCreatedTimestamp() > networkData.getObservedTimestamp()
     }
 
+    def 'Store a batch of network data ignoring existing ones.'() {
+        given: 'a network data already stored'
+            def existingNetworkData = buildNetworkData(OffsetDateTime.now())
+            networkDataRepository.insertAll([existingNetworkData])
+        and: 'a new network data for the same anchor'
+            def newNetworkData = buildNetworkData(OffsetDateTime.now().plusSeconds(1))
+        when: 'both are stored in a single batch'
+            def insertResult = networkDataRepository.insertAll([existingNetworkData, newNetworkData])
+            TestTransaction.end()
+        then: 'only the new network data is inserted, with its created timestamp'
+            insertResult.getInsertedCount() == 1
+            insertResult.getInserted()[0].getObservedTimestamp() == newNetworkData.getObservedTimestamp()
+            insertResult.getInserted()[0].getCreatedTimestamp() != null
+        and: 'the existing network data is reported as duplicate'
+            insertResult.getDuplicates() == [existingNetworkData]
+        and: 'payloads are not hashed, as they are neither deduplicated nor compared'
+            jdbcTemplate.queryForList('SELECT payload_hash FROM network_data WHERE dataspace = ? AND anchor = ?',
+                String, myDataspaceName, myAnchorName).every { it == null }
+    }
+
+    def 'Store a batch of network data larger than a single insert statement.'() {
+        given: 'more network data than can be inserted by a single statement'
+            def baseTimestamp = OffsetDateTime.now()
+            def networkDataList = (0..NetworkDataBatchRepositoryImpl.MAX_ROWS_PER_STATEMENT).collect {
+                buildNetworkData(baseTimestamp.plusNanos(it * 1000))
+            }
+        when: 'they are stored together with a duplicate of the first one'
+            def insertResult = networkDataRepository.insertAll(networkDataList + [networkDataList[0]])
+            TestTransaction.end()
+        then: 'all of them are inserted'
+            insertResult.getInsertedCount() == networkDataList.size()
+        and: 'the duplicate is reported'
+            insertResult.getDuplicateCount() == 1
+    }
+
+    def 'Store a batch of network data rejecting late ones observed within a compressed chunk.'() {
+        given: 'a network data stored in a chunk which is then compressed'
+            def compressedTimestamp = OffsetDateTime.parse('2001-01-01T00:00:00Z')
+            networkDataRepository.insertAll([buildNetworkData(compressedTimestamp)])
+            jdbcTemplate.queryForList("SELECT compress_chunk(chunk) FROM show_chunks('network_data', "
+                + "older_than => '2001-02-01'::timestamptz) chunk")
+        and: 'a late network data observed within the compressed chunk'
+            def lateNetworkData = buildNetworkData(compressedTimestamp.plusSeconds(1))
+        and: 'a timely network data'
+            def timelyNetworkData = buildNetworkData(OffsetDateTime.now())
+        when: 'both are stored in a single batch'
+            def insertResult = networkDataRepository.insertAll([lateNetworkData, timelyNetworkData])
+            TestTransaction.end()
+        then: 'only the timely network data is inserted'
+            insertResult.getInsertedCount() == 1
+            insertResult.getInserted()[0].getObservedTimestamp() == timelyNetworkData.getObservedTimestamp()
+        and: 'the late network data is reported as late'
+            insertResult.getLate() == [lateNetworkData]
+        cleanup: 'the chunk is decompressed'
+            jdbcTemplate.queryForList("SELECT decompress_chunk(chunk, if_compressed => true) "
+                + "FROM show_chunks('network_data', older_than => '2001-02-01'::timestamptz) chunk")
+    }
+
+    def 'Copy network data in bulk ignoring existing ones.'() {
+        given: 'a network data already stored'
+            def existingNetworkData = buildNetworkData(OffsetDateTime.now())
+            networkDataRepository.insertAll([existingNetworkData])
+        and: 'new network data for the same anchor, one being a delete without payload'
+            def newNetworkData = buildNetworkData(OffsetDateTime.now().plusSeconds(1))
+            def deleteNetworkData = buildNetworkData(OffsetDateTime.now().plusSeconds(2))
+            deleteNetworkData.setOperation(Operation.DELETE)
+            deleteNetworkData.setPayload(null)
+        when: 'all of them are copied in bulk, twice within the same transaction'
+            def copiedCount = networkDataRepository.copyAll([existingNetworkData, newNetworkData, deleteNetworkData])
+            def copiedAgainCount = networkDataRepository.copyAll([newNetworkData])
+            TestTransaction.end()
+        then: 'only the new network data are inserted, once'
+            copiedCount == 2
+            copiedAgainCount == 0
+        and: 'they are stored as copied'
+            def storedNetworkData = networkDataRepository.findAll().find {
+                it.getObservedTimestamp().toInstant() == newNetworkData.getObservedTimestamp().toInstant()
+            }
+            storedNetworkData.getPayload() == payload
+            storedNetworkData.getOperation() == Operation.CREATE
+            storedNetworkData.getCreatedTimestamp() != null
+    }
+
+    def 'Copy network data in bulk observed within a compressed chunk.'() {
+        given: 'a network data stored in a chunk which is then compressed'
+            def compressedTimestamp = OffsetDateTime.parse('2002-01-01T00:00:00Z')
+            def existingNetworkData = buildNetworkData(compressedTimestamp)
+            networkDataRepository.insertAll([existingNetworkData])
+            jdbcTemplate.queryForList("SELECT compress_chunk(chunk) FROM show_chunks('network_data', "
+                + "older_than => '2002-02-01'::timestamptz, newer_than => '2001-12-01'::timestamptz) chunk")
+        and: 'a late network data observed within the compressed chunk'
+            def lateNetworkData = buildNetworkData(compressedTimestamp.plusSeconds(1))
+        when: 'both are copied in bulk'
+            def copiedCount = networkDataRepository.copyAll([existingNetworkData, lateNetworkData])
+            TestTransaction.end()
+        then: 'only the late network data is inserted'
+            copiedCount == 1
+        and: 'the chunk is decompressed'
+            jdbcTemplate.queryForObject("SELECT count(*) FROM timescaledb_information.chunks "
+                + "WHERE hypertable_name = 'network_data' AND is_compressed "
+                + "AND range_start <= '2002-01-01'::timestamptz AND range_end > '2002-01-01'::timestamptz",
+                Integer) == 0
+    }
+
+    def 'Drop and create payload index.'() {
+        when: 'payload index is dropped and created again'
+            networkDataRepository.dropPayloadIndex()
+            networkDataRepository.createPayloadIndex()
+            TestTransaction.end()
+        then: 'no exception is thrown'
+            noExceptionThrown()
+    }
+
+    def buildNetworkData(OffsetDateTime observedTimestamp) {
+        return NetworkData.builder()
+            .observedTimestamp(observedTimestamp)
+            .dataspace(myDataspaceName)
+            .schemaSet(mySchemaSetName)
+            .anchor(myAnchorName)
+            .operation(Operation.UPDATE)
+            .payload(payload).build()
+    }
+
 }
@@ -0,0 +1,193 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository
+
+import static org.onap.cps.temporal.domain.Operation.CREATE
+import static org.onap.cps.temporal.domain.Operation.DELETE
+import static org.onap.cps.temporal.domain.Operation.UPDATE
+
+import groovy.json.JsonSlurper
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.onap.cps.temporal.domain.NetworkData
+import org.onap.cps.temporal.domain.Operation
+import org.onap.cps.temporal.domain.SearchCriteria
+import org.onap.cps.temporal.domain.SnapshotCriteria
+import org.onap.cps.temporal.repository.containers.TimescaleContainer
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest
+import org.springframework.context.annotation.Import
+import org.springframework.data.domain.Sort
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.test.context.TestPropertySource
+import org.testcontainers.spock.Testcontainers
+import spock.lang.Shared
+import spock.lang.Specification
+import java.time.OffsetDateTime
+import java.util.stream.Collectors
+
+/**
+ * Test specification for network data payloads stored as patches.
+ */
+@Testcontainers
+@DataJpaTest
+@Import([QueryPlanSampler, SearchQueryMetrics, SimpleMeterRegistry])
+@TestPropertySource(properties = ['app.storage.payload.mode=delta',
+    'app.storage.payload.delta.keyframe-max-changes=2', 'app.storage.payload.delta.keyframe-max-age=1h'])
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class PayloadDeltaCodecSpec extends Specification {
+
+    def myDataspaceName = 'DELTA-DATASPACE'
+    def mySchemaSetName = 'DELTA-SCHEMA-SET'
+    def myAnchorName = 'DELTA-ANCHOR'
+    def baseTimestamp = OffsetDateTime.parse('2021-07-22T10:00:00.000Z')
+
+    @Autowired
+    NetworkDataRepository networkDataRepository
+
+    @Autowired
+    JdbcTemplate jdbcTemplate
+
+    @Shared
+    TimescaleContainer databaseTestContainer = TimescaleContainer.getInstance()
+
+    def 'Delta mode: payloads are stored as patches between full payloads.'() {
+        when: '5 successive versions of an anchor are inserted'
+            networkDataRepository.insertAll((0..4).collect { buildNetworkData(it, UPDATE) })
+        then: 'a full payload is stored after every 2 patches'
+            getStoredFormats() == ['FULL', 'JSON_PATCH', 'JSON_PATCH', 'FULL', 'JSON_PATCH']
+        and: 'each patch is based on the previous version'
+            getStoredBaseTimestamps() == [null, 0, 1, null, 3].collect { toInstant(it) }
+    }
+
+    def 'Delta mode: payloads inserted by successive batches are chained.'() {
+        given: 'a version of an anchor already stored'
+            networkDataRepository.insertAll([buildNetworkData(0, CREATE)])
+        when: 'a next version is inserted'
+            networkDataRepository.insertAll([buildNetworkData(1, UPDATE)])
+        then: 'it is stored as a patch from the stored version'
+            getStoredFormats() == ['FULL', 'JSON_PATCH']
+            getStoredBaseTimestamps() == [null, toInstant(0)]
+    }
+
+    def 'Delta mode: #scenario is stored as full payload.'() {
+        given: 'versions of an anchor already stored'
+            networkDataRepository.insertAll(storedVersions.collect { version, operation ->
+                buildNetworkData(version, operation) })
+        when: 'a new version is inserted'
+            networkDataRepository.insertAll([buildNetworkData(newVersion, UPDATE)])
+        then: 'the new version is stored as full payload'
+            getStoredFormats() == expectedFormats
+        where:
+            scenario                         | storedVersions         | newVersion || expectedFormats
+            'a version received late'        | [0: CREATE, 2: UPDATE] | 1          || ['FULL', 'FULL', 'JSON_PATCH']
+            'a version following a deletion' | [0: CREATE, 1: DELETE] | 2          || ['FULL', 'FULL', 'FULL']
+    }
+
+    def 'Delta mode: queries return full payloads.'() {
+        given: '5 successive versions of an anchor'
+            def networkDataList = (0..4).collect { buildNetworkData(it, UPDATE) }
+            networkDataRepository.insertAll(networkDataList)
+        and: 'search criteria of the anchor, latest version first'
+            def searchCriteria = (new SearchCriteria.Builder()).dataspaceName(myDataspaceName)
+                .anchorName(myAnchorName).sort(Sort.by(Sort.Direction.DESC, 'observed_timestamp'))
+                .pagination(0, 10).build()
+        expect: 'query returns the full payloads'
+            toJson(networkDataRepository.findBySearchCriteria(searchCriteria).getContent()) ==
+                toJson(networkDataList.reverse())
+        and: 'stream returns the full payloads'
+            toJson(networkDataRepository.streamBySearchCriteria(searchCriteria).collect(Collectors.toList())) ==
+                toJson(networkDataList.reverse())
+        and: 'snapshot returns the full payload of the latest version'
+            def snapshotCriteria = SnapshotCriteria.builder().dataspaceName(myDataspaceName)
+                .schemaSetName(mySchemaSetName).pagination(0, 10).build()
+            toJson(networkDataRepository.findLatestBySnapshotCriteria(snapshotCriteria).getContent()) ==
+                toJson([networkDataList.last()])
+    }
+
+    def 'Retention: network data which are the base of a patch are deleted after it.'() {
+        given: 'a full payload and a patch from it'
+            networkDataRepository.insertAll((0..1).collect { buildNetworkData(it, UPDATE) })
+        expect: 'the full payload is kept while the patch is not deleted'
+            networkDataRepository.deleteObservedBefore(myDataspaceName, null, null,
+                baseTimestamp.plusMinutes(1), 10) == 0
+        and: 'the patch is deleted first, then the full payload'
+            networkDataRepository.deleteObservedBefore(myDataspaceName, null, null,
+                baseTimestamp.plusMinutes(2), 10) == 1
+            networkDataRepository.deleteObservedBefore(myDataspaceName, null, null,
+                baseTimestamp.plusMinutes(2), 10) == 1
+            getStoredFormats().isEmpty()
+    }
+
+    def 'Retention: chunks holding the base of a patch are dropped after it.'() {
+        given: 'a full payload and a patch from it, observed in successive daily chunks'
+            def fullNetworkData = buildNetworkData(0, CREATE)
+            fullNetworkData.setObservedTimestamp(OffsetDateTime.parse('1999-06-01T23:50:00.000Z'))
+            def patchNetworkData = buildNetworkData(1, UPDATE)
+            patchNetworkData.setObservedTimestamp(OffsetDateTime.parse('1999-06-02T00:10:00.000Z'))
+            networkDataRepository.insertAll([fullNetworkData, patchNetworkData])
+            assert getStoredFormats() == ['FULL', 'JSON_PATCH']
+        when: 'chunks observed before the patch are dropped'
+            def droppedChunks = networkDataRepository.dropChunksObservedBefore(
+                OffsetDateTime.parse('1999-06-02T00:00:00.000Z'))
+        then: 'the chunk holding its base is kept'
+            droppedChunks.getChunkCount() == 0
+        and: 'the patch is still returned with its full payload'
+            def searchCriteria = (new SearchCriteria.Builder()).dataspaceName(myDataspaceName)
+                .anchorName(myAnchorName).pagination(0, 10).build()
+            toJson(networkDataRepository.findBySearchCriteria(searchCriteria).getContent()) ==
+                toJson([patchNetworkData, fullNetworkData])
+        when: 'chunks observed before the next day are dropped'
+            droppedChunks = networkDataRepository.dropChunksObservedBefore(
+                OffsetDateTime.parse('1999-06-03T00:00:00.000Z'))
+        then: 'both chunks are dropped'
+            droppedChunks.getChunkCount() == 2
+            getStoredFormats().isEmpty()
+    }
+
+    def buildNetworkData(int version, Operation operation) {
+        def payload = operation == DELETE ? null : '{"interface": {"name": "eth0",'
+            + ' "description": "first interface of the device", "counter": ' + version + '}}'
+        return NetworkData.builder().observedTimestamp(baseTimestamp.plusMinutes(version))
+            .dataspace(myDataspaceName).schemaSet(mySchemaSetName).anchor(myAnchorName)
+            .operation(operation).payload(payload).build()
+    }
+
+    def getStoredFormats() {
+        return jdbcTemplate.queryForList('SELECT payload_format FROM network_data WHERE dataspace = ?'
+            + ' ORDER BY observed_timestamp', String, myDataspaceName)
+    }
+
+    def getStoredBaseTimestamps() {
+        return jdbcTemplate.queryForList('SELECT payload_base_timestamp FROM network_data WHERE dataspace = ?'
+            + ' ORDER BY observed_timestamp', OffsetDateTime, myDataspaceName)
+            .collect { it == null ? null : it.toInstant() }
+    }
+
+    def toInstant(Integer version) {
+        return version == null ? null : baseTimestamp.plusMinutes(version).toInstant()
+    }
+
+    static def toJson(List<NetworkData> networkDataList) {
+        return networkDataList.collect { new JsonSlurper().parseText(it.getPayload()) }
+    }
+
+}
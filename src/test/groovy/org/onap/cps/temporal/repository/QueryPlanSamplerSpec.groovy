@@ -0,0 +1,154 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.onap.cps.temporal.domain.SearchCriteria
+import org.springframework.dao.QueryTimeoutException
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.TimeUnit
+
+/**
+ * Test specification for query plan sampler.
+ */
+class QueryPlanSamplerSpec extends Specification {
+
+    static final String EXPLAINED_QUERY = '[{"Plan": {"Node Type": "Limit"}, "Planning Time": 1.5, "Execution Time": 4.25}]'
+
+    def mockNamedParameterJdbcTemplate = Mock(NamedParameterJdbcTemplate)
+
+    def meterRegistry = new SimpleMeterRegistry()
+
+    def searchCriteria = new SearchCriteria.Builder()
+        .dataspaceName('my-dataspace')
+        .anchorName('my-anchor')
+        .pagination(0, 10)
+        .build()
+
+    def queryBuilder = buildQuery(searchCriteria)
+
+    def 'Sample plan of a search query'() {
+        given: 'a sampler with an interval'
+            def objectUnderTest = newSampler(Duration.ofMinutes(1), Duration.ZERO)
+        when: 'the search query is sampled'
+            objectUnderTest.sample(queryBuilder, searchCriteria.getPageable())
+        then: 'the paginated query is explained with its parameters'
+            1 * mockNamedParameterJdbcTemplate.queryForObject(
+                { it.startsWith('EXPLAIN (ANALYZE, FORMAT JSON) SELECT') && it.endsWith('LIMIT :limit OFFSET :offset') },
+                { it.anchorName == 'my-anchor' && it.limit == 11 && it.offset == 0L }, String) >> EXPLAINED_QUERY
+        and: 'planning and execution times are recorded for the query shape'
+            def planningTimer = meterRegistry.get('cps.temporal.query.planning').tag('shape', queryBuilder.getQueryShape()).timer()
+            planningTimer.count() == 1
+            planningTimer.totalTime(TimeUnit.MICROSECONDS) == 1500
+            meterRegistry.get('cps.temporal.query.execution').tag('shape', queryBuilder.getQueryShape()).timer()
+                .totalTime(TimeUnit.MICROSECONDS) == 4250
+    }
+
+    def 'Sample plan of a search query shape already sampled within the interval'() {
+        given: 'a sampler with an interval'
+            def objectUnderTest = newSampler(Duration.ofMinutes(1), Duration.ZERO)
+        when: 'the same search query shape is sampled twice'
+            objectUnderTest.sample(queryBuilder, searchCriteria.getPageable())
+            objectUnderTest.sample(buildQuery(searchCriteria), searchCriteria.getPageable())
+        then: 'the query is explained only once'
+            1 * mockNamedParameterJdbcTemplate.queryForObject(*_) >> EXPLAINED_QUERY
+    }
+
+    def 'Sample plan of a search query with sampling disabled'() {
+        given: 'a sampler without interval'
+            def objectUnderTest = newSampler(Duration.ZERO, Duration.ZERO)
+        when: 'the search query is sampled'
+            objectUnderTest.sample(queryBuilder, searchCriteria.getPageable())
+        then: 'the query is not explained'
+            0 * mockNamedParameterJdbcTemplate._
+    }
+
+    def 'Sample plan of a search query failing to be explained'() {
+        given: 'a sampler with an interval'
+            def objectUnderTest = newSampler(Duration.ofMinutes(1), Duration.ZERO)
+        and: 'explaining the query fails'
+            mockNamedParameterJdbcTemplate.queryForObject(*_) >> { throw new QueryTimeoutException('timeout') }
+        when: 'the search query is sampled'
+            objectUnderTest.sample(queryBuilder, searchCriteria.getPageable())
+        then: 'no exception is thrown and no time is recorded'
+            noExceptionThrown()
+            meterRegistry.find('cps.temporal.query.planning').timer() == null
+    }
+
+    def 'Log plan of a #scenario search query'() {
+        given: 'a sampler logging queries from 100 ms'
+            def objectUnderTest = newSampler(Duration.ZERO, Duration.ofMillis(100))
+        when: 'a search query is checked'
+            objectUnderTest.logIfSlow(queryBuilder, searchCriteria.getPageable(), Duration.ofMillis(duration))
+        then: 'the query is explained with buffers usage only if slow'
+            expectedExplainCount * mockNamedParameterJdbcTemplate.queryForObject(
+                { it.startsWith('EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) SELECT') }, _, String) >> EXPLAINED_QUERY
+        where:
+            scenario | duration || expectedExplainCount
+            'slow'   | 100      || 1
+            'fast'   | 99       || 0
+    }
+
+    def 'Log plan of slow search queries of a shape already logged within the slow query interval'() {
+        given: 'a sampler logging queries from 100 ms'
+            def objectUnderTest = newSampler(Duration.ZERO, Duration.ofMillis(100))
+        when: 'two slow search queries of the same shape are checked'
+            objectUnderTest.logIfSlow(queryBuilder, searchCriteria.getPageable(), Duration.ofSeconds(1))
+            objectUnderTest.logIfSlow(buildQuery(searchCriteria), searchCriteria.getPageable(), Duration.ofSeconds(1))
+        then: 'the query is explained only once'
+            1 * mockNamedParameterJdbcTemplate.queryForObject(*_) >> EXPLAINED_QUERY
+    }
+
+    def 'Log plan of a slow search query with slow query logging disabled'() {
+        given: 'a sampler without slow query threshold'
+            def objectUnderTest = newSampler(Duration.ZERO, Duration.ZERO)
+        when: 'a slow search query is checked'
+            objectUnderTest.logIfSlow(queryBuilder, searchCriteria.getPageable(), Duration.ofMinutes(1))
+        then: 'the query is not explained'
+            0 * mockNamedParameterJdbcTemplate._
+    }
+
+    def 'Log plan of a slow search query failing to be explained'() {
+        given: 'a sampler logging queries from 100 ms'
+            def objectUnderTest = newSampler(Duration.ZERO, Duration.ofMillis(100))
+        and: 'explaining the query fails'
+            mockNamedParameterJdbcTemplate.queryForObject(*_) >> { throw new QueryTimeoutException('timeout') }
+        when: 'a slow search query is checked'
+            objectUnderTest.logIfSlow(queryBuilder, searchCriteria.getPageable(), Duration.ofSeconds(1))
+        then: 'no exception is thrown'
+            noExceptionThrown()
+    }
+
+    def newSampler(interval, slowQueryThreshold) {
+        return new QueryPlanSampler(mockNamedParameterJdbcTemplate, interval, slowQueryThreshold,
+            Duration.ofMinutes(1), meterRegistry)
+    }
+
+    static def buildQuery(searchCriteria) {
+        def queryBuilder = new SearchCriteriaQueryBuilder(searchCriteria, 'full')
+        queryBuilder.buildQuery()
+        return queryBuilder
+    }
+
+}
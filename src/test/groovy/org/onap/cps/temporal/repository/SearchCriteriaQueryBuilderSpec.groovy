@@ -0,0 +1,146 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository
+
+import org.onap.cps.temporal.domain.SearchCriteria
+import org.onap.cps.temporal.domain.SearchCursor
+import org.springframework.data.domain.Sort
+import spock.lang.Shared
+import spock.lang.Specification
+
+import javax.validation.ValidationException
+import java.time.OffsetDateTime
+
+/**
+ * Test specification for search criteria query builder.
+ */
+class SearchCriteriaQueryBuilderSpec extends Specification {
+
+    @Shared
+    def aCursor = new SearchCursor(OffsetDateTime.now(), 'my-anchor')
+
+    @Shared
+    def anotherSort = Sort.by(Sort.Order.desc('observed_timestamp'), Sort.Order.asc('anchor'))
+
+    def 'Query built for searches of the same shape'() {
+        given: 'two searches with the same criteria present, but different values'
+            def firstQueryBuilder = buildQuery(buildSearchCriteria('my-anchor-1', OffsetDateTime.now().minusDays(2)))
+            def secondQueryBuilder = buildQuery(buildSearchCriteria('my-anchor-2', OffsetDateTime.now().minusDays(1)))
+        expect: 'both searches have the same shape'
+            firstQueryBuilder.getQueryShape() == secondQueryBuilder.getQueryShape()
+        and: 'the very same query text, built once'
+            firstQueryBuilder.getDataNativeQuery().is(secondQueryBuilder.getDataNativeQuery())
+        and: 'their own parameters'
+            firstQueryBuilder.getQueryParameters().anchorName == 'my-anchor-1'
+            secondQueryBuilder.getQueryParameters().anchorName == 'my-anchor-2'
+    }
+
+    def 'Query built for searches of different shapes: #scenario'() {
+        given: 'a search and another one with #scenario'
+            def queryBuilder = buildQuery(buildSearchCriteria('my-anchor', null))
+            def otherQueryBuilder = buildQuery(otherSearchCriteria)
+        expect: 'searches have different shapes and query texts'
+            queryBuilder.getQueryShape() != otherQueryBuilder.getQueryShape()
+            queryBuilder.getDataNativeQuery() != otherQueryBuilder.getDataNativeQuery()
+        and: 'only one of the query texts has the expected condition'
+            queryBuilder.getDataNativeQuery().contains(condition) != otherQueryBuilder.getDataNativeQuery().contains(condition)
+        where:
+            scenario                 | otherSearchCriteria                                      || condition
+            'an additional criteria' | buildSearchCriteria('my-anchor', OffsetDateTime.now())  || 'observed_timestamp >= :observedAfter'
+            'a missing criteria'     | buildSearchCriteria(null, null)                          || 'anchor = :anchorName'
+            'a cursor'               | buildSearchCriteria('my-anchor', null, aCursor)          || ':cursorAnchor'
+            'another sort'           | buildSearchCriteria('my-anchor', null, null, anotherSort) || 'anchor asc'
+    }
+
+    def 'Query built for a search with an empty criteria'() {
+        when: 'a search with an empty anchor name is built'
+            def queryBuilder = buildQuery(buildSearchCriteria('', null))
+        then: 'the empty criteria is considered as not present'
+            queryBuilder.getQueryShape() == buildQuery(buildSearchCriteria(null, null)).getQueryShape()
+            !queryBuilder.getQueryParameters().containsKey('anchorName')
+    }
+
+    def 'Query built for a search with a payload filter in #payloadMode mode'() {
+        given: 'a search with a payload filter'
+            def searchCriteria = new SearchCriteria.Builder().dataspaceName('my-dataspace')
+                .schemaSetName('my-schema-set').simplePayloadFilter('{"status": "up"}').pagination(0, 10).build()
+        when: 'its query is built'
+            def queryBuilder = buildQuery(searchCriteria, payloadMode)
+        then: 'the payload condition is added'
+            queryBuilder.getDataNativeQuery().contains('payload @> CAST(:simplePayloadFilter AS jsonb)')
+        and: 'the payload table is only searched when payloads are deduplicated'
+            queryBuilder.getDataNativeQuery().contains('network_data_payload') == searchesPayloadTable
+        where:
+            payloadMode    || searchesPayloadTable
+            'full'         || false
+            'deduplicated' || true
+    }
+
+    def 'Query built for a search with a payload filter in delta mode'() {
+        given: 'a search with a payload filter'
+            def searchCriteria = new SearchCriteria.Builder().dataspaceName('my-dataspace')
+                .schemaSetName('my-schema-set').simplePayloadFilter('{"status": "up"}').pagination(0, 10).build()
+        when: 'its query is built while payloads are stored as patches'
+            buildQuery(searchCriteria, 'delta')
+        then: 'the search is rejected, as patches would not be matched'
+            thrown(ValidationException)
+    }
+
+    def 'Query built for a search with a cursor and a sort on #sortProperty'() {
+        given: 'a search with a cursor, sorted on another column than the ones of the cursor'
+            def searchCriteria = buildSearchCriteria('my-anchor', null, aCursor)
+            searchCriteria.@sort = Sort.by(Sort.Order.desc(sortProperty))
+        when: 'its query is built'
+            buildQuery(searchCriteria)
+        then: 'the search is rejected, as the cursor can not seek on this column'
+            def exception = thrown(ValidationException)
+            exception.getMessage().contains(sortProperty)
+        where:
+            sortProperty << ['created_timestamp', 'schema_set']
+    }
+
+    def 'Query built for a search by page number is sorted by anchor for the same observed timestamp'() {
+        when: 'the query of a search by page number, sorted by observed timestamp only, is built'
+            def queryBuilder = buildQuery(buildSearchCriteria('my-anchor', null))
+        then: 'anchor is the tie-breaker, so that the continuation token of its response is stable'
+            queryBuilder.getDataNativeQuery().endsWith('ORDER BY observed_timestamp desc,anchor desc')
+    }
+
+    static def buildSearchCriteria(anchorName, observedAfter, cursor = null,
+                                   sort = Sort.by(Sort.Order.desc('observed_timestamp'))) {
+        return new SearchCriteria.Builder()
+            .dataspaceName('my-dataspace')
+            .schemaSetName('my-schema-set')
+            .anchorName(anchorName)
+            .observedAfter(observedAfter)
+            .cursor(cursor)
+            .sort(sort)
+            .pagination(0, 10)
+            .build()
+    }
+
+    static def buildQuery(searchCriteria, payloadMode = 'full') {
+        def queryBuilder = new SearchCriteriaQueryBuilder(searchCriteria, payloadMode)
+        queryBuilder.buildQuery()
+        return queryBuilder
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.repository
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.onap.cps.temporal.domain.SearchCriteria
+import spock.lang.Specification
+
+import java.time.OffsetDateTime
+import java.util.concurrent.TimeUnit
+
+/**
+ * Test specification for search query metrics.
+ */
+class SearchQueryMetricsSpec extends Specification {
+
+    def meterRegistry = new SimpleMeterRegistry()
+
+    def objectUnderTest = new SearchQueryMetrics(meterRegistry)
+
+    def 'Record a search query'() {
+        given: 'search criteria by anchor observed after a timestamp'
+            def searchCriteria = new SearchCriteria.Builder()
+                .dataspaceName('my-dataspace')
+                .anchorName('my-anchor')
+                .observedAfter(OffsetDateTime.now())
+                .pagination(0, 10)
+                .build()
+        when: 'a search query is recorded'
+            objectUnderTest.record(searchCriteria, TimeUnit.MILLISECONDS.toNanos(25), 7)
+        then: 'its latency is recorded for the criteria shape'
+            def timer = meterRegistry.get('cps.temporal.query.search')
+                .tags('anchor', 'true', 'schema-set', 'false', 'payload-filter', 'false', 'observed-after', 'true',
+                    'observed-before', 'false', 'cursor', 'false', 'page-size', '1-10', 'offset', '0')
+                .timer()
+            timer.count() == 1
+            timer.totalTime(TimeUnit.MILLISECONDS) == 25
+        and: 'the number of rows returned is recorded for the criteria shape'
+            meterRegistry.get('cps.temporal.query.search.rows').tag('anchor', 'true').summary().totalAmount() == 7
+    }
+
+    def 'Record a search query with page size #pageSize and page number #pageNumber'() {
+        given: 'search criteria by schema set'
+            def searchCriteria = new SearchCriteria.Builder()
+                .dataspaceName('my-dataspace')
+                .schemaSetName('my-schema-set')
+                .pagination(pageNumber, pageSize)
+                .build()
+        when: 'a search query is recorded'
+            objectUnderTest.record(searchCriteria, 1, 0)
+        then: 'page size and offset are recorded as buckets'
+            meterRegistry.get('cps.temporal.query.search')
+                .tags('schema-set', 'true', 'page-size', expectedPageSizeBucket, 'offset', expectedOffsetBucket)
+                .timer().count() == 1
+        where:
+            pageSize | pageNumber || expectedPageSizeBucket | expectedOffsetBucket
+            10       | 0          || '1-10'                 | '0'
+            11       | 1          || '11-100'               | '1-999'
+            1000     | 1          || '101-1000'             | '1000-9999'
+            1001     | 10         || '1001+'                | '10000+'
+    }
+
+}
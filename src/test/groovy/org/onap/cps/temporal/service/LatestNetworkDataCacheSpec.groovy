@@ -0,0 +1,151 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.service
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.onap.cps.temporal.domain.NetworkData
+import org.onap.cps.temporal.domain.Operation
+import org.springframework.transaction.support.TransactionSynchronizationManager
+import org.springframework.util.unit.DataSize
+import spock.lang.Specification
+
+import java.time.Duration
+import java.time.OffsetDateTime
+import java.util.function.Supplier
+
+/**
+ * Test specification for the latest network data cache.
+ */
+class LatestNetworkDataCacheSpec extends Specification {
+
+    def meterRegistry = new SimpleMeterRegistry()
+
+    def objectUnderTest = new LatestNetworkDataCache(true, DataSize.ofMegabytes(1), Duration.ofMinutes(10),
+        meterRegistry)
+
+    def baseTimestamp = OffsetDateTime.parse('2021-07-22T10:00:00.000Z')
+
+    def mockLoader = Mock(Supplier)
+
+    def 'Latest network data is loaded once on cache miss.'() {
+        given: 'the latest network data in the database'
+            def networkData = buildNetworkData('my-anchor', 0)
+        when: 'the latest network data is requested twice'
+            def results = [objectUnderTest.get('my-dataspace', 'my-anchor', mockLoader),
+                           objectUnderTest.get('my-dataspace', 'my-anchor', mockLoader)]
+        then: 'it is loaded only once'
+            1 * mockLoader.get() >> networkData
+        and: 'it is returned each time'
+            results == [networkData, networkData]
+        and: 'the miss and the hit are recorded'
+            meterRegistry.get('cache.gets').tag('cache', LatestNetworkDataCache.CACHE_NAME)
+                .tag('result', 'miss').functionCounter().count() == 1
+            meterRegistry.get('cache.gets').tag('cache', LatestNetworkDataCache.CACHE_NAME)
+                .tag('result', 'hit').functionCounter().count() == 1
+    }
+
+    def 'Anchor without network data is not cached.'() {
+        when: 'the latest network data of an anchor without network data is requested twice'
+            def results = [objectUnderTest.get('my-dataspace', 'my-anchor', mockLoader),
+                           objectUnderTest.get('my-dataspace', 'my-anchor', mockLoader)]
+        then: 'it is loaded each time'
+            2 * mockLoader.get() >> null
+        and: 'nothing is returned'
+            results == [null, null]
+    }
+
+    def 'Inserted network data observed #scenario replaces the cached one only if observed later.'() {
+        given: 'a cached network data'
+            objectUnderTest.update([buildNetworkData('my-anchor', 1)])
+        when: 'network data observed #scenario are inserted'
+            objectUnderTest.update([buildNetworkData('my-anchor', minuteOffset)])
+        and: 'the latest network data is requested'
+            def result = objectUnderTest.get('my-dataspace', 'my-anchor', mockLoader)
+        then: 'the latest observed network data is returned without being loaded'
+            result.getObservedTimestamp() == baseTimestamp.plusMinutes(expectedMinuteOffset)
+            0 * mockLoader.get()
+        where:
+            scenario | minuteOffset || expectedMinuteOffset
+            'later'  | 2            || 2
+            'before' | 0            || 1
+    }
+
+    def 'Network data inserted within a transaction are cached once committed.'() {
+        given: 'an active transaction synchronization'
+            TransactionSynchronizationManager.initSynchronization()
+        when: 'network data are inserted'
+            objectUnderTest.update([buildNetworkData('my-anchor', 0)])
+        then: 'they are not cached before the commit'
+            objectUnderTest.get('my-dataspace', 'my-anchor', mockLoader) == null
+        when: 'the transaction is committed'
+            TransactionSynchronizationManager.getSynchronizations()*.afterCommit()
+        then: 'they are cached'
+            objectUnderTest.get('my-dataspace', 'my-anchor', mockLoader).getObservedTimestamp() == baseTimestamp
+        cleanup:
+            TransactionSynchronizationManager.clearSynchronization()
+    }
+
+    def 'Cache invalidated #scenario.'() {
+        given: 'a cached network data'
+            objectUnderTest.update([buildNetworkData('my-anchor', 0)])
+        and: 'an active transaction synchronization if #scenario'
+            if (withinTransaction) {
+                TransactionSynchronizationManager.initSynchronization()
+            }
+        when: 'the cache is invalidated'
+            objectUnderTest.invalidateAll()
+        and: 'the transaction is committed if any'
+            if (withinTransaction) {
+                TransactionSynchronizationManager.getSynchronizations()*.afterCommit()
+            }
+        and: 'the latest network data is requested'
+            objectUnderTest.get('my-dataspace', 'my-anchor', mockLoader)
+        then: 'it is loaded again from the database'
+            1 * mockLoader.get()
+        cleanup:
+            if (withinTransaction) {
+                TransactionSynchronizationManager.clearSynchronization()
+            }
+        where:
+            scenario                  | withinTransaction
+            'outside of transactions' | false
+            'within a transaction'    | true
+    }
+
+    def 'Disabled cache always loads the latest network data.'() {
+        given: 'a disabled cache'
+            def disabledCache = new LatestNetworkDataCache(false, DataSize.ofMegabytes(1), Duration.ofMinutes(10),
+                meterRegistry)
+        and: 'an inserted network data'
+            disabledCache.update([buildNetworkData('my-anchor', 0)])
+        when: 'the latest network data is requested'
+            disabledCache.get('my-dataspace', 'my-anchor', mockLoader)
+        then: 'it is loaded'
+            1 * mockLoader.get()
+    }
+
+    def buildNetworkData(anchor, minuteOffset) {
+        return NetworkData.builder().observedTimestamp(baseTimestamp.plusMinutes(minuteOffset))
+            .dataspace('my-dataspace').schemaSet('my-schema-set').anchor(anchor)
+            .operation(Operation.UPDATE).payload('{"status": "up"}').build()
+    }
+
+}
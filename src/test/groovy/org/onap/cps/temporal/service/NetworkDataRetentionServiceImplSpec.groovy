@@ -0,0 +1,209 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.service
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import java.time.Duration
+import java.time.OffsetDateTime
+import org.onap.cps.temporal.domain.NetworkDataChunkStatistics
+import org.onap.cps.temporal.repository.NetworkDataRepository
+import spock.lang.Specification
+
+/**
+ * Test specification for network data retention service.
+ */
+class NetworkDataRetentionServiceImplSpec extends Specification {
+
+    def mockNetworkDataRepository = Mock(NetworkDataRepository)
+
+    def retentionProperties = new RetentionProperties(batchSize: 2)
+
+    def mockLatestNetworkDataCache = Mock(LatestNetworkDataCache)
+
+    def mockSearchResultCache = Mock(SearchResultCache)
+
+    def meterRegistry = new SimpleMeterRegistry()
+
+    def objectUnderTest = new NetworkDataRetentionServiceImpl(mockNetworkDataRepository, retentionProperties, 'full',
+        mockLatestNetworkDataCache, mockSearchResultCache, meterRegistry)
+
+    def 'Retention drops chunks older than default period.'() {
+        given: 'a default retention period of 30 days'
+            retentionProperties.setDefaultPeriod(Duration.ofDays(30))
+        when: 'retention is applied'
+            objectUnderTest.applyRetention()
+        then: 'chunks observed before 30 days ago are dropped'
+            1 * mockNetworkDataRepository.dropChunksObservedBefore({
+                isAboutDaysAgo(it, 30)
+            }) >> new NetworkDataChunkStatistics(2, 1, 2000)
+        and: 'dropped chunks and their size are counted'
+            meterRegistry.get('cps.temporal.retention.dropped.chunks').counter().count() == 2
+            meterRegistry.get('cps.temporal.retention.reclaimed').counter().count() == 2000
+    }
+
+    def 'Retention invalidates the caches.'() {
+        given: 'a default retention period of 30 days'
+            retentionProperties.setDefaultPeriod(Duration.ofDays(30))
+            mockNetworkDataRepository.dropChunksObservedBefore(_) >> new NetworkDataChunkStatistics(2, 1, 2000)
+        when: 'retention is applied'
+            objectUnderTest.applyRetention()
+        then: 'the latest network data cache is invalidated, as the latest network data of an anchor may be removed'
+            1 * mockLatestNetworkDataCache.invalidateAll()
+        and: 'the search result cache is invalidated, as cached results may hold removed network data'
+            1 * mockSearchResultCache.invalidateAll()
+    }
+
+    def 'Retention without default period does not drop chunks.'() {
+        when: 'retention is applied without any configuration'
+            objectUnderTest.applyRetention()
+        then: 'no chunks are dropped'
+            0 * mockNetworkDataRepository.dropChunksObservedBefore(_)
+        and: 'no network data is deleted'
+            0 * mockNetworkDataRepository.deleteObservedBefore(*_)
+    }
+
+    def 'Retention deletes network data of a dataspace in batches.'() {
+        given: 'a rule with a retention period of 10 days'
+            retentionProperties.setRules([new RetentionProperties.Rule(dataspace: 'my-dataspace',
+                schemaSet: 'my-schema-set', period: Duration.ofDays(10))])
+        when: 'retention is applied'
+            objectUnderTest.applyRetention()
+        then: 'network data are deleted until a batch deletes nothing'
+            4 * mockNetworkDataRepository.deleteObservedBefore('my-dataspace', 'my-schema-set', null,
+                { isAboutDaysAgo(it, 10) }, 2) >>> [2, 2, 1, 0]
+        and: 'deleted network data are counted'
+            meterRegistry.get('cps.temporal.retention.deleted')
+                .tags('dataspace', 'my-dataspace', 'reason', 'period').counter().count() == 5
+    }
+
+    def 'Retention downsamples network data of a dataspace.'() {
+        given: 'a rule downsampling data older than 7 days to one per hour, and keeping data 90 days'
+            def downsampling = new RetentionProperties.Downsampling(after: Duration.ofDays(7),
+                interval: Duration.ofHours(1))
+            retentionProperties.setRules([new RetentionProperties.Rule(dataspace: 'my-dataspace',
+                period: Duration.ofDays(90), downsampling: downsampling)])
+        when: 'retention is applied'
+            objectUnderTest.applyRetention()
+        then: 'network data between the retention period and downsampling age are downsampled'
+            2 * mockNetworkDataRepository.deleteAllButLatestPerBucket('my-dataspace', null,
+                { isAboutDaysAgo(it, 90) }, { isAboutDaysAgo(it, 7) }, Duration.ofHours(1), 2) >>> [1, 0]
+        and: 'network data older than the retention period are deleted'
+            1 * mockNetworkDataRepository.deleteObservedBefore('my-dataspace', null, null,
+                { isAboutDaysAgo(it, 90) }, 2) >> 0
+        and: 'downsampled network data are counted'
+            meterRegistry.get('cps.temporal.retention.deleted')
+                .tags('dataspace', 'my-dataspace', 'reason', 'downsampling').counter().count() == 1
+    }
+
+    def 'Retention only deletes network data of a dataspace which are not compressed yet.'() {
+        given: 'network data compressed after 30 days'
+            mockNetworkDataRepository.findCompressionAge() >> Duration.ofDays(30)
+        and: 'a rule downsampling data older than 7 days to one per hour, and keeping data 10 days'
+            def downsampling = new RetentionProperties.Downsampling(after: Duration.ofDays(7),
+                interval: Duration.ofHours(1))
+            retentionProperties.setRules([new RetentionProperties.Rule(dataspace: 'my-dataspace',
+                period: Duration.ofDays(10), downsampling: downsampling)])
+        when: 'retention is applied'
+            objectUnderTest.applyRetention()
+        then: 'network data older than the retention period but not compressed yet are deleted'
+            1 * mockNetworkDataRepository.deleteObservedBefore('my-dataspace', null, { isAboutDaysAgo(it, 30) },
+                { isAboutDaysAgo(it, 10) }, 2) >> 0
+    }
+
+    def 'Retention rules deleting network data #scenario are rejected.'() {
+        given: 'network data compressed after 7 days'
+            mockNetworkDataRepository.findCompressionAge() >> Duration.ofDays(7)
+        and: 'a rule'
+            retentionProperties.setRules([new RetentionProperties.Rule(dataspace: 'my-dataspace', period: period,
+                downsampling: downsamplingAfter == null ? null : new RetentionProperties.Downsampling(
+                    after: downsamplingAfter, interval: Duration.ofHours(1)))])
+        when: 'rules are validated'
+            objectUnderTest.validateRules()
+        then: 'an exception is thrown'
+            thrown(IllegalStateException)
+        where:
+            scenario                             | period             | downsamplingAfter
+            'older than compressed ones'         | Duration.ofDays(8) | null
+            'as old as compressed ones'          | Duration.ofDays(7) | null
+            'downsampled after being compressed' | null               | Duration.ofDays(10)
+    }
+
+    def 'Retention rules deleting network data #scenario are valid.'() {
+        given: 'network data compressed after #compressionAge'
+            mockNetworkDataRepository.findCompressionAge() >> compressionAge
+        and: 'a rule deleting network data older than 10 days and downsampling them after 3 days'
+            retentionProperties.setRules([new RetentionProperties.Rule(dataspace: 'my-dataspace',
+                period: Duration.ofDays(10), downsampling: new RetentionProperties.Downsampling(
+                    after: Duration.ofDays(3), interval: Duration.ofHours(1)))])
+        when: 'rules are validated'
+            objectUnderTest.validateRules()
+        then: 'no exception is thrown'
+            noExceptionThrown()
+        where:
+            scenario                     | compressionAge
+            'before they are compressed' | Duration.ofDays(30)
+            'never compressed'           | null
+    }
+
+    def 'Retention rules downsampling network data stored as deltas are rejected.'() {
+        given: 'payloads stored as deltas'
+            def deltaObjectUnderTest = new NetworkDataRetentionServiceImpl(mockNetworkDataRepository,
+                retentionProperties, 'delta', mockLatestNetworkDataCache, mockSearchResultCache, meterRegistry)
+        and: 'network data compressed after 30 days'
+            mockNetworkDataRepository.findCompressionAge() >> Duration.ofDays(30)
+        and: 'a rule deleting network data older than 10 days and downsampling them after 3 days'
+            retentionProperties.setRules([new RetentionProperties.Rule(dataspace: 'my-dataspace',
+                period: Duration.ofDays(10), downsampling: new RetentionProperties.Downsampling(
+                    after: Duration.ofDays(3), interval: Duration.ofHours(1)))])
+        when: 'rules are validated'
+            deltaObjectUnderTest.validateRules()
+        then: 'an exception is thrown, as each payload of a patch chain is the base of the next one'
+            thrown(IllegalStateException)
+    }
+
+    def 'Retention rules not downsampling network data stored as deltas are valid.'() {
+        given: 'payloads stored as deltas'
+            def deltaObjectUnderTest = new NetworkDataRetentionServiceImpl(mockNetworkDataRepository,
+                retentionProperties, 'delta', mockLatestNetworkDataCache, mockSearchResultCache, meterRegistry)
+        and: 'a rule deleting network data older than 10 days'
+            retentionProperties.setRules([new RetentionProperties.Rule(dataspace: 'my-dataspace',
+                period: Duration.ofDays(10))])
+        when: 'rules are validated'
+            deltaObjectUnderTest.validateRules()
+        then: 'no exception is thrown'
+            noExceptionThrown()
+    }
+
+    def 'Retention deletes payloads no longer referenced in batches.'() {
+        when: 'retention is applied'
+            objectUnderTest.applyRetention()
+        then: 'payloads not referenced since a day are deleted until a batch deletes nothing'
+            2 * mockNetworkDataRepository.deleteUnreferencedPayloads({ isAboutDaysAgo(it, 1) }, 2) >>> [2, 0]
+        and: 'deleted payloads are counted'
+            meterRegistry.get('cps.temporal.retention.deleted.payloads').counter().count() == 2
+    }
+
+    def isAboutDaysAgo(OffsetDateTime timestamp, int days) {
+        def expected = OffsetDateTime.now().minusDays(days)
+        return timestamp.isAfter(expected.minusMinutes(1)) && !timestamp.isAfter(expected)
+    }
+
+}
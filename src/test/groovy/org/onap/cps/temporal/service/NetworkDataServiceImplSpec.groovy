@@ -20,18 +20,25 @@
 
 package org.onap.cps.temporal.service
 
-import org.onap.cps.temporal.domain.NetworkDataId
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.onap.cps.temporal.domain.ChangeCountCriteria
+import org.onap.cps.temporal.domain.NetworkDataChangeCount
+import org.onap.cps.temporal.domain.NetworkDataInsertResult
 import org.onap.cps.temporal.domain.Operation
 import org.onap.cps.temporal.domain.SearchCriteria
+import org.onap.cps.temporal.domain.SnapshotCriteria
 import org.spockframework.spring.SpringBean
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.beans.factory.annotation.Value
 import org.springframework.boot.test.context.SpringBootTest
 import org.springframework.data.domain.PageImpl
+import org.springframework.data.domain.SliceImpl
 import org.springframework.test.context.ContextConfiguration
 
 import javax.validation.ValidationException
 import java.time.OffsetDateTime
+import java.util.function.Consumer
+import java.util.stream.Stream
 import org.onap.cps.temporal.domain.NetworkData
 import org.onap.cps.temporal.repository.NetworkDataRepository
 import spock.lang.Specification
@@ -40,12 +47,15 @@ import spock.lang.Specification
  * Test specification for network data service.
  */
 @SpringBootTest
-@ContextConfiguration(classes = NetworkDataServiceImpl)
+@ContextConfiguration(classes = [NetworkDataServiceImpl, QueryAdmission, SearchResultCache, SimpleMeterRegistry])
 class NetworkDataServiceImplSpec extends Specification {
 
     @SpringBean
     NetworkDataRepository mockNetworkDataRepository = Mock()
 
+    @SpringBean
+    LatestNetworkDataCache mockLatestNetworkDataCache = Mock()
+
     @Autowired
     NetworkDataService objectUnderTest
 
@@ -60,13 +70,17 @@ class NetworkDataServiceImplSpec extends Specification {
         and: 'network data repository is persisting network data'
             def persistedNetworkData = new NetworkData()
             persistedNetworkData.setCreatedTimestamp(OffsetDateTime.now())
-            mockNetworkDataRepository.save(networkData) >> persistedNetworkData
+            def insertResult = new NetworkDataInsertResult()
+            insertResult.addInserted(persistedNetworkData)
+            mockNetworkDataRepository.insertAll([networkData]) >> insertResult
         when: 'a new network data is added'
             def result = objectUnderTest.addNetworkData(networkData)
         then: 'result network data is the one that has been persisted'
             result == persistedNetworkData
             result.getCreatedTimestamp() != null
             networkData.getCreatedTimestamp() == null
+        and: 'the latest network data cache is updated with the persisted network data'
+            1 * mockLatestNetworkDataCache.update([persistedNetworkData])
         where: 'the following data is used'
             operation        | payload
             Operation.CREATE | '{ "key" : "value" }'
@@ -87,22 +101,116 @@ class NetworkDataServiceImplSpec extends Specification {
     }
 
     def 'Add network data fails because already added'() {
-        given:
-            'network data repository is not able to create data it is asked to persist ' +
-                    'and reveals it with null created timestamp on network data entity'
-            def persistedNetworkData = new NetworkData()
-            persistedNetworkData.setCreatedTimestamp(null)
-            mockNetworkDataRepository.save(networkData) >> persistedNetworkData
-        and: 'existing data can be retrieved'
-            def existing = new NetworkData()
-            existing.setOperation(Operation.UPDATE)
-            existing.setPayload('{}')
-            existing.setCreatedTimestamp(OffsetDateTime.now().minusYears(1))
-            mockNetworkDataRepository.findById(_ as NetworkDataId) >> Optional.of(existing)
+        given: 'network data repository is not able to create data it is asked to persist and reports it as duplicate'
+            def insertResult = new NetworkDataInsertResult()
+            insertResult.addDuplicate(networkData)
+            mockNetworkDataRepository.insertAll([networkData]) >> insertResult
+        when: 'a new network data is added'
+            objectUnderTest.addNetworkData(networkData)
+        then: 'duplicate network data exception is thrown'
+            thrown(DuplicateNetworkDataException)
+        and: 'existing data is not read'
+            0 * mockNetworkDataRepository.findById(_)
+    }
+
+    def 'Add network data fails because observed within a compressed chunk'() {
+        given: 'network data repository reports the data it is asked to persist as late'
+            def insertResult = new NetworkDataInsertResult()
+            insertResult.addLate(networkData)
+            mockNetworkDataRepository.insertAll([networkData]) >> insertResult
         when: 'a new network data is added'
             objectUnderTest.addNetworkData(networkData)
-        then: 'network service exception is thrown'
-            thrown(ServiceException)
+        then: 'late network data exception is thrown'
+            thrown(LateNetworkDataException)
+        and: 'the latest network data cache is not updated'
+            0 * mockLatestNetworkDataCache.update(_)
+    }
+
+    def 'Add network data skipped because unchanged'() {
+        given: 'network data repository reports the data it is asked to persist as unchanged'
+            def insertResult = new NetworkDataInsertResult()
+            insertResult.addUnchanged(networkData)
+            mockNetworkDataRepository.insertAll([networkData]) >> insertResult
+        when: 'a new network data is added'
+            def result = objectUnderTest.addNetworkData(networkData)
+        then: 'no exception is thrown and the network data is returned as is'
+            noExceptionThrown()
+            result == networkData
+        and: 'the latest network data cache is not updated'
+            0 * mockLatestNetworkDataCache.update(_)
+    }
+
+    def 'Add a batch of network data.'() {
+        given: 'a batch of valid network data'
+            def networkDataList = [
+                    NetworkData.builder().operation(Operation.CREATE).payload('{}').build(),
+                    NetworkData.builder().operation(Operation.DELETE).build()]
+        when: 'the batch is added'
+            def result = objectUnderTest.addNetworkDataList(networkDataList)
+        then: 'the whole batch is inserted by the repository'
+            def insertResult = new NetworkDataInsertResult()
+            insertResult.addInserted(networkDataList[0])
+            1 * mockNetworkDataRepository.insertAll(networkDataList) >> insertResult
+        and: 'the latest network data cache is updated with the inserted network data'
+            1 * mockLatestNetworkDataCache.update([networkDataList[0]])
+        and: 'the insert result is returned'
+            result == insertResult
+    }
+
+    def 'Add a batch of network data skips invalid network data.'() {
+        given: 'a batch with a network data missing its payload'
+            def validNetworkData = NetworkData.builder().operation(Operation.CREATE).payload('{}').build()
+            def invalidNetworkData = NetworkData.builder().operation(Operation.UPDATE).build()
+        when: 'the batch is added'
+            objectUnderTest.addNetworkDataList([validNetworkData, invalidNetworkData])
+        then: 'only the valid network data is inserted'
+            1 * mockNetworkDataRepository.insertAll([validNetworkData]) >> new NetworkDataInsertResult()
+    }
+
+    def 'Add a batch of network data without any valid network data.'() {
+        when: 'a batch with only invalid network data is added'
+            def result = objectUnderTest.addNetworkDataList([NetworkData.builder().operation(Operation.UPDATE).build()])
+        then: 'repository is not called'
+            0 * mockNetworkDataRepository.insertAll(_)
+        and: 'nothing is inserted'
+            result.getInsertedCount() == 0
+            result.getDuplicateCount() == 0
+    }
+
+    def 'Add network data in bulk skips invalid network data.'() {
+        given: 'network data with one missing its payload'
+            def validNetworkData = NetworkData.builder().operation(Operation.CREATE).payload('{}').build()
+            def invalidNetworkData = NetworkData.builder().operation(Operation.UPDATE).build()
+        when: 'they are added in bulk'
+            def result = objectUnderTest.addNetworkDataInBulk([validNetworkData, invalidNetworkData])
+        then: 'only the valid network data is copied by the repository'
+            1 * mockNetworkDataRepository.copyAll([validNetworkData]) >> 1
+        and: 'the latest network data cache is invalidated rather than updated'
+            0 * mockLatestNetworkDataCache.update(_)
+            1 * mockLatestNetworkDataCache.invalidateAll()
+        and: 'the number of network data stored is returned'
+            result == 1
+    }
+
+    def 'Add network data in bulk without any valid network data.'() {
+        when: 'only invalid network data are added in bulk'
+            def invalidNetworkData = NetworkData.builder().operation(Operation.UPDATE).build()
+            def result = objectUnderTest.addNetworkDataInBulk([invalidNetworkData])
+        then: 'repository is not called'
+            0 * mockNetworkDataRepository.copyAll(_)
+        and: 'nothing is stored'
+            result == 0
+    }
+
+    def 'Suspend and rebuild payload index.'() {
+        when: 'payload index is suspended'
+            objectUnderTest.suspendPayloadIndex()
+        then: 'it is dropped by the repository'
+            1 * mockNetworkDataRepository.dropPayloadIndex()
+        when: 'payload index is rebuilt'
+            objectUnderTest.rebuildPayloadIndex()
+        then: 'it is created by the repository'
+            1 * mockNetworkDataRepository.createPayloadIndex()
     }
 
     def 'Query network data by search criteria.'() {
@@ -134,4 +242,114 @@ class NetworkDataServiceImplSpec extends Specification {
             thrown(ValidationException)
     }
 
+    def 'Query network data snapshot.'() {
+        given: 'snapshot criteria'
+            def snapshotCriteria = SnapshotCriteria.builder()
+                    .dataspaceName('my-dataspaceName')
+                    .schemaSetName('my-schemaset')
+                    .pagination(0, 10)
+                    .build()
+        and: 'response from repository'
+            def sliceFromRepository = new SliceImpl<>([networkData], snapshotCriteria.getPageable(), false)
+            mockNetworkDataRepository.findLatestBySnapshotCriteria(snapshotCriteria) >> sliceFromRepository
+        when: 'snapshot is requested'
+            def result = objectUnderTest.searchNetworkDataSnapshot(snapshotCriteria)
+        then: 'data is fetched from repository and returned'
+            result == sliceFromRepository
+    }
+
+    def 'Query network data snapshot with more than max page-size'() {
+        given: 'snapshot criteria with more than max page size'
+            def snapshotCriteria = SnapshotCriteria.builder()
+                    .dataspaceName('my-dataspaceName')
+                    .schemaSetName('my-schemaset')
+                    .pagination(0, maxPageSize + 1)
+                    .build()
+        when: 'snapshot is requested'
+            objectUnderTest.searchNetworkDataSnapshot(snapshotCriteria)
+        then: 'a validation exception is thrown'
+            thrown(ValidationException)
+        and: 'repository is not called'
+            0 * mockNetworkDataRepository.findLatestBySnapshotCriteria(_)
+    }
+
+    def 'Query network data change counts.'() {
+        given: 'change count criteria'
+            def changeCountCriteria = ChangeCountCriteria.builder()
+                    .dataspaceName('my-dataspaceName')
+                    .anchorName('my-anchor')
+                    .pagination(0, 10)
+                    .build()
+        and: 'response from repository'
+            def changeCount = NetworkDataChangeCount.builder().anchor('my-anchor').operation(Operation.UPDATE)
+                    .count(3).build()
+            def sliceFromRepository = new SliceImpl<>([changeCount], changeCountCriteria.getPageable(), false)
+            mockNetworkDataRepository.findChangeCounts(changeCountCriteria) >> sliceFromRepository
+        when: 'change counts are requested'
+            def result = objectUnderTest.searchNetworkDataChangeCounts(changeCountCriteria)
+        then: 'change counts are fetched from repository and returned'
+            result == sliceFromRepository
+    }
+
+    def 'Query network data change counts with more than max page-size'() {
+        given: 'change count criteria with more than max page size'
+            def changeCountCriteria = ChangeCountCriteria.builder()
+                    .dataspaceName('my-dataspaceName')
+                    .anchorName('my-anchor')
+                    .pagination(0, maxPageSize + 1)
+                    .build()
+        when: 'change counts are requested'
+            objectUnderTest.searchNetworkDataChangeCounts(changeCountCriteria)
+        then: 'a validation exception is thrown'
+            thrown(ValidationException)
+        and: 'repository is not called'
+            0 * mockNetworkDataRepository.findChangeCounts(_)
+    }
+
+    def 'Stream network data by search criteria.'() {
+        given: 'unpaged search criteria'
+            def searchCriteria = SearchCriteria.builder()
+                    .dataspaceName('my-dataspaceName')
+                    .schemaSetName('my-schemaset')
+                    .unpaged()
+                    .build()
+        and: 'a stream of network data from repository'
+            def closed = false
+            def networkDataStream = Stream.of(networkData, networkData).onClose { closed = true }
+            mockNetworkDataRepository.streamBySearchCriteria(searchCriteria) >> networkDataStream
+        and: 'a consumer'
+            def consumer = Mock(Consumer)
+        when: 'network data are streamed'
+            objectUnderTest.streamNetworkData(searchCriteria, consumer)
+        then: 'each network data is provided to the consumer'
+            2 * consumer.accept(networkData)
+        and: 'the repository stream is closed'
+            closed
+    }
+
+    def 'Get latest network data loaded on cache miss.'() {
+        given: 'the latest network data cache loading the network data on miss'
+            mockLatestNetworkDataCache.get('my-dataspaceName', 'my-anchor', _) >> { args -> args[2].get() }
+        when: 'latest network data is requested'
+            def result = objectUnderTest.getLatestNetworkData('my-dataspaceName', 'my-anchor')
+        then: 'the latest network data of the anchor is read from the repository'
+            1 * mockNetworkDataRepository.findBySearchCriteria({
+                it.getDataspaceName() == 'my-dataspaceName' && it.getAnchorName() == 'my-anchor'
+                    && it.getPageable().getPageSize() == 1
+            }) >> new SliceImpl<>([networkData])
+        and: 'it is returned'
+            result == networkData
+    }
+
+    def 'Get latest network data of an anchor without network data.'() {
+        given: 'the latest network data cache loading the network data on miss'
+            mockLatestNetworkDataCache.get('my-dataspaceName', 'my-anchor', _) >> { args -> args[2].get() }
+        and: 'no network data for the anchor'
+            mockNetworkDataRepository.findBySearchCriteria(_) >> new SliceImpl<>([])
+        when: 'latest network data is requested'
+            objectUnderTest.getLatestNetworkData('my-dataspaceName', 'my-anchor')
+        then: 'a not found exception is thrown'
+            thrown(NetworkDataNotFoundException)
+    }
+
 }
@@ -0,0 +1,85 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.service
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import java.time.Duration
+import org.onap.cps.temporal.domain.NetworkDataChunkStatistics
+import org.onap.cps.temporal.repository.NetworkDataRepository
+import spock.lang.Specification
+
+/**
+ * Test specification for network data storage metrics.
+ */
+class NetworkDataStorageMetricsSpec extends Specification {
+
+    def mockNetworkDataRepository = Mock(NetworkDataRepository)
+
+    def meterRegistry = new SimpleMeterRegistry()
+
+    // Gauges only keep a weak reference to the metrics object
+    def objectUnderTest
+
+    def 'Gauges provide chunk statistics.'() {
+        given: 'metrics bound to the registry'
+            objectUnderTest = new NetworkDataStorageMetrics(mockNetworkDataRepository, Duration.ofMinutes(1))
+            objectUnderTest.bindTo(meterRegistry)
+        when: 'gauges are read'
+            def uncompressedChunks = meterRegistry.get('cps.temporal.network.data.chunks')
+                .tag('compressed', 'false').gauge().value()
+            def compressedChunks = meterRegistry.get('cps.temporal.network.data.chunks')
+                .tag('compressed', 'true').gauge().value()
+            def size = meterRegistry.get('cps.temporal.network.data.size').gauge().value()
+        then: 'statistics are read once from the repository'
+            1 * mockNetworkDataRepository.findChunkStatistics() >> new NetworkDataChunkStatistics(10, 4, 2048)
+        and: 'gauges have expected values'
+            uncompressedChunks == 6
+            compressedChunks == 4
+            size == 2048
+    }
+
+    def 'Gauges read statistics again once refresh interval is elapsed.'() {
+        given: 'metrics refreshed on each read'
+            objectUnderTest = new NetworkDataStorageMetrics(mockNetworkDataRepository, Duration.ZERO)
+            objectUnderTest.bindTo(meterRegistry)
+            def gauge = meterRegistry.get('cps.temporal.network.data.size').gauge()
+        when: 'gauge is read twice'
+            def firstValue = gauge.value()
+            def secondValue = gauge.value()
+        then: 'statistics are read twice from the repository'
+            2 * mockNetworkDataRepository.findChunkStatistics() >>>
+                [new NetworkDataChunkStatistics(1, 0, 100), new NetworkDataChunkStatistics(1, 0, 200)]
+        and: 'gauge provides the latest value'
+            firstValue == 100
+            secondValue == 200
+    }
+
+    def 'Gauges have no value when statistics can not be read.'() {
+        given: 'metrics bound to the registry'
+            objectUnderTest = new NetworkDataStorageMetrics(mockNetworkDataRepository, Duration.ofMinutes(1))
+            objectUnderTest.bindTo(meterRegistry)
+        and: 'repository failing to provide statistics'
+            mockNetworkDataRepository.findChunkStatistics() >> { throw new RuntimeException('some error') }
+        expect: 'gauge value is not a number'
+            meterRegistry.get('cps.temporal.network.data.size').gauge().value().isNaN()
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.service
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.function.Supplier
+
+/**
+ * Test specification for query admission.
+ */
+class QueryAdmissionSpec extends Specification {
+
+    def meterRegistry = new SimpleMeterRegistry()
+
+    def 'Admitted query result is returned.'() {
+        given: 'a query admission #scenario'
+            def objectUnderTest = new QueryAdmission(enabled, 1, Duration.ofMillis(10), meterRegistry)
+        expect: 'query result is returned'
+            objectUnderTest.admit({ 'my-result' } as Supplier) == 'my-result'
+        and: 'no query is running anymore'
+            meterRegistry.get('cps.temporal.query.admission.active').gauge().value() == 0
+        where:
+            scenario  | enabled
+            'enabled' | true
+            'disabled' | false
+    }
+
+    def 'Query is rejected when too many queries are running.'() {
+        given: 'a query admission allowing a single query'
+            def objectUnderTest = new QueryAdmission(true, 1, Duration.ofMillis(10), meterRegistry)
+        and: 'a running query'
+            def queryStarted = new CountDownLatch(1)
+            def queryReleased = new CountDownLatch(1)
+            def executor = Executors.newSingleThreadExecutor()
+            def runningQuery = executor.submit({
+                objectUnderTest.admit({ queryStarted.countDown(); queryReleased.await() } as Runnable)
+            } as Runnable)
+            queryStarted.await(1, TimeUnit.SECONDS)
+        when: 'another query is submitted'
+            objectUnderTest.admit({ 'my-result' } as Supplier)
+        then: 'it is rejected'
+            thrown(QueryRejectedException)
+        and: 'rejection is counted while the running query is reported'
+            meterRegistry.get('cps.temporal.query.admission.rejected').counter().count() == 1
+            meterRegistry.get('cps.temporal.query.admission.active').gauge().value() == 1
+        when: 'the running query completes'
+            queryReleased.countDown()
+            runningQuery.get(1, TimeUnit.SECONDS)
+        then: 'a new query is admitted'
+            objectUnderTest.admit({ 'my-result' } as Supplier) == 'my-result'
+        cleanup:
+            executor.shutdownNow()
+    }
+
+    def 'Query permit is released when the query fails.'() {
+        given: 'a query admission allowing a single query'
+            def objectUnderTest = new QueryAdmission(true, 1, Duration.ofMillis(10), meterRegistry)
+        when: 'a query fails'
+            objectUnderTest.admit({ throw new IllegalStateException() } as Runnable)
+        then: 'the failure is propagated'
+            thrown(IllegalStateException)
+        and: 'a new query is admitted'
+            objectUnderTest.admit({ 'my-result' } as Supplier) == 'my-result'
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * ============LICENSE_START=======================================================
+ * Copyright (c) 2021 Bell Canada.
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ============LICENSE_END=========================================================
+ */
+
+package org.onap.cps.temporal.service
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.onap.cps.temporal.domain.NetworkData
+import org.onap.cps.temporal.domain.SearchCriteria
+import org.springframework.data.domain.SliceImpl
+import org.springframework.util.unit.DataSize
+import spock.lang.Specification
+
+import java.time.Duration
+import java.time.OffsetDateTime
+import java.time.ZoneOffset
+import java.util.function.Supplier
+
+/**
+ * Test specification for the search result cache.
+ */
+class SearchResultCacheSpec extends Specification {
+
+    def meterRegistry = new SimpleMeterRegistry()
+
+    def objectUnderTest = new SearchResultCache(true, Duration.ofMinutes(5), DataSize.ofMegabytes(1),
+        Duration.ofHours(1), meterRegistry)
+
+    def mockSearch = Mock(Supplier)
+
+    def searchResult = new SliceImpl<>([NetworkData.builder().payload('{"status": "up"}').build()])
+
+    def historicalTimestamp = OffsetDateTime.now().minusHours(1)
+
+    def 'Search over a historical window is run once.'() {
+        given: 'search criteria created before a point in time older than the safety lag'
+            def searchCriteria = buildSearchCriteria(historicalTimestamp, '{"status": "up"}')
+        when: 'the search is requested twice'
+            def results = [objectUnderTest.get(searchCriteria, mockSearch),
+                           objectUnderTest.get(searchCriteria, mockSearch)]
+        then: 'it is run only once'
+            1 * mockSearch.get() >> searchResult
+        and: 'its result is returned each time'
+            results == [searchResult, searchResult]
+        and: 'the hit is recorded'
+            meterRegistry.get('cache.gets').tag('cache', SearchResultCache.CACHE_NAME)
+                .tag('result', 'hit').functionCounter().count() == 1
+    }
+
+    def 'Equivalent searches share the same result.'() {
+        given: 'a search over a historical window already run'
+            objectUnderTest.get(buildSearchCriteria(historicalTimestamp, '{"status": "up", "name": "eth0"}'),
+                { searchResult } as Supplier)
+        when: 'the same search is requested with another time zone and another filter member order'
+            def result = objectUnderTest.get(buildSearchCriteria(
+                historicalTimestamp.withOffsetSameInstant(ZoneOffset.ofHours(5)), '{"name":"eth0","status":"up"}'),
+                mockSearch)
+        then: 'the cached result is returned'
+            0 * mockSearch.get()
+            result == searchResult
+    }
+
+    def 'Search is run again after the cache is invalidated.'() {
+        given: 'a search over a historical window already run'
+            def searchCriteria = buildSearchCriteria(historicalTimestamp, '{"status": "up"}')
+            objectUnderTest.get(searchCriteria, { searchResult } as Supplier)
+        when: 'the cache is invalidated'
+            objectUnderTest.invalidateAll()
+        and: 'the same search is requested'
+            objectUnderTest.get(searchCriteria, mockSearch)
+        then: 'it is run again'
+            1 * mockSearch.get() >> searchResult
+    }
+
+    def 'Search is not cached #scenario.'() {
+        given: 'a cache'
+            def cache = new SearchResultCache(enabled, Duration.ofMinutes(5), DataSize.ofMegabytes(1),
+                Duration.ofHours(1), meterRegistry)
+        and: 'search criteria'
+            def searchCriteria = buildSearchCriteria(OffsetDateTime.now().minus(createdBeforeAge), null)
+        when: 'the search is requested twice'
+            cache.get(searchCriteria, mockSearch)
+            cache.get(searchCriteria, mockSearch)
+        then: 'it is run each time'
+            2 * mockSearch.get() >> searchResult
+        where:
+            scenario                                   | enabled | createdBeforeAge
+            'when created before is within safety lag' | true    | Duration.ofMinutes(1)
+            'when the cache is disabled'               | false   | Duration.ofHours(1)
+    }
+
+    def buildSearchCriteria(createdBefore, simplePayloadFilter) {
+        return SearchCriteria.builder()
+            .dataspaceName('my-dataspace')
+            .anchorName('my-anchor')
+            .createdBefore(createdBefore)
+            .simplePayloadFilter(simplePayloadFilter)
+            .pagination(0, 10)
+            .build()
+    }
+
+}